@@ -0,0 +1,529 @@
+package com.team.mcp.analytics;
+
+import com.team.mcp.search.IngestListener;
+import com.team.mcp.search.TweetChange;
+import com.team.mcp.search.TweetChangeListener;
+import com.team.mcp.search.TweetTerms;
+import com.team.mcp.twitter.dto.Tweet;
+import com.team.mcp.warmup.AccountWarmer;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Running per-account analytics totals: tweets per hashtag, tweets per
+ * UTC hour of day and the tweet count, over the account's full history.
+ *
+ * <p>Counts are kept in memory and in the rollup tables of
+ * {@code V11__analytics_rollups.sql}. Ingest listeners run after the
+ * ingest commit, so each batch is added to the tables in a transaction
+ * of its own ({@code REQUIRES_NEW}) and to memory only once that has
+ * committed. An account's totals are loaded from the tables on first
+ * read or warm-up; an account without a rollup row is rebuilt from
+ * {@code tweets} and {@code tweet_hashtags} with {@code GROUP BY} queries
+ * first. Increments for an account that has no rollup yet are skipped,
+ * since its rebuild will count them.
+ *
+ * <p>A batch is visible to a rebuild as soon as it commits, which is
+ * before its listener runs. A rebuild therefore records the account's
+ * change-feed position ({@code change_seq}, {@code V13}) it read, in the
+ * same repeatable-read snapshot as the counts, and an increment whose
+ * batch is at or below it is skipped. Without a position (a schema with
+ * no change feed) batches are always added. At most
+ * {@code app.analytics.aggregates.maxAccounts} accounts are held in
+ * memory, least recently used evicted first.
+ *
+ * <p>Deletes and purges seen on the change feed drop the affected
+ * rollups, which are rebuilt on next read. Hashtags are counted once per
+ * tweet, like {@code tweet_hashtags}.
+ *
+ * <p>Disabled with {@code app.analytics.aggregates.enabled=false}.
+ */
+@Component
+public final class AccountAggregates
+    implements IngestListener, TweetChangeListener, AccountWarmer {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(AccountAggregates.class);
+
+  /** Hours per day. */
+  private static final int HOURS_PER_DAY = 24;
+
+  /** Lock stripes serializing loads and increments per account. */
+  private static final int LOCK_STRIPES = 64;
+
+  /** Rollup tables, children first. */
+  private static final String[] TABLES = {
+      "account_hashtag_counts", "account_hour_counts", "account_totals",
+  };
+
+  /** Tag counts of one account, computed from {@code tweet_hashtags}. */
+  private static final String REBUILD_TAGS_SQL =
+      "INSERT INTO account_hashtag_counts (account_id, tag, tweets) "
+          + "SELECT account_id, tag, COUNT(*) FROM tweet_hashtags "
+          + "WHERE account_id = ? GROUP BY account_id, tag";
+
+  /** Hour counts of one account, computed from {@code tweets}. */
+  private static final String REBUILD_HOURS_SQL =
+      "INSERT INTO account_hour_counts (account_id, hour_utc, tweets) "
+          + "SELECT account_id, h, COUNT(*) FROM ("
+          + "SELECT account_id, "
+          + "EXTRACT(HOUR FROM created_at AT TIME ZONE 'UTC') AS h "
+          + "FROM tweets WHERE account_id = ?) t GROUP BY account_id, h";
+
+  /**
+   * Total of one account, computed from its hour counts, and the
+   * change-feed position the rebuild covers.
+   */
+  private static final String REBUILD_TOTAL_SQL =
+      "INSERT INTO account_totals (account_id, tweets, change_seq) "
+          + "SELECT ?, COALESCE(SUM(tweets), 0), "
+          + "(SELECT COALESCE(MAX(change_seq), 0) FROM tweets "
+          + "WHERE account_id = ?) FROM account_hour_counts "
+          + "WHERE account_id = ?";
+
+  /**
+   * Add to a total; no row means the account has no rollup yet, and a
+   * rollup at or past the batch's position has it already.
+   */
+  private static final String ADD_TOTAL_SQL =
+      "UPDATE account_totals SET tweets = tweets + ? "
+          + "WHERE account_id = ? AND change_seq < ?";
+
+  /** Add to a tag count. */
+  private static final String ADD_TAG_SQL =
+      "UPDATE account_hashtag_counts SET tweets = tweets + ? "
+          + "WHERE account_id = ? AND tag = ?";
+
+  /** First count of a tag; a concurrent first count wins. */
+  private static final String NEW_TAG_SQL =
+      "INSERT INTO account_hashtag_counts (account_id, tag, tweets) "
+          + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+
+  /** Add to an hour count. */
+  private static final String ADD_HOUR_SQL =
+      "UPDATE account_hour_counts SET tweets = tweets + ? "
+          + "WHERE account_id = ? AND hour_utc = ?";
+
+  /** First count of an hour; a concurrent first count wins. */
+  private static final String NEW_HOUR_SQL =
+      "INSERT INTO account_hour_counts (account_id, hour_utc, tweets) "
+          + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+
+  /** Optional JDBC access; {@code null} keeps totals in memory only. */
+  private final JdbcTemplate jdbc;
+
+  /** Whether anything is counted. */
+  private final boolean enabled;
+
+  /**
+   * Optional transactions (always new: listeners run after the ingest
+   * transaction has committed) for increments and invalidations.
+   */
+  private TransactionTemplate tx;
+
+  /** Like {@link #tx}, with one snapshot for a whole rebuild. */
+  private TransactionTemplate rebuildTx;
+
+  /** Loaded accounts (guarded by the account's lock stripe). */
+  private final AccountCache<Counts> accounts;
+
+  /** Account lock stripes. */
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  /**
+   * Creates the aggregates.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param enabledFlag {@code app.analytics.aggregates.enabled}
+   * @param maxAccounts {@code app.analytics.aggregates.maxAccounts}
+   */
+  @Autowired
+  public AccountAggregates(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.analytics.aggregates.enabled:true}")
+      final boolean enabledFlag,
+      @Value("${app.analytics.aggregates.maxAccounts:1000}")
+      final int maxAccounts) {
+    this.jdbc = jdbcTemplate;
+    this.enabled = enabledFlag;
+    this.accounts = new AccountCache<>(maxAccounts);
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  /**
+   * In-memory aggregates without a database, for tests.
+   */
+  AccountAggregates() {
+    this(null, true, 1000);
+  }
+
+  /**
+   * Optional setter injection of the transaction template; its manager
+   * is used with {@code PROPAGATION_REQUIRES_NEW}, and for rebuilds also
+   * with {@code ISOLATION_REPEATABLE_READ}.
+   *
+   * @param transactionTemplate template (may be null)
+   */
+  @Autowired(required = false)
+  public void setTransactionTemplate(
+      final TransactionTemplate transactionTemplate) {
+    if (transactionTemplate == null
+        || transactionTemplate.getTransactionManager() == null) {
+      this.tx = null;
+      this.rebuildTx = null;
+      return;
+    }
+    final TransactionTemplate own =
+        new TransactionTemplate(transactionTemplate.getTransactionManager());
+    own.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    final TransactionTemplate snapshot =
+        new TransactionTemplate(transactionTemplate.getTransactionManager());
+    snapshot.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    snapshot.setIsolationLevel(
+        TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.tx = own;
+    this.rebuildTx = snapshot;
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    onIngested(accountId, tweets, 0);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets,
+      final long changeSeq) {
+    if (!enabled || accountId == null || tweets.isEmpty()) {
+      return;
+    }
+    final Map<String, Long> tags = new HashMap<>();
+    final long[] hours = new long[HOURS_PER_DAY];
+    for (Tweet t : tweets) {
+      for (String tag : TweetTerms.of(t.text()).hashtags()) {
+        tags.merge(tag, 1L, Long::sum);
+      }
+      hours[hourOf(t)]++;
+    }
+    if (jdbc == null) {
+      accounts.getOrCreate(accountId, Counts::new)
+          .add(tweets.size(), tags, hours);
+      return;
+    }
+    final long upTo = changeSeq > 0 ? changeSeq : Long.MAX_VALUE;
+    synchronized (lock(accountId)) {
+      final boolean[] added = new boolean[1];
+      try {
+        inTransaction(tx, () -> added[0] =
+            persist(accountId, tweets.size(), tags, hours, upTo));
+      } catch (DataAccessException ex) {
+        // Rollup unusable: forget it so the next read rebuilds it.
+        LOG.warn("Rollup update for {} failed: {}", accountId, ex.toString());
+        invalidate(accountId);
+        return;
+      }
+      final Counts c = accounts.get(accountId);
+      if (added[0] && c != null) {
+        c.add(tweets.size(), tags, hours);
+      }
+    }
+  }
+
+  @Override
+  public void onChanges(final List<TweetChange> changes) {
+    if (!enabled) {
+      return;
+    }
+    final Set<String> stale = new HashSet<>();
+    for (TweetChange ch : changes) {
+      if (ch.type() == TweetChange.Type.PURGE) {
+        invalidateAll();
+        stale.clear();
+      } else if (ch.type() == TweetChange.Type.DELETE) {
+        stale.add(ch.accountId());
+      }
+    }
+    for (String accountId : stale) {
+      invalidate(accountId);
+    }
+  }
+
+  @Override
+  public void warmUp(final String accountId) {
+    counts(accountId);
+  }
+
+  /**
+   * Totals of an account, loading or rebuilding them on first use.
+   *
+   * @param accountId logical account id
+   * @param topN hashtags to include
+   * @return totals, or {@code null} if disabled or unavailable
+   */
+  public Totals totals(final String accountId, final int topN) {
+    final Counts c = counts(accountId);
+    return c == null ? null : c.totals(topN);
+  }
+
+  /**
+   * Drop an account's totals, in memory and in the rollup tables; the
+   * next read rebuilds them from {@code tweets}.
+   *
+   * @param accountId logical account id
+   */
+  public void invalidate(final String accountId) {
+    accounts.remove(accountId);
+    if (jdbc != null && accountId != null) {
+      try {
+        inTransaction(tx, () -> jdbc.update(
+            "DELETE FROM account_totals WHERE account_id = ?", accountId));
+      } catch (DataAccessException ex) {
+        LOG.debug("Rollup invalidation failed: {}", ex.toString());
+      }
+    }
+  }
+
+  /** Drop every account's totals. */
+  public void invalidateAll() {
+    accounts.clear();
+    if (jdbc != null) {
+      try {
+        inTransaction(tx, () -> jdbc.update("DELETE FROM account_totals"));
+      } catch (DataAccessException ex) {
+        LOG.debug("Rollup invalidation failed: {}", ex.toString());
+      }
+    }
+  }
+
+  // ----- helpers -----
+
+  private Counts counts(final String accountId) {
+    if (!enabled || accountId == null) {
+      return null;
+    }
+    final Counts c = accounts.get(accountId);
+    if (c != null || jdbc == null) {
+      return c;
+    }
+    synchronized (lock(accountId)) {
+      try {
+        return accounts.load(accountId, this::load);
+      } catch (DataAccessException ex) {
+        LOG.warn("Rollup load for {} failed: {}", accountId, ex.toString());
+        return null;
+      }
+    }
+  }
+
+  private Object lock(final String accountId) {
+    return locks[Math.floorMod(accountId.hashCode(), LOCK_STRIPES)];
+  }
+
+  /**
+   * Run database work in a new transaction when a template is set.
+   *
+   * @param template {@link #tx} or {@link #rebuildTx}
+   * @param work statements to run
+   */
+  private static void inTransaction(final TransactionTemplate template,
+      final Runnable work) {
+    if (template != null) {
+      template.executeWithoutResult(s -> work.run());
+    } else {
+      work.run();
+    }
+  }
+
+  /**
+   * Read an account's rollup, rebuilding it first if it has none.
+   *
+   * @param accountId logical account id
+   * @return counts
+   */
+  private Counts load(final String accountId) {
+    final List<Long> total = jdbc.queryForList(
+        "SELECT tweets FROM account_totals WHERE account_id = ?",
+        Long.class, accountId);
+    if (total.isEmpty()) {
+      inTransaction(rebuildTx, () -> rebuild(accountId));
+    }
+    final Counts c = new Counts();
+    final long[] hours = new long[HOURS_PER_DAY];
+    final RowCallbackHandler hourRow =
+        rs -> hours[rs.getInt(1)] += rs.getLong(2);
+    jdbc.query("SELECT hour_utc, tweets FROM account_hour_counts "
+        + "WHERE account_id = ?", hourRow, accountId);
+    final Map<String, Long> tags = new HashMap<>();
+    final RowCallbackHandler tagRow =
+        rs -> tags.put(rs.getString(1), rs.getLong(2));
+    jdbc.query("SELECT tag, tweets FROM account_hashtag_counts "
+        + "WHERE account_id = ?", tagRow, accountId);
+    final Long stored = jdbc.queryForObject(
+        "SELECT tweets FROM account_totals WHERE account_id = ?",
+        Long.class, accountId);
+    c.add(stored == null ? 0 : stored, tags, hours);
+    return c;
+  }
+
+  /**
+   * Recompute an account's rollup from {@code tweets} and
+   * {@code tweet_hashtags}, recording the position it covers.
+   *
+   * @param accountId logical account id
+   */
+  private void rebuild(final String accountId) {
+    for (String table : TABLES) {
+      jdbc.update("DELETE FROM " + table + " WHERE account_id = ?",
+          accountId);
+    }
+    jdbc.update(REBUILD_TAGS_SQL, accountId);
+    jdbc.update(REBUILD_HOURS_SQL, accountId);
+    jdbc.update(REBUILD_TOTAL_SQL, accountId, accountId, accountId);
+    LOG.debug("Rebuilt analytics rollup for {}", accountId);
+  }
+
+  /**
+   * Add one batch to an account's rollup, if it has one that does not
+   * cover the batch yet.
+   *
+   * @param accountId logical account id
+   * @param tweets tweets in the batch
+   * @param tags tweets per hashtag
+   * @param hours tweets per UTC hour
+   * @param changeSeq the batch's change-feed position
+   * @return whether the batch was added
+   */
+  private boolean persist(final String accountId, final int tweets,
+      final Map<String, Long> tags, final long[] hours,
+      final long changeSeq) {
+    if (jdbc.update(ADD_TOTAL_SQL, tweets, accountId, changeSeq) == 0) {
+      return false;
+    }
+    for (Map.Entry<String, Long> e : tags.entrySet()) {
+      increment(ADD_TAG_SQL, NEW_TAG_SQL, accountId, e.getKey(),
+          e.getValue());
+    }
+    for (int h = 0; h < HOURS_PER_DAY; h++) {
+      if (hours[h] > 0) {
+        increment(ADD_HOUR_SQL, NEW_HOUR_SQL, accountId, h, hours[h]);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Upsert without a failing statement (which would abort the
+   * transaction on PostgreSQL): add to the row, or insert it with
+   * {@code ON CONFLICT DO NOTHING}; if a concurrent insert of the same
+   * key won, add to that row.
+   *
+   * @param addSql update statement (delta, account, key)
+   * @param newSql insert statement (account, key, delta)
+   * @param accountId logical account id
+   * @param key tag or hour
+   * @param delta amount to add
+   */
+  private void increment(final String addSql, final String newSql,
+      final String accountId, final Object key, final long delta) {
+    if (jdbc.update(addSql, delta, accountId, key) > 0) {
+      return;
+    }
+    if (jdbc.update(newSql, accountId, key, delta) == 0) {
+      jdbc.update(addSql, delta, accountId, key);
+    }
+  }
+
+  private static int hourOf(final Tweet t) {
+    return t.createdAt() == null
+        ? 0 : t.createdAt().atOffset(ZoneOffset.UTC).getHour();
+  }
+
+  /**
+   * One hashtag and its tweet count.
+   *
+   * @param tag lowercased {@code #tag}
+   * @param tweets tweets using it
+   */
+  public record TagCount(String tag, long tweets) {
+  }
+
+  /**
+   * Snapshot of one account's totals.
+   *
+   * @param tweets tweets stored for the account
+   * @param byHour tweets per UTC hour of day (length 24)
+   * @param top most used hashtags, descending (ties by tag)
+   */
+  public record Totals(long tweets, long[] byHour, List<TagCount> top) {
+  }
+
+  /** Mutable totals of one account, guarded by itself. */
+  private static final class Counts {
+
+    /** Highest count first, then by tag. */
+    private static final Comparator<TagCount> RANK =
+        Comparator.comparingLong(TagCount::tweets).reversed()
+            .thenComparing(TagCount::tag);
+
+    /** Tweet count. */
+    private long tweets;
+
+    /** Tweets per UTC hour. */
+    private final long[] hours = new long[HOURS_PER_DAY];
+
+    /** Tag to count. */
+    private final Map<String, Long> tags = new HashMap<>();
+
+    /** The same counts, ranked, so the top k costs O(k). */
+    private final TreeSet<TagCount> ranked = new TreeSet<>(RANK);
+
+    synchronized void add(final long n, final Map<String, Long> tagDelta,
+        final long[] hourDelta) {
+      tweets += n;
+      for (int h = 0; h < HOURS_PER_DAY; h++) {
+        hours[h] += hourDelta[h];
+      }
+      for (Map.Entry<String, Long> e : tagDelta.entrySet()) {
+        final Long old = tags.get(e.getKey());
+        final long now = (old == null ? 0 : old) + e.getValue();
+        if (old != null) {
+          ranked.remove(new TagCount(e.getKey(), old));
+        }
+        tags.put(e.getKey(), now);
+        ranked.add(new TagCount(e.getKey(), now));
+      }
+    }
+
+    synchronized Totals totals(final int topN) {
+      final List<TagCount> top = new ArrayList<>(Math.max(0, topN));
+      for (TagCount tc : ranked) {
+        if (top.size() >= topN) {
+          break;
+        }
+        top.add(tc);
+      }
+      return new Totals(tweets, hours.clone(), top);
+    }
+  }
+}
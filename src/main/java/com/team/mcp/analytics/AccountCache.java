@@ -0,0 +1,265 @@
+package com.team.mcp.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-account state of an analytics listener, held for the most recently
+ * used {@code maxAccounts} accounts; the least recently used one is
+ * evicted and loaded again on its next use.
+ *
+ * <p>Ingest listeners run after the ingest has committed, so a batch
+ * that arrives while its account is loading may or may not have been
+ * read by the load. Rather than skip it (and undercount) or add it (and
+ * maybe count it twice), such a load, or one overtaken by a
+ * {@link #remove}, is repeated, up to {@value #MAX_LOADS} times for an
+ * account that keeps receiving batches. A batch can also commit before a
+ * load reads and reach its listener only after the load is cached; a
+ * load that reports the change feed position it read up to
+ * ({@link #loadUpTo}) makes {@link #forIngest(String, long)} skip such
+ * batches. A load that finds nothing stored
+ * returns {@code null} and is not cached, so queries for unknown account
+ * ids do not fill the cache.
+ *
+ * @param <V> per-account state; callers guard it themselves
+ */
+final class AccountCache<V> {
+
+  /** An account's change feed position, for {@link #loadUpTo} loaders. */
+  static final String CHANGE_SEQ_SQL =
+      "SELECT COALESCE(MAX(change_seq), 0) FROM tweets WHERE account_id = ?";
+
+  /** Loads of one busy account before the last one is kept as is. */
+  static final int MAX_LOADS = 3;
+
+  /** Index of the running loaders in a {@link #loading} entry. */
+  private static final int LOADERS = 0;
+
+  /** Index of the batches seen in a {@link #loading} entry. */
+  private static final int BATCHES = 1;
+
+  /** Held accounts, least recently used first (guarded by this). */
+  private final LinkedHashMap<String, Loaded<V>> held;
+
+  /** Loaders and batches seen per account being loaded (guarded by this). */
+  private final Map<String, long[]> loading = new HashMap<>();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxAccounts most accounts held
+   */
+  AccountCache(final int maxAccounts) {
+    final int max = Math.max(1, maxAccounts);
+    this.held = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          final Map.Entry<String, Loaded<V>> e) {
+        return size() > max;
+      }
+    };
+  }
+
+  /**
+   * Held state of an account.
+   *
+   * @param accountId logical account id
+   * @return state, or {@code null} if not held
+   */
+  synchronized V get(final String accountId) {
+    return state(held.get(accountId));
+  }
+
+  /**
+   * Held state of an account, created empty if absent (memory-only
+   * listeners, which have nothing to load from).
+   *
+   * @param accountId logical account id
+   * @param empty new empty state
+   * @return state
+   */
+  synchronized V getOrCreate(final String accountId,
+      final Supplier<V> empty) {
+    return held.computeIfAbsent(accountId,
+        k -> new Loaded<>(empty.get(), 0)).state();
+  }
+
+  /**
+   * State to add an ingested batch to. An account that is not held is
+   * left to its next load, which reads the batch from the database; a
+   * load already running for it is repeated.
+   *
+   * @param accountId logical account id
+   * @return state, or {@code null} to skip the batch
+   */
+  V forIngest(final String accountId) {
+    return forIngest(accountId, 0);
+  }
+
+  /**
+   * Like {@link #forIngest(String)}, also skipping a batch the held load
+   * already read: one at or below the position it read up to.
+   *
+   * @param accountId logical account id
+   * @param changeSeq the account's change feed position after the batch;
+   *     {@code 0} if unknown (always added)
+   * @return state, or {@code null} to skip the batch
+   */
+  synchronized V forIngest(final String accountId, final long changeSeq) {
+    final Loaded<V> v = held.get(accountId);
+    if (v == null) {
+      touch(accountId);
+      return null;
+    }
+    return changeSeq > 0 && changeSeq <= v.upTo() ? null : v.state();
+  }
+
+  /**
+   * Held state of an account, loading it first if needed.
+   *
+   * @param accountId logical account id
+   * @param loader reads the account; {@code null} if nothing is stored
+   * @return state, or {@code null} if nothing is stored (not cached)
+   */
+  V load(final String accountId, final Function<String, V> loader) {
+    return loadUpTo(accountId, id -> {
+      final V v = loader.apply(id);
+      return v == null ? null : new Loaded<>(v, 0);
+    });
+  }
+
+  /**
+   * Like {@link #load}, with a loader that also reports the change feed
+   * position it read up to.
+   *
+   * @param accountId logical account id
+   * @param loader reads the account; {@code null} if nothing is stored
+   * @return state, or {@code null} if nothing is stored (not cached)
+   */
+  V loadUpTo(final String accountId,
+      final Function<String, Loaded<V>> loader) {
+    long seen;
+    synchronized (this) {
+      final Loaded<V> v = held.get(accountId);
+      if (v != null) {
+        return v.state();
+      }
+      final long[] l = loading.computeIfAbsent(accountId, k -> new long[2]);
+      l[LOADERS]++;
+      seen = l[BATCHES];
+    }
+    try {
+      for (int attempt = 1; ; attempt++) {
+        final Loaded<V> loaded = loader.apply(accountId);
+        synchronized (this) {
+          final Loaded<V> v = held.get(accountId);
+          if (v != null) {
+            return v.state(); // a concurrent load finished first
+          }
+          final long now = loading.get(accountId)[BATCHES];
+          if (now == seen || attempt >= MAX_LOADS) {
+            if (loaded != null) {
+              held.put(accountId, loaded);
+            }
+            return state(loaded);
+          }
+          seen = now;
+        }
+      }
+    } finally {
+      synchronized (this) {
+        final long[] l = loading.get(accountId);
+        if (--l[LOADERS] == 0) {
+          loading.remove(accountId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drop an account; a load running for it is repeated.
+   *
+   * @param accountId logical account id
+   */
+  synchronized void remove(final String accountId) {
+    held.remove(accountId);
+    touch(accountId);
+  }
+
+  /** Drop every account; running loads are repeated. */
+  synchronized void clear() {
+    held.clear();
+    for (long[] l : loading.values()) {
+      l[BATCHES]++;
+    }
+  }
+
+  /**
+   * Held states, most recently used last.
+   *
+   * @return copy of the held states
+   */
+  synchronized List<V> values() {
+    final List<V> out = new ArrayList<>(held.size());
+    for (Loaded<V> v : held.values()) {
+      out.add(v.state());
+    }
+    return out;
+  }
+
+  /**
+   * Note a change to an account that a running load may have missed.
+   *
+   * @param accountId logical account id
+   */
+  private void touch(final String accountId) {
+    final long[] l = loading.get(accountId);
+    if (l != null) {
+      l[BATCHES]++;
+    }
+  }
+
+  /**
+   * Template for {@link #loadUpTo} loaders: a new read-only transaction
+   * with one snapshot, so a load's rows and its {@link #CHANGE_SEQ_SQL}
+   * position agree.
+   *
+   * @param transactionTemplate application template (may be null)
+   * @return template on its manager, or {@code null} without one
+   */
+  static TransactionTemplate snapshot(
+      final TransactionTemplate transactionTemplate) {
+    if (transactionTemplate == null
+        || transactionTemplate.getTransactionManager() == null) {
+      return null;
+    }
+    final TransactionTemplate t =
+        new TransactionTemplate(transactionTemplate.getTransactionManager());
+    t.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    t.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    t.setReadOnly(true);
+    return t;
+  }
+
+  private static <V> V state(final Loaded<V> v) {
+    return v == null ? null : v.state();
+  }
+
+  /**
+   * A loaded account.
+   *
+   * @param state per-account state
+   * @param upTo the account's change feed position ({@code change_seq})
+   *     the load read up to; {@code 0} if unknown
+   * @param <V> per-account state
+   */
+  record Loaded<V>(V state, long upTo) {
+  }
+}
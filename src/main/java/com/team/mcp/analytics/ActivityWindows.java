@@ -0,0 +1,375 @@
+package com.team.mcp.analytics;
+
+import com.team.mcp.search.IngestListener;
+import com.team.mcp.search.TweetChange;
+import com.team.mcp.search.TweetChangeListener;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tweets per account in tumbling minute, hour and day buckets, each held
+ * in a fixed {@link RingCounter}: the last hour by minute, the last week
+ * by hour and the last {@code app.analytics.windows.days} by day. Series
+ * and sliding totals (1h, 24h, 7d) are read from the rings without
+ * touching {@code tweets}.
+ *
+ * <p>Fed at ingest. An account is loaded on first use with one
+ * {@code GROUP BY} per unit over its recent {@code tweets}; batches
+ * ingested for an account that is not loaded yet are left to that load
+ * (see {@link AccountCache} for batches arriving during or read by it).
+ * At most
+ * {@code app.analytics.windows.maxAccounts} accounts are held, least
+ * recently used evicted first. Without JDBC, accounts start empty. An
+ * account with a deleted tweet on the change feed is dropped and loaded
+ * again on next use; a retention purge drops every account. Tweets dated
+ * after the clock's current bucket (clock skew, bad input) count in the
+ * current bucket, so they cannot rotate the rings ahead and clear them.
+ *
+ * <p>Disabled with {@code app.analytics.windows.enabled=false}.
+ */
+@Component
+public final class ActivityWindows
+    implements IngestListener, TweetChangeListener {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ActivityWindows.class);
+
+  /** Minutes in the sliding hour. */
+  private static final int MINUTES = 60;
+
+  /** Hours in the sliding week. */
+  private static final int HOURS = 168;
+
+  /** Hours in the sliding day. */
+  private static final int HOURS_PER_DAY = 24;
+
+  /** Tweets per bucket of one unit, for the first load. */
+  private static final String LOAD_SQL =
+      "SELECT b, COUNT(*) FROM (SELECT CAST(FLOOR("
+          + "EXTRACT(EPOCH FROM created_at) / ?) AS BIGINT) AS b "
+          + "FROM tweets WHERE account_id = ? AND created_at >= ?) t "
+          + "GROUP BY b";
+
+  /** Bucket width. */
+  public enum Unit {
+    /** One minute. */
+    MINUTE(60L),
+    /** One hour. */
+    HOUR(3_600L),
+    /** One UTC day. */
+    DAY(86_400L);
+
+    /** Seconds per bucket. */
+    private final long seconds;
+
+    Unit(final long bucketSeconds) {
+      this.seconds = bucketSeconds;
+    }
+
+    long bucket(final Instant t) {
+      return Math.floorDiv(t.getEpochSecond(), seconds);
+    }
+
+    Instant start(final long bucket) {
+      return Instant.ofEpochSecond(bucket * seconds);
+    }
+  }
+
+  /** Optional JDBC access for loading accounts. */
+  private final JdbcTemplate jdbc;
+
+  /** Time source. */
+  private final Clock clock;
+
+  /** Whether anything is counted. */
+  private final boolean enabled;
+
+  /** Days kept in the day ring. */
+  private final int days;
+
+  /** Optional snapshot for loads; see {@link AccountCache#snapshot}. */
+  private TransactionTemplate loadTx;
+
+  /** Account id to rings (each guarded by the {@link Rings} itself). */
+  private final AccountCache<Rings> accounts;
+
+  /**
+   * Creates the windows.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param appClock time source
+   * @param enabledFlag {@code app.analytics.windows.enabled}
+   * @param configuredDays {@code app.analytics.windows.days}
+   * @param maxAccounts {@code app.analytics.windows.maxAccounts}
+   */
+  @Autowired
+  public ActivityWindows(
+      final JdbcTemplate jdbcTemplate,
+      final Clock appClock,
+      @Value("${app.analytics.windows.enabled:true}")
+      final boolean enabledFlag,
+      @Value("${app.analytics.windows.days:30}") final int configuredDays,
+      @Value("${app.analytics.windows.maxAccounts:10000}")
+      final int maxAccounts) {
+    this.jdbc = jdbcTemplate;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.days = Math.max(HOURS / HOURS_PER_DAY, configuredDays);
+    this.accounts = new AccountCache<>(maxAccounts);
+  }
+
+  /**
+   * In-memory windows without a database, for tests.
+   *
+   * @param appClock time source
+   */
+  ActivityWindows(final Clock appClock) {
+    this(null, appClock, true, 30, 10_000);
+  }
+
+  /**
+   * Optional setter injection of the transaction template, whose manager
+   * gives each load one snapshot (see {@link AccountCache#snapshot}).
+   *
+   * @param transactionTemplate template (may be null)
+   */
+  @Autowired(required = false)
+  public void setTransactionTemplate(
+      final TransactionTemplate transactionTemplate) {
+    this.loadTx = AccountCache.snapshot(transactionTemplate);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    onIngested(accountId, tweets, 0);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets,
+      final long changeSeq) {
+    if (!enabled || accountId == null || tweets.isEmpty()) {
+      return;
+    }
+    final Rings r = jdbc == null
+        ? accounts.getOrCreate(accountId, () -> new Rings(days))
+        : accounts.forIngest(accountId, changeSeq);
+    if (r == null) {
+      return;
+    }
+    final Instant now = clock.instant();
+    synchronized (r) {
+      for (Tweet t : tweets) {
+        if (t.createdAt() != null) {
+          r.add(t.createdAt(), now, 1);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onChanges(final List<TweetChange> changes) {
+    for (TweetChange c : changes) {
+      if (c.type() == TweetChange.Type.PURGE) {
+        accounts.clear();
+      } else if (c.type() == TweetChange.Type.DELETE
+          && c.accountId() != null) {
+        accounts.remove(c.accountId());
+      }
+    }
+  }
+
+  /**
+   * Tweets per bucket for the newest {@code points} buckets of a unit,
+   * ending with the current one.
+   *
+   * @param accountId logical account id
+   * @param unit bucket width
+   * @param points buckets wanted (capped at the ring: 60 minutes, 168
+   *     hours or the configured days)
+   * @return series, or {@code null} if disabled or the account cannot be
+   *     loaded
+   */
+  public Series series(final String accountId, final Unit unit,
+      final int points) {
+    final Rings r = rings(accountId);
+    if (r == null) {
+      return null;
+    }
+    final Instant now = clock.instant();
+    final long current = unit.bucket(now);
+    final long[] counts;
+    synchronized (r) {
+      counts = r.ring(unit).series(current, points);
+    }
+    final List<Point> out = new ArrayList<>(counts.length);
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      out.add(new Point(
+          unit.start(current - counts.length + 1 + i), counts[i]));
+      total += counts[i];
+    }
+    return new Series(accountId, unit, out, total);
+  }
+
+  /**
+   * Sliding totals: the current minute and the 59 before it, the current
+   * hour and the 23 (or 167) before it.
+   *
+   * @param accountId logical account id
+   * @return totals, or {@code null} if disabled or unavailable
+   */
+  public Totals totals(final String accountId) {
+    final Rings r = rings(accountId);
+    if (r == null) {
+      return null;
+    }
+    final Instant now = clock.instant();
+    final long[] minutes;
+    final long[] hours;
+    synchronized (r) {
+      minutes = r.ring(Unit.MINUTE).series(Unit.MINUTE.bucket(now), MINUTES);
+      hours = r.ring(Unit.HOUR).series(Unit.HOUR.bucket(now), HOURS);
+    }
+    long day = 0;
+    long week = 0;
+    for (int i = 0; i < hours.length; i++) {
+      week += hours[i];
+      day += i >= hours.length - HOURS_PER_DAY ? hours[i] : 0;
+    }
+    long hour = 0;
+    for (long m : minutes) {
+      hour += m;
+    }
+    return new Totals(accountId, hour, day, week, now);
+  }
+
+  private Rings rings(final String accountId) {
+    if (!enabled || accountId == null) {
+      return null;
+    }
+    if (jdbc == null) {
+      return accounts.get(accountId);
+    }
+    try {
+      final Rings r = accounts.loadUpTo(accountId, this::load);
+      return r != null ? r : new Rings(days);
+    } catch (DataAccessException ex) {
+      LOG.warn("Activity window load for {} failed: {}", accountId,
+          ex.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Count an account's recent tweets into new rings, in one snapshot with
+   * its change feed position when a template is set (else the position
+   * is read first, and a batch committing in between may be counted
+   * twice).
+   *
+   * @param accountId logical account id
+   * @return rings, or {@code null} if it has no recent tweets
+   */
+  private AccountCache.Loaded<Rings> load(final String accountId) {
+    return loadTx == null ? read(accountId)
+        : loadTx.execute(s -> read(accountId));
+  }
+
+  private AccountCache.Loaded<Rings> read(final String accountId) {
+    final Long upTo = jdbc.queryForObject(
+        AccountCache.CHANGE_SEQ_SQL, Long.class, accountId);
+    final Rings r = new Rings(days);
+    final Instant now = clock.instant();
+    final boolean[] found = new boolean[1];
+    for (Unit u : Unit.values()) {
+      final long current = u.bucket(now);
+      final long since = current - r.ring(u).size() + 1;
+      final RowCallbackHandler row = rs -> {
+        r.ring(u).add(Math.min(rs.getLong(1), current), rs.getLong(2));
+        found[0] = true;
+      };
+      r.ring(u).advance(current);
+      jdbc.query(LOAD_SQL, row, u.seconds, accountId,
+          Timestamp.from(u.start(since)));
+    }
+    return found[0]
+        ? new AccountCache.Loaded<>(r, upTo == null ? 0 : upTo) : null;
+  }
+
+  /** One account's rings, one per {@link Unit}. */
+  private static final class Rings {
+
+    /** Rings by {@link Unit#ordinal()}. */
+    private final RingCounter[] rings;
+
+    Rings(final int dayCount) {
+      this.rings = new RingCounter[] {
+          new RingCounter(MINUTES), new RingCounter(HOURS),
+          new RingCounter(dayCount)};
+    }
+
+    RingCounter ring(final Unit unit) {
+      return rings[unit.ordinal()];
+    }
+
+    /**
+     * Count tweets created at {@code t}, no later than the current bucket.
+     *
+     * @param t creation time
+     * @param now current time
+     * @param n tweets
+     */
+    void add(final Instant t, final Instant now, final long n) {
+      for (Unit u : Unit.values()) {
+        ring(u).add(Math.min(u.bucket(t), u.bucket(now)), n);
+      }
+    }
+  }
+
+  /**
+   * One bucket of a series.
+   *
+   * @param start bucket start
+   * @param tweets tweets created in the bucket
+   */
+  public record Point(Instant start, long tweets) {
+  }
+
+  /**
+   * A time series of tweet counts.
+   *
+   * @param accountId logical account id
+   * @param unit bucket width
+   * @param points buckets, oldest first, ending with the current one
+   * @param total sum of the points
+   */
+  public record Series(String accountId, Unit unit, List<Point> points,
+      long total) {
+  }
+
+  /**
+   * Sliding tweet counts.
+   *
+   * @param accountId logical account id
+   * @param lastHour tweets in the current minute and the 59 before it
+   * @param last24Hours tweets in the current hour and the 23 before it
+   * @param last7Days tweets in the current hour and the 167 before it
+   * @param asOf evaluation time
+   */
+  public record Totals(String accountId, long lastHour, long last24Hours,
+      long last7Days, Instant asOf) {
+  }
+}
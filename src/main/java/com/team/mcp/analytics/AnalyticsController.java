@@ -1,11 +1,13 @@
 package com.team.mcp.analytics;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -19,6 +21,11 @@ import org.springframework.web.bind.annotation.RestController;
  *   <li>/analytics/top-hashtags</li>
  *   <li>/analytics/best-hours</li>
  *   <li>/analytics/summary</li>
+ *   <li>/analytics/distinct-users</li>
+ *   <li>/analytics/distinct-hashtags</li>
+ *   <li>/analytics/series</li>
+ *   <li>/analytics/windows</li>
+ *   <li>POST /analytics/rebuild</li>
  * </ul>
  */
 @RestController
@@ -28,16 +35,36 @@ import org.springframework.web.bind.annotation.RestController;
 )
 public final class AnalyticsController {
 
+  /** Default series length per {@link ActivityWindows.Unit}. */
+  private static final int[] DEFAULT_POINTS = {60, 24, 7};
+
   /** Service that performs analytics. */
   private final AnalyticsService svc;
 
+  /** Running totals behind the service. */
+  private final AccountAggregates aggregates;
+
+  /** Hourly distinct-count sketches. */
+  private final DistinctCounts distinct;
+
+  /** Ring-buffer activity windows. */
+  private final ActivityWindows windows;
+
   /**
    * Creates the controller.
    *
    * @param service analytics service
+   * @param totals running per-account totals
+   * @param distinctCounts hourly distinct-count sketches
+   * @param activityWindows ring-buffer activity windows
    */
-  public AnalyticsController(final AnalyticsService service) {
+  public AnalyticsController(final AnalyticsService service,
+      final AccountAggregates totals, final DistinctCounts distinctCounts,
+      final ActivityWindows activityWindows) {
     this.svc = Objects.requireNonNull(service, "service");
+    this.aggregates = Objects.requireNonNull(totals, "totals");
+    this.distinct = Objects.requireNonNull(distinctCounts, "distinct");
+    this.windows = Objects.requireNonNull(activityWindows, "windows");
   }
 
   /**
@@ -45,15 +72,19 @@ public final class AnalyticsController {
    *
    * @param accountId logical account id
    * @param n number of items to return (defaults to 5 if &lt;= 0)
+   * @param days optional window of the last N UTC days, answered from
+   *     per-day sketches; 0 (default) means all stored tweets
    * @return list of hashtags sorted by frequency
    */
   @GetMapping("/top-hashtags")
   public ResponseEntity<List<String>> topHashtags(
       @RequestParam("accountId") final String accountId,
       @RequestParam(name = "n", required = false, defaultValue = "5")
-      final int n) {
+      final int n,
+      @RequestParam(name = "days", required = false, defaultValue = "0")
+      final int days) {
 
-    final List<String> tags = svc.topHashtags(accountId, n);
+    final List<String> tags = svc.topHashtags(accountId, n, days);
     return ResponseEntity.ok(tags);
   }
 
@@ -84,4 +115,110 @@ public final class AnalyticsController {
     final AnalyticsService.Summary out = svc.summary(accountId);
     return ResponseEntity.ok(out);
   }
+
+  /**
+   * Estimate distinct tweet authors over the last {@code hours} UTC
+   * hours, across one or more accounts.
+   *
+   * @param accountIds accounts (repeat the parameter or comma-separate)
+   * @param hours window length (default one week)
+   * @return estimate with its window and standard error; 404 if the
+   *     counters are disabled
+   */
+  @GetMapping("/distinct-users")
+  public ResponseEntity<DistinctCounts.DistinctCount> distinctUsers(
+      @RequestParam("accountId") final List<String> accountIds,
+      @RequestParam(name = "hours", required = false, defaultValue = "168")
+      final int hours) {
+
+    return distinct(accountIds, DistinctCounts.Kind.USERS, hours);
+  }
+
+  /**
+   * Estimate distinct hashtags over the last {@code hours} UTC hours,
+   * across one or more accounts.
+   *
+   * @param accountIds accounts (repeat the parameter or comma-separate)
+   * @param hours window length (default one week)
+   * @return estimate with its window and standard error; 404 if the
+   *     counters are disabled
+   */
+  @GetMapping("/distinct-hashtags")
+  public ResponseEntity<DistinctCounts.DistinctCount> distinctHashtags(
+      @RequestParam("accountId") final List<String> accountIds,
+      @RequestParam(name = "hours", required = false, defaultValue = "168")
+      final int hours) {
+
+    return distinct(accountIds, DistinctCounts.Kind.HASHTAGS, hours);
+  }
+
+  /**
+   * Tweets per tumbling bucket, newest bucket last.
+   *
+   * @param accountId logical account id
+   * @param unit {@code minute}, {@code hour} (default) or {@code day}
+   * @param points buckets to return; 0 (default) means 60 minutes, 24
+   *     hours or 7 days
+   * @return series; 400 for an unknown unit, 404 if windows are disabled
+   */
+  @GetMapping("/series")
+  public ResponseEntity<ActivityWindows.Series> series(
+      @RequestParam("accountId") final String accountId,
+      @RequestParam(name = "unit", required = false, defaultValue = "hour")
+      final String unit,
+      @RequestParam(name = "points", required = false, defaultValue = "0")
+      final int points) {
+
+    final ActivityWindows.Unit u;
+    try {
+      u = ActivityWindows.Unit.valueOf(unit.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.badRequest().build();
+    }
+    final int n = points > 0 ? points : DEFAULT_POINTS[u.ordinal()];
+    final ActivityWindows.Series out = windows.series(accountId, u, n);
+    return out == null
+        ? ResponseEntity.notFound().build()
+        : ResponseEntity.ok(out);
+  }
+
+  /**
+   * Sliding tweet counts for the last hour, 24 hours and 7 days.
+   *
+   * @param accountId logical account id
+   * @return totals; 404 if windows are disabled
+   */
+  @GetMapping("/windows")
+  public ResponseEntity<ActivityWindows.Totals> windows(
+      @RequestParam("accountId") final String accountId) {
+
+    final ActivityWindows.Totals out = windows.totals(accountId);
+    return out == null
+        ? ResponseEntity.notFound().build()
+        : ResponseEntity.ok(out);
+  }
+
+  /**
+   * Drop an account's running totals so they are recomputed from
+   * {@code tweets} on the next read, e.g. after editing rows by hand.
+   *
+   * @param accountId logical account id
+   * @return 204 No Content
+   */
+  @PostMapping("/rebuild")
+  public ResponseEntity<Void> rebuild(
+      @RequestParam("accountId") final String accountId) {
+    aggregates.invalidate(accountId);
+    return ResponseEntity.noContent().build();
+  }
+
+  private ResponseEntity<DistinctCounts.DistinctCount> distinct(
+      final List<String> accountIds, final DistinctCounts.Kind kind,
+      final int hours) {
+    final DistinctCounts.DistinctCount out =
+        distinct.count(accountIds, kind, hours);
+    return out == null
+        ? ResponseEntity.notFound().build()
+        : ResponseEntity.ok(out);
+  }
 }
@@ -1,5 +1,7 @@
 package com.team.mcp.analytics;
 
+import com.team.mcp.search.ColumnarTweetStore;
+import com.team.mcp.search.TweetTerms;
 import com.team.mcp.twitter.TwitterClient;
 import com.team.mcp.twitter.TwitterClient.TwitterException;
 import com.team.mcp.twitter.dto.Tweet;
@@ -7,33 +9,56 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
 /**
  * Lightweight analytics over the fake Twitter timeline (or DB).
  *
- * <p>If {@code app.search.source=db} is configured, analytics will try
- * to read recent tweets from the {@code tweets} table via JDBC and
- * gracefully fall back to the timeline if unavailable.
+ * <p>If {@code app.search.source=db} is configured, analytics are
+ * computed by aggregate SQL over the account's full history in
+ * {@code tweets} and {@code tweet_hashtags}, falling back to counting
+ * fetched rows (and then the timeline) if unavailable. Otherwise accounts
+ * held by the optional {@link ColumnarTweetStore} are read from its
+ * columns without building {@link Tweet} objects.
+ *
+ * <p>When {@link AccountAggregates} holds tweets for the account, every
+ * method answers from its running totals instead, over the account's
+ * full stored history.
+ *
+ * <p>Every path counts a hashtag once per tweet, with the tokenization of
+ * {@link TweetTerms} that fills {@code tweet_hashtags}.
  */
 @Service
 public class AnalyticsService {
 
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(AnalyticsService.class);
+
   /** How many tweets to fetch for analytics. */
   private static final int DEFAULT_FETCH = 100;
 
   /** How many top hashtags to return by default. */
   private static final int TOP_N = 5;
 
+  /** Milliseconds per hour. */
+  private static final long MS_PER_HOUR = 3_600_000L;
+
+  /** Hours per day. */
+  private static final int HOURS_PER_DAY = 24;
+
   /** Client used to obtain tweets (fake for Iteration 1, real later). */
   private final TwitterClient twitter;
 
@@ -43,6 +68,15 @@ public class AnalyticsService {
   /** Optional JDBC access; may be {@code null}. */
   private final JdbcTemplate jdbc;
 
+  /** Optional columnar copy of recent tweets; may be {@code null}. */
+  private ColumnarTweetStore columnar;
+
+  /** Optional running totals; may be {@code null}. */
+  private AccountAggregates aggregates;
+
+  /** Optional per-day hashtag sketches; may be {@code null}. */
+  private HashtagSketches sketches;
+
   /**
    * Create the service.
    *
@@ -59,33 +93,88 @@ public class AnalyticsService {
     this.source = searchSource == null ? "timeline" : searchSource.trim();
   }
 
+  /**
+   * Optional setter injection of the columnar store.
+   *
+   * @param store columnar store bean (may be null)
+   */
+  @Autowired(required = false)
+  public void setColumnarStore(final ColumnarTweetStore store) {
+    this.columnar = store;
+  }
+
+  /**
+   * Optional setter injection of the running totals.
+   *
+   * @param totals aggregates bean (may be null)
+   */
+  @Autowired(required = false)
+  public void setAggregates(final AccountAggregates totals) {
+    this.aggregates = totals;
+  }
+
+  /**
+   * Optional setter injection of the hashtag sketches.
+   *
+   * @param daySketches sketches bean (may be null)
+   */
+  @Autowired(required = false)
+  public void setHashtagSketches(final HashtagSketches daySketches) {
+    this.sketches = daySketches;
+  }
+
   /**
    * Return the top N hashtags for an account's home timeline.
    *
+   * <p>In DB mode this reads {@code tweet_hashtags}, which only covers
+   * rows written since {@code V7__tweet_entities.sql} until
+   * {@code POST /admin/ingest/terms/backfill} has run once.
+   *
    * @param accountId logical account id
    * @param n how many to return (defaults to {@value TOP_N} if <= 0)
    * @return list of hashtags, highest frequency first
    */
   public List<String> topHashtags(final String accountId, final int n) {
-    final List<Tweet> tweets = safeFetch(accountId, DEFAULT_FETCH);
-    final Map<String, Integer> freq = new HashMap<>();
-
-    for (Tweet t : tweets) {
-      for (String token : t.text().split("\\s+")) {
-        if (token.startsWith("#") && token.length() > 1) {
-          final String tag = token.toLowerCase();
-          freq.put(tag, freq.getOrDefault(tag, 0) + 1);
-        }
+    final int take = n <= 0 ? TOP_N : n;
+    final AccountAggregates.Totals agg = totals(accountId, take);
+    if (agg != null) {
+      return tagNames(agg);
+    }
+    if (dbMode()) {
+      try {
+        return topHashtagsFromDb(accountId, take);
+      } catch (DataAccessException ex) {
+        LOG.warn("Top hashtags for {} from tweet_hashtags failed, counting "
+            + "the newest {} tweets instead: {}", accountId, DEFAULT_FETCH,
+            ex.toString());
       }
     }
+    return tally(accountId).top(take);
+  }
 
-    final int take = n <= 0 ? TOP_N : n;
-    return freq.entrySet()
-        .stream()
-        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-        .limit(take)
-        .map(Map.Entry::getKey)
-        .toList();
+  /**
+   * Return the top N hashtags of the last {@code days} UTC days (today
+   * included), from the merged per-day {@link HashtagSketches}. Counts
+   * are estimates, so a tag just below the cut may swap with one just
+   * above it.
+   *
+   * @param accountId logical account id
+   * @param n how many to return (defaults to {@value TOP_N} if <= 0)
+   * @param days window length; {@code <= 0}, or no sketches, means
+   *     {@link #topHashtags(String, int)}
+   * @return list of hashtags, highest estimated frequency first
+   */
+  public List<String> topHashtags(
+      final String accountId, final int n, final int days) {
+    final HashtagSketches s = sketches;
+    if (days > 0 && s != null) {
+      final List<AccountAggregates.TagCount> top =
+          s.top(accountId, n <= 0 ? TOP_N : n, days);
+      if (top != null) {
+        return top.stream().map(AccountAggregates.TagCount::tag).toList();
+      }
+    }
+    return topHashtags(accountId, n);
   }
 
   /**
@@ -95,52 +184,136 @@ public class AnalyticsService {
    * @return map of hour(0..23) to count, sorted by hour
    */
   public Map<Integer, Integer> bestHours(final String accountId) {
-    final List<Tweet> tweets = safeFetch(accountId, DEFAULT_FETCH);
-    final Map<Integer, Integer> byHour = new HashMap<>();
-
-    for (Tweet t : tweets) {
-      final int hour = t.createdAt().atOffset(ZoneOffset.UTC).getHour();
-      byHour.put(hour, byHour.getOrDefault(hour, 0) + 1);
+    final AccountAggregates.Totals agg = totals(accountId, 0);
+    if (agg == null) {
+      if (dbMode()) {
+        try {
+          return hoursFromDb(accountId);
+        } catch (DataAccessException ex) {
+          LOG.warn("Best hours for {} from tweets failed, counting the "
+              + "newest {} tweets instead: {}", accountId, DEFAULT_FETCH,
+              ex.toString());
+        }
+      }
+      return tally(accountId).byHour();
     }
-
-    final List<Map.Entry<Integer, Integer>> entries =
-        new ArrayList<>(byHour.entrySet());
-    entries.sort(Comparator.comparingInt(Map.Entry::getKey));
-
-    final Map<Integer, Integer> ordered = new HashMap<>();
-    for (Map.Entry<Integer, Integer> e : entries) {
-      ordered.put(e.getKey(), e.getValue());
+    final Map<Integer, Integer> byHour = new TreeMap<>();
+    for (int h = 0; h < HOURS_PER_DAY; h++) {
+      if (agg.byHour()[h] > 0) {
+        byHour.put(h, (int) Math.min(agg.byHour()[h], Integer.MAX_VALUE));
+      }
     }
-    return ordered;
+    return byHour;
   }
 
   /**
-   * Roll-up summary for dashboards.
+   * Roll-up summary for dashboards. Without running totals, DB mode runs
+   * two aggregate queries over the account's full history (the total is
+   * the sum of the hour histogram); otherwise every metric comes from
+   * one fetch of the account's tweets.
    *
    * @param accountId logical account id
    * @return summary record
    */
   public Summary summary(final String accountId) {
-    final List<Tweet> tweets = safeFetch(accountId, DEFAULT_FETCH);
-    final List<String> top = topHashtags(accountId, TOP_N);
-
-    int bestHour = -1;
-    int bestCount = -1;
-    final Map<Integer, Integer> byHour = bestHours(accountId);
-    for (Map.Entry<Integer, Integer> e : byHour.entrySet()) {
-      final int hour = e.getKey();
-      final int cnt = e.getValue();
-      if (cnt > bestCount || cnt == bestCount && hour < bestHour) {
-        bestHour = hour;
-        bestCount = cnt;
+    final AccountAggregates.Totals agg = totals(accountId, TOP_N);
+    if (agg != null) {
+      int best = 0;
+      for (int h = 1; h < HOURS_PER_DAY; h++) {
+        if (agg.byHour()[h] > agg.byHour()[best]) {
+          best = h;
+        }
       }
+      return new Summary((int) Math.min(agg.tweets(), Integer.MAX_VALUE),
+          tagNames(agg), best);
     }
-
-    return new Summary(tweets.size(), top, bestHour);
+    if (dbMode()) {
+      try {
+        final Map<Integer, Integer> byHour = hoursFromDb(accountId);
+        long total = 0;
+        int best = -1;
+        for (Map.Entry<Integer, Integer> e : byHour.entrySet()) {
+          total += e.getValue();
+          if (best < 0 || e.getValue() > byHour.get(best)) {
+            best = e.getKey();
+          }
+        }
+        return new Summary((int) Math.min(total, Integer.MAX_VALUE),
+            topHashtagsFromDb(accountId, TOP_N), best);
+      } catch (DataAccessException ex) {
+        LOG.warn("Summary for {} from the database failed, counting the "
+            + "newest {} tweets instead: {}", accountId, DEFAULT_FETCH,
+            ex.toString());
+      }
+    }
+    final Tally t = tally(accountId);
+    return new Summary(t.total(), t.top(TOP_N), t.bestHour());
   }
 
   // ----- helpers -----
 
+  /**
+   * Running totals of an account, if any tweets were counted.
+   *
+   * @param accountId logical account id
+   * @param topN hashtags to include
+   * @return totals, or {@code null} to compute from tweets
+   */
+  private AccountAggregates.Totals totals(
+      final String accountId, final int topN) {
+    final AccountAggregates a = aggregates;
+    if (a == null) {
+      return null;
+    }
+    final AccountAggregates.Totals t = a.totals(accountId, topN);
+    return t == null || t.tweets() == 0 ? null : t;
+  }
+
+  private static List<String> tagNames(final AccountAggregates.Totals t) {
+    return t.top().stream().map(AccountAggregates.TagCount::tag).toList();
+  }
+
+  /**
+   * Count hashtags and hours of the account's newest tweets in one pass
+   * over one fetch (or over the columnar view).
+   *
+   * @param accountId logical account id
+   * @return counts
+   */
+  private Tally tally(final String accountId) {
+    final Tally t = new Tally();
+    final ColumnarTweetStore.View view = hotView(accountId);
+    if (view != null) {
+      final int rows = Math.min(view.size(), DEFAULT_FETCH);
+      for (int k = 0; k < rows; k++) {
+        final int ord = view.newest(k);
+        t.add(view.text(ord), (int) Math.floorMod(
+            Math.floorDiv(view.createdAtMillis(ord), MS_PER_HOUR),
+            (long) HOURS_PER_DAY));
+      }
+    } else {
+      for (Tweet tw : safeFetch(accountId, DEFAULT_FETCH)) {
+        t.add(tw.text(), tw.createdAt().atOffset(ZoneOffset.UTC).getHour());
+      }
+    }
+    return t;
+  }
+
+  /**
+   * Columnar view to read instead of fetching, outside DB mode.
+   *
+   * @param accountId logical account id
+   * @return non-empty view, or {@code null}
+   */
+  private ColumnarTweetStore.View hotView(final String accountId) {
+    final ColumnarTweetStore store = columnar;
+    if (store == null || dbMode()) {
+      return null;
+    }
+    final ColumnarTweetStore.View view = store.view(accountId);
+    return view == null || view.size() == 0 ? null : view;
+  }
+
   /**
    * Safe wrapper that attempts DB-backed fetch when enabled, and falls back
    * to the timeline client. Never throws and never returns {@code null}.
@@ -150,7 +323,7 @@ public class AnalyticsService {
    * @return a non-null list of tweets; empty on failure
    */
   private List<Tweet> safeFetch(final String accountId, final int count) {
-    if ("db".equalsIgnoreCase(source) && jdbc != null) {
+    if (dbMode()) {
       try {
         return fetchFromDb(accountId, count);
       } catch (DataAccessException ex) {
@@ -187,6 +360,53 @@ public class AnalyticsService {
         accountId, count);
   }
 
+  /**
+   * Count the account's hashtags over its full history in SQL: the
+   * {@code (account_id, tag, created_at)} index on {@code tweet_hashtags}
+   * feeds the {@code GROUP BY}, and only {@code take} rows come back.
+   *
+   * @param accountId the logical account id
+   * @param take how many hashtags to return
+   * @return hashtags, highest frequency first (ties by tag)
+   */
+  private List<String> topHashtagsFromDb(
+      final String accountId, final int take) {
+    final String sql =
+        "SELECT tag, COUNT(*) AS cnt "
+            + "FROM tweet_hashtags "
+            + "WHERE account_id = ? "
+            + "GROUP BY tag "
+            + "ORDER BY cnt DESC, tag "
+            + "LIMIT ?";
+    return jdbc.query(sql, (ResultSet rs, int rowNum) -> rs.getString(1),
+        accountId, take);
+  }
+
+  /**
+   * Tweets per UTC hour of day over the account's full history, grouped
+   * in SQL so at most 24 rows come back. {@code AT TIME ZONE 'UTC'}
+   * keeps PostgreSQL from using the session time zone.
+   *
+   * @param accountId the logical account id
+   * @return hour (0..23) to count, ascending; hours without tweets absent
+   */
+  private Map<Integer, Integer> hoursFromDb(final String accountId) {
+    final String sql =
+        "SELECT h, COUNT(*) "
+            + "FROM (SELECT EXTRACT(HOUR FROM created_at AT TIME ZONE 'UTC') "
+            + "AS h FROM tweets WHERE account_id = ?) t "
+            + "GROUP BY h";
+    final Map<Integer, Integer> byHour = new TreeMap<>();
+    final RowCallbackHandler row = rs -> byHour.put(rs.getInt(1),
+        (int) Math.min(rs.getLong(2), Integer.MAX_VALUE));
+    jdbc.query(sql, row, accountId);
+    return byHour;
+  }
+
+  private boolean dbMode() {
+    return "db".equalsIgnoreCase(source) && jdbc != null;
+  }
+
   /**
    * Map a single {@link ResultSet} row to a {@link Tweet} DTO.
    *
@@ -202,6 +422,68 @@ public class AnalyticsService {
     return new Tweet(id, user, text, created);
   }
 
+  /** Hashtag and hour counts gathered in one pass over tweets. */
+  private static final class Tally {
+
+    /** Tweets seen. */
+    private int total;
+
+    /** Lowercased tag to count. */
+    private final Map<String, Integer> tags = new HashMap<>();
+
+    /** UTC hour to count, ascending. */
+    private final Map<Integer, Integer> hours = new TreeMap<>();
+
+    /**
+     * Count one tweet; each distinct hashtag counts once.
+     *
+     * @param text tweet text
+     * @param hour UTC hour of day
+     */
+    void add(final String text, final int hour) {
+      total++;
+      for (String tag : TweetTerms.of(text).hashtags()) {
+        tags.merge(tag, 1, Integer::sum);
+      }
+      hours.merge(hour, 1, Integer::sum);
+    }
+
+    int total() {
+      return total;
+    }
+
+    List<String> top(final int take) {
+      return tags.entrySet()
+          .stream()
+          .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+              .thenComparing(Map.Entry.comparingByKey()))
+          .limit(take)
+          .map(Map.Entry::getKey)
+          .toList();
+    }
+
+    Map<Integer, Integer> byHour() {
+      return hours;
+    }
+
+    /**
+     * Busiest hour; ties go to the smaller hour.
+     *
+     * @return hour of day, or -1 if no tweets were counted
+     */
+    int bestHour() {
+      int best = -1;
+      int bestCount = -1;
+      for (Map.Entry<Integer, Integer> e : hours.entrySet()) {
+        if (e.getValue() > bestCount) {
+          best = e.getKey();
+          bestCount = e.getValue();
+        }
+      }
+      return best;
+    }
+  }
+
   /**
    * Compact analytics summary record.
    *
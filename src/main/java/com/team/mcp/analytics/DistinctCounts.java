@@ -0,0 +1,606 @@
+package com.team.mcp.analytics;
+
+import com.team.mcp.search.IngestListener;
+import com.team.mcp.search.TweetChange;
+import com.team.mcp.search.TweetChangeListener;
+import com.team.mcp.search.TweetTerms;
+import com.team.mcp.twitter.dto.Tweet;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Distinct authors and distinct hashtags per account and UTC hour, as
+ * {@link HyperLogLog} counters, so "how many distinct users posted in
+ * this timeline last week" merges a few hundred small counters instead
+ * of scanning tweets. Windows may span several accounts.
+ *
+ * <p>Counters are updated at ingest, which runs after the ingest commit
+ * and does no writes. The hours it changed are written to
+ * {@code account_hour_sketches} ({@code V12__distinct_sketches.sql}) in
+ * their compact serialized form by a background flush every
+ * {@code app.analytics.distinct.flushMs} and on shutdown (update, else
+ * insert; no {@code MERGE}, which PostgreSQL only has from 15). An
+ * account is loaded on first use; if it has no stored counters they are
+ * built once from its retained {@code tweets} and {@code tweet_hashtags}
+ * rows and flushed like ingested hours. Stored hours that cannot be read
+ * back (malformed, or another precision) are rebuilt from the rows the
+ * same way.
+ * Hours older than {@code app.analytics.distinct.retainHours} are
+ * dropped. At most {@code app.analytics.distinct.maxAccounts} accounts
+ * are held, least recently used evicted first.
+ *
+ * <p>Counters cannot forget an item, so a deleted tweet on the change
+ * feed drops its account's counters, in memory and stored, and they are
+ * built again from the rows on next use. A retention purge drops the
+ * hours before its cutoff.
+ *
+ * <p>Disabled with {@code app.analytics.distinct.enabled=false}.
+ */
+@Component
+public final class DistinctCounts
+    implements IngestListener, TweetChangeListener {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(DistinctCounts.class);
+
+  /** Seconds per bucket. */
+  private static final long HOUR_SECONDS = 3_600L;
+
+  /** Stored counters of one account. */
+  private static final String LOAD_SQL =
+      "SELECT hour_start, kind, sketch FROM account_hour_sketches "
+          + "WHERE account_id = ? AND hour_start >= ?";
+
+  /** Retained authors of one account, for the first build. */
+  private static final String USERS_SQL =
+      "SELECT user_handle, created_at FROM tweets "
+          + "WHERE account_id = ? AND created_at >= ?";
+
+  /** Retained hashtags of one account, for the first build. */
+  private static final String TAGS_SQL =
+      "SELECT tag, created_at FROM tweet_hashtags "
+          + "WHERE account_id = ? AND created_at >= ?";
+
+  /** Replace a stored counter. */
+  private static final String UPDATE_SQL =
+      "UPDATE account_hour_sketches SET sketch = ? "
+          + "WHERE account_id = ? AND hour_start = ? AND kind = ?";
+
+  /** Store a new counter; a concurrent first store wins. */
+  private static final String INSERT_SQL =
+      "INSERT INTO account_hour_sketches "
+          + "(account_id, hour_start, kind, sketch) VALUES (?, ?, ?, ?) "
+          + "ON CONFLICT DO NOTHING";
+
+  /** Drop expired counters. */
+  private static final String EXPIRE_SQL =
+      "DELETE FROM account_hour_sketches "
+          + "WHERE account_id = ? AND hour_start < ?";
+
+  /** Drop every stored counter of an account. */
+  private static final String FORGET_SQL =
+      "DELETE FROM account_hour_sketches WHERE account_id = ?";
+
+  /** Drop stored counters of every account before an hour. */
+  private static final String PURGE_SQL =
+      "DELETE FROM account_hour_sketches WHERE hour_start < ?";
+
+  /** What is counted. */
+  public enum Kind {
+    /** Tweet authors ({@code user_handle}). */
+    USERS("U"),
+    /** Lowercased {@code #tags}. */
+    HASHTAGS("T");
+
+    /** Stored {@code kind} code. */
+    private final String code;
+
+    Kind(final String storedCode) {
+      this.code = storedCode;
+    }
+
+    static Kind of(final String storedCode) {
+      return "U".equals(storedCode) ? USERS : HASHTAGS;
+    }
+  }
+
+  /** Optional JDBC access; {@code null} keeps counters in memory only. */
+  private final JdbcTemplate jdbc;
+
+  /** Time source for windows and retention. */
+  private final Clock clock;
+
+  /** Whether anything is counted. */
+  private final boolean enabled;
+
+  /** HyperLogLog precision. */
+  private final int precision;
+
+  /** Hours kept per account, the current one included. */
+  private final int retainHours;
+
+  /**
+   * Account id to hour bucket to counters by {@link Kind#ordinal()}
+   * (guarded by the inner map).
+   */
+  private final AccountCache<NavigableMap<Long, HyperLogLog[]>> accounts;
+
+  /**
+   * Hours changed since the last flush, per account (guarded by itself).
+   * Flushes and drops of stored counters are serialized on this instance.
+   */
+  private final Map<String, Pending> pending = new HashMap<>();
+
+  /** Whether the last flush failed; later failures log at debug. */
+  private boolean failing;
+
+  /**
+   * Creates the counters.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param appClock time source
+   * @param enabledFlag {@code app.analytics.distinct.enabled}
+   * @param configuredPrecision {@code app.analytics.distinct.precision}
+   * @param hours {@code app.analytics.distinct.retainHours}
+   * @param maxAccounts {@code app.analytics.distinct.maxAccounts}
+   */
+  @Autowired
+  public DistinctCounts(
+      final JdbcTemplate jdbcTemplate,
+      final Clock appClock,
+      @Value("${app.analytics.distinct.enabled:true}")
+      final boolean enabledFlag,
+      @Value("${app.analytics.distinct.precision:11}")
+      final int configuredPrecision,
+      @Value("${app.analytics.distinct.retainHours:2160}") final int hours,
+      @Value("${app.analytics.distinct.maxAccounts:1000}")
+      final int maxAccounts) {
+    this.jdbc = jdbcTemplate;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.precision = Math.max(HyperLogLog.MIN_PRECISION,
+        Math.min(configuredPrecision, HyperLogLog.MAX_PRECISION));
+    this.retainHours = Math.max(1, hours);
+    this.accounts = new AccountCache<>(maxAccounts);
+  }
+
+  /**
+   * In-memory counters without a database, for tests.
+   *
+   * @param appClock time source
+   * @param hours hours retained
+   */
+  DistinctCounts(final Clock appClock, final int hours) {
+    this(null, appClock, true, 11, hours, 1000);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    if (!enabled || accountId == null || tweets.isEmpty()) {
+      return;
+    }
+    final NavigableMap<Long, HyperLogLog[]> hours = held(accountId);
+    if (hours == null) {
+      return;
+    }
+    final long oldest = currentHour() - retainHours + 1;
+    final Set<Long> touched = new HashSet<>();
+    synchronized (hours) {
+      for (Tweet t : tweets) {
+        if (t.createdAt() == null || hour(t.createdAt()) < oldest) {
+          continue;
+        }
+        final long h = hour(t.createdAt());
+        final HyperLogLog[] c = bucket(hours, h);
+        if (t.user() != null) {
+          c[Kind.USERS.ordinal()].add(t.user());
+        }
+        for (String tag : TweetTerms.of(t.text()).hashtags()) {
+          c[Kind.HASHTAGS.ordinal()].add(tag);
+        }
+        touched.add(h);
+      }
+      hours.headMap(oldest).clear();
+    }
+    if (jdbc != null) {
+      markDirty(accountId, hours, touched);
+    }
+  }
+
+  @Override
+  public void onChanges(final List<TweetChange> changes) {
+    if (!enabled) {
+      return;
+    }
+    for (TweetChange c : changes) {
+      try {
+        if (c.type() == TweetChange.Type.PURGE && c.before() != null) {
+          purge(hour(c.before()));
+        } else if (c.type() == TweetChange.Type.DELETE
+            && c.accountId() != null) {
+          forget(c.accountId());
+        }
+      } catch (DataAccessException ex) {
+        LOG.warn("Dropping distinct counters for {} failed: {}",
+            c.accountId(), ex.toString());
+      }
+    }
+  }
+
+  /**
+   * Write the hours changed since the last flush. A failed account is
+   * kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${app.analytics.distinct.flushMs:5000}")
+  @PreDestroy
+  public synchronized void flush() {
+    if (jdbc == null) {
+      return;
+    }
+    final Map<String, Pending> batch;
+    synchronized (pending) {
+      batch = new HashMap<>(pending);
+      pending.clear();
+    }
+    final long oldest = currentHour() - retainHours + 1;
+    for (Map.Entry<String, Pending> e : batch.entrySet()) {
+      final Pending p = e.getValue();
+      final List<Object[]> rows = new ArrayList<>();
+      synchronized (p.hours()) {
+        for (Long h : p.touched()) {
+          final HyperLogLog[] c = p.hours().get(h);
+          if (c == null || h < oldest) {
+            continue;
+          }
+          for (Kind k : Kind.values()) {
+            rows.add(new Object[] {h, k.code, c[k.ordinal()].toBytes()});
+          }
+        }
+      }
+      try {
+        for (Object[] r : rows) {
+          store(e.getKey(), (Long) r[0], (String) r[1], (byte[]) r[2]);
+        }
+        jdbc.update(EXPIRE_SQL, e.getKey(), oldest);
+        failing = false;
+      } catch (DataAccessException ex) {
+        if (failing) {
+          LOG.debug("Storing distinct counters for {} failed again: {}",
+              e.getKey(), ex.toString());
+        } else {
+          LOG.warn("Storing distinct counters for {} failed", e.getKey(),
+              ex);
+          failing = true;
+        }
+        markDirty(e.getKey(), p.hours(), p.touched());
+      }
+    }
+  }
+
+  /**
+   * Upsert one counter without a failing statement (which would abort a
+   * transaction on PostgreSQL): replace the row, or insert it with
+   * {@code ON CONFLICT DO NOTHING}; if a concurrent insert won, replace
+   * that row.
+   *
+   * @param accountId logical account id
+   * @param hour hour bucket
+   * @param kind stored kind code
+   * @param sketch serialized counter
+   */
+  private void store(final String accountId, final long hour,
+      final String kind, final byte[] sketch) {
+    if (jdbc.update(UPDATE_SQL, sketch, accountId, hour, kind) > 0) {
+      return;
+    }
+    if (jdbc.update(INSERT_SQL, accountId, hour, kind, sketch) == 0) {
+      jdbc.update(UPDATE_SQL, sketch, accountId, hour, kind);
+    }
+  }
+
+  /**
+   * Drop an account's counters, in memory and stored.
+   *
+   * @param accountId logical account id
+   */
+  private synchronized void forget(final String accountId) {
+    synchronized (pending) {
+      pending.remove(accountId);
+    }
+    accounts.remove(accountId);
+    if (jdbc != null) {
+      jdbc.update(FORGET_SQL, accountId);
+    }
+  }
+
+  /**
+   * Drop hours before a purge cutoff.
+   *
+   * @param before first hour kept
+   */
+  private synchronized void purge(final long before) {
+    for (NavigableMap<Long, HyperLogLog[]> hours : accounts.values()) {
+      synchronized (hours) {
+        hours.headMap(before).clear();
+      }
+    }
+    if (jdbc != null) {
+      jdbc.update(PURGE_SQL, before);
+    }
+  }
+
+  /**
+   * Distinct items over the last {@code windowHours} UTC hours (the
+   * current one included), merged across accounts.
+   *
+   * @param accountIds accounts to combine
+   * @param kind what to count
+   * @param windowHours window length (capped at the retention)
+   * @return estimate, or {@code null} if disabled
+   */
+  public DistinctCount count(final Collection<String> accountIds,
+      final Kind kind, final int windowHours) {
+    if (!enabled) {
+      return null;
+    }
+    final long to = currentHour();
+    final long from =
+        to - Math.min(Math.max(1, windowHours), retainHours) + 1;
+    final HyperLogLog merged = new HyperLogLog(precision);
+    final List<String> counted = new ArrayList<>();
+    for (String accountId : new HashSet<>(accountIds)) {
+      final NavigableMap<Long, HyperLogLog[]> hours = hours(accountId);
+      if (hours == null) {
+        continue;
+      }
+      synchronized (hours) {
+        for (HyperLogLog[] c : hours.subMap(from, true, to, true).values()) {
+          merged.merge(c[kind.ordinal()]);
+        }
+      }
+      counted.add(accountId);
+    }
+    counted.sort(null);
+    return new DistinctCount(counted, kind,
+        Instant.ofEpochSecond(from * HOUR_SECONDS),
+        Instant.ofEpochSecond((to + 1) * HOUR_SECONDS),
+        merged.estimate(), merged.standardError());
+  }
+
+  /**
+   * Counters of an account for a query; an account with nothing stored
+   * gets empty counters that are not cached.
+   *
+   * @param accountId logical account id
+   * @return counters, or {@code null} if they cannot be loaded
+   */
+  private NavigableMap<Long, HyperLogLog[]> hours(final String accountId) {
+    if (accountId == null) {
+      return null;
+    }
+    final NavigableMap<Long, HyperLogLog[]> hours = jdbc == null
+        ? accounts.get(accountId) : loaded(accountId);
+    return hours != null ? hours : new TreeMap<>();
+  }
+
+  /**
+   * Counters of an account for an ingested batch, loaded or created.
+   *
+   * @param accountId logical account id
+   * @return counters, or {@code null} if they cannot be loaded
+   */
+  private NavigableMap<Long, HyperLogLog[]> held(final String accountId) {
+    if (jdbc != null && loaded(accountId) == null) {
+      return null;
+    }
+    return accounts.getOrCreate(accountId, TreeMap::new);
+  }
+
+  private NavigableMap<Long, HyperLogLog[]> loaded(final String accountId) {
+    try {
+      final NavigableMap<Long, HyperLogLog[]> hours =
+          accounts.load(accountId, this::load);
+      return hours != null ? hours : new TreeMap<>();
+    } catch (DataAccessException ex) {
+      LOG.warn("Distinct counter load for {} failed: {}", accountId,
+          ex.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Read an account's stored counters, or build and store them from its
+   * rows if it has none. Stored hours that cannot be used are rebuilt
+   * from the rows and stored again.
+   *
+   * @param accountId logical account id
+   * @return counters, or {@code null} if the account has no rows
+   */
+  private NavigableMap<Long, HyperLogLog[]> load(final String accountId) {
+    final NavigableMap<Long, HyperLogLog[]> hours = new TreeMap<>();
+    final long oldest = currentHour() - retainHours + 1;
+    final Set<Long> unreadable = new HashSet<>();
+    final RowCallbackHandler stored = rs -> {
+      final long h = rs.getLong(1);
+      final HyperLogLog[] c = bucket(hours, h);
+      try {
+        final HyperLogLog read = HyperLogLog.fromBytes(rs.getBytes(3));
+        // Counters written under another precision cannot be merged.
+        if (read.precision() == precision) {
+          c[Kind.of(rs.getString(2)).ordinal()] = read;
+          return;
+        }
+      } catch (IllegalArgumentException ex) {
+        LOG.debug("Stored distinct counter of {} at hour {} is unreadable: "
+            + "{}", accountId, h, ex.getMessage());
+      }
+      unreadable.add(h);
+    };
+    jdbc.query(LOAD_SQL, stored, accountId, oldest);
+    if (!hours.isEmpty()) {
+      if (!unreadable.isEmpty()) {
+        build(accountId, hours, Collections.min(unreadable), unreadable);
+      }
+      // Rebuilt hours, and hours an evicted copy has not flushed yet.
+      markDirty(accountId, hours, unreadable);
+      return hours;
+    }
+    build(accountId, hours, oldest, null);
+    if (hours.isEmpty()) {
+      return null;
+    }
+    markDirty(accountId, hours, hours.keySet());
+    return hours;
+  }
+
+  /**
+   * Count an account's retained rows into its counters. Counting a row
+   * twice is harmless, so existing counters may be built into.
+   *
+   * @param accountId logical account id
+   * @param hours counters to add to
+   * @param from first hour read
+   * @param only hours to build, or {@code null} for all
+   */
+  private void build(final String accountId,
+      final NavigableMap<Long, HyperLogLog[]> hours, final long from,
+      final Set<Long> only) {
+    final Timestamp since =
+        Timestamp.from(Instant.ofEpochSecond(from * HOUR_SECONDS));
+    final RowCallbackHandler user = rs -> count(hours, only,
+        rs.getTimestamp(2).toInstant(), Kind.USERS, rs.getString(1));
+    jdbc.query(USERS_SQL, user, accountId, since);
+    final RowCallbackHandler tag = rs -> count(hours, only,
+        rs.getTimestamp(2).toInstant(), Kind.HASHTAGS, rs.getString(1));
+    jdbc.query(TAGS_SQL, tag, accountId, since);
+  }
+
+  private void count(final NavigableMap<Long, HyperLogLog[]> hours,
+      final Set<Long> only, final Instant at, final Kind kind,
+      final String item) {
+    final long h = hour(at);
+    if (only == null || only.contains(h)) {
+      bucket(hours, h)[kind.ordinal()].add(item);
+    }
+  }
+
+  /**
+   * Queue changed hours for the next flush. Hours queued from another
+   * copy of the account's counters (one since evicted and reloaded) are
+   * merged into the held copy, which is the one flushed.
+   *
+   * @param accountId logical account id
+   * @param hours counters the hours were changed in
+   * @param touched changed hours
+   */
+  private void markDirty(final String accountId,
+      final NavigableMap<Long, HyperLogLog[]> hours,
+      final Collection<Long> touched) {
+    synchronized (pending) {
+      final Pending p = pending.get(accountId);
+      if (p == null && touched.isEmpty()) {
+        return;
+      }
+      final NavigableMap<Long, HyperLogLog[]> held = accounts.get(accountId);
+      final NavigableMap<Long, HyperLogLog[]> target =
+          held != null ? held : hours;
+      final Set<Long> all = new HashSet<>(touched);
+      if (hours != target) {
+        absorb(target, hours, touched);
+      }
+      if (p != null) {
+        all.addAll(p.touched());
+        if (p.hours() != target) {
+          absorb(target, p.hours(), p.touched());
+        }
+      }
+      pending.put(accountId, new Pending(target, all));
+    }
+  }
+
+  /**
+   * Union some hours of one copy of an account's counters into another.
+   *
+   * @param target counters merged into
+   * @param from counters merged from
+   * @param hours hours to merge
+   */
+  private void absorb(final NavigableMap<Long, HyperLogLog[]> target,
+      final NavigableMap<Long, HyperLogLog[]> from,
+      final Collection<Long> hours) {
+    synchronized (from) {
+      synchronized (target) {
+        for (Long h : hours) {
+          final HyperLogLog[] c = from.get(h);
+          if (c == null) {
+            continue;
+          }
+          final HyperLogLog[] into = bucket(target, h);
+          for (Kind k : Kind.values()) {
+            into[k.ordinal()].merge(c[k.ordinal()]);
+          }
+        }
+      }
+    }
+  }
+
+  private HyperLogLog[] bucket(
+      final NavigableMap<Long, HyperLogLog[]> hours, final long hour) {
+    return hours.computeIfAbsent(hour, h -> new HyperLogLog[] {
+        new HyperLogLog(precision), new HyperLogLog(precision)});
+  }
+
+  private long currentHour() {
+    return hour(clock.instant());
+  }
+
+  private static long hour(final Instant t) {
+    return Math.floorDiv(t.getEpochSecond(), HOUR_SECONDS);
+  }
+
+  /**
+   * Unflushed hours of one account.
+   *
+   * @param hours the account's counters
+   * @param touched hours to write
+   */
+  private record Pending(NavigableMap<Long, HyperLogLog[]> hours,
+      Set<Long> touched) {
+  }
+
+  /**
+   * A distinct-count answer.
+   *
+   * @param accountIds accounts combined, sorted
+   * @param kind what was counted
+   * @param from window start (inclusive, on the hour)
+   * @param to window end (exclusive, on the hour)
+   * @param estimate estimated distinct items
+   * @param standardError relative standard error of the estimate
+   */
+  public record DistinctCount(List<String> accountIds, Kind kind,
+      Instant from, Instant to, long estimate, double standardError) {
+  }
+}
@@ -0,0 +1,275 @@
+package com.team.mcp.analytics;
+
+import com.team.mcp.search.IngestListener;
+import com.team.mcp.search.TweetChange;
+import com.team.mcp.search.TweetChangeListener;
+import com.team.mcp.search.TweetTerms;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Windowed top hashtags from one {@link HeavyHitterSketch} per account
+ * and UTC day: the top-N of any range of days is read from the merge of
+ * that range's sketches, so memory per account is fixed by
+ * {@code app.analytics.sketch.retainDays} whatever the tag cardinality.
+ *
+ * <p>Fed at ingest. An account is loaded on first query by streaming its
+ * retained {@code tweet_hashtags} rows into the sketches; after that,
+ * ingested batches are added directly (see {@link AccountCache} for
+ * batches arriving during or read by a load). At most
+ * {@code app.analytics.sketch.maxAccounts} accounts are held, least
+ * recently used evicted first, and fewer if their full sketches
+ * ({@link HeavyHitterSketch#bytes()} times {@code retainDays}) would
+ * exceed {@code app.analytics.sketch.maxBytes}: about 19 KB per
+ * account-day with the defaults, so 256 MiB holds some 150 accounts of
+ * 90 days. Without JDBC, accounts start empty. An
+ * account with a deleted tweet on the change feed is dropped and loaded
+ * again on next use; a retention purge drops every account.
+ *
+ * <p>Disabled with {@code app.analytics.sketch.enabled=false}.
+ */
+@Component
+public final class HashtagSketches
+    implements IngestListener, TweetChangeListener {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(HashtagSketches.class);
+
+  /** Seconds per day bucket. */
+  private static final long DAY_SECONDS = 86_400L;
+
+  /** Retained hashtag rows of one account. */
+  private static final String LOAD_SQL =
+      "SELECT tag, created_at FROM tweet_hashtags "
+          + "WHERE account_id = ? AND created_at >= ?";
+
+  /** Optional JDBC access for loading accounts. */
+  private final JdbcTemplate jdbc;
+
+  /** Time source for windows and retention. */
+  private final Clock clock;
+
+  /** Whether anything is counted. */
+  private final boolean enabled;
+
+  /** Days kept per account, today included. */
+  private final int retainDays;
+
+  /** Empty sketch with the configured error bounds. */
+  private final HeavyHitterSketch shape;
+
+  /** Optional snapshot for loads; see {@link AccountCache#snapshot}. */
+  private TransactionTemplate loadTx;
+
+  /** Account id to day buckets (each guarded by the map itself). */
+  private final AccountCache<NavigableMap<Long, HeavyHitterSketch>> accounts;
+
+  /**
+   * Creates the sketches.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param appClock time source
+   * @param enabledFlag {@code app.analytics.sketch.enabled}
+   * @param epsilon {@code app.analytics.sketch.epsilon}, overcount bound
+   *     as a fraction of a window's hashtag total
+   * @param confidence {@code app.analytics.sketch.confidence}
+   * @param capacity {@code app.analytics.sketch.capacity}, largest top-N
+   * @param days {@code app.analytics.sketch.retainDays}
+   * @param maxAccounts {@code app.analytics.sketch.maxAccounts}
+   * @param maxBytes {@code app.analytics.sketch.maxBytes}, sketch memory
+   *     of all held accounts
+   */
+  @Autowired
+  public HashtagSketches(
+      final JdbcTemplate jdbcTemplate,
+      final Clock appClock,
+      @Value("${app.analytics.sketch.enabled:true}")
+      final boolean enabledFlag,
+      @Value("${app.analytics.sketch.epsilon:0.01}") final double epsilon,
+      @Value("${app.analytics.sketch.confidence:0.99}")
+      final double confidence,
+      @Value("${app.analytics.sketch.capacity:64}") final int capacity,
+      @Value("${app.analytics.sketch.retainDays:90}") final int days,
+      @Value("${app.analytics.sketch.maxAccounts:1000}")
+      final int maxAccounts,
+      @Value("${app.analytics.sketch.maxBytes:268435456}")
+      final long maxBytes) {
+    this.jdbc = jdbcTemplate;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.retainDays = Math.max(1, days);
+    this.shape = new HeavyHitterSketch(epsilon, confidence, capacity);
+    final long perAccount = shape.bytes() * retainDays;
+    final int held = (int) Math.min(maxAccounts, maxBytes / perAccount);
+    if (enabled && held < maxAccounts) {
+      LOG.info("Hashtag sketches hold at most {} accounts ({} bytes each)",
+          Math.max(1, held), perAccount);
+    }
+    this.accounts = new AccountCache<>(held);
+  }
+
+  /**
+   * In-memory sketches without a database, for tests.
+   *
+   * @param appClock time source
+   * @param days days retained
+   */
+  HashtagSketches(final Clock appClock, final int days) {
+    this(null, appClock, true, 0.01, 0.99, 64, days, 1000, Long.MAX_VALUE);
+  }
+
+  /**
+   * Optional setter injection of the transaction template, whose manager
+   * gives each load one snapshot (see {@link AccountCache#snapshot}).
+   *
+   * @param transactionTemplate template (may be null)
+   */
+  @Autowired(required = false)
+  public void setTransactionTemplate(
+      final TransactionTemplate transactionTemplate) {
+    this.loadTx = AccountCache.snapshot(transactionTemplate);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    onIngested(accountId, tweets, 0);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets,
+      final long changeSeq) {
+    if (!enabled || accountId == null || tweets.isEmpty()) {
+      return;
+    }
+    final NavigableMap<Long, HeavyHitterSketch> days = jdbc == null
+        ? accounts.getOrCreate(accountId, TreeMap::new)
+        : accounts.forIngest(accountId, changeSeq);
+    if (days == null) {
+      return; // counted from tweet_hashtags by a load
+    }
+    final long oldest = today() - retainDays + 1;
+    synchronized (days) {
+      for (Tweet t : tweets) {
+        if (t.createdAt() != null && day(t.createdAt()) >= oldest) {
+          for (String tag : TweetTerms.of(t.text()).hashtags()) {
+            bucket(days, day(t.createdAt())).add(tag, 1);
+          }
+        }
+      }
+      days.headMap(oldest).clear();
+    }
+  }
+
+  @Override
+  public void onChanges(final List<TweetChange> changes) {
+    for (TweetChange c : changes) {
+      if (c.type() == TweetChange.Type.PURGE) {
+        accounts.clear();
+      } else if (c.type() == TweetChange.Type.DELETE
+          && c.accountId() != null) {
+        accounts.remove(c.accountId());
+      }
+    }
+  }
+
+  /**
+   * Top hashtags of the last {@code windowDays} UTC days, today included.
+   *
+   * @param accountId logical account id
+   * @param n how many (at most {@code app.analytics.sketch.capacity})
+   * @param windowDays days in the window (capped at the retention)
+   * @return hashtags and estimated tweet counts, or {@code null} if
+   *     disabled or the account cannot be loaded
+   */
+  public List<AccountAggregates.TagCount> top(final String accountId,
+      final int n, final int windowDays) {
+    final NavigableMap<Long, HeavyHitterSketch> days = days(accountId);
+    if (days == null) {
+      return null;
+    }
+    final long to = today();
+    final long from = to - Math.min(Math.max(1, windowDays), retainDays) + 1;
+    final HeavyHitterSketch merged = shape.emptyCopy();
+    synchronized (days) {
+      for (HeavyHitterSketch s : days.subMap(from, true, to, true).values()) {
+        merged.merge(s);
+      }
+    }
+    return merged.top(n);
+  }
+
+  private NavigableMap<Long, HeavyHitterSketch> days(final String accountId) {
+    if (!enabled || accountId == null) {
+      return null;
+    }
+    if (jdbc == null) {
+      return accounts.get(accountId);
+    }
+    try {
+      final NavigableMap<Long, HeavyHitterSketch> days =
+          accounts.loadUpTo(accountId, this::load);
+      return days != null ? days : new TreeMap<>();
+    } catch (DataAccessException ex) {
+      LOG.warn("Hashtag sketch load for {} failed: {}", accountId,
+          ex.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Stream an account's retained hashtag rows into day sketches, in one
+   * snapshot with its change feed position when a template is set (else
+   * the position is read first, and a batch committing in between may be
+   * counted twice).
+   *
+   * @param accountId logical account id
+   * @return sketches, or {@code null} if it has no retained rows
+   */
+  private AccountCache.Loaded<NavigableMap<Long, HeavyHitterSketch>> load(
+      final String accountId) {
+    return loadTx == null ? read(accountId)
+        : loadTx.execute(s -> read(accountId));
+  }
+
+  private AccountCache.Loaded<NavigableMap<Long, HeavyHitterSketch>> read(
+      final String accountId) {
+    final Long upTo = jdbc.queryForObject(
+        AccountCache.CHANGE_SEQ_SQL, Long.class, accountId);
+    final NavigableMap<Long, HeavyHitterSketch> days = new TreeMap<>();
+    final long oldest = today() - retainDays + 1;
+    final RowCallbackHandler row = rs -> bucket(days,
+        day(rs.getTimestamp(2).toInstant())).add(rs.getString(1), 1);
+    jdbc.query(LOAD_SQL, row, accountId,
+        Timestamp.from(Instant.ofEpochSecond(oldest * DAY_SECONDS)));
+    return days.isEmpty() ? null
+        : new AccountCache.Loaded<>(days, upTo == null ? 0 : upTo);
+  }
+
+  private HeavyHitterSketch bucket(
+      final NavigableMap<Long, HeavyHitterSketch> days, final long day) {
+    return days.computeIfAbsent(day, d -> shape.emptyCopy());
+  }
+
+  private long today() {
+    return day(clock.instant());
+  }
+
+  private static long day(final Instant t) {
+    return Math.floorDiv(t.getEpochSecond(), DAY_SECONDS);
+  }
+}
@@ -0,0 +1,250 @@
+package com.team.mcp.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-size top-K summary of a stream of strings: a Count-Min sketch
+ * for frequencies plus a Space-Saving style candidate set of the
+ * {@code capacity} items with the highest estimates.
+ *
+ * <p>With width {@code ceil(e / epsilon)} and depth
+ * {@code ceil(ln(1 / (1 - confidence)))}, an estimate never undercounts
+ * and, with probability {@code confidence}, overcounts by at most
+ * {@code epsilon * total()}. Two sketches with the same parameters
+ * merge by adding their tables and re-ranking the union of their
+ * candidates, so buckets can be combined into any window.
+ *
+ * <p>Not thread-safe.
+ */
+public final class HeavyHitterSketch {
+
+  /** Ranking: highest estimate first, then by item. */
+  private static final Comparator<AccountAggregates.TagCount> RANK =
+      Comparator.comparingLong(AccountAggregates.TagCount::tweets)
+          .reversed().thenComparing(AccountAggregates.TagCount::tag);
+
+  /**
+   * Rough heap cost of one candidate: its map entry, boxed estimate and
+   * a short tag.
+   */
+  private static final long CANDIDATE_BYTES = 128;
+
+  /** Columns per row. */
+  private final int width;
+
+  /** Rows (independent hashes). */
+  private final int depth;
+
+  /** Candidates kept. */
+  private final int capacity;
+
+  /** Counters, row-major. */
+  private final long[] table;
+
+  /** Items tracked as possible heavy hitters, with their estimates. */
+  private final Map<String, Long> candidates = new HashMap<>();
+
+  /** Sum of all counts added. */
+  private long total;
+
+  /**
+   * Creates an empty sketch.
+   *
+   * @param epsilon overcount bound as a fraction of the total (0..1)
+   * @param confidence probability the bound holds (0..1)
+   * @param topCapacity candidates kept; the largest top-N answerable
+   * @throws IllegalArgumentException if a parameter is out of range
+   */
+  public HeavyHitterSketch(final double epsilon, final double confidence,
+      final int topCapacity) {
+    if (!(epsilon > 0 && epsilon < 1) || !(confidence > 0 && confidence < 1)
+        || topCapacity < 1) {
+      throw new IllegalArgumentException("bad sketch parameters");
+    }
+    this.width = (int) Math.ceil(Math.E / epsilon);
+    this.depth =
+        Math.max(1, (int) Math.ceil(Math.log(1 / (1 - confidence))));
+    this.capacity = topCapacity;
+    this.table = new long[width * depth];
+  }
+
+  /**
+   * Empty sketch with the same parameters as another.
+   *
+   * @param shape sketch to copy the parameters of
+   */
+  private HeavyHitterSketch(final HeavyHitterSketch shape) {
+    this.width = shape.width;
+    this.depth = shape.depth;
+    this.capacity = shape.capacity;
+    this.table = new long[width * depth];
+  }
+
+  /**
+   * Count an item.
+   *
+   * @param item item, e.g. a lowercased {@code #tag}
+   * @param count occurrences to add (positive)
+   */
+  public void add(final String item, final long count) {
+    final long h = hash(item);
+    long est = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      final int at = row * width + column(h, row);
+      table[at] += count;
+      est = Math.min(est, table[at]);
+    }
+    total += count;
+    offer(item, est);
+  }
+
+  /**
+   * Estimated count of an item; never below the true count.
+   *
+   * @param item item
+   * @return estimate
+   */
+  public long estimate(final String item) {
+    final long h = hash(item);
+    long est = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      est = Math.min(est, table[row * width + column(h, row)]);
+    }
+    return est;
+  }
+
+  /**
+   * Add another sketch's counts into this one.
+   *
+   * @param other sketch with the same parameters
+   * @throws IllegalArgumentException if the parameters differ
+   */
+  public void merge(final HeavyHitterSketch other) {
+    if (other.width != width || other.depth != depth
+        || other.capacity != capacity) {
+      throw new IllegalArgumentException("sketch shapes differ");
+    }
+    for (int i = 0; i < table.length; i++) {
+      table[i] += other.table[i];
+    }
+    total += other.total;
+    final List<String> union = new ArrayList<>(candidates.keySet());
+    union.addAll(other.candidates.keySet());
+    candidates.clear();
+    for (String item : union) {
+      offer(item, estimate(item));
+    }
+  }
+
+  /**
+   * Empty sketch that can be merged with this one.
+   *
+   * @return new sketch
+   */
+  public HeavyHitterSketch emptyCopy() {
+    return new HeavyHitterSketch(this);
+  }
+
+  /**
+   * Items with the highest estimates.
+   *
+   * @param n how many (at most the capacity)
+   * @return items and estimates, highest first (ties by item)
+   */
+  public List<AccountAggregates.TagCount> top(final int n) {
+    final List<AccountAggregates.TagCount> all =
+        new ArrayList<>(candidates.size());
+    for (String item : candidates.keySet()) {
+      all.add(new AccountAggregates.TagCount(item, estimate(item)));
+    }
+    all.sort(RANK);
+    return List.copyOf(all.subList(0, Math.min(Math.max(0, n), all.size())));
+  }
+
+  /**
+   * Sum of all counts added.
+   *
+   * @return total
+   */
+  public long total() {
+    return total;
+  }
+
+  /**
+   * Counter memory, excluding candidates.
+   *
+   * @return bytes
+   */
+  public long tableBytes() {
+    return (long) table.length * Long.BYTES;
+  }
+
+  /**
+   * Approximate memory when full: counters plus {@code capacity}
+   * candidates.
+   *
+   * @return bytes
+   */
+  public long bytes() {
+    return tableBytes() + capacity * CANDIDATE_BYTES;
+  }
+
+  /**
+   * Track an item if its estimate beats the smallest candidate.
+   *
+   * @param item item
+   * @param est its current estimate
+   */
+  private void offer(final String item, final long est) {
+    if (candidates.containsKey(item) || candidates.size() < capacity) {
+      candidates.put(item, est);
+      return;
+    }
+    String min = null;
+    long minEst = Long.MAX_VALUE;
+    for (Map.Entry<String, Long> e : candidates.entrySet()) {
+      if (e.getValue() < minEst) {
+        min = e.getKey();
+        minEst = e.getValue();
+      }
+    }
+    if (est > minEst) {
+      candidates.remove(min);
+      candidates.put(item, est);
+    }
+  }
+
+  private int column(final long h, final int row) {
+    // Kirsch-Mitzenmacher: row hashes from two halves of one 64-bit hash.
+    final int h1 = (int) h;
+    final int h2 = (int) (h >>> 32);
+    return Math.floorMod(h1 + row * h2, width);
+  }
+
+  /**
+   * 64-bit FNV-1a over the UTF-8 bytes, so columns are the same in every
+   * process.
+   *
+   * @param item item
+   * @return hash
+   */
+  static long hash(final String item) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    // Final avalanche (murmur3 fmix64) spreads FNV's weak low bits.
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
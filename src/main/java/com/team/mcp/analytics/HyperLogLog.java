@@ -0,0 +1,294 @@
+package com.team.mcp.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter with {@code 2^precision} registers and a
+ * relative standard error of about {@code 1.04 / sqrt(2^precision)}.
+ *
+ * <p>A counter starts sparse, as a sorted {@code int[]} of
+ * {@code (register << 8 | rank)} entries, and switches to one byte per
+ * register once that would be smaller. Counters of the same precision
+ * merge by taking register maxima, so hour buckets and accounts combine
+ * into any window. {@link #toBytes()} writes sparse counters as
+ * delta-encoded varints, which keeps quiet hours to a few bytes.
+ *
+ * <p>Not thread-safe.
+ */
+public final class HyperLogLog {
+
+  /** Smallest supported precision. */
+  public static final int MIN_PRECISION = 4;
+
+  /** Largest supported precision. */
+  public static final int MAX_PRECISION = 16;
+
+  /** Encoding tag of a sparse counter. */
+  private static final byte SPARSE = 0;
+
+  /** Encoding tag of a dense counter. */
+  private static final byte DENSE = 1;
+
+  /** Bits of a sparse entry holding the rank. */
+  private static final int RANK_BITS = 8;
+
+  /** Register index bits. */
+  private final int precision;
+
+  /** Register count. */
+  private final int m;
+
+  /** Dense registers, or {@code null} while sparse. */
+  private byte[] registers;
+
+  /** Sorted sparse entries; the first {@code sparseSize} are used. */
+  private int[] sparse = new int[4];
+
+  /** Used sparse entries. */
+  private int sparseSize;
+
+  /**
+   * Creates an empty counter.
+   *
+   * @param p register index bits, {@value #MIN_PRECISION} to
+   *     {@value #MAX_PRECISION}
+   * @throws IllegalArgumentException if {@code p} is out of range
+   */
+  public HyperLogLog(final int p) {
+    if (p < MIN_PRECISION || p > MAX_PRECISION) {
+      throw new IllegalArgumentException("precision " + p);
+    }
+    this.precision = p;
+    this.m = 1 << p;
+  }
+
+  /**
+   * Count an item.
+   *
+   * @param item item, e.g. a user handle
+   */
+  public void add(final String item) {
+    final long h = HeavyHitterSketch.hash(item);
+    final int idx = (int) (h >>> (Long.SIZE - precision));
+    final int rank = Math.min(Long.numberOfLeadingZeros(h << precision),
+        Long.SIZE - precision) + 1;
+    set(idx, rank);
+  }
+
+  /**
+   * Fold another counter into this one.
+   *
+   * @param other counter of the same precision
+   * @throws IllegalArgumentException if the precisions differ
+   */
+  public void merge(final HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("precisions differ");
+    }
+    if (other.registers != null) {
+      for (int i = 0; i < m; i++) {
+        if (other.registers[i] != 0) {
+          set(i, other.registers[i]);
+        }
+      }
+    } else {
+      for (int k = 0; k < other.sparseSize; k++) {
+        set(other.sparse[k] >>> RANK_BITS, other.sparse[k] & 0xff);
+      }
+    }
+  }
+
+  /**
+   * Estimated number of distinct items added.
+   *
+   * @return estimate
+   */
+  public long estimate() {
+    double sum = 0;
+    int zeros = 0;
+    if (registers != null) {
+      for (byte r : registers) {
+        sum += Math.scalb(1.0, -r);
+        zeros += r == 0 ? 1 : 0;
+      }
+    } else {
+      zeros = m - sparseSize;
+      sum = zeros;
+      for (int k = 0; k < sparseSize; k++) {
+        sum += Math.scalb(1.0, -(sparse[k] & 0xff));
+      }
+    }
+    final double raw = alpha() * m * m / sum;
+    if (raw <= 2.5 * m && zeros > 0) {
+      // Small range: linear counting is more accurate.
+      return Math.round(m * Math.log((double) m / zeros));
+    }
+    return Math.round(raw);
+  }
+
+  /**
+   * Relative standard error of {@link #estimate()}.
+   *
+   * @return error as a fraction
+   */
+  public double standardError() {
+    return 1.04 / Math.sqrt(m);
+  }
+
+  /**
+   * Register index bits.
+   *
+   * @return precision
+   */
+  public int precision() {
+    return precision;
+  }
+
+  /**
+   * Compact serialized form, read back by {@link #fromBytes(byte[])}.
+   *
+   * @return bytes
+   */
+  public byte[] toBytes() {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(precision);
+    if (registers != null) {
+      out.write(DENSE);
+      out.writeBytes(registers);
+    } else {
+      out.write(SPARSE);
+      writeVarint(out, sparseSize);
+      int prev = 0;
+      for (int k = 0; k < sparseSize; k++) {
+        writeVarint(out, sparse[k] - prev);
+        prev = sparse[k];
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Read a counter written by {@link #toBytes()}.
+   *
+   * @param bytes serialized counter
+   * @return counter
+   * @throws IllegalArgumentException if the bytes are malformed
+   */
+  public static HyperLogLog fromBytes(final byte[] bytes) {
+    if (bytes == null || bytes.length < 2) {
+      throw new IllegalArgumentException("truncated counter");
+    }
+    final HyperLogLog h = new HyperLogLog(bytes[0]);
+    final int[] at = {2};
+    if (bytes[1] == DENSE) {
+      if (bytes.length != 2 + h.m) {
+        throw new IllegalArgumentException("bad dense length");
+      }
+      h.registers = Arrays.copyOfRange(bytes, 2, bytes.length);
+    } else if (bytes[1] == SPARSE) {
+      final int n = readVarint(bytes, at);
+      int prev = 0;
+      for (int k = 0; k < n; k++) {
+        prev += readVarint(bytes, at);
+        if (prev >>> RANK_BITS >= h.m) {
+          throw new IllegalArgumentException("bad register");
+        }
+        h.set(prev >>> RANK_BITS, prev & 0xff);
+      }
+    } else {
+      throw new IllegalArgumentException("bad encoding " + bytes[1]);
+    }
+    return h;
+  }
+
+  /**
+   * Raise a register to at least {@code rank}.
+   *
+   * @param idx register
+   * @param rank candidate value
+   */
+  private void set(final int idx, final int rank) {
+    if (registers != null) {
+      if (registers[idx] < rank) {
+        registers[idx] = (byte) rank;
+      }
+      return;
+    }
+    int lo = 0;
+    int hi = sparseSize - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int midIdx = sparse[mid] >>> RANK_BITS;
+      if (midIdx < idx) {
+        lo = mid + 1;
+      } else if (midIdx > idx) {
+        hi = mid - 1;
+      } else {
+        if ((sparse[mid] & 0xff) < rank) {
+          sparse[mid] = idx << RANK_BITS | rank;
+        }
+        return;
+      }
+    }
+    // Sparse costs 4 bytes per entry in memory; dense costs m.
+    if (sparseSize + 1 > m / Integer.BYTES) {
+      toDense();
+      registers[idx] = (byte) rank;
+      return;
+    }
+    if (sparseSize == sparse.length) {
+      sparse = Arrays.copyOf(sparse, sparse.length * 2);
+    }
+    System.arraycopy(sparse, lo, sparse, lo + 1, sparseSize - lo);
+    sparse[lo] = idx << RANK_BITS | rank;
+    sparseSize++;
+  }
+
+  private void toDense() {
+    registers = new byte[m];
+    for (int k = 0; k < sparseSize; k++) {
+      registers[sparse[k] >>> RANK_BITS] = (byte) (sparse[k] & 0xff);
+    }
+    sparse = null;
+    sparseSize = 0;
+  }
+
+  private double alpha() {
+    switch (m) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / m);
+    }
+  }
+
+  private static void writeVarint(final ByteArrayOutputStream out,
+      final int value) {
+    int v = value;
+    while ((v & ~0x7f) != 0) {
+      out.write(v & 0x7f | 0x80);
+      v >>>= 7;
+    }
+    out.write(v);
+  }
+
+  private static int readVarint(final byte[] bytes, final int[] at) {
+    int v = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      if (at[0] >= bytes.length) {
+        throw new IllegalArgumentException("truncated varint");
+      }
+      final byte b = bytes[at[0]++];
+      v |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return v;
+      }
+    }
+    throw new IllegalArgumentException("bad varint");
+  }
+}
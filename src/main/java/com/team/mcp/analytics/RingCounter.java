@@ -0,0 +1,90 @@
+package com.team.mcp.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Counts per tumbling time bucket for the newest {@code size} buckets,
+ * in a fixed {@code long[]} indexed by bucket number modulo its length.
+ *
+ * <p>Moving to a later bucket clears only the slots skipped over, at
+ * most {@code size} of them, so rotation is O(1) per bucket and the
+ * array is never reallocated. Counts for buckets that have already
+ * rotated out are ignored.
+ *
+ * <p>Not thread-safe.
+ */
+final class RingCounter {
+
+  /** Counts by {@code floorMod(bucket, length)}. */
+  private final long[] slots;
+
+  /** Newest bucket the ring holds. */
+  private long head = Long.MIN_VALUE;
+
+  /**
+   * Creates an empty ring.
+   *
+   * @param size buckets kept
+   */
+  RingCounter(final int size) {
+    this.slots = new long[Math.max(1, size)];
+  }
+
+  /**
+   * Add to a bucket, rotating forward if it is newer than the head.
+   *
+   * @param bucket bucket number (e.g. epoch minutes)
+   * @param n amount to add
+   */
+  void add(final long bucket, final long n) {
+    advance(bucket);
+    if (bucket > head - slots.length) {
+      slots[Math.floorMod(bucket, slots.length)] += n;
+    }
+  }
+
+  /**
+   * Rotate so that {@code bucket} is the newest one held.
+   *
+   * @param bucket bucket number
+   */
+  void advance(final long bucket) {
+    if (head == Long.MIN_VALUE || bucket - head >= slots.length) {
+      Arrays.fill(slots, 0L);
+      head = Math.max(head, bucket);
+      return;
+    }
+    while (head < bucket) {
+      head++;
+      slots[Math.floorMod(head, slots.length)] = 0L;
+    }
+  }
+
+  /**
+   * The newest {@code points} buckets ending at {@code bucket}.
+   *
+   * @param bucket newest bucket wanted (normally the current one)
+   * @param points how many buckets (capped at the ring size)
+   * @return counts, oldest first
+   */
+  long[] series(final long bucket, final int points) {
+    advance(bucket);
+    final int n = Math.min(Math.max(0, points), slots.length);
+    final long[] out = new long[n];
+    for (int i = 0; i < n; i++) {
+      final long b = bucket - n + 1 + i;
+      out[i] = b > head - slots.length && b <= head
+          ? slots[Math.floorMod(b, slots.length)] : 0L;
+    }
+    return out;
+  }
+
+  /**
+   * Buckets kept.
+   *
+   * @return ring size
+   */
+  int size() {
+    return slots.length;
+  }
+}
@@ -1,7 +1,10 @@
 package com.team.mcp.config;
 
 import com.team.mcp.twitter.FakeTwitterClient;
+import com.team.mcp.twitter.SyntheticCorpus;
 import com.team.mcp.twitter.TwitterClient;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +12,10 @@ import org.springframework.context.annotation.Configuration;
 /**
  * Provides a fake Twitter client when {@code app.fakeTwitter=true}.
  * Default is enabled for Iteration-1.
+ *
+ * <p>With {@code app.synthetic.enabled=true} the client serves a generated
+ * {@link SyntheticCorpus} sized by {@code app.synthetic.*} instead of the
+ * fixed seed.
  */
 @Configuration
 @ConditionalOnProperty(
@@ -21,10 +28,36 @@ public class FakeTwitterConfig {
   /**
    * Twitter client bean used by services.
    *
+   * @param synthetic {@code app.synthetic.enabled}
+   * @param tweets {@code app.synthetic.tweets}
+   * @param accounts {@code app.synthetic.accounts}
+   * @param users {@code app.synthetic.users}
+   * @param vocabulary {@code app.synthetic.vocabulary}
+   * @param hashtags {@code app.synthetic.hashtags}
+   * @param zipf {@code app.synthetic.zipf}
+   * @param days {@code app.synthetic.days}
+   * @param start {@code app.synthetic.start} (ISO-8601 instant)
+   * @param seed {@code app.synthetic.seed}
    * @return a deterministic, in-memory {@link TwitterClient}
    */
   @Bean
-  public TwitterClient twitterClient() {
+  public TwitterClient twitterClient(
+      @Value("${app.synthetic.enabled:false}") final boolean synthetic,
+      @Value("${app.synthetic.tweets:100000}") final long tweets,
+      @Value("${app.synthetic.accounts:10}") final int accounts,
+      @Value("${app.synthetic.users:1000}") final int users,
+      @Value("${app.synthetic.vocabulary:5000}") final int vocabulary,
+      @Value("${app.synthetic.hashtags:500}") final int hashtags,
+      @Value("${app.synthetic.zipf:1.1}") final double zipf,
+      @Value("${app.synthetic.days:30}") final int days,
+      @Value("${app.synthetic.start:2025-01-01T00:00:00Z}")
+      final String start,
+      @Value("${app.synthetic.seed:42}") final long seed) {
+    if (synthetic) {
+      return new FakeTwitterClient(new SyntheticCorpus(tweets, accounts,
+          users, vocabulary, hashtags, zipf, days, Instant.parse(start),
+          seed));
+    }
     return new FakeTwitterClient();
   }
 }
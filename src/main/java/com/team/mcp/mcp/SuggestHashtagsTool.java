@@ -0,0 +1,84 @@
+package com.team.mcp.mcp;
+
+import com.team.mcp.search.HashtagSuggester;
+import com.team.mcp.search.Suggestion;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * MCP tool that completes a hashtag or {@code @handle} prefix with the
+ * most used terms of an account.
+ *
+ * <p>Args:
+ * <ul>
+ *   <li><b>accountId</b> (required)</li>
+ *   <li><b>prefix</b> (required) — must start with {@code #} or
+ *       {@code @}</li>
+ *   <li><b>limit</b> (optional, default 5, max 10)</li>
+ * </ul>
+ */
+@Component
+public final class SuggestHashtagsTool implements Tool {
+
+  /** Default number of suggestions. */
+  private static final int DEFAULT_LIMIT = 5;
+
+  /** Completion index. */
+  private final HashtagSuggester suggester;
+
+  /**
+   * Creates the tool.
+   *
+   * @param hashtagSuggester backing completion index
+   */
+  public SuggestHashtagsTool(final HashtagSuggester hashtagSuggester) {
+    this.suggester = hashtagSuggester;
+  }
+
+  @Override
+  public String name() {
+    return "suggest_hashtags";
+  }
+
+  @Override
+  public String description() {
+    return "Complete a #hashtag or @handle prefix with the most used terms";
+  }
+
+  @Override
+  public List<Map<String, Object>> call(final Map<String, Object> args) {
+    final Object acc = args.get("accountId");
+    final Object prefix = args.get("prefix");
+    if (!(acc instanceof String) || ((String) acc).isBlank()
+        || !(prefix instanceof String)
+        || !((String) prefix).startsWith("#")
+        && !((String) prefix).startsWith("@")) {
+      return List.of(Map.of(
+          "type", "text",
+          "text", "error: 'accountId' and a '#' or '@' 'prefix' are required"));
+    }
+    int limit = DEFAULT_LIMIT;
+    final Object l = args.get("limit");
+    if (l instanceof Number) {
+      limit = ((Number) l).intValue();
+    } else if (l instanceof String) {
+      try {
+        limit = Integer.parseInt((String) l);
+      } catch (NumberFormatException e) {
+        limit = DEFAULT_LIMIT;
+      }
+    }
+
+    final List<Suggestion> out =
+        suggester.suggest((String) acc, (String) prefix, limit);
+    if (out.isEmpty()) {
+      return List.of(Map.of("type", "text", "text", "no suggestions"));
+    }
+    final StringBuilder sb = new StringBuilder();
+    for (Suggestion s : out) {
+      sb.append(s.term()).append(" (").append(s.count()).append(")\n");
+    }
+    return List.of(Map.of("type", "text", "text", sb.toString().trim()));
+  }
+}
@@ -0,0 +1,166 @@
+package com.team.mcp.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Position in the change feed, with gap handling.
+ *
+ * <p>Sequence values are taken at insert time but become visible at
+ * commit, so a reader can see {@code seq 7} before a slower transaction
+ * commits {@code seq 6}. The cursor therefore only moves over a gap once
+ * it has been open for {@code gapTimeoutMs}. Gaps are timed from the
+ * poll that first read past them, so all gaps of one batch expire
+ * together rather than costing one timeout each.
+ *
+ * <p>Sequences passed over are then watched for {@code lateWindowMs}
+ * (at most {@value #MAX_LATE} of them, and none from a single jump wider
+ * than that): a transaction that commits after the cursor moved on is
+ * still picked up, out of order, through {@link #late(long)}. Gaps that
+ * never fill (rolled-back inserts, conflicting upserts, sequence caching)
+ * just age out of the watch list.
+ */
+final class ChangeCursor {
+
+  /** Most sequences watched for late commits. */
+  static final int MAX_LATE = 1_000;
+
+  /** Last delivered sequence. */
+  private long last;
+
+  /** How long a gap may hold back delivery. */
+  private final long gapTimeoutMs;
+
+  /** How long a passed-over sequence is watched. */
+  private final long lateWindowMs;
+
+  /**
+   * Highest sequence read so far and when it was first read, one entry
+   * per poll that raised it, ascending; entries at or below {@link #last}
+   * are dropped.
+   */
+  private final Deque<long[]> marks = new ArrayDeque<>();
+
+  /** Passed-over sequence to when it was passed over. */
+  private final TreeMap<Long, Long> watched = new TreeMap<>();
+
+  /**
+   * Create a cursor.
+   *
+   * @param start last sequence already consumed
+   * @param timeoutMs gap timeout
+   * @param lateMs how long skipped sequences are watched
+   */
+  ChangeCursor(final long start, final long timeoutMs, final long lateMs) {
+    this.last = start;
+    this.gapTimeoutMs = Math.max(0L, timeoutMs);
+    this.lateWindowMs = Math.max(0L, lateMs);
+  }
+
+  /**
+   * Last delivered sequence.
+   *
+   * @return sequence
+   */
+  long last() {
+    return last;
+  }
+
+  /**
+   * Accept the deliverable prefix of newly read changes and advance.
+   *
+   * @param sorted changes after {@link #last()}, ascending
+   * @param nowMs current time
+   * @return number of leading changes that may be delivered
+   */
+  int advance(final List<TweetChange> sorted, final long nowMs) {
+    if (!sorted.isEmpty()) {
+      final long max = sorted.get(sorted.size() - 1).seq();
+      if (marks.isEmpty() || marks.peekLast()[0] < max) {
+        marks.addLast(new long[] {max, nowMs});
+      }
+    }
+    int n = 0;
+    for (TweetChange c : sorted) {
+      if (c.seq() > last + 1) {
+        if (nowMs - noticed(last + 1) < gapTimeoutMs) {
+          break;
+        }
+        watch(last + 1, c.seq(), nowMs);
+      }
+      last = c.seq();
+      n++;
+    }
+    while (!marks.isEmpty() && marks.peekFirst()[0] <= last) {
+      marks.pollFirst();
+    }
+    return n;
+  }
+
+  /**
+   * Sequences passed over that are still worth looking for; older ones
+   * are forgotten.
+   *
+   * @param nowMs current time
+   * @return watched sequences, ascending
+   */
+  List<Long> late(final long nowMs) {
+    final Iterator<Map.Entry<Long, Long>> it =
+        watched.entrySet().iterator();
+    while (it.hasNext()) {
+      if (nowMs - it.next().getValue() >= lateWindowMs) {
+        it.remove();
+      }
+    }
+    return new ArrayList<>(watched.keySet());
+  }
+
+  /**
+   * Stop watching a sequence that has now been delivered.
+   *
+   * @param seq delivered sequence
+   */
+  void found(final long seq) {
+    watched.remove(seq);
+  }
+
+  /**
+   * When a gap at {@code seq} was first seen: the first poll that read a
+   * sequence past it.
+   *
+   * @param seq missing sequence
+   * @return time in millis
+   */
+  private long noticed(final long seq) {
+    for (long[] m : marks) {
+      if (m[0] > seq) {
+        return m[1];
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Watch the sequences {@code [from, to)} the cursor is moving over.
+   *
+   * @param from first missing sequence
+   * @param to next present sequence
+   * @param nowMs current time
+   */
+  private void watch(final long from, final long to, final long nowMs) {
+    if (lateWindowMs == 0 || to - from > MAX_LATE) {
+      return;
+    }
+    for (long s = from; s < to; s++) {
+      watched.put(s, nowMs);
+    }
+    while (watched.size() > MAX_LATE) {
+      watched.pollFirstEntry();
+    }
+  }
+}
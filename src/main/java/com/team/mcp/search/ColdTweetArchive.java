@@ -0,0 +1,335 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monthly {@link CompressedDocStore} files of expired tweets, written by
+ * {@link TweetRetention} in {@code compress} mode before a month is
+ * dropped from {@code tweets}.
+ *
+ * <p>Files are {@code tweets_pYYYY_MM.cds} under
+ * {@code app.retention.compress.dir}, keyed by tweet id; each document
+ * holds the account, author, text and creation time. The dictionary is
+ * trained on the first {@value #SAMPLE_DOCS} tweets of the month. A month
+ * archived again (rows that arrived after its first run) is merged into
+ * its file under the original dictionary, never overwritten. Files are
+ * opened on first lookup and kept open, each with an LRU of
+ * {@code app.retention.compress.cacheBlocks} decompressed blocks.
+ */
+@Component
+public final class ColdTweetArchive {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ColdTweetArchive.class);
+
+  /** Archive file suffix. */
+  static final String SUFFIX = ".cds";
+
+  /** Tweets sampled to train a month's dictionary. */
+  static final int SAMPLE_DOCS = 2000;
+
+  /** One month of tweets. */
+  private static final String MONTH_SQL =
+      "SELECT id, account_id, user_handle, text, created_at FROM tweets "
+          + "WHERE created_at >= ? AND created_at < ?";
+
+  /** JDBC access. */
+  private final JdbcTemplate jdbc;
+
+  /** Archive directory. */
+  private final Path dir;
+
+  /** Decompressed blocks cached per file. */
+  private final int cacheBlocks;
+
+  /** Uncompressed block size. */
+  private final int blockBytes;
+
+  /** Dictionary size limit. */
+  private final int dictionaryBytes;
+
+  /** Open files by name. */
+  private final Map<String, CompressedDocStore> open =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates the archive.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param directory {@code app.retention.compress.dir}
+   * @param configuredCacheBlocks {@code app.retention.compress.cacheBlocks}
+   * @param configuredBlockBytes {@code app.retention.compress.blockBytes}
+   * @param configuredDictionary
+   *     {@code app.retention.compress.dictionaryBytes}
+   */
+  public ColdTweetArchive(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.retention.compress.dir:./.archive}")
+      final String directory,
+      @Value("${app.retention.compress.cacheBlocks:64}")
+      final int configuredCacheBlocks,
+      @Value("${app.retention.compress.blockBytes:16384}")
+      final int configuredBlockBytes,
+      @Value("${app.retention.compress.dictionaryBytes:16384}")
+      final int configuredDictionary) {
+    this.jdbc = jdbcTemplate;
+    this.dir = Paths.get(directory);
+    this.cacheBlocks = configuredCacheBlocks > 0
+        ? configuredCacheBlocks : CompressedDocStore.DEFAULT_CACHE_BLOCKS;
+    this.blockBytes = configuredBlockBytes > 0
+        ? configuredBlockBytes : CompressedDocStore.DEFAULT_BLOCK_BYTES;
+    this.dictionaryBytes = Math.max(0,
+        Math.min(configuredDictionary, CompressedDocStore.MAX_DICTIONARY));
+  }
+
+  /**
+   * Write one month of {@code tweets} to its archive file, merged with
+   * what an earlier run archived for that month. The file is replaced
+   * atomically once complete.
+   *
+   * @param month month to archive
+   * @return the written file and the ids copied from {@code tweets}
+   * @throws UncheckedIOException if the file cannot be written
+   */
+  public Archived write(final YearMonth month) {
+    final Instant from = TweetRetention.start(month);
+    final Instant to = TweetRetention.start(month.plusMonths(1));
+    final String name = TweetRetention.partitionName(month) + SUFFIX;
+    final Set<String> ids = new HashSet<>();
+    try {
+      Files.createDirectories(dir);
+      final CompressedDocStore earlier =
+          Files.exists(dir.resolve(name)) ? store(name) : null;
+      final byte[] dict;
+      if (earlier != null) {
+        dict = earlier.dictionary();
+      } else {
+        final List<byte[]> sample = jdbc.query(
+            MONTH_SQL + " ORDER BY created_at LIMIT ?",
+            (rs, i) -> encode(rs), from, to, SAMPLE_DOCS);
+        dict = CompressedDocStore.trainDictionary(sample, dictionaryBytes);
+      }
+      final Path tmp = Files.createTempFile(dir, "archive", ".tmp");
+      try (CompressedDocStore.Writer w = new CompressedDocStore.Writer(
+          tmp, dict, blockBytes, Deflater.BEST_COMPRESSION)) {
+        if (earlier != null) {
+          earlier.forEach(w::add);
+        }
+        final RowCallbackHandler add = rs -> {
+          try {
+            w.add(rs.getString("id"), encode(rs));
+            ids.add(rs.getString("id"));
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        };
+        jdbc.query(MONTH_SQL + " ORDER BY created_at", add, from, to);
+      } catch (IOException | RuntimeException ex) {
+        Files.deleteIfExists(tmp);
+        throw ex;
+      }
+      final CompressedDocStore stale = open.remove(name);
+      if (stale != null) {
+        stale.close();
+      }
+      Files.move(tmp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      final ArchiveFile f = describe(name, store(name));
+      LOG.info("Archived {}: {} new, {} tweets, {} -> {} bytes", name,
+          ids.size(), f.tweets(), f.rawBytes(), f.fileBytes());
+      return new Archived(f, ids);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Look up an archived tweet, newest month first.
+   *
+   * @param id tweet id
+   * @return the tweet, or {@code null} if no archive holds it
+   * @throws UncheckedIOException if an archive file is unreadable
+   */
+  public ArchivedTweet find(final String id) {
+    try {
+      for (String name : names()) {
+        final byte[] doc = store(name).get(id);
+        if (doc != null) {
+          return decode(id, doc);
+        }
+      }
+      return null;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Archive files, oldest month first.
+   *
+   * @return file descriptions
+   * @throws UncheckedIOException if a file is unreadable
+   */
+  public List<ArchiveFile> files() {
+    final List<ArchiveFile> out = new ArrayList<>();
+    try {
+      final List<String> names = names();
+      for (int i = names.size() - 1; i >= 0; i--) {
+        out.add(describe(names.get(i), store(names.get(i))));
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return out;
+  }
+
+  /** Close every open file. */
+  @PreDestroy
+  public void close() {
+    for (CompressedDocStore s : open.values()) {
+      try {
+        s.close();
+      } catch (IOException ex) {
+        LOG.debug("Archive close failed: {}", ex.toString());
+      }
+    }
+    open.clear();
+  }
+
+  /**
+   * Archive file names, newest month first.
+   *
+   * @return names
+   * @throws IOException if the directory cannot be listed
+   */
+  private List<String> names() throws IOException {
+    final List<String> out = new ArrayList<>();
+    if (!Files.isDirectory(dir)) {
+      return out;
+    }
+    try (DirectoryStream<Path> ds =
+        Files.newDirectoryStream(dir, TweetRetention.PREFIX + "*" + SUFFIX)) {
+      for (Path p : ds) {
+        out.add(p.getFileName().toString());
+      }
+    }
+    out.sort(Comparator.reverseOrder());
+    return out;
+  }
+
+  private CompressedDocStore store(final String name) throws IOException {
+    CompressedDocStore s = open.get(name);
+    if (s == null) {
+      synchronized (open) {
+        s = open.get(name);
+        if (s == null) {
+          s = CompressedDocStore.open(dir.resolve(name), cacheBlocks);
+          open.put(name, s);
+        }
+      }
+    }
+    return s;
+  }
+
+  private static ArchiveFile describe(final String name,
+      final CompressedDocStore s) throws IOException {
+    return new ArchiveFile(name, TweetRetention.parseMonth(
+        name.substring(0, name.length() - SUFFIX.length())), s.size(),
+        s.rawBytes(), s.fileBytes());
+  }
+
+  /**
+   * Serialize the current row (the id is the key, not part of the
+   * document).
+   *
+   * @param rs result set on a {@code tweets} row
+   * @return document bytes
+   * @throws SQLException if a column cannot be read
+   */
+  private static byte[] encode(final ResultSet rs) throws SQLException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(rs.getString("account_id"));
+      out.writeUTF(rs.getString("user_handle"));
+      out.writeUTF(rs.getString("text"));
+      out.writeLong(rs.getTimestamp("created_at").getTime());
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static ArchivedTweet decode(final String id, final byte[] doc)
+      throws IOException {
+    final DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(doc));
+    final String account = in.readUTF();
+    final String user = in.readUTF();
+    final String text = in.readUTF();
+    final Instant created = Instant.ofEpochMilli(in.readLong());
+    return new ArchivedTweet(account, new Tweet(id, user, text, created));
+  }
+
+  /**
+   * A tweet read back from an archive.
+   *
+   * @param accountId owning account
+   * @param tweet the tweet
+   */
+  public record ArchivedTweet(String accountId, Tweet tweet) {
+  }
+
+  /**
+   * Outcome of {@link #write}.
+   *
+   * @param file the month's file after the write
+   * @param ids tweet ids copied from {@code tweets} by this write; only
+   *     these may be deleted there
+   */
+  public record Archived(ArchiveFile file, Set<String> ids) {
+  }
+
+  /**
+   * One archive file.
+   *
+   * @param name file name
+   * @param month archived month
+   * @param tweets tweets held
+   * @param rawBytes uncompressed document bytes
+   * @param fileBytes size on disk
+   */
+  public record ArchiveFile(String name, YearMonth month, int tweets,
+      long rawBytes, long fileBytes) {
+  }
+}
@@ -0,0 +1,740 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import com.team.mcp.warmup.AccountWarmer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Columnar in-memory copy of each account's newest ingested tweets, so
+ * timeline-mode search and analytics can scan hot data by ordinal
+ * instead of fetching and holding {@link Tweet} lists per request.
+ *
+ * <p>Per account, tweet {@code ord} is spread over primitive columns:
+ * <ul>
+ *   <li>{@code long[]} creation time (epoch millis);</li>
+ *   <li>{@code int[]} author, dictionary-encoded store-wide;</li>
+ *   <li>id as a dictionary-encoded prefix plus a {@code long} numeric
+ *       suffix ({@code "1790..."}, {@code "seed-17"}, {@code "syn-42"}),
+ *       with a plain string only for ids that do not fit that shape;</li>
+ *   <li>text as UTF-8 in one growing {@code byte[]} slab with
+ *       {@code int[]} offsets;</li>
+ *   <li>the same text lowercased, in a second slab, so case-insensitive
+ *       matching reads it directly instead of lowercasing every row per
+ *       request.</li>
+ * </ul>
+ * A {@link View} adds an ordinal index sorted newest first. Callers
+ * decode only the columns they read and build a {@link Tweet} only for
+ * rows that make it into a response.
+ *
+ * <p>Fed by ingestion ({@link IngestListener}) and, for the hottest
+ * accounts, loaded from {@code tweets} at startup ({@link AccountWarmer});
+ * each account keeps at most
+ * {@code app.columnar.maxPerAccount} rows, dropping the oldest. Appends
+ * are serialized per account; readers use an immutable {@link View}
+ * published after each append and never take a lock. Rows deleted or
+ * purged from {@code tweets} are dropped as the change feed reports them
+ * ({@link TweetChangeListener}).
+ *
+ * <p>Enabled with {@code app.columnar.enabled=true}; search and analytics
+ * then read accounts held here instead of calling the timeline.
+ */
+@Component
+@ConditionalOnProperty(name = "app.columnar.enabled", havingValue = "true")
+public final class ColumnarTweetStore
+    implements IngestListener, TweetChangeListener, AccountWarmer {
+
+  /** Default rows kept per account. */
+  static final int DEFAULT_MAX_PER_ACCOUNT = 10_000;
+
+  /** Initial column capacity. */
+  private static final int INITIAL_ROWS = 64;
+
+  /** Initial text slab size in bytes. */
+  private static final int INITIAL_SLAB = 4096;
+
+  /** Marks an id kept as a plain string. */
+  private static final int RAW_ID = -1;
+
+  /** Largest number of decimal digits parsed into a {@code long}. */
+  private static final int MAX_DIGITS = 18;
+
+  /** Newest rows of an account, for warm-up. */
+  private static final String NEWEST_SQL =
+      "SELECT id, user_handle, text, created_at FROM tweets "
+          + "WHERE account_id = ? ORDER BY created_at DESC LIMIT ?";
+
+  /** Optional JDBC access for warm-up; may be {@code null}. */
+  private final JdbcTemplate jdbc;
+
+  /** Rows kept per account. */
+  private final int maxPerAccount;
+
+  /** Author handles. */
+  private final Dictionary users = new Dictionary();
+
+  /** Id prefixes (text before the numeric suffix). */
+  private final Dictionary prefixes = new Dictionary();
+
+  /** Columns per account. */
+  private final Map<String, Segment> accounts = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the store.
+   *
+   * @param jdbcTemplate JDBC template used by warm-up (may be {@code null})
+   * @param configuredMax {@code app.columnar.maxPerAccount}
+   */
+  @Autowired
+  public ColumnarTweetStore(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.columnar.maxPerAccount:10000}") final int configuredMax) {
+    this.jdbc = jdbcTemplate;
+    this.maxPerAccount =
+        configuredMax > 0 ? configuredMax : DEFAULT_MAX_PER_ACCOUNT;
+  }
+
+  /**
+   * Memory-only store for unit tests.
+   *
+   * @param configuredMax rows kept per account
+   */
+  public ColumnarTweetStore(final int configuredMax) {
+    this(null, configuredMax);
+  }
+
+  /**
+   * Load an account's newest stored rows if nothing is held for it yet.
+   * Rows an ingest appends between the check and the load are not
+   * duplicated: {@link #append} skips ids already held.
+   *
+   * @param accountId account id
+   */
+  @Override
+  public void warmUp(final String accountId) {
+    if (jdbc == null || view(accountId) != null) {
+      return;
+    }
+    append(accountId, jdbc.query(NEWEST_SQL, (rs, i) -> new Tweet(
+        rs.getString("id"), rs.getString("user_handle"),
+        rs.getString("text"), rs.getTimestamp("created_at").toInstant()),
+        accountId, maxPerAccount));
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    append(accountId, tweets);
+  }
+
+  @Override
+  public void onChanges(final List<TweetChange> changes) {
+    final Map<String, Set<String>> deleted = new HashMap<>();
+    long purgeBefore = Long.MIN_VALUE;
+    for (TweetChange c : changes) {
+      if (c.type() == TweetChange.Type.DELETE && c.accountId() != null) {
+        deleted.computeIfAbsent(c.accountId(), k -> new HashSet<>())
+            .add(c.tweet().id());
+      } else if (c.type() == TweetChange.Type.PURGE && c.before() != null) {
+        purgeBefore = Math.max(purgeBefore, c.before().toEpochMilli());
+      }
+    }
+    for (Map.Entry<String, Segment> e : accounts.entrySet()) {
+      final Set<String> ids = deleted.getOrDefault(e.getKey(), Set.of());
+      if (!ids.isEmpty() || purgeBefore != Long.MIN_VALUE) {
+        e.getValue().remove(ids, purgeBefore, this);
+      }
+    }
+  }
+
+  /**
+   * Add tweets to an account's columns.
+   *
+   * @param accountId account id
+   * @param tweets tweets in any order; ids already held are skipped
+   */
+  public void append(final String accountId, final Collection<Tweet> tweets) {
+    if (accountId == null || tweets == null || tweets.isEmpty()) {
+      return;
+    }
+    accounts.computeIfAbsent(accountId, k -> new Segment())
+        .append(tweets, this);
+  }
+
+  /**
+   * Snapshot of an account's columns.
+   *
+   * @param accountId account id
+   * @return view, or {@code null} if nothing is held for the account
+   */
+  public View view(final String accountId) {
+    final Segment s = accountId == null ? null : accounts.get(accountId);
+    return s == null ? null : s.view;
+  }
+
+  /**
+   * Approximate heap held by the columns of all accounts.
+   *
+   * @return bytes
+   */
+  public long columnBytes() {
+    long n = 0;
+    for (Segment s : accounts.values()) {
+      n += s.view.columnBytes();
+    }
+    return n;
+  }
+
+  /**
+   * Split an id into prefix and numeric suffix when it round-trips.
+   *
+   * @param id tweet id
+   * @return {@code [prefixCode, number]}, or {@code null} for a raw id
+   */
+  private long[] encodeId(final String id) {
+    int digits = id.length();
+    while (digits > 0 && Character.isDigit(id.charAt(digits - 1))) {
+      digits--;
+    }
+    final int count = id.length() - digits;
+    if (count == 0 || count > MAX_DIGITS
+        || count > 1 && id.charAt(digits) == '0') {
+      return null;
+    }
+    final long num = Long.parseLong(id.substring(digits));
+    return new long[] {prefixes.intern(id.substring(0, digits)), num};
+  }
+
+  /** Append-only string dictionary; codes are stable. */
+  private static final class Dictionary {
+
+    /** Code by string. */
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /** String by code; replaced (never mutated below {@code n}). */
+    private volatile String[] names = new String[INITIAL_ROWS];
+
+    /** Strings held. */
+    private int n;
+
+    synchronized int intern(final String s) {
+      final Integer c = codes.get(s);
+      if (c != null) {
+        return c;
+      }
+      String[] arr = names;
+      if (n == arr.length) {
+        arr = Arrays.copyOf(arr, n * 2);
+      }
+      arr[n] = s;
+      names = arr;
+      codes.put(s, n);
+      return n++;
+    }
+
+    String name(final int code) {
+      return names[code];
+    }
+  }
+
+  /** One account's columns; mutated only under its own lock. */
+  private static final class Segment {
+
+    /** Creation times. */
+    private long[] created = new long[INITIAL_ROWS];
+
+    /** Author codes. */
+    private int[] user = new int[INITIAL_ROWS];
+
+    /** Id prefix codes, or {@link #RAW_ID}. */
+    private int[] idPrefix = new int[INITIAL_ROWS];
+
+    /** Numeric id suffixes. */
+    private long[] idNum = new long[INITIAL_ROWS];
+
+    /** Raw ids, allocated on first use. */
+    private String[] idRaw;
+
+    /** Text start offsets; {@code textAt[ord + 1]} is the end. */
+    private int[] textAt = new int[INITIAL_ROWS + 1];
+
+    /** UTF-8 text bytes. */
+    private byte[] slab = new byte[INITIAL_SLAB];
+
+    /** Lowercased text start offsets. */
+    private int[] lowerAt = new int[INITIAL_ROWS + 1];
+
+    /** Lowercased UTF-8 text bytes. */
+    private byte[] lowerSlab = new byte[INITIAL_SLAB];
+
+    /** Rows held. */
+    private int size;
+
+    /** Ordinals newest first. */
+    private int[] order = new int[0];
+
+    /** Published snapshot. */
+    private volatile View view;
+
+    Segment() {
+      this.view = snapshot(null);
+    }
+
+    synchronized void append(
+        final Collection<Tweet> tweets, final ColumnarTweetStore store) {
+      final int first = size;
+      final Set<String> held = heldSince(tweets);
+      for (Tweet t : tweets) {
+        if (t == null || t.id() == null || !held.add(t.id())) {
+          continue;
+        }
+        ensureRows(size + 1);
+        final byte[] text = (t.text() == null ? "" : t.text())
+            .getBytes(StandardCharsets.UTF_8);
+        ensureSlab(textAt[size] + text.length);
+        System.arraycopy(text, 0, slab, textAt[size], text.length);
+        textAt[size + 1] = textAt[size] + text.length;
+        final byte[] lower = (t.text() == null ? "" : t.text())
+            .toLowerCase().getBytes(StandardCharsets.UTF_8);
+        ensureLowerSlab(lowerAt[size] + lower.length);
+        System.arraycopy(lower, 0, lowerSlab, lowerAt[size], lower.length);
+        lowerAt[size + 1] = lowerAt[size] + lower.length;
+        created[size] = t.createdAt() == null
+            ? 0L : t.createdAt().toEpochMilli();
+        user[size] = store.users.intern(t.user() == null ? "" : t.user());
+        final long[] id = store.encodeId(t.id());
+        if (id == null) {
+          if (idRaw == null) {
+            idRaw = new String[created.length];
+          }
+          idPrefix[size] = RAW_ID;
+          idRaw[size] = t.id();
+        } else {
+          idPrefix[size] = (int) id[0];
+          idNum[size] = id[1];
+        }
+        size++;
+      }
+      order = merge(order, sortedNewestFirst(first, size));
+      if (size > store.maxPerAccount + store.maxPerAccount / 2) {
+        compact(store.maxPerAccount);
+      }
+      view = snapshot(store);
+    }
+
+    /**
+     * Ids of held rows no older than the oldest incoming tweet; only
+     * those can repeat one of them, and for live ingest they are the
+     * few newest rows.
+     *
+     * @param tweets incoming tweets
+     * @return held ids (mutable)
+     */
+    private Set<String> heldSince(final Collection<Tweet> tweets) {
+      long oldest = Long.MAX_VALUE;
+      for (Tweet t : tweets) {
+        if (t != null) {
+          oldest = Math.min(oldest, t.createdAt() == null
+              ? 0L : t.createdAt().toEpochMilli());
+        }
+      }
+      final View v = view;
+      final Set<String> held = new HashSet<>();
+      for (int k = 0; k < v.size(); k++) {
+        final int ord = v.newest(k);
+        if (v.createdAtMillis(ord) < oldest) {
+          break;
+        }
+        held.add(v.id(ord));
+      }
+      return held;
+    }
+
+    /**
+     * Drop rows by id or age.
+     *
+     * @param ids tweet ids to drop
+     * @param beforeMillis drop rows created before this (epoch millis)
+     * @param store owning store
+     */
+    synchronized void remove(final Set<String> ids, final long beforeMillis,
+        final ColumnarTweetStore store) {
+      final View v = view;
+      final int[] kept = new int[size];
+      int n = 0;
+      for (int k = 0; k < size; k++) {
+        final int o = order[k];
+        if (created[o] >= beforeMillis && !ids.contains(v.id(o))) {
+          kept[n++] = o;
+        }
+      }
+      if (n < size) {
+        keepRows(kept, n);
+        view = snapshot(store);
+      }
+    }
+
+    /**
+     * Ordinals {@code [from, to)} newest first.
+     *
+     * @param from first ordinal
+     * @param to end ordinal
+     * @return sorted ordinals
+     */
+    private int[] sortedNewestFirst(final int from, final int to) {
+      final List<Integer> ords = new ArrayList<>(to - from);
+      for (int o = from; o < to; o++) {
+        ords.add(o);
+      }
+      ords.sort(this::newerFirst);
+      final int[] out = new int[ords.size()];
+      for (int i = 0; i < out.length; i++) {
+        out[i] = ords.get(i);
+      }
+      return out;
+    }
+
+    /**
+     * Merge two newest-first ordinal lists.
+     *
+     * @param a first list
+     * @param b second list
+     * @return merged list
+     */
+    private int[] merge(final int[] a, final int[] b) {
+      final int[] out = new int[a.length + b.length];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (i < a.length && j < b.length) {
+        out[k++] = newerFirst(a[i], b[j]) <= 0 ? a[i++] : b[j++];
+      }
+      while (i < a.length) {
+        out[k++] = a[i++];
+      }
+      while (j < b.length) {
+        out[k++] = b[j++];
+      }
+      return out;
+    }
+
+    /**
+     * Order by creation time descending, later appends first on ties.
+     *
+     * @param x ordinal
+     * @param y ordinal
+     * @return comparison result
+     */
+    private int newerFirst(final int x, final int y) {
+      final int c = Long.compare(created[y], created[x]);
+      return c != 0 ? c : Integer.compare(y, x);
+    }
+
+    /**
+     * Keep the newest {@code keep} rows.
+     *
+     * @param keep rows to keep
+     */
+    private void compact(final int keep) {
+      keepRows(order, Math.min(keep, size));
+    }
+
+    /**
+     * Copy the given rows into fresh arrays (published views keep the old
+     * ones).
+     *
+     * @param newestFirst ordinals to keep, newest first
+     * @param n how many of them
+     */
+    private void keepRows(final int[] newestFirst, final int n) {
+      final Segment c = new Segment();
+      c.ensureRows(n);
+      int bytes = 0;
+      int lowerBytes = 0;
+      for (int k = 0; k < n; k++) {
+        final int o = newestFirst[k];
+        bytes += textAt[o + 1] - textAt[o];
+        lowerBytes += lowerAt[o + 1] - lowerAt[o];
+      }
+      c.ensureSlab(bytes);
+      c.ensureLowerSlab(lowerBytes);
+      // Oldest kept row first, so ordinals grow with time again.
+      for (int k = n - 1; k >= 0; k--) {
+        final int o = newestFirst[k];
+        final int d = c.size;
+        c.created[d] = created[o];
+        c.user[d] = user[o];
+        c.idPrefix[d] = idPrefix[o];
+        c.idNum[d] = idNum[o];
+        if (idRaw != null && idPrefix[o] == RAW_ID) {
+          if (c.idRaw == null) {
+            c.idRaw = new String[c.created.length];
+          }
+          c.idRaw[d] = idRaw[o];
+        }
+        final int len = textAt[o + 1] - textAt[o];
+        System.arraycopy(slab, textAt[o], c.slab, c.textAt[d], len);
+        c.textAt[d + 1] = c.textAt[d] + len;
+        final int lowerLen = lowerAt[o + 1] - lowerAt[o];
+        System.arraycopy(lowerSlab, lowerAt[o], c.lowerSlab, c.lowerAt[d],
+            lowerLen);
+        c.lowerAt[d + 1] = c.lowerAt[d] + lowerLen;
+        c.size++;
+      }
+      created = c.created;
+      user = c.user;
+      idPrefix = c.idPrefix;
+      idNum = c.idNum;
+      idRaw = c.idRaw;
+      textAt = c.textAt;
+      slab = c.slab;
+      lowerAt = c.lowerAt;
+      lowerSlab = c.lowerSlab;
+      size = c.size;
+      order = new int[size];
+      for (int k = 0; k < size; k++) {
+        order[k] = size - 1 - k;
+      }
+    }
+
+    private void ensureRows(final int rows) {
+      if (rows <= created.length) {
+        return;
+      }
+      final int cap = Math.max(rows, created.length * 2);
+      created = Arrays.copyOf(created, cap);
+      user = Arrays.copyOf(user, cap);
+      idPrefix = Arrays.copyOf(idPrefix, cap);
+      idNum = Arrays.copyOf(idNum, cap);
+      if (idRaw != null) {
+        idRaw = Arrays.copyOf(idRaw, cap);
+      }
+      textAt = Arrays.copyOf(textAt, cap + 1);
+      lowerAt = Arrays.copyOf(lowerAt, cap + 1);
+    }
+
+    private void ensureSlab(final int bytes) {
+      if (bytes > slab.length) {
+        slab = Arrays.copyOf(slab, Math.max(bytes, slab.length * 2));
+      }
+    }
+
+    private void ensureLowerSlab(final int bytes) {
+      if (bytes > lowerSlab.length) {
+        lowerSlab = Arrays.copyOf(lowerSlab,
+            Math.max(bytes, lowerSlab.length * 2));
+      }
+    }
+
+    private View snapshot(final ColumnarTweetStore store) {
+      return new View(store, created, user, idPrefix, idNum, idRaw, textAt,
+          slab, lowerAt, lowerSlab, size, order);
+    }
+  }
+
+  /**
+   * Immutable snapshot of one account's columns. Ordinals are stable
+   * within a view; {@link #newest(int)} walks them newest first.
+   */
+  public static final class View {
+
+    /** Owning store (dictionaries); {@code null} for the empty view. */
+    private final ColumnarTweetStore store;
+
+    /** Creation times. */
+    private final long[] created;
+
+    /** Author codes. */
+    private final int[] user;
+
+    /** Id prefix codes. */
+    private final int[] idPrefix;
+
+    /** Numeric id suffixes. */
+    private final long[] idNum;
+
+    /** Raw ids (may be {@code null}). */
+    private final String[] idRaw;
+
+    /** Text offsets. */
+    private final int[] textAt;
+
+    /** Text bytes. */
+    private final byte[] slab;
+
+    /** Lowercased text offsets. */
+    private final int[] lowerAt;
+
+    /** Lowercased text bytes. */
+    private final byte[] lowerSlab;
+
+    /** Rows visible. */
+    private final int size;
+
+    /** Ordinals newest first. */
+    private final int[] order;
+
+    View(final ColumnarTweetStore owner, final long[] createdCol,
+        final int[] userCol, final int[] prefixCol, final long[] numCol,
+        final String[] rawCol, final int[] textCol, final byte[] bytes,
+        final int[] lowerCol, final byte[] lowerBytes, final int rows,
+        final int[] newestFirst) {
+      this.store = owner;
+      this.created = createdCol;
+      this.user = userCol;
+      this.idPrefix = prefixCol;
+      this.idNum = numCol;
+      this.idRaw = rawCol;
+      this.textAt = textCol;
+      this.slab = bytes;
+      this.lowerAt = lowerCol;
+      this.lowerSlab = lowerBytes;
+      this.size = rows;
+      this.order = newestFirst;
+    }
+
+    /**
+     * Rows in the view.
+     *
+     * @return row count
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Ordinal of the {@code k}-th newest row.
+     *
+     * @param k rank, {@code 0} = newest
+     * @return ordinal
+     */
+    public int newest(final int k) {
+      return order[k];
+    }
+
+    /**
+     * Creation time of a row.
+     *
+     * @param ord ordinal
+     * @return epoch millis
+     */
+    public long createdAtMillis(final int ord) {
+      return created[ord];
+    }
+
+    /**
+     * Decode a row's text.
+     *
+     * @param ord ordinal
+     * @return text
+     */
+    public String text(final int ord) {
+      return new String(slab, textAt[ord], textAt[ord + 1] - textAt[ord],
+          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode a row's lowercased text.
+     *
+     * @param ord ordinal
+     * @return text as {@link String#toLowerCase()} returns it
+     */
+    public String lowerText(final int ord) {
+      return new String(lowerSlab, lowerAt[ord],
+          lowerAt[ord + 1] - lowerAt[ord], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether a row's lowercased text has a whitespace-separated token
+     * equal to {@code token}, compared on the UTF-8 bytes without
+     * decoding the row.
+     *
+     * @param ord ordinal
+     * @param token lowercased token as UTF-8
+     * @return {@code true} on an exact token match
+     */
+    public boolean hasToken(final int ord, final byte[] token) {
+      final int from = lowerAt[ord];
+      final int end = lowerAt[ord + 1];
+      for (int i = from; i + token.length <= end; i++) {
+        if ((i == from || isSpace(lowerSlab[i - 1]))
+            && (i + token.length == end
+                || isSpace(lowerSlab[i + token.length]))
+            && Arrays.equals(lowerSlab, i, i + token.length,
+                token, 0, token.length)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * The ASCII whitespace of {@code \s}; never part of a multi-byte
+     * UTF-8 sequence.
+     *
+     * @param b byte
+     * @return {@code true} for space, tab, line feed, vertical tab, form
+     *     feed or carriage return
+     */
+    private static boolean isSpace(final byte b) {
+      return b == ' ' || b >= '\t' && b <= '\r';
+    }
+
+    /**
+     * A row's author handle.
+     *
+     * @param ord ordinal
+     * @return handle
+     */
+    public String user(final int ord) {
+      return store.users.name(user[ord]);
+    }
+
+    /**
+     * A row's tweet id.
+     *
+     * @param ord ordinal
+     * @return id
+     */
+    public String id(final int ord) {
+      final int p = idPrefix[ord];
+      return p == RAW_ID ? idRaw[ord] : store.prefixes.name(p) + idNum[ord];
+    }
+
+    /**
+     * Materialize a row.
+     *
+     * @param ord ordinal
+     * @return tweet
+     */
+    public Tweet tweet(final int ord) {
+      return new Tweet(id(ord), user(ord), text(ord),
+          Instant.ofEpochMilli(created[ord]));
+    }
+
+    /**
+     * Approximate heap held by this view's columns.
+     *
+     * @return bytes
+     */
+    long columnBytes() {
+      return (long) created.length * (Long.BYTES * 2 + Integer.BYTES * 4)
+          + slab.length + lowerSlab.length
+          + (long) order.length * Integer.BYTES
+          + (idRaw == null ? 0L : (long) idRaw.length * Integer.BYTES);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.team.mcp.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frequency-weighted prefix trie where every node caches the top
+ * {@code k} completions below it, so a lookup walks the prefix and copies
+ * the cached list: O(prefix length + k) regardless of vocabulary size.
+ *
+ * <p>Counts only ever increase, which keeps the caches exact with a cheap
+ * update: when a term's count grows, each node on its path either already
+ * lists the term (re-sort in place) or lists it only if the new count
+ * beats the node's weakest entry. No evicted term can overtake a listed
+ * one without itself being incremented, at which point it is offered
+ * again.
+ *
+ * <p>Not thread-safe; callers synchronize.
+ */
+final class CompletionTrie {
+
+  /** Completions cached per node. */
+  private final int k;
+
+  /** Root node (empty prefix). */
+  private final Node root = new Node();
+
+  /** Distinct terms stored. */
+  private int terms;
+
+  /**
+   * Create a trie.
+   *
+   * @param topK completions cached per node (at least 1)
+   */
+  CompletionTrie(final int topK) {
+    this.k = Math.max(1, topK);
+  }
+
+  /**
+   * Add occurrences of a term.
+   *
+   * @param term term to add (empty terms are ignored)
+   * @param delta occurrences to add (non-positive values are ignored)
+   */
+  void add(final String term, final long delta) {
+    if (term == null || term.isEmpty() || delta <= 0) {
+      return;
+    }
+    final List<Node> path = new ArrayList<>(term.length() + 1);
+    Node n = root;
+    path.add(n);
+    for (int i = 0; i < term.length(); i++) {
+      n = n.children.computeIfAbsent(term.charAt(i), c -> new Node());
+      path.add(n);
+    }
+    if (n.entry == null) {
+      n.entry = new Entry(term);
+      terms++;
+    }
+    n.entry.count += delta;
+    for (Node p : path) {
+      p.offer(n.entry, k);
+    }
+  }
+
+  /**
+   * Most frequent completions of a prefix.
+   *
+   * @param prefix prefix to complete (empty means the whole vocabulary)
+   * @param limit maximum completions (capped at the cache size)
+   * @return completions, most frequent first (ties by term)
+   */
+  List<Suggestion> complete(final String prefix, final int limit) {
+    Node n = root;
+    final String p = prefix == null ? "" : prefix;
+    for (int i = 0; i < p.length() && n != null; i++) {
+      n = n.children.get(p.charAt(i));
+    }
+    if (n == null || limit <= 0) {
+      return List.of();
+    }
+    final int lim = Math.min(limit, n.top.size());
+    final List<Suggestion> out = new ArrayList<>(lim);
+    for (int i = 0; i < lim; i++) {
+      final Entry e = n.top.get(i);
+      out.add(new Suggestion(e.term, e.count));
+    }
+    return Collections.unmodifiableList(out);
+  }
+
+  /**
+   * Number of distinct terms stored.
+   *
+   * @return term count
+   */
+  int size() {
+    return terms;
+  }
+
+  /** Mutable term counter shared by every node on the term's path. */
+  private static final class Entry {
+
+    /** The term. */
+    private final String term;
+
+    /** Occurrences seen. */
+    private long count;
+
+    Entry(final String t) {
+      this.term = t;
+    }
+
+    /**
+     * Whether this entry ranks before another.
+     *
+     * @param o other entry
+     * @return {@code true} if higher count, or equal count and smaller term
+     */
+    boolean before(final Entry o) {
+      return count > o.count
+          || count == o.count && term.compareTo(o.term) < 0;
+    }
+  }
+
+  /** Trie node with its cached top completions. */
+  private static final class Node {
+
+    /** Children by next character. */
+    private final Map<Character, Node> children = new HashMap<>(2);
+
+    /** Term ending at this node, if any. */
+    private Entry entry;
+
+    /** Best entries below this node, best first. */
+    private final List<Entry> top = new ArrayList<>(2);
+
+    /**
+     * Re-rank an entry whose count just grew.
+     *
+     * @param e entry (count already updated)
+     * @param k cache size
+     */
+    void offer(final Entry e, final int k) {
+      int i = top.indexOf(e);
+      if (i < 0) {
+        if (top.size() >= k) {
+          if (!e.before(top.get(top.size() - 1))) {
+            return;
+          }
+          top.remove(top.size() - 1);
+        }
+        top.add(e);
+        i = top.size() - 1;
+      }
+      // Bubble up: only this entry's rank can have improved.
+      while (i > 0 && e.before(top.get(i - 1))) {
+        top.set(i, top.get(i - 1));
+        i--;
+      }
+      top.set(i, e);
+    }
+  }
+}
@@ -0,0 +1,613 @@
+package com.team.mcp.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, block-compressed key/document file for cold data.
+ *
+ * <p>Documents are packed into blocks of about {@code blockBytes}
+ * (16 KiB by default) and each block is deflated on its own, primed with a
+ * preset dictionary trained on a sample of the documents
+ * ({@link #trainDictionary}). Small documents such as tweets share most
+ * of their vocabulary, so the dictionary gives every block a warm start
+ * and the ratio stays high even though blocks are small enough to
+ * decompress per lookup.
+ *
+ * <p>Layout:
+ * <pre>
+ *   int magic, int version, int dictLength, byte[] dictionary
+ *   deflated blocks, back to back
+ *   footer (deflated):
+ *     int blocks, per block {long offset, int length, int rawLength}
+ *     int docs, per doc sorted by key
+ *     {int keyLength, byte[] key, int block, int offset, int length}
+ *   long footerOffset, int footerRawLength
+ * </pre>
+ * Opening reads only the footer; {@link #get} binary-searches the keys and
+ * inflates one block, keeping the most recently used blocks in an LRU.
+ */
+public final class CompressedDocStore implements Closeable {
+
+  /** Default uncompressed block size. */
+  public static final int DEFAULT_BLOCK_BYTES = 16 * 1024;
+
+  /** Default and largest dictionary (half the 32 KiB deflate window). */
+  public static final int MAX_DICTIONARY = 16 * 1024;
+
+  /** Default number of decompressed blocks cached per store. */
+  public static final int DEFAULT_CACHE_BLOCKS = 64;
+
+  /** File magic ({@code "CDS1"}). */
+  private static final int MAGIC = 0x43445331;
+
+  /** Format version. */
+  private static final int VERSION = 1;
+
+  /** Trailer: footer offset plus its uncompressed length. */
+  private static final int TRAILER = Long.BYTES + Integer.BYTES;
+
+  /** Shortest token worth putting in a dictionary. */
+  private static final int MIN_TOKEN = 3;
+
+  /** Open file. */
+  private final FileChannel channel;
+
+  /** Preset dictionary (may be empty). */
+  private final byte[] dictionary;
+
+  /** File offset of each block. */
+  private final long[] blockOffset;
+
+  /** Compressed length of each block. */
+  private final int[] blockLength;
+
+  /** Uncompressed length of each block. */
+  private final int[] blockRaw;
+
+  /** Keys, sorted. */
+  private final String[] keys;
+
+  /** Block of each key's document. */
+  private final int[] docBlock;
+
+  /** Offset of each document within its block. */
+  private final int[] docOffset;
+
+  /** Length of each document. */
+  private final int[] docLength;
+
+  /** Decompressed blocks, least recently used first. */
+  private final Map<Integer, byte[]> cache;
+
+  /** Cache lookups that had to inflate a block. */
+  private long misses;
+
+  /** Cache lookups served without inflating. */
+  private long hits;
+
+  private CompressedDocStore(final FileChannel ch, final byte[] dict,
+      final ByteBuffer footer, final int cacheBlocks) {
+    this.channel = ch;
+    this.dictionary = dict;
+    final int blocks = footer.getInt();
+    this.blockOffset = new long[blocks];
+    this.blockLength = new int[blocks];
+    this.blockRaw = new int[blocks];
+    for (int b = 0; b < blocks; b++) {
+      blockOffset[b] = footer.getLong();
+      blockLength[b] = footer.getInt();
+      blockRaw[b] = footer.getInt();
+    }
+    final int docs = footer.getInt();
+    this.keys = new String[docs];
+    this.docBlock = new int[docs];
+    this.docOffset = new int[docs];
+    this.docLength = new int[docs];
+    for (int d = 0; d < docs; d++) {
+      final byte[] k = new byte[footer.getInt()];
+      footer.get(k);
+      keys[d] = new String(k, StandardCharsets.UTF_8);
+      docBlock[d] = footer.getInt();
+      docOffset[d] = footer.getInt();
+      docLength[d] = footer.getInt();
+    }
+    final int capacity = Math.max(1, cacheBlocks);
+    this.cache = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          final Map.Entry<Integer, byte[]> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Open a store written by {@link Writer}.
+   *
+   * @param file store file
+   * @param cacheBlocks decompressed blocks to keep
+   * @return open store
+   * @throws IOException if the file is unreadable or not a store
+   */
+  public static CompressedDocStore open(final Path file,
+      final int cacheBlocks) throws IOException {
+    final FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      final ByteBuffer head = read(ch, 0, 3 * Integer.BYTES);
+      if (head.getInt() != MAGIC || head.getInt() != VERSION) {
+        throw new IOException("Not a compressed doc store: " + file);
+      }
+      final byte[] dict = new byte[head.getInt()];
+      read(ch, 3 * Integer.BYTES, dict.length).get(dict);
+      final long end = ch.size() - TRAILER;
+      final ByteBuffer trailer = read(ch, end, TRAILER);
+      final long footerAt = trailer.getLong();
+      final int footerRaw = trailer.getInt();
+      if (footerAt < 0 || footerAt > end || footerRaw < 0) {
+        throw new IOException("Corrupt footer: " + file);
+      }
+      final byte[] footer = inflate(
+          read(ch, footerAt, (int) (end - footerAt)).array(), footerRaw,
+          null);
+      return new CompressedDocStore(ch, dict, ByteBuffer.wrap(footer),
+          cacheBlocks);
+    } catch (IOException | RuntimeException ex) {
+      ch.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Document stored under a key.
+   *
+   * @param key key
+   * @return document bytes, or {@code null} if absent
+   * @throws IOException on read or decompression failure
+   */
+  public byte[] get(final String key) throws IOException {
+    final int d = Arrays.binarySearch(keys, key);
+    if (d < 0) {
+      return null;
+    }
+    final byte[] block = block(docBlock[d]);
+    return Arrays.copyOfRange(block, docOffset[d],
+        docOffset[d] + docLength[d]);
+  }
+
+  /**
+   * Visit every document in file order. Each block is inflated once and
+   * the block cache is left alone.
+   *
+   * @param visitor receives each key and document
+   * @throws IOException on read or decompression failure, or from the
+   *     visitor
+   */
+  public void forEach(final DocVisitor visitor) throws IOException {
+    final Integer[] byPlace = new Integer[keys.length];
+    for (int d = 0; d < byPlace.length; d++) {
+      byPlace[d] = d;
+    }
+    Arrays.sort(byPlace, Comparator.comparingInt((Integer d) -> docBlock[d])
+        .thenComparingInt(d -> docOffset[d]));
+    int current = -1;
+    byte[] block = null;
+    for (int d : byPlace) {
+      if (docBlock[d] != current) {
+        current = docBlock[d];
+        block = inflate(read(channel, blockOffset[current],
+            blockLength[current]).array(), blockRaw[current], dictionary);
+      }
+      visitor.visit(keys[d], Arrays.copyOfRange(block, docOffset[d],
+          docOffset[d] + docLength[d]));
+    }
+  }
+
+  /**
+   * The preset dictionary the blocks were deflated with.
+   *
+   * @return dictionary copy, possibly empty
+   */
+  public byte[] dictionary() {
+    return dictionary.clone();
+  }
+
+  /**
+   * Documents in the store.
+   *
+   * @return count
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Uncompressed size of all blocks.
+   *
+   * @return bytes
+   */
+  public long rawBytes() {
+    long n = 0;
+    for (int r : blockRaw) {
+      n += r;
+    }
+    return n;
+  }
+
+  /**
+   * Compressed size of all blocks (excluding dictionary and index).
+   *
+   * @return bytes
+   */
+  public long compressedBytes() {
+    long n = 0;
+    for (int c : blockLength) {
+      n += c;
+    }
+    return n;
+  }
+
+  /**
+   * Size of the store file.
+   *
+   * @return bytes
+   * @throws IOException if the size cannot be read
+   */
+  public long fileBytes() throws IOException {
+    return channel.size();
+  }
+
+  /**
+   * Block cache hits so far.
+   *
+   * @return hits
+   */
+  public synchronized long cacheHits() {
+    return hits;
+  }
+
+  /**
+   * Block cache misses (inflated blocks) so far.
+   *
+   * @return misses
+   */
+  public synchronized long cacheMisses() {
+    return misses;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * A decompressed block, from the cache if possible.
+   *
+   * @param b block number
+   * @return uncompressed block
+   * @throws IOException on read or decompression failure
+   */
+  private byte[] block(final int b) throws IOException {
+    synchronized (this) {
+      final byte[] cached = cache.get(b);
+      if (cached != null) {
+        hits++;
+        return cached;
+      }
+      misses++;
+    }
+    final byte[] raw = inflate(
+        read(channel, blockOffset[b], blockLength[b]).array(), blockRaw[b],
+        dictionary);
+    synchronized (this) {
+      cache.put(b, raw);
+    }
+    return raw;
+  }
+
+  /**
+   * Inflate one block or the footer.
+   *
+   * @param compressed deflated bytes
+   * @param rawLength expected uncompressed length
+   * @param dict preset dictionary, if the data asks for one
+   * @return uncompressed bytes
+   * @throws IOException if the data is corrupt
+   */
+  private static byte[] inflate(final byte[] compressed,
+      final int rawLength, final byte[] dict) throws IOException {
+    final Inflater inf = new Inflater();
+    try {
+      inf.setInput(compressed);
+      final byte[] out = new byte[rawLength];
+      int n = 0;
+      while (n < rawLength) {
+        final int got = inf.inflate(out, n, rawLength - n);
+        if (got == 0) {
+          if (inf.needsDictionary() && dict != null) {
+            inf.setDictionary(dict);
+          } else if (inf.finished() || inf.needsInput()) {
+            throw new IOException("Truncated block");
+          }
+        }
+        n += got;
+      }
+      return out;
+    } catch (DataFormatException ex) {
+      throw new IOException("Corrupt block", ex);
+    } finally {
+      inf.end();
+    }
+  }
+
+  /**
+   * Read an exact range of a channel.
+   *
+   * @param ch channel
+   * @param at file offset
+   * @param len bytes
+   * @return buffer positioned at 0
+   * @throws IOException on short read
+   */
+  private static ByteBuffer read(final FileChannel ch, final long at,
+      final int len) throws IOException {
+    final ByteBuffer buf = ByteBuffer.allocate(len);
+    long pos = at;
+    while (buf.hasRemaining()) {
+      final int n = ch.read(buf, pos);
+      if (n < 0) {
+        throw new IOException("Unexpected end of file at " + pos);
+      }
+      pos += n;
+    }
+    return buf.flip();
+  }
+
+  /**
+   * Build a preset dictionary from sample documents: the tokens that save
+   * the most bytes (frequency times length), most valuable last, since
+   * deflate encodes nearer matches more cheaply.
+   *
+   * @param samples sample documents
+   * @param maxBytes dictionary size limit (capped at
+   *     {@value #MAX_DICTIONARY})
+   * @return dictionary, possibly empty
+   */
+  public static byte[] trainDictionary(final List<byte[]> samples,
+      final int maxBytes) {
+    final Map<String, Integer> freq = new HashMap<>();
+    for (byte[] doc : samples) {
+      // ISO-8859-1 maps bytes 1:1, so tokens stay exact byte sequences.
+      final String s = new String(doc, StandardCharsets.ISO_8859_1);
+      int start = -1;
+      for (int i = 0; i <= s.length(); i++) {
+        final boolean sep = i == s.length() || s.charAt(i) <= ' ';
+        if (!sep && start < 0) {
+          start = i;
+        } else if (sep && start >= 0) {
+          if (i - start >= MIN_TOKEN) {
+            freq.merge(s.substring(start, i), 1, Integer::sum);
+          }
+          start = -1;
+        }
+      }
+    }
+    final List<Map.Entry<String, Integer>> ranked =
+        new ArrayList<>(freq.entrySet());
+    ranked.removeIf(e -> e.getValue() < 2);
+    ranked.sort(Comparator.comparingLong(
+        (Map.Entry<String, Integer> e) ->
+            (long) e.getValue() * e.getKey().length())
+        .reversed().thenComparing(Map.Entry::getKey));
+    final int limit = Math.max(0, Math.min(maxBytes, MAX_DICTIONARY));
+    final List<String> picked = new ArrayList<>();
+    int size = 0;
+    for (Map.Entry<String, Integer> e : ranked) {
+      final int len = e.getKey().length() + 1;
+      if (size + len <= limit) {
+        picked.add(e.getKey());
+        size += len;
+      }
+    }
+    final StringBuilder sb = new StringBuilder(size);
+    for (int i = picked.size() - 1; i >= 0; i--) {
+      sb.append(picked.get(i)).append(' ');
+    }
+    return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Writes a store file. Keys may arrive in any order; a repeated key
+   * keeps its first document.
+   */
+  public static final class Writer implements Closeable {
+
+    /** Output file. */
+    private final FileChannel out;
+
+    /** Preset dictionary. */
+    private final byte[] dictionary;
+
+    /** Target uncompressed block size. */
+    private final int blockBytes;
+
+    /** Block compressor, reset per block. */
+    private final Deflater deflater;
+
+    /** Documents of the open block. */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /** Per finished block: offset, length, raw length. */
+    private final List<long[]> blocks = new ArrayList<>();
+
+    /** Location of every added document. */
+    private final List<DocRef> docs = new ArrayList<>();
+
+    /** Write position. */
+    private long pos;
+
+    /**
+     * Create a writer.
+     *
+     * @param file output file (replaced)
+     * @param dict preset dictionary (may be empty)
+     * @param targetBlockBytes uncompressed block size
+     * @param level deflate level (0-9)
+     * @throws IOException if the file cannot be created
+     */
+    public Writer(final Path file, final byte[] dict,
+        final int targetBlockBytes, final int level) throws IOException {
+      this.dictionary = dict == null ? new byte[0] : dict;
+      if (dictionary.length > MAX_DICTIONARY) {
+        throw new IllegalArgumentException("dictionary too large");
+      }
+      this.blockBytes = targetBlockBytes > 0
+          ? targetBlockBytes : DEFAULT_BLOCK_BYTES;
+      this.deflater = new Deflater(level);
+      this.out = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      final ByteBuffer head =
+          ByteBuffer.allocate(3 * Integer.BYTES + dictionary.length);
+      head.putInt(MAGIC).putInt(VERSION).putInt(dictionary.length)
+          .put(dictionary);
+      write(head.flip());
+    }
+
+    /**
+     * Add a document.
+     *
+     * @param key key
+     * @param doc document bytes
+     * @throws IOException on write failure
+     */
+    public void add(final String key, final byte[] doc) throws IOException {
+      if (pending.size() > 0 && pending.size() + doc.length > blockBytes) {
+        flushBlock();
+      }
+      docs.add(new DocRef(key, blocks.size(), pending.size(), doc.length));
+      pending.write(doc, 0, doc.length);
+    }
+
+    /**
+     * Finish the last block, write the footer and close the file.
+     *
+     * @throws IOException on write failure
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        flushBlock();
+        // Stable sort: the first document of a repeated key stays first.
+        docs.sort(Comparator.comparing(DocRef::key));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream f = new DataOutputStream(bytes);
+        f.writeInt(blocks.size());
+        for (long[] b : blocks) {
+          f.writeLong(b[0]);
+          f.writeInt((int) b[1]);
+          f.writeInt((int) b[2]);
+        }
+        final List<DocRef> unique = new ArrayList<>(docs.size());
+        for (DocRef d : docs) {
+          if (unique.isEmpty()
+              || !unique.get(unique.size() - 1).key().equals(d.key())) {
+            unique.add(d);
+          }
+        }
+        f.writeInt(unique.size());
+        for (DocRef d : unique) {
+          final byte[] k = d.key().getBytes(StandardCharsets.UTF_8);
+          f.writeInt(k.length);
+          f.write(k);
+          f.writeInt(d.block());
+          f.writeInt(d.offset());
+          f.writeInt(d.length());
+        }
+        f.flush();
+        final long footerAt = pos;
+        write(ByteBuffer.wrap(deflate(bytes.toByteArray(), null)));
+        write(ByteBuffer.allocate(TRAILER).putLong(footerAt)
+            .putInt(bytes.size()).flip());
+        out.force(true);
+      } finally {
+        deflater.end();
+        out.close();
+      }
+    }
+
+    private void flushBlock() throws IOException {
+      if (pending.size() == 0) {
+        return;
+      }
+      final byte[] raw = pending.toByteArray();
+      pending.reset();
+      final byte[] z = deflate(raw, dictionary);
+      blocks.add(new long[] {pos, z.length, raw.length});
+      write(ByteBuffer.wrap(z));
+    }
+
+    private byte[] deflate(final byte[] raw, final byte[] dict) {
+      deflater.reset();
+      if (dict != null && dict.length > 0) {
+        deflater.setDictionary(dict);
+      }
+      deflater.setInput(raw);
+      deflater.finish();
+      final ByteArrayOutputStream z = new ByteArrayOutputStream(raw.length);
+      final byte[] buf = new byte[raw.length + 64];
+      while (!deflater.finished()) {
+        final int n = deflater.deflate(buf);
+        z.write(buf, 0, n);
+      }
+      return z.toByteArray();
+    }
+
+    private void write(final ByteBuffer b) throws IOException {
+      while (b.hasRemaining()) {
+        pos += out.write(b);
+      }
+    }
+  }
+
+  /** Receives documents from {@link #forEach}. */
+  @FunctionalInterface
+  public interface DocVisitor {
+
+    /**
+     * Take one document.
+     *
+     * @param key key
+     * @param doc document bytes
+     * @throws IOException to stop the walk
+     */
+    void visit(String key, byte[] doc) throws IOException;
+  }
+
+  /**
+   * Where a written document lives.
+   *
+   * @param key key
+   * @param block block number
+   * @param offset offset within the uncompressed block
+   * @param length document length
+   */
+  private record DocRef(String key, int block, int offset, int length) {
+  }
+}
@@ -0,0 +1,134 @@
+package com.team.mcp.search;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Common columns of the ingest-time entity tables ({@code tweet_hashtags},
+ * {@code tweet_mentions}, {@code tweet_urls}): one row per distinct term
+ * of a tweet, keyed by {@code (tweet_id, term)}.
+ *
+ * <p>Rows are written by {@link TweetBulkWriter} with plain JDBC; the JPA
+ * mappings exist so auto-ddl profiles create the same tables as
+ * {@code V7__tweet_entities.sql}.
+ */
+@MappedSuperclass
+public abstract class ExtractedTerm {
+
+  /** Maximum tweet id length (column length). */
+  static final int MAX_ID_LEN = 64;
+
+  /** Maximum account id length (column length). */
+  static final int MAX_ACCOUNT_LEN = 128;
+
+  /** Maximum hashtag / mention length (column length). */
+  static final int MAX_TERM_LEN = 280;
+
+  /** Maximum URL length (column length, as tweet text). */
+  static final int MAX_URL_LEN = 1000;
+
+  /** Tweet the term was extracted from. */
+  @Id
+  @Column(name = "tweet_id", length = MAX_ID_LEN, nullable = false)
+  private String tweetId;
+
+  /** Normalized term; the column name is set per table. */
+  @Id
+  private String term;
+
+  /** Owning account (copied from the tweet). */
+  @Column(name = "account_id", length = MAX_ACCOUNT_LEN, nullable = false)
+  private String accountId;
+
+  /** Tweet creation time (copied so hits sort without a join). */
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  /**
+   * JPA only.
+   */
+  protected ExtractedTerm() {
+    // no-op
+  }
+
+  /**
+   * Tweet id.
+   *
+   * @return id
+   */
+  public String getTweetId() {
+    return tweetId;
+  }
+
+  /**
+   * Normalized term.
+   *
+   * @return term
+   */
+  public String getTerm() {
+    return term;
+  }
+
+  /**
+   * Owning account.
+   *
+   * @return account id
+   */
+  public String getAccountId() {
+    return accountId;
+  }
+
+  /**
+   * Tweet creation time.
+   *
+   * @return instant
+   */
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  /** Composite primary key {@code (tweet_id, term)}. */
+  public static final class Key implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Tweet id. */
+    private String tweetId;
+
+    /** Term. */
+    private String term;
+
+    /** JPA only. */
+    public Key() {
+      // no-op
+    }
+
+    /**
+     * Create a key.
+     *
+     * @param tweetIdParam tweet id
+     * @param termParam term
+     */
+    public Key(final String tweetIdParam, final String termParam) {
+      this.tweetId = tweetIdParam;
+      this.term = termParam;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Key k
+          && Objects.equals(tweetId, k.tweetId)
+          && Objects.equals(term, k.term);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(tweetId, term);
+    }
+  }
+}
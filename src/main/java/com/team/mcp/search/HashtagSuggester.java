@@ -0,0 +1,263 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.TwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import com.team.mcp.warmup.AccountWarmer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Autocomplete for hashtags and {@code @handles}, so agents can pick a
+ * real tag instead of guessing and probing {@code searchHashtag}.
+ *
+ * <p>Each account has its own {@link CompletionTrie}, weighted by the
+ * number of tweets using each term and updated incrementally at ingest.
+ * An account that has not been ingested in this process is warmed once
+ * from its home timeline on its first suggest call, or at startup if it
+ * is among the hottest accounts ({@link AccountWarmer}). Tweets ingested
+ * before that are kept and merged with the history; the timeline read
+ * happens outside the account map, so other accounts are never blocked
+ * on it.
+ *
+ * <p>At most {@code app.suggest.maxAccounts} tries are held; the least
+ * recently used account is dropped and warmed again on its next suggest
+ * call. Tries only count up, so an account with a deleted tweet on the
+ * change feed is dropped the same way; a retention purge drops every
+ * account.
+ */
+@Component
+public final class HashtagSuggester
+    implements IngestListener, TweetChangeListener, AccountWarmer {
+
+  /** Completions cached per trie node (also the max {@code limit}). */
+  public static final int MAX_SUGGESTIONS = 10;
+
+  /** Timeline tweets read to warm an account on first use. */
+  private static final int WARM_TWEETS = 200;
+
+  /** Tool served by the tries. */
+  private static final String TOOL = "suggest_hashtags";
+
+  /** Logger for warm-up failures. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(HashtagSuggester.class);
+
+  /** Timeline source for lazy warm-up. */
+  private final TwitterClient twitter;
+
+  /**
+   * Account id → its trie, least recently used first (guarded by the map
+   * itself; each trie by its {@link Account}).
+   */
+  private final Map<String, Account> accounts;
+
+  /**
+   * Creates the suggester.
+   *
+   * @param twitterClient timeline source used to warm unseen accounts
+   * @param maxAccounts {@code app.suggest.maxAccounts}
+   */
+  @Autowired
+  public HashtagSuggester(final TwitterClient twitterClient,
+      @Value("${app.suggest.maxAccounts:1000}") final int maxAccounts) {
+    this.twitter = twitterClient;
+    final int max = Math.max(1, maxAccounts);
+    this.accounts = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          final Map.Entry<String, Account> e) {
+        return size() > max;
+      }
+    };
+  }
+
+  /**
+   * Suggester holding up to 1000 accounts, for tests.
+   *
+   * @param twitterClient timeline source used to warm unseen accounts
+   */
+  HashtagSuggester(final TwitterClient twitterClient) {
+    this(twitterClient, 1000);
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    if (accountId == null || tweets.isEmpty()) {
+      return;
+    }
+    // No warm-up here: that is left to the first suggest call.
+    final Account a = account(accountId);
+    synchronized (a) {
+      for (Tweet t : tweets) {
+        a.remember(t);
+        addTweet(a.trie, t);
+      }
+    }
+  }
+
+  @Override
+  public void onChanges(final List<TweetChange> changes) {
+    synchronized (accounts) {
+      for (TweetChange c : changes) {
+        if (c.type() == TweetChange.Type.PURGE) {
+          accounts.clear();
+        } else if (c.type() == TweetChange.Type.DELETE
+            && c.accountId() != null) {
+          accounts.remove(c.accountId());
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean serves(final String toolName) {
+    return TOOL.equals(toolName);
+  }
+
+  @Override
+  public void warmUp(final String accountId) {
+    warm(accountId);
+  }
+
+  /**
+   * Most used hashtags or handles starting with a prefix.
+   *
+   * @param accountId logical account id
+   * @param prefix prefix including its {@code #} or {@code @}
+   *     (case-insensitive)
+   * @param limit max suggestions (capped at {@value #MAX_SUGGESTIONS})
+   * @return suggestions, most used first
+   */
+  public List<Suggestion> suggest(
+      final String accountId, final String prefix, final int limit) {
+    if (accountId == null || prefix == null || prefix.isEmpty()) {
+      return List.of();
+    }
+    final Account a = warm(accountId);
+    synchronized (a) {
+      return a.trie.complete(
+          prefix.toLowerCase(), Math.min(limit, MAX_SUGGESTIONS));
+    }
+  }
+
+  /**
+   * Load the account's timeline once and merge it into its trie, next to
+   * anything ingested before. The timeline is read without holding any
+   * lock; if two callers race, the first to finish merges.
+   *
+   * @param accountId logical account id
+   * @return the account (history left empty if it could not be read)
+   */
+  private Account warm(final String accountId) {
+    final Account held;
+    synchronized (accounts) {
+      held = accounts.get(accountId);
+    }
+    if (held != null && held.warmed()) {
+      return held;
+    }
+    List<Tweet> history = List.of();
+    try {
+      history = twitter.getHomeTimeline(accountId, WARM_TWEETS);
+    } catch (TwitterClient.TwitterException | RuntimeException ex) {
+      LOG.warn("suggest warm-up for {} failed: {}", accountId, ex.toString());
+    }
+    final Account a = account(accountId);
+    synchronized (a) {
+      a.merge(history);
+    }
+    return a;
+  }
+
+  /**
+   * Held account, created empty (not warmed) if absent.
+   *
+   * @param accountId logical account id
+   * @return the account
+   */
+  private Account account(final String accountId) {
+    synchronized (accounts) {
+      return accounts.computeIfAbsent(accountId, k -> new Account());
+    }
+  }
+
+  /**
+   * Count each distinct hashtag and handle of a tweet once.
+   *
+   * @param trie destination trie
+   * @param t tweet
+   */
+  private static void addTweet(final CompletionTrie trie, final Tweet t) {
+    if (t.text() == null) {
+      return;
+    }
+    for (String tok : StandingQueryRegistry.tokens(t.text().toLowerCase())) {
+      if (tok.length() > 1 && (tok.charAt(0) == '#' || tok.charAt(0) == '@')) {
+        trie.add(tok, 1);
+      }
+    }
+  }
+
+  /** One account's trie and its warm-up state. */
+  private static final class Account {
+
+    /** Completion trie. */
+    private final CompletionTrie trie = new CompletionTrie(MAX_SUGGESTIONS);
+
+    /**
+     * Ids of the newest tweets ingested before the history was loaded, so
+     * the history does not count them twice; {@code null} once loaded.
+     */
+    private volatile Set<String> recent = new LinkedHashSet<>();
+
+    boolean warmed() {
+      return recent == null;
+    }
+
+    /**
+     * Note an ingested tweet while the history is still to be loaded.
+     * Only the newest {@code WARM_TWEETS} ids can overlap it.
+     *
+     * @param t ingested tweet
+     */
+    void remember(final Tweet t) {
+      final Set<String> ids = recent;
+      if (ids == null || t.id() == null) {
+        return;
+      }
+      ids.add(t.id());
+      if (ids.size() > WARM_TWEETS) {
+        final Iterator<String> it = ids.iterator();
+        it.next();
+        it.remove();
+      }
+    }
+
+    /**
+     * Add the history once, skipping tweets already counted at ingest.
+     *
+     * @param history timeline tweets
+     */
+    void merge(final List<Tweet> history) {
+      final Set<String> ids = recent;
+      if (ids == null) {
+        return;
+      }
+      for (Tweet t : history) {
+        if (t.id() == null || !ids.contains(t.id())) {
+          addTweet(trie, t);
+        }
+      }
+      recent = null;
+    }
+  }
+}
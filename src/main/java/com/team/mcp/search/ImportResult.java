@@ -0,0 +1,20 @@
+package com.team.mcp.search;
+
+/**
+ * Outcome of a bulk NDJSON import.
+ *
+ * @param rows JSON objects read
+ * @param inserted rows newly written to {@code tweets}
+ * @param skipped valid rows not written (already stored or repeated)
+ * @param invalid objects missing a required field
+ * @param batches write transactions committed
+ * @param durationMs wall-clock time of the import
+ */
+public record ImportResult(
+    long rows,
+    long inserted,
+    long skipped,
+    long invalid,
+    long batches,
+    long durationMs) {
+}
@@ -0,0 +1,128 @@
+package com.team.mcp.search;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Per-account ingestion high-water mark: the newest tweet seen so far.
+ * The next run asks the client only for tweets after {@link #getSinceId()}.
+ */
+@Entity
+@Table(name = "ingest_checkpoints")
+public final class IngestCheckpoint {
+
+  /** Maximum account id length (column length). */
+  private static final int MAX_ACCOUNT_LEN = 128;
+
+  /** Maximum tweet id length (column length). */
+  private static final int MAX_ID_LEN = 64;
+
+  /** Logical account id. */
+  @Id
+  @Column(name = "account_id", length = MAX_ACCOUNT_LEN, nullable = false)
+  private String accountId;
+
+  /** Id of the newest tweet seen. */
+  @Column(name = "since_id", length = MAX_ID_LEN, nullable = false)
+  private String sinceId;
+
+  /** Creation time of the newest tweet seen. */
+  @Column(name = "since_created_at", nullable = false)
+  private Instant sinceCreatedAt;
+
+  /** Last time the checkpoint moved. */
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  /**
+   * JPA only.
+   */
+  protected IngestCheckpoint() {
+    // no-op
+  }
+
+  /**
+   * Create a checkpoint.
+   *
+   * @param accountIdParam logical account id
+   * @param sinceIdParam id of the newest tweet seen
+   * @param sinceCreatedAtParam creation time of that tweet
+   * @param updatedAtParam time the checkpoint was written
+   */
+  public IngestCheckpoint(
+      final String accountIdParam,
+      final String sinceIdParam,
+      final Instant sinceCreatedAtParam,
+      final Instant updatedAtParam) {
+    this.accountId = accountIdParam;
+    this.sinceId = sinceIdParam;
+    this.sinceCreatedAt = sinceCreatedAtParam;
+    this.updatedAt = updatedAtParam;
+  }
+
+  /**
+   * Move the high-water mark forward; older or equal positions are
+   * ignored.
+   *
+   * @param id id of a newly seen tweet
+   * @param createdAt its creation time
+   * @param now current time
+   * @return {@code true} if the checkpoint moved
+   */
+  public boolean advance(
+      final String id, final Instant createdAt, final Instant now) {
+    if (!isAfter(createdAt, id, sinceCreatedAt, sinceId)) {
+      return false;
+    }
+    this.sinceId = id;
+    this.sinceCreatedAt = createdAt;
+    this.updatedAt = now;
+    return true;
+  }
+
+  /**
+   * Order tweets by creation time, then id.
+   *
+   * @param t1 creation time of the first tweet
+   * @param id1 id of the first tweet
+   * @param t2 creation time of the second tweet
+   * @param id2 id of the second tweet
+   * @return {@code true} if the first tweet is strictly newer
+   */
+  static boolean isAfter(
+      final Instant t1, final String id1, final Instant t2, final String id2) {
+    final int c = t1.compareTo(t2);
+    return c > 0 || c == 0 && id1.compareTo(id2) > 0;
+  }
+
+  /**
+   * @return logical account id
+   */
+  public String getAccountId() {
+    return accountId;
+  }
+
+  /**
+   * @return id of the newest tweet seen
+   */
+  public String getSinceId() {
+    return sinceId;
+  }
+
+  /**
+   * @return creation time of the newest tweet seen
+   */
+  public Instant getSinceCreatedAt() {
+    return sinceCreatedAt;
+  }
+
+  /**
+   * @return last time the checkpoint moved
+   */
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+}
@@ -0,0 +1,9 @@
+package com.team.mcp.search;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/** Repository for {@link IngestCheckpoint}, keyed by account id. */
+@Repository
+public interface IngestCheckpointRepository
+    extends JpaRepository<IngestCheckpoint, String> { }
@@ -0,0 +1,43 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.util.List;
+
+/**
+ * Callback notified by {@link TweetIngestor} after a batch of tweets has
+ * been stored and its transaction has committed. Implementations keep
+ * derived, in-memory structures in step with the {@code tweets} table
+ * without re-reading it. Anything a listener writes to the database runs
+ * outside the ingest transaction and needs its own.
+ *
+ * <p>Any Spring bean implementing this interface is picked up
+ * automatically (same discovery style as {@code ToolRegistry}).
+ */
+public interface IngestListener {
+
+  /**
+   * Called once per ingestion batch with the tweets that were new.
+   *
+   * @param accountId logical account the tweets were ingested for
+   * @param tweets newly stored tweets (never {@code null}, may be empty)
+   */
+  void onIngested(String accountId, List<Tweet> tweets);
+
+  /**
+   * Called once per ingestion batch, with the account's position in the
+   * change feed once the batch is stored: the highest {@code change_seq}
+   * of the account's rows as the ingest transaction saw them. A load of
+   * the account that read up to that position or past it already has the
+   * batch (barring two ingests of the same account committing out of
+   * sequence order), so listeners that load from the database can skip
+   * it. By default the position is ignored.
+   *
+   * @param accountId logical account the tweets were ingested for
+   * @param tweets newly stored tweets (never {@code null}, may be empty)
+   * @param changeSeq position after the batch, or {@code 0} if unknown
+   */
+  default void onIngested(final String accountId, final List<Tweet> tweets,
+      final long changeSeq) {
+    onIngested(accountId, tweets);
+  }
+}
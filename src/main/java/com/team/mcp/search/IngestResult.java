@@ -0,0 +1,11 @@
+package com.team.mcp.search;
+
+/**
+ * Outcome of one ingestion batch.
+ *
+ * @param inserted rows newly written to {@code tweets}
+ * @param skipped input tweets not written (already stored or repeated
+ *     within the batch)
+ */
+public record IngestResult(int inserted, int skipped) {
+}
@@ -0,0 +1,113 @@
+package com.team.mcp.search;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operational endpoints for background ingestion.
+ */
+@RestController
+public final class IngestionController {
+
+  /** Scheduler whose counters are reported. */
+  private final IngestionScheduler scheduler;
+
+  /** Writer that owns the extracted-term tables. */
+  private final TweetBulkWriter writer;
+
+  /** Monthly partitions and retention of {@code tweets}. */
+  private final TweetRetention retention;
+
+  /** Compressed files of expired months. */
+  private final ColdTweetArchive archive;
+
+  /**
+   * Constructs the controller.
+   *
+   * @param ingestionScheduler injected {@link IngestionScheduler}
+   * @param bulkWriter injected {@link TweetBulkWriter}
+   * @param tweetRetention injected {@link TweetRetention}
+   * @param coldArchive injected {@link ColdTweetArchive}
+   */
+  public IngestionController(
+      final IngestionScheduler ingestionScheduler,
+      final TweetBulkWriter bulkWriter,
+      final TweetRetention tweetRetention,
+      final ColdTweetArchive coldArchive) {
+    this.scheduler = ingestionScheduler;
+    this.writer = bulkWriter;
+    this.retention = tweetRetention;
+    this.archive = coldArchive;
+  }
+
+  /**
+   * Per-account lag and ingestion rate.
+   *
+   * @return metrics for every account seen by the scheduler (empty while
+   *     the scheduler is disabled)
+   */
+  @GetMapping("/admin/ingest/metrics")
+  public List<IngestionScheduler.AccountMetrics> metrics() {
+    return scheduler.metrics();
+  }
+
+  /**
+   * Extract hashtags, mentions and URLs for tweets stored before ingest-time
+   * extraction existed. Safe to repeat.
+   *
+   * @return {@code {"tweets": scanned}}
+   */
+  @PostMapping("/admin/ingest/terms/backfill")
+  public Map<String, Long> backfillTerms() {
+    return Map.of("tweets", writer.backfillTerms());
+  }
+
+  /**
+   * Monthly partitions of {@code tweets} with row counts and sizes.
+   *
+   * @return partitions, oldest first
+   */
+  @GetMapping("/admin/tweets/partitions")
+  public List<TweetRetention.Partition> partitions() {
+    return retention.partitions();
+  }
+
+  /**
+   * Apply the retention policy now.
+   *
+   * @return what was dropped or archived and the space reclaimed
+   */
+  @PostMapping("/admin/tweets/retention")
+  public TweetRetention.RetentionReport applyRetention() {
+    return retention.run();
+  }
+
+  /**
+   * Compressed archive files written in {@code compress} retention mode.
+   *
+   * @return files, oldest month first
+   */
+  @GetMapping("/admin/tweets/archive")
+  public List<ColdTweetArchive.ArchiveFile> archiveFiles() {
+    return archive.files();
+  }
+
+  /**
+   * Read one tweet back from the compressed archive.
+   *
+   * @param id tweet id
+   * @return the tweet with its account, or 404
+   */
+  @GetMapping("/admin/tweets/archive/{id}")
+  public ResponseEntity<ColdTweetArchive.ArchivedTweet> archivedTweet(
+      @PathVariable("id") final String id) {
+    final ColdTweetArchive.ArchivedTweet t = archive.find(id);
+    return t == null ? ResponseEntity.notFound().build()
+        : ResponseEntity.ok(t);
+  }
+}
@@ -0,0 +1,294 @@
+package com.team.mcp.search;
+
+import com.team.mcp.auth.TokenStore;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Continuous timeline ingestion for every account that has a token.
+ *
+ * <p>A cheap scheduler tick walks {@link TokenStore#listAccounts()} and
+ * submits each account whose jittered due time has passed to a bounded
+ * worker pool. Each account is single-flight: it is never ingested by two
+ * workers at once (its checkpoint makes concurrent runs pointless), and a
+ * slow account only delays itself. Per-account counters are exposed via
+ * {@link #metrics()}.
+ *
+ * <p>Disabled unless {@code app.ingest.scheduler.enabled=true}.
+ */
+@Component
+public final class IngestionScheduler {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(IngestionScheduler.class);
+
+  /** Milliseconds per minute (rate unit). */
+  private static final double MS_PER_MIN = 60_000d;
+
+  /** Weight of the newest sample in the ingestion-rate average. */
+  private static final double RATE_ALPHA = 0.3d;
+
+  /** Ingests one account. */
+  private final TweetIngestor ingestor;
+
+  /** Source of account ids. */
+  private final TokenStore tokens;
+
+  /** Time source. */
+  private final Clock clock;
+
+  /** Whether ticks do anything. */
+  private final boolean enabled;
+
+  /** Mean delay between runs of one account. */
+  private final long intervalMs;
+
+  /** Relative jitter applied to {@link #intervalMs} (0..1). */
+  private final double jitter;
+
+  /** Tweets requested per run. */
+  private final int batchCount;
+
+  /** Worker pool (bounded global parallelism); {@code null} if disabled. */
+  private final ThreadPoolExecutor workers;
+
+  /** Per-account state, created on first sight. */
+  private final Map<String, AccountState> accounts =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates the scheduler.
+   *
+   * @param tweetIngestor ingestion service
+   * @param tokenStore account source ({@code listAccounts})
+   * @param appClock time source
+   * @param enabledFlag {@code app.ingest.scheduler.enabled}
+   * @param interval {@code app.ingest.scheduler.intervalMs}
+   * @param jitterRatio {@code app.ingest.scheduler.jitter}
+   * @param parallelism {@code app.ingest.scheduler.parallelism}
+   * @param count {@code app.ingest.scheduler.batchCount}
+   */
+  public IngestionScheduler(
+      final TweetIngestor tweetIngestor,
+      final TokenStore tokenStore,
+      final Clock appClock,
+      @Value("${app.ingest.scheduler.enabled:false}")
+      final boolean enabledFlag,
+      @Value("${app.ingest.scheduler.intervalMs:60000}") final long interval,
+      @Value("${app.ingest.scheduler.jitter:0.2}") final double jitterRatio,
+      @Value("${app.ingest.scheduler.parallelism:8}") final int parallelism,
+      @Value("${app.ingest.scheduler.batchCount:200}") final int count) {
+    this.ingestor = tweetIngestor;
+    this.tokens = tokenStore;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.intervalMs = Math.max(1L, interval);
+    this.jitter = Math.max(0d, Math.min(1d, jitterRatio));
+    this.batchCount = Math.max(1, count);
+    this.workers = enabledFlag ? newPool(Math.max(1, parallelism)) : null;
+  }
+
+  /**
+   * Scheduler tick: submit every due, idle account.
+   *
+   * @return number of accounts submitted
+   */
+  @Scheduled(fixedDelayString = "${app.ingest.scheduler.tickMs:1000}")
+  public int tick() {
+    if (!enabled) {
+      return 0;
+    }
+    final long now = clock.millis();
+    int submitted = 0;
+    for (String acc : tokens.listAccounts()) {
+      // First runs are spread over one interval to avoid a burst.
+      final AccountState st = accounts.computeIfAbsent(acc, k ->
+          new AccountState(now + ThreadLocalRandom.current().nextLong(
+              intervalMs)));
+      if (now < st.nextDueMs || !st.running.compareAndSet(false, true)) {
+        continue;
+      }
+      try {
+        workers.execute(() -> runOnce(acc, st));
+        submitted++;
+      } catch (RejectedExecutionException ex) {
+        st.running.set(false);
+        break;
+      }
+    }
+    return submitted;
+  }
+
+  /**
+   * Per-account ingestion metrics.
+   *
+   * @return one snapshot per known account
+   */
+  public List<AccountMetrics> metrics() {
+    final long now = clock.millis();
+    final List<AccountMetrics> out = new ArrayList<>(accounts.size());
+    accounts.forEach((acc, st) -> out.add(st.snapshot(acc, now)));
+    out.sort((a, b) -> a.accountId().compareTo(b.accountId()));
+    return out;
+  }
+
+  /**
+   * Number of accounts currently being ingested.
+   *
+   * @return active worker count
+   */
+  public int inFlight() {
+    return workers == null ? 0 : workers.getActiveCount();
+  }
+
+  /** Stop the worker pool. */
+  @PreDestroy
+  public void shutdown() {
+    if (workers != null) {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Ingest one account and reschedule it.
+   *
+   * @param acc account id
+   * @param st account state (its {@code running} flag is held)
+   */
+  private void runOnce(final String acc, final AccountState st) {
+    final long start = clock.millis();
+    try {
+      final int n = ingestor.ingestFromTimeline(acc, batchCount);
+      st.recordSuccess(start, clock.millis(), n);
+    } catch (Exception ex) {
+      st.failures.incrementAndGet();
+      LOG.warn("ingest for {} failed: {}", acc, ex.toString());
+    } finally {
+      st.nextDueMs = clock.millis() + jittered(intervalMs, jitter);
+      st.running.set(false);
+    }
+  }
+
+  /**
+   * Spread a delay by {@code ±ratio}.
+   *
+   * @param base mean delay
+   * @param ratio relative spread (1 means 0..2x)
+   * @return jittered delay (at least 0)
+   */
+  private static long jittered(final long base, final double ratio) {
+    final double f =
+        1d + ratio * (2d * ThreadLocalRandom.current().nextDouble() - 1d);
+    return Math.max(0L, (long) (base * f));
+  }
+
+  /**
+   * Fixed-size daemon pool; its queue never holds more than one task per
+   * account because of the single-flight flag.
+   *
+   * @param threads worker threads
+   * @return executor
+   */
+  private static ThreadPoolExecutor newPool(final int threads) {
+    final AtomicInteger seq = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+          final Thread t = new Thread(r, "ingest-" + seq.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /**
+   * Point-in-time ingestion metrics for one account.
+   *
+   * @param accountId account id
+   * @param running whether a run is in progress
+   * @param runs successful runs
+   * @param failures failed runs
+   * @param ingested tweets inserted in total
+   * @param lagMs time since the last successful run finished
+   *     ({@code -1} if none yet)
+   * @param lastDurationMs duration of the last successful run
+   * @param tweetsPerMinute moving average of the ingestion rate
+   */
+  public record AccountMetrics(
+      String accountId,
+      boolean running,
+      long runs,
+      long failures,
+      long ingested,
+      long lagMs,
+      long lastDurationMs,
+      double tweetsPerMinute) {
+  }
+
+  /** Mutable per-account scheduling state and counters. */
+  private static final class AccountState {
+
+    /** Single-flight guard. */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** Failed runs. */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /** Earliest time of the next run. */
+    private volatile long nextDueMs;
+
+    /** Successful runs. */
+    private long runs;
+
+    /** Tweets inserted in total. */
+    private long ingested;
+
+    /** End of the last successful run ({@code 0} if none). */
+    private long lastSuccessMs;
+
+    /** Duration of the last successful run. */
+    private long lastDurationMs;
+
+    /** Moving average of tweets per minute. */
+    private double rate;
+
+    AccountState(final long firstDueMs) {
+      this.nextDueMs = firstDueMs;
+    }
+
+    synchronized void recordSuccess(
+        final long startMs, final long endMs, final int inserted) {
+      if (lastSuccessMs > 0) {
+        final double minutes =
+            Math.max(1L, endMs - lastSuccessMs) / MS_PER_MIN;
+        final double sample = inserted / minutes;
+        rate = runs <= 1 ? sample : rate + RATE_ALPHA * (sample - rate);
+      }
+      runs++;
+      ingested += inserted;
+      lastSuccessMs = endMs;
+      lastDurationMs = endMs - startMs;
+    }
+
+    synchronized AccountMetrics snapshot(final String acc, final long now) {
+      return new AccountMetrics(acc, running.get(), runs, failures.get(),
+          ingested, lastSuccessMs == 0 ? -1L : now - lastSuccessMs,
+          lastDurationMs, rate);
+    }
+  }
+}
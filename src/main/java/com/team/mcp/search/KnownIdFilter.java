@@ -0,0 +1,209 @@
+package com.team.mcp.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Probabilistic set of tweet ids already stored, consulted by
+ * {@link TweetBulkWriter} before its existence probe: ids the filter has
+ * definitely never seen go straight to the insert, and only possible
+ * duplicates are looked up in the database.
+ *
+ * <p>The filter may miss ids (rows written by other processes, or added
+ * after the last snapshot). That is safe: inserts tolerate conflicts, so a
+ * missed duplicate is still skipped, just without the shortcut.
+ *
+ * <p>On startup the filter is read from its snapshot file
+ * ({@code app.ingest.idFilter.file}) or, if there is none, rebuilt from
+ * {@code SELECT id FROM tweets}. It is written back every
+ * {@code app.ingest.idFilter.persistMs} and on shutdown. Rows inserted by
+ * other writers are added as they appear in the change feed.
+ */
+@Component
+public class KnownIdFilter implements TweetChangeListener {
+
+  /** Logger for load/persist status. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(KnownIdFilter.class);
+
+  /** Default first-stage capacity. */
+  static final long DEFAULT_CAPACITY = 100_000L;
+
+  /** Default first-stage false-positive rate. */
+  static final double DEFAULT_FPP = 0.01d;
+
+  /** Optional JDBC access used for the initial load; may be {@code null}. */
+  private final JdbcTemplate jdbc;
+
+  /** Snapshot file; {@code null} disables persistence. */
+  private final Path file;
+
+  /** The filter (guarded by {@code this}). */
+  private ScalableBloomFilter filter;
+
+  /** Additions since the last snapshot. */
+  private final AtomicLong dirty = new AtomicLong();
+
+  /**
+   * Spring constructor.
+   *
+   * @param jdbcTemplate JDBC template (may be {@code null})
+   * @param snapshotFile {@code app.ingest.idFilter.file} (blank: none)
+   * @param capacity {@code app.ingest.idFilter.capacity}
+   * @param fpp {@code app.ingest.idFilter.fpp}
+   */
+  @Autowired
+  public KnownIdFilter(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.ingest.idFilter.file:./.h2/tweet-ids.bloom}")
+      final String snapshotFile,
+      @Value("${app.ingest.idFilter.capacity:100000}") final long capacity,
+      @Value("${app.ingest.idFilter.fpp:0.01}") final double fpp) {
+    this.jdbc = jdbcTemplate;
+    this.file = snapshotFile == null || snapshotFile.isBlank()
+        ? null : Paths.get(snapshotFile);
+    this.filter = new ScalableBloomFilter(capacity, fpp);
+  }
+
+  /** Memory-only constructor for unit tests. */
+  public KnownIdFilter() {
+    this(null, "", DEFAULT_CAPACITY, DEFAULT_FPP);
+  }
+
+  /**
+   * Load the snapshot, or rebuild from the {@code tweets} table. Failures
+   * leave the filter empty, which only costs extra probes.
+   */
+  @PostConstruct
+  public void load() {
+    if (file != null && Files.isRegularFile(file)) {
+      try (DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Files.newInputStream(file)))) {
+        final ScalableBloomFilter f = ScalableBloomFilter.readFrom(in);
+        synchronized (this) {
+          filter = f;
+        }
+        LOG.info("Known-id filter loaded from {} ({} ids)", file, f.size());
+        return;
+      } catch (IOException ex) {
+        LOG.warn("Known-id snapshot {} unreadable, rebuilding: {}",
+            file, ex.toString());
+      }
+    }
+    if (jdbc == null) {
+      return;
+    }
+    try {
+      final RowCallbackHandler loader = rs -> add(rs.getString(1));
+      jdbc.query("SELECT id FROM tweets", loader);
+      LOG.info("Known-id filter rebuilt from tweets ({} ids)", size());
+    } catch (DataAccessException ex) {
+      LOG.debug("Known-id filter load skipped: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Whether an id may already be stored.
+   *
+   * @param id tweet id
+   * @return {@code false} if the id is definitely new to this filter
+   */
+  public synchronized boolean mightContain(final String id) {
+    return filter.mightContain(id);
+  }
+
+  /**
+   * Record a stored id.
+   *
+   * @param id tweet id
+   */
+  public synchronized void add(final String id) {
+    if (filter.add(id)) {
+      dirty.incrementAndGet();
+    }
+  }
+
+  /**
+   * Record stored ids.
+   *
+   * @param ids tweet ids
+   */
+  public synchronized void addAll(final Collection<String> ids) {
+    for (String id : ids) {
+      add(id);
+    }
+  }
+
+  /**
+   * Record ids inserted by any writer; deletes are ignored, since a stale
+   * entry only costs one probe.
+   *
+   * @param changes change feed batch
+   */
+  @Override
+  public synchronized void onChanges(final List<TweetChange> changes) {
+    for (TweetChange c : changes) {
+      if (c.type() == TweetChange.Type.INSERT) {
+        add(c.tweet().id());
+      }
+    }
+  }
+
+  /**
+   * Ids recorded so far.
+   *
+   * @return approximate distinct count
+   */
+  public synchronized long size() {
+    return filter.size();
+  }
+
+  /**
+   * Write the snapshot if anything changed since the last one. The file
+   * is replaced atomically.
+   */
+  @Scheduled(fixedDelayString = "${app.ingest.idFilter.persistMs:300000}")
+  @PreDestroy
+  public void persist() {
+    if (file == null || dirty.get() == 0) {
+      return;
+    }
+    try {
+      final Path dir = file.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      final Path tmp = Files.createTempFile(dir, "tweet-ids", ".tmp");
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        synchronized (this) {
+          filter.writeTo(out);
+          dirty.set(0);
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      LOG.warn("Known-id snapshot not written: {}", ex.toString());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.team.mcp.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-request LSH table that admits one representative per near-duplicate
+ * cluster while results are scanned in rank order.
+ *
+ * <p>A fingerprint is only compared with fingerprints that share one of
+ * its bands, so collapsing a page costs a few bucket probes per hit
+ * rather than comparisons against every earlier hit.
+ */
+final class NearDuplicateCollapser {
+
+  /** Hamming threshold under which two tweets are duplicates. */
+  private final int maxDistance;
+
+  /** Band key → fingerprints already admitted with that band. */
+  private final Map<Long, List<Long>> buckets = new HashMap<>();
+
+  /**
+   * Creates an empty collapser.
+   *
+   * @param maxDistanceParam Hamming threshold (clamped by {@link SimHash})
+   */
+  NearDuplicateCollapser(final int maxDistanceParam) {
+    this.maxDistance = SimHash.clampDistance(maxDistanceParam);
+  }
+
+  /**
+   * Admit a fingerprint unless a near-duplicate was admitted before.
+   *
+   * @param fp fingerprint of the next hit in rank order
+   * @return {@code true} if the hit represents a new cluster
+   */
+  boolean admit(final long fp) {
+    if (fp == 0L) {
+      // No features (e.g. only links): nothing to compare on.
+      return true;
+    }
+    final long[] keys = SimHash.bandKeys(fp, maxDistance);
+    for (long k : keys) {
+      final List<Long> seen = buckets.get(k);
+      if (seen == null) {
+        continue;
+      }
+      for (long other : seen) {
+        if (SimHash.distance(fp, other) <= maxDistance) {
+          return false;
+        }
+      }
+    }
+    for (long k : keys) {
+      buckets.computeIfAbsent(k, x -> new ArrayList<>()).add(fp);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,300 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory LSH table of SimHash fingerprints for ingested tweets.
+ *
+ * <p>Each tweet added here is assigned to a near-duplicate cluster, named
+ * by the fingerprint of the first tweet seen in it (its representative).
+ * Search uses {@link #representative(Tweet)} when collapsing results so
+ * that retweets and templated tweets fall into the same cluster without
+ * comparing them pairwise.
+ *
+ * <p>On startup the table is rebuilt from the most recent rows of the
+ * {@code tweets.simhash} column when a database is available.
+ *
+ * <p>The table holds at most {@code app.search.dedupe.maxEntries}
+ * fingerprints; beyond that the oldest added are dropped, and tweets that
+ * old fall back to their own fingerprint when collapsing. Deleted and
+ * purged rows are dropped as the change feed reports them.
+ */
+@Component
+public class NearDuplicateIndex
+    implements IngestListener, TweetChangeListener {
+
+  /** Logger for warm-up status. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(NearDuplicateIndex.class);
+
+  /** Default Hamming threshold. */
+  static final int DEFAULT_MAX_DISTANCE = 3;
+
+  /** Default fingerprint capacity. */
+  static final int DEFAULT_MAX_ENTRIES = 200_000;
+
+  /** Hamming threshold under which two tweets are duplicates. */
+  private final int maxDistance;
+
+  /** Rows to load from the {@code tweets} table on startup. */
+  private final int warmRows;
+
+  /** Fingerprints held before the oldest are evicted. */
+  private final int maxEntries;
+
+  /** Optional JDBC access used for warm-up; may be {@code null}. */
+  private final JdbcTemplate jdbc;
+
+  /** Entry slot: creation time in epoch seconds, or unknown. */
+  private static final long NO_TIME = Long.MAX_VALUE;
+
+  /**
+   * Band key → entries {@code [fingerprint, representative, created]}
+   * sharing that band (guarded by {@code this}).
+   */
+  private final Map<Long, List<long[]>> buckets = new HashMap<>();
+
+  /** Tweet id → representative fingerprint of its cluster. */
+  private final Map<String, Long> repById = new ConcurrentHashMap<>();
+
+  /**
+   * Tweet id → its bucket entry, oldest first, for eviction (guarded by
+   * {@code this}).
+   */
+  private final LinkedHashMap<String, long[]> entries =
+      new LinkedHashMap<>();
+
+  /**
+   * Spring constructor.
+   *
+   * @param jdbcTemplate JDBC template (may be {@code null})
+   * @param maxDistanceParam {@code app.search.dedupe.maxDistance}
+   * @param warmRowsParam {@code app.search.dedupe.warmRows}
+   * @param maxEntriesParam {@code app.search.dedupe.maxEntries}
+   */
+  @Autowired
+  public NearDuplicateIndex(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.search.dedupe.maxDistance:3}") final int maxDistanceParam,
+      @Value("${app.search.dedupe.warmRows:100000}") final int warmRowsParam,
+      @Value("${app.search.dedupe.maxEntries:200000}")
+      final int maxEntriesParam) {
+    this.jdbc = jdbcTemplate;
+    this.maxDistance = SimHash.clampDistance(maxDistanceParam);
+    this.maxEntries = Math.max(1, maxEntriesParam);
+    this.warmRows = Math.min(Math.max(0, warmRowsParam), maxEntries);
+  }
+
+  /** Memory-only constructor for unit tests. */
+  public NearDuplicateIndex() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Memory-only index with a capacity, for tests.
+   *
+   * @param capacity fingerprints held before eviction
+   */
+  NearDuplicateIndex(final int capacity) {
+    this(null, DEFAULT_MAX_DISTANCE, 0, capacity);
+  }
+
+  /**
+   * Rebuild the table from the newest stored fingerprints, added oldest
+   * first so that eviction order matches ingest order. Failures (no table
+   * yet, column missing) leave the table empty.
+   */
+  @PostConstruct
+  public void warmFromDb() {
+    if (jdbc == null || warmRows == 0) {
+      return;
+    }
+    final String sql =
+        "SELECT id, simhash, created_at FROM (SELECT id, simhash, "
+            + "created_at FROM tweets WHERE simhash IS NOT NULL "
+            + "ORDER BY created_at DESC LIMIT ?) t "
+            + "ORDER BY created_at";
+    try {
+      final RowCallbackHandler loader =
+          rs -> add(rs.getString("id"), rs.getLong("simhash"),
+              rs.getTimestamp("created_at").toInstant());
+      jdbc.query(sql, loader, warmRows);
+      LOG.info("Near-duplicate index warmed with {} fingerprints",
+          repById.size());
+    } catch (DataAccessException ex) {
+      LOG.debug("Near-duplicate warm-up skipped: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Hamming threshold used by this index.
+   *
+   * @return maximum distance between duplicates
+   */
+  public int maxDistance() {
+    return maxDistance;
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    for (Tweet t : tweets) {
+      add(t.id(), SimHash.fingerprint(t.text()), t.createdAt());
+    }
+  }
+
+  @Override
+  public synchronized void onChanges(final List<TweetChange> changes) {
+    for (TweetChange c : changes) {
+      if (c.type() == TweetChange.Type.DELETE) {
+        final long[] entry = entries.remove(c.tweet().id());
+        if (entry != null) {
+          unlink(c.tweet().id(), entry);
+        }
+      } else if (c.type() == TweetChange.Type.PURGE && c.before() != null) {
+        final long before = c.before().getEpochSecond();
+        final Iterator<Map.Entry<String, long[]>> it =
+            entries.entrySet().iterator();
+        while (it.hasNext()) {
+          final Map.Entry<String, long[]> e = it.next();
+          if (e.getValue()[2] < before) {
+            it.remove();
+            unlink(e.getKey(), e.getValue());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Add a fingerprint and return the representative of its cluster.
+   *
+   * @param id tweet id
+   * @param fp tweet fingerprint
+   * @return representative fingerprint (equals {@code fp} for a new
+   *     cluster)
+   */
+  public long add(final String id, final long fp) {
+    return add(id, fp, null);
+  }
+
+  /**
+   * Add a fingerprint with its tweet's creation time, so retention purges
+   * can drop it.
+   *
+   * @param id tweet id
+   * @param fp tweet fingerprint
+   * @param createdAt tweet creation time ({@code null}: never purged)
+   * @return representative fingerprint
+   */
+  public synchronized long add(final String id, final long fp,
+      final Instant createdAt) {
+    final Long known = repById.get(id);
+    if (known != null) {
+      return known;
+    }
+    final long[] keys = SimHash.bandKeys(fp, maxDistance);
+    final long rep = findRepresentative(fp, keys);
+    final long[] entry = {fp, rep,
+        createdAt == null ? NO_TIME : createdAt.getEpochSecond()};
+    for (long k : keys) {
+      buckets.computeIfAbsent(k, x -> new ArrayList<>()).add(entry);
+    }
+    repById.put(id, rep);
+    entries.put(id, entry);
+    if (entries.size() > maxEntries) {
+      evictOldest();
+    }
+    return rep;
+  }
+
+  /** Drop the oldest fingerprint from the buckets and the id map. */
+  private void evictOldest() {
+    final Iterator<Map.Entry<String, long[]>> it =
+        entries.entrySet().iterator();
+    final Map.Entry<String, long[]> oldest = it.next();
+    it.remove();
+    unlink(oldest.getKey(), oldest.getValue());
+  }
+
+  /**
+   * Remove an entry already taken out of {@link #entries} from the id
+   * map and its buckets.
+   *
+   * @param id tweet id
+   * @param entry its bucket entry
+   */
+  private void unlink(final String id, final long[] entry) {
+    repById.remove(id);
+    for (long k : SimHash.bandKeys(entry[0], maxDistance)) {
+      final List<long[]> list = buckets.get(k);
+      if (list == null) {
+        continue;
+      }
+      list.removeIf(e -> e == entry);
+      if (list.isEmpty()) {
+        buckets.remove(k);
+      }
+    }
+  }
+
+  /**
+   * Probe the band buckets for an existing near-duplicate.
+   *
+   * @param fp fingerprint being added
+   * @param keys band keys of {@code fp}
+   * @return representative of the first near-duplicate found, or
+   *     {@code fp} itself
+   */
+  private long findRepresentative(final long fp, final long[] keys) {
+    for (long k : keys) {
+      final List<long[]> entries = buckets.get(k);
+      if (entries == null) {
+        continue;
+      }
+      for (long[] e : entries) {
+        if (SimHash.distance(fp, e[0]) <= maxDistance) {
+          return e[1];
+        }
+      }
+    }
+    return fp;
+  }
+
+  /**
+   * Fingerprint to collapse a tweet on: its cluster representative when
+   * the tweet was ingested, otherwise its own fingerprint.
+   *
+   * @param t tweet
+   * @return fingerprint used for collapsing
+   */
+  public long representative(final Tweet t) {
+    final Long rep = repById.get(t.id());
+    return rep != null ? rep : SimHash.fingerprint(t.text());
+  }
+
+  /**
+   * Number of fingerprints held.
+   *
+   * @return indexed tweet count
+   */
+  public int size() {
+    return repById.size();
+  }
+}
@@ -0,0 +1,300 @@
+package com.team.mcp.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scalable Bloom filter over strings: a chain of plain Bloom filters where
+ * each new stage has twice the capacity and half the false-positive rate
+ * of the previous one, so the overall rate stays below twice the first
+ * stage's no matter how many items are added.
+ *
+ * <p>{@link #mightContain} never returns {@code false} for an added item.
+ * Not thread-safe; callers synchronize.
+ */
+final class ScalableBloomFilter {
+
+  /** Serialization magic ("SBF1"). */
+  private static final int MAGIC = 0x53424631;
+
+  /** Capacity multiplier per stage. */
+  private static final int GROWTH = 2;
+
+  /** False-positive multiplier per stage. */
+  private static final double TIGHTENING = 0.5d;
+
+  /** {@code ln(2)}; {@link StrictMath} keeps stage sizes reproducible. */
+  private static final double LN2 = StrictMath.log(2);
+
+  /** {@code ln(2)^2}, used for sizing. */
+  private static final double LN2_SQUARED = LN2 * LN2;
+
+  /** FNV-1a 64-bit offset basis. */
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+  /** FNV-1a 64-bit prime. */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /** First murmur3 fmix64 multiplier. */
+  private static final long MIX_1 = 0xff51afd7ed558ccdL;
+
+  /** Second murmur3 fmix64 multiplier. */
+  private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+
+  /** fmix64 shift. */
+  private static final int MIX_SHIFT = 33;
+
+  /** Byte mask. */
+  private static final int BYTE_MASK = 0xff;
+
+  /** Golden-ratio constant deriving the second hash. */
+  private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+  /** Bits per word. */
+  private static final int WORD_BITS = 64;
+
+  /** Log2 of {@link #WORD_BITS}. */
+  private static final int WORD_SHIFT = 6;
+
+  /** Capacity of the first stage. */
+  private final long initialCapacity;
+
+  /** False-positive rate of the first stage. */
+  private final double initialFpp;
+
+  /** Stages, oldest first; only the last one receives new items. */
+  private final List<Stage> stages = new ArrayList<>();
+
+  /**
+   * Create an empty filter.
+   *
+   * @param capacity items before the first stage is full (at least 1)
+   * @param fpp target false-positive rate of the first stage (0..1)
+   */
+  ScalableBloomFilter(final long capacity, final double fpp) {
+    this.initialCapacity = Math.max(1L, capacity);
+    this.initialFpp = Math.min(0.5d, Math.max(1e-9d, fpp));
+    stages.add(new Stage(initialCapacity, initialFpp));
+  }
+
+  /**
+   * Whether an item may have been added.
+   *
+   * @param item item
+   * @return {@code false} only if the item was definitely never added
+   */
+  boolean mightContain(final String item) {
+    final long h1 = hash(item);
+    final long h2 = mix(h1 ^ GOLDEN) | 1L;
+    for (Stage s : stages) {
+      if (s.contains(h1, h2)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Add an item, opening a new stage when the current one is full.
+   *
+   * @param item item
+   * @return {@code false} if the item may already have been present
+   */
+  boolean add(final String item) {
+    final long h1 = hash(item);
+    final long h2 = mix(h1 ^ GOLDEN) | 1L;
+    for (Stage s : stages) {
+      if (s.contains(h1, h2)) {
+        return false;
+      }
+    }
+    Stage last = stages.get(stages.size() - 1);
+    if (last.count >= last.capacity) {
+      last = new Stage(last.capacity * GROWTH, last.fpp * TIGHTENING);
+      stages.add(last);
+    }
+    last.put(h1, h2);
+    return true;
+  }
+
+  /**
+   * Items added (ignoring those rejected as possible duplicates).
+   *
+   * @return item count
+   */
+  long size() {
+    long n = 0;
+    for (Stage s : stages) {
+      n += s.count;
+    }
+    return n;
+  }
+
+  /**
+   * Number of stages.
+   *
+   * @return stage count
+   */
+  int stageCount() {
+    return stages.size();
+  }
+
+  /**
+   * Memory held by the bit arrays.
+   *
+   * @return bytes
+   */
+  long bitBytes() {
+    long n = 0;
+    for (Stage s : stages) {
+      n += (long) s.bits.length * Long.BYTES;
+    }
+    return n;
+  }
+
+  /**
+   * Serialize the filter.
+   *
+   * @param out destination
+   * @throws IOException on write failure
+   */
+  void writeTo(final DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeLong(initialCapacity);
+    out.writeDouble(initialFpp);
+    out.writeInt(stages.size());
+    for (Stage s : stages) {
+      out.writeLong(s.capacity);
+      out.writeDouble(s.fpp);
+      out.writeLong(s.count);
+      out.writeInt(s.bits.length);
+      for (long w : s.bits) {
+        out.writeLong(w);
+      }
+    }
+  }
+
+  /**
+   * Deserialize a filter written by {@link #writeTo}.
+   *
+   * @param in source
+   * @return filter
+   * @throws IOException on read failure or unknown format
+   */
+  static ScalableBloomFilter readFrom(final DataInputStream in)
+      throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("not a bloom filter snapshot");
+    }
+    final ScalableBloomFilter f =
+        new ScalableBloomFilter(in.readLong(), in.readDouble());
+    f.stages.clear();
+    final int n = in.readInt();
+    for (int i = 0; i < n; i++) {
+      final Stage s = new Stage(in.readLong(), in.readDouble());
+      s.count = in.readLong();
+      if (in.readInt() != s.bits.length) {
+        throw new IOException("bloom filter stage size mismatch");
+      }
+      for (int w = 0; w < s.bits.length; w++) {
+        s.bits[w] = in.readLong();
+      }
+      f.stages.add(s);
+    }
+    if (f.stages.isEmpty()) {
+      throw new IOException("bloom filter snapshot has no stages");
+    }
+    return f;
+  }
+
+  /**
+   * 64-bit FNV-1a over UTF-8 bytes, finalized with {@link #mix}.
+   *
+   * @param s item
+   * @return hash
+   */
+  private static long hash(final String s) {
+    long h = FNV_OFFSET;
+    for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & BYTE_MASK;
+      h *= FNV_PRIME;
+    }
+    return mix(h);
+  }
+
+  /**
+   * Murmur3 fmix64 finalizer.
+   *
+   * @param v value
+   * @return mixed value
+   */
+  private static long mix(final long v) {
+    long h = v;
+    h ^= h >>> MIX_SHIFT;
+    h *= MIX_1;
+    h ^= h >>> MIX_SHIFT;
+    h *= MIX_2;
+    h ^= h >>> MIX_SHIFT;
+    return h;
+  }
+
+  /** One fixed-size Bloom filter. */
+  private static final class Stage {
+
+    /** Items this stage is sized for. */
+    private final long capacity;
+
+    /** Target false-positive rate at capacity. */
+    private final double fpp;
+
+    /** Bit array. */
+    private final long[] bits;
+
+    /** Number of bits ({@code bits.length * 64}). */
+    private final long m;
+
+    /** Hash functions. */
+    private final int k;
+
+    /** Items added. */
+    private long count;
+
+    Stage(final long cap, final double p) {
+      this.capacity = cap;
+      this.fpp = p;
+      final long wanted =
+          (long) Math.ceil(-cap * StrictMath.log(p) / LN2_SQUARED);
+      this.bits = new long[(int) Math.max(1L,
+          (wanted + WORD_BITS - 1) >>> WORD_SHIFT)];
+      this.m = (long) bits.length * WORD_BITS;
+      this.k = (int) Math.max(1L,
+          Math.round((double) m / cap * LN2));
+    }
+
+    boolean contains(final long h1, final long h2) {
+      long h = h1;
+      for (int i = 0; i < k; i++) {
+        final long bit = Long.remainderUnsigned(h, m);
+        if ((bits[(int) (bit >>> WORD_SHIFT)] & (1L << bit)) == 0) {
+          return false;
+        }
+        h += h2;
+      }
+      return true;
+    }
+
+    void put(final long h1, final long h2) {
+      long h = h1;
+      for (int i = 0; i < k; i++) {
+        final long bit = Long.remainderUnsigned(h, m);
+        bits[(int) (bit >>> WORD_SHIFT)] |= 1L << bit;
+        h += h2;
+      }
+      count++;
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package com.team.mcp.search;
 
 import com.team.mcp.twitter.dto.Tweet;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -16,13 +18,19 @@ public final class SearchController {
   /** Application search service (memory or DB-backed depending on config). */
   private final SearchService svc;
 
+  /** Hashtag/handle completion index. */
+  private final HashtagSuggester suggester;
+
   /**
    * Constructs the controller.
    *
    * @param service injected {@link SearchService}
+   * @param hashtagSuggester injected {@link HashtagSuggester}
    */
-  public SearchController(final SearchService service) {
+  public SearchController(
+      final SearchService service, final HashtagSuggester hashtagSuggester) {
     this.svc = service;
+    this.suggester = hashtagSuggester;
   }
 
   /**
@@ -37,19 +45,62 @@ public final class SearchController {
    * @param q raw query string (supports phrases in quotes and {@code OR})
    * @param offset number of results to skip (for pagination)
    * @param limit maximum number of results to return
-   * @return HTTP 200 with a list of matching {@link Tweet} DTOs
+   * @param collapse {@code none} (default) or {@code near_duplicates} to
+   *     keep one tweet per near-duplicate cluster
+   * @param highlight when {@code true}, return {@link SearchHit}s with
+   *     highlight offsets and a snippet instead of bare tweets
+   * @return HTTP 400 with error map for an unknown {@code collapse} value;
+   *         otherwise HTTP 200 with a list of matching {@link Tweet} DTOs
+   *         (or {@link SearchHit}s when highlighting)
    */
   @GetMapping("/search")
-  public ResponseEntity<List<Tweet>> search(
+  public ResponseEntity<?> search(
       @RequestParam("accountId") final String accountId,
       @RequestParam("q") final String q,
       @RequestParam(value = "offset", defaultValue = "0") final int offset,
-      @RequestParam(value = "limit", defaultValue = "20") final int limit) {
+      @RequestParam(value = "limit", defaultValue = "20") final int limit,
+      @RequestParam(value = "collapse", defaultValue = "none")
+      final String collapse,
+      @RequestParam(value = "highlight", defaultValue = "false")
+      final boolean highlight) {
 
-    final List<Tweet> out = svc.search(accountId, q, offset, limit);
+    final boolean collapseDupes = "near_duplicates".equals(collapse);
+    if (!collapseDupes && !"none".equals(collapse)) {
+      return ResponseEntity.badRequest().body(java.util.Map.of(
+          "error", "collapse must be 'none' or 'near_duplicates'"));
+    }
+    if (highlight) {
+      return ResponseEntity.ok(
+          svc.searchHits(accountId, q, offset, limit, collapseDupes));
+    }
+    final List<Tweet> out =
+        svc.search(accountId, q, offset, limit, collapseDupes);
     return ResponseEntity.ok(out);
   }
 
+  /**
+   * Run one query for several accounts at once.
+   *
+   * <pre>
+   *   /search/batch?accountIds=acctA,acctB&q=hello&limit=5
+   * </pre>
+   *
+   * @param accountIds comma-separated account ids
+   * @param q raw query string (same syntax as {@code /search})
+   * @param limit maximum number of results per account
+   * @return HTTP 200 with account id to matching {@link Tweet} DTOs, in
+   *         request order
+   */
+  @GetMapping("/search/batch")
+  public ResponseEntity<Map<String, List<Tweet>>> batch(
+      @RequestParam("accountIds") final String accountIds,
+      @RequestParam("q") final String q,
+      @RequestParam(value = "limit", defaultValue = "20") final int limit) {
+
+    final List<String> ids = Arrays.asList(accountIds.split(","));
+    return ResponseEntity.ok(svc.searchBatch(ids, q, limit));
+  }
+
   /**
    * Exact hashtag search (case-insensitive). Query must start with '#'.
    *
@@ -72,4 +123,32 @@ public final class SearchController {
     final List<Tweet> out = svc.searchHashtag(accountId, q, limit);
     return ResponseEntity.ok(out);
   }
+
+  /**
+   * Complete a hashtag or handle prefix with the account's most used
+   * terms.
+   *
+   * <pre>
+   *   /search/suggest?accountId=acctA&prefix=%23lau&limit=5
+   * </pre>
+   *
+   * @param accountId logical account id
+   * @param prefix prefix starting with '#' or '@'
+   * @param limit maximum number of suggestions (at most 10)
+   * @return HTTP 400 with error map if {@code prefix} does not start with
+   *         '#' or '@'; otherwise HTTP 200 with {@link Suggestion}s, most
+   *         used first
+   */
+  @GetMapping("/search/suggest")
+  public ResponseEntity<?> suggest(
+      @RequestParam("accountId") final String accountId,
+      @RequestParam("prefix") final String prefix,
+      @RequestParam(value = "limit", defaultValue = "5") final int limit) {
+
+    if (!prefix.startsWith("#") && !prefix.startsWith("@")) {
+      return ResponseEntity.badRequest().body(
+          Map.of("error", "prefix must start with '#' or '@'"));
+    }
+    return ResponseEntity.ok(suggester.suggest(accountId, prefix, limit));
+  }
 }
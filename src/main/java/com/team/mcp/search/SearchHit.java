@@ -0,0 +1,29 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.util.List;
+
+/**
+ * A search result with highlight data, returned when highlighting is
+ * requested.
+ *
+ * @param tweet        the matching tweet
+ * @param highlights   matched ranges as offsets into {@code tweet.text()}
+ * @param snippet      short excerpt of the text around the first match
+ * @param snippetStart offset of {@code snippet} within {@code tweet.text()}
+ */
+public record SearchHit(
+    Tweet tweet,
+    List<Span> highlights,
+    String snippet,
+    int snippetStart
+) {
+
+  /**
+   * Half-open character range {@code [start, end)}.
+   *
+   * @param start first highlighted character
+   * @param end   one past the last highlighted character
+   */
+  public record Span(int start, int end) { }
+}
@@ -1,6 +1,7 @@
 package com.team.mcp.search;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -93,6 +94,170 @@ public final class SearchQuery {
     return clauses;
   }
 
+  /**
+   * Scores already-lowercased text against this query: the best clause
+   * score wins, and within a clause phrases count double.
+   *
+   * @param lowerText normalized (lowercased) tweet text
+   * @return positive score if any clause matches, otherwise {@code 0}
+   */
+  public int score(final String lowerText) {
+    final String txt = lowerText == null ? "" : lowerText;
+    int best = 0;
+    for (Clause c : clauses) {
+      final int s = scoreClause(txt, c, null);
+      if (s > best) {
+        best = s;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Like {@link #score(String)}, but also keeps the offsets at which the
+   * best clause's terms and phrases were found. The offsets come from the
+   * same {@code indexOf} calls that decide the match, so no second pass
+   * over the text is needed to highlight it.
+   *
+   * @param lowerText normalized (lowercased) tweet text
+   * @return the match, or {@code null} if no clause matches
+   */
+  public Match match(final String lowerText) {
+    final String txt = lowerText == null ? "" : lowerText;
+    int best = 0;
+    Clause bestClause = null;
+    int[] bestPos = null;
+    int[] scratch = null;
+    for (Clause c : clauses) {
+      final int n = c.terms().size() + c.phrases().size();
+      if (scratch == null || scratch.length < n) {
+        scratch = new int[n];
+      }
+      final int s = scoreClause(txt, c, scratch);
+      if (s > best) {
+        best = s;
+        bestClause = c;
+        bestPos = Arrays.copyOf(scratch, n);
+      }
+    }
+    if (bestClause == null) {
+      return null;
+    }
+    return new Match(best, spans(bestClause, bestPos));
+  }
+
+  /**
+   * Score a single AND-clause; phrases count double.
+   *
+   * @param txt normalized (lowercased) tweet text
+   * @param c AND-clause containing terms and phrases
+   * @param pos when non-null, receives the start offset of each term and
+   *     then each phrase
+   * @return clause score; {@code 0} if any required term/phrase is missing
+   */
+  private static int scoreClause(
+      final String txt,
+      final Clause c,
+      final int[] pos) {
+
+    int termHits = 0;
+    for (String term : c.terms()) {
+      final int at = txt.indexOf(term);
+      if (at < 0) {
+        return 0;
+      }
+      if (pos != null) {
+        pos[termHits] = at;
+      }
+      termHits++;
+    }
+
+    int phraseHits = 0;
+    for (String ph : c.phrases()) {
+      final int at = txt.indexOf(ph);
+      if (at < 0) {
+        return 0;
+      }
+      if (pos != null) {
+        pos[termHits + phraseHits] = at;
+      }
+      phraseHits++;
+    }
+
+    return termHits + (phraseHits * 2);
+  }
+
+  /**
+   * Turn recorded start offsets into sorted, merged {@code [start, end)}
+   * spans.
+   *
+   * @param c matched clause
+   * @param pos start offsets, terms first then phrases
+   * @return flattened spans {@code [s0, e0, s1, e1, ...]}
+   */
+  private static int[] spans(final Clause c, final int[] pos) {
+    final int n = pos.length;
+    final long[] packed = new long[n];
+    final List<String> all = new ArrayList<>(c.terms());
+    all.addAll(c.phrases());
+    for (int i = 0; i < n; i++) {
+      final long start = pos[i];
+      final long end = start + all.get(i).length();
+      packed[i] = (start << Integer.SIZE) | end;
+    }
+    Arrays.sort(packed);
+
+    final int[] out = new int[n * 2];
+    int len = 0;
+    for (long p : packed) {
+      final int start = (int) (p >>> Integer.SIZE);
+      final int end = (int) p;
+      if (len > 0 && start <= out[len - 1]) {
+        out[len - 1] = Math.max(out[len - 1], end);
+      } else {
+        out[len++] = start;
+        out[len++] = end;
+      }
+    }
+    return Arrays.copyOf(out, len);
+  }
+
+  /**
+   * Result of {@link #match(String)}: score plus highlight spans.
+   */
+  public static final class Match {
+
+    /** Match score (higher is better). */
+    private final int score;
+
+    /** Flattened, sorted, non-overlapping {@code [start, end)} pairs. */
+    private final int[] spans;
+
+    Match(final int s, final int[] sp) {
+      this.score = s;
+      this.spans = sp;
+    }
+
+    /**
+     * Returns the match score.
+     *
+     * @return score (always positive)
+     */
+    public int score() {
+      return score;
+    }
+
+    /**
+     * Returns the highlight spans as {@code [s0, e0, s1, e1, ...]}
+     * offsets into the lowercased text.
+     *
+     * @return spans (never null; callers must not modify)
+     */
+    int[] spans() {
+      return spans;
+    }
+  }
+
   /**
    * Parses a human query into OR-clauses and AND-tokens.
    *
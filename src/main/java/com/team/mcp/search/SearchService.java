@@ -3,13 +3,22 @@ package com.team.mcp.search;
 import com.team.mcp.twitter.TwitterClient;
 import com.team.mcp.twitter.TwitterClient.TwitterException;
 import com.team.mcp.twitter.dto.Tweet;
+import com.team.mcp.warmup.AccountWarmer;
+import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -23,9 +32,16 @@ import org.springframework.stereotype.Service;
  * <p>Modes:
  * <br>source=memory (default) → {@link TwitterClient}
  * <br>source=db → {@code SELECT * FROM TWEETS WHERE ACCOUNT_ID = ?}
+ *
+ * <p>In memory mode, accounts held by the optional
+ * {@link ColumnarTweetStore} are scanned from its columns instead of the
+ * timeline; a {@link Tweet} is only built for matching rows.
  */
 @Service
-public final class SearchService {
+public final class SearchService implements AccountWarmer {
+
+  /** Tool whose latency the pool query dominates. */
+  private static final String TOOL = "search_tweets";
 
   /** Default pool to scan from the timeline. */
   private static final int TIMELINE_POOL = 200;
@@ -36,6 +52,21 @@ public final class SearchService {
   /** Hard upper bound for limit. */
   private static final int MAX_LIMIT = 100;
 
+  /** Maximum snippet length in characters. */
+  private static final int SNIPPET_CHARS = 100;
+
+  /** Characters of context kept before the first highlight. */
+  private static final int SNIPPET_LEAD = 30;
+
+  /** Upper bound on accounts in one batch request. */
+  private static final int MAX_BATCH_ACCOUNTS = 500;
+
+  /** Rank order: score descending, then newer first. */
+  private static final Comparator<Scored> RANK =
+      Comparator.comparingInt(Scored::score)
+          .reversed()
+          .thenComparingLong(Scored::recency);
+
   /** Client used to fetch tweets (fake or real). */
   private final TwitterClient twitter;
 
@@ -45,6 +76,12 @@ public final class SearchService {
   /** Source selector: "memory" or "db". */
   private final String source;
 
+  /** Optional near-duplicate clusters for collapsing (may be null). */
+  private NearDuplicateIndex nearDuplicates;
+
+  /** Optional columnar copy of recent tweets (may be null). */
+  private ColumnarTweetStore columnar;
+
   /**
    * Primary Spring constructor.
    *
@@ -73,6 +110,44 @@ public final class SearchService {
     this(twitterClient, null, "memory");
   }
 
+  /**
+   * Optional setter injection to avoid ctor changes.
+   *
+   * @param index near-duplicate index bean (may be null)
+   */
+  @Autowired(required = false)
+  public void setNearDuplicateIndex(final NearDuplicateIndex index) {
+    this.nearDuplicates = index;
+  }
+
+  /**
+   * Optional setter injection of the columnar store.
+   *
+   * @param store columnar store bean (may be null)
+   */
+  @Autowired(required = false)
+  public void setColumnarStore(final ColumnarTweetStore store) {
+    this.columnar = store;
+  }
+
+  @Override
+  public boolean serves(final String toolName) {
+    return TOOL.equals(toolName);
+  }
+
+  /**
+   * In DB mode, run the account's pool query once so its index pages and
+   * the prepared statement are cached; memory mode has nothing to warm.
+   *
+   * @param accountId account id
+   */
+  @Override
+  public void warmUp(final String accountId) {
+    if ("db".equalsIgnoreCase(source) && jdbc != null) {
+      selectTweetsFromDb(accountId, TIMELINE_POOL);
+    }
+  }
+
   /**
    * Search tweets with AND/OR and phrase support. Ranking by:
    * <ol>
@@ -91,13 +166,120 @@ public final class SearchService {
       final String rawQuery,
       final int offset,
       final int limit) {
+    return search(accountId, rawQuery, offset, limit, false);
+  }
+
+  /**
+   * Search as {@link #search(String, String, int, int)}, optionally keeping
+   * only the best-ranked tweet of each near-duplicate cluster (retweets,
+   * templated tweets). Collapsing happens while the ranked hits are
+   * paged, so {@code offset} and {@code limit} count representatives.
+   *
+   * @param accountId account id
+   * @param rawQuery raw query string
+   * @param offset skip this many results (for pagination)
+   * @param limit max results to return (capped)
+   * @param collapseNearDuplicates {@code true} to collapse clusters
+   * @return a page of matching tweets (possibly empty, never {@code null})
+   */
+  public List<Tweet> search(
+      final String accountId,
+      final String rawQuery,
+      final int offset,
+      final int limit,
+      final boolean collapseNearDuplicates) {
+
+    final List<Scored> page = rankedPage(accountId, rawQuery, offset, limit,
+        collapseNearDuplicates, false);
+    final List<Tweet> out = new ArrayList<>(page.size());
+    for (Scored s : page) {
+      out.add(s.tweet());
+    }
+    return out;
+  }
+
+  /**
+   * Search like {@link #search(String, String, int, int, boolean)} and
+   * return highlight offsets and a snippet per hit. Offsets are the ones
+   * recorded while each tweet was matched, so the text is not scanned a
+   * second time.
+   *
+   * @param accountId account id
+   * @param rawQuery raw query string
+   * @param offset skip this many results (for pagination)
+   * @param limit max results to return (capped)
+   * @param collapseNearDuplicates {@code true} to collapse clusters
+   * @return a page of hits (possibly empty, never {@code null})
+   */
+  public List<SearchHit> searchHits(
+      final String accountId,
+      final String rawQuery,
+      final int offset,
+      final int limit,
+      final boolean collapseNearDuplicates) {
+
+    final List<Scored> page = rankedPage(accountId, rawQuery, offset, limit,
+        collapseNearDuplicates, true);
+    final List<SearchHit> out = new ArrayList<>(page.size());
+    for (Scored s : page) {
+      out.add(toHit(s));
+    }
+    return out;
+  }
+
+  /**
+   * Fetch, score, rank and page tweets.
+   *
+   * @param accountId account id
+   * @param rawQuery raw query string
+   * @param offset skip this many results
+   * @param limit max results (capped)
+   * @param collapseNearDuplicates {@code true} to collapse clusters
+   * @param withPositions {@code true} to record match offsets
+   * @return the requested page of scored tweets
+   */
+  private List<Scored> rankedPage(
+      final String accountId,
+      final String rawQuery,
+      final int offset,
+      final int limit,
+      final boolean collapseNearDuplicates,
+      final boolean withPositions) {
 
     final int lim =
         Math.max(1, Math.min(limit <= 0 ? DEFAULT_LIMIT : limit, MAX_LIMIT));
     final int off = Math.max(0, offset);
 
     final SearchQuery parsed = SearchQuery.parse(rawQuery);
-    final List<Tweet> pool = fetchPool(accountId, TIMELINE_POOL);
+    final ColumnarTweetStore.View view = hotView(accountId);
+    final List<Scored> matches = view != null
+        ? scoreColumns(view, parsed, withPositions)
+        : scorePool(fetchPool(accountId, TIMELINE_POOL), parsed,
+            withPositions);
+
+    matches.sort(RANK);
+
+    if (collapseNearDuplicates) {
+      return collapsedPage(matches, off, lim);
+    }
+
+    final int from = Math.min(off, matches.size());
+    final int to = Math.min(from + lim, matches.size());
+    return matches.subList(from, to);
+  }
+
+  /**
+   * Score a fetched pool.
+   *
+   * @param pool candidate tweets
+   * @param parsed parsed query
+   * @param withPositions {@code true} to record match offsets
+   * @return unsorted matches
+   */
+  private static List<Scored> scorePool(
+      final List<Tweet> pool,
+      final SearchQuery parsed,
+      final boolean withPositions) {
 
     final List<Scored> matches = new ArrayList<>();
     Instant newest = Instant.EPOCH;
@@ -109,26 +291,261 @@ public final class SearchService {
     }
 
     for (Tweet t : pool) {
-      final int score = scoreTweet(t, parsed);
+      final SearchQuery.Match m;
+      final int score;
+      if (withPositions) {
+        m = parsed.match(t.text() == null ? "" : t.text().toLowerCase());
+        score = m == null ? 0 : m.score();
+      } else {
+        m = null;
+        score = scoreTweet(t, parsed);
+      }
       if (score > 0) {
         final long recency =
             newest.toEpochMilli()
                 - (t.createdAt() == null ? 0L : t.createdAt().toEpochMilli());
-        matches.add(new Scored(t, score, recency));
+        matches.add(new Scored(t, score, recency, m));
       }
     }
+    return matches;
+  }
 
-    matches.sort(
-        Comparator.comparingInt(Scored::score)
-            .reversed()
-            .thenComparingLong(Scored::recency));
+  /**
+   * Score the newest {@value #TIMELINE_POOL} rows of a columnar view,
+   * materializing only the matches.
+   *
+   * @param view account columns
+   * @param parsed parsed query
+   * @param withPositions {@code true} to record match offsets
+   * @return unsorted matches
+   */
+  private static List<Scored> scoreColumns(
+      final ColumnarTweetStore.View view,
+      final SearchQuery parsed,
+      final boolean withPositions) {
 
-    final int from = Math.min(off, matches.size());
-    final int to = Math.min(from + lim, matches.size());
+    final List<Scored> matches = new ArrayList<>();
+    final int n = Math.min(view.size(), TIMELINE_POOL);
+    final long newest = view.createdAtMillis(view.newest(0));
+    for (int k = 0; k < n; k++) {
+      final int ord = view.newest(k);
+      final String txt = view.lowerText(ord);
+      final SearchQuery.Match m = withPositions ? parsed.match(txt) : null;
+      final int score = withPositions
+          ? (m == null ? 0 : m.score())
+          : parsed.score(txt);
+      if (score > 0) {
+        matches.add(new Scored(view.tweet(ord), score,
+            newest - view.createdAtMillis(ord), m));
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Evaluate one query for many accounts and return each account's top
+   * hits. The query is parsed once; in DB mode all accounts' candidate
+   * rows come back from a single windowed query over the
+   * {@code (account_id, created_at)} index, and every row is scored once
+   * into a bounded per-account heap.
+   *
+   * @param accountIds account ids (blank and repeated ids are ignored; at
+   *     most {@value #MAX_BATCH_ACCOUNTS} are served)
+   * @param rawQuery raw query string
+   * @param limit max results per account (capped)
+   * @return account id to ranked hits, in request order (never
+   *     {@code null})
+   */
+  public Map<String, List<Tweet>> searchBatch(
+      final List<String> accountIds,
+      final String rawQuery,
+      final int limit) {
+
+    final int lim =
+        Math.max(1, Math.min(limit <= 0 ? DEFAULT_LIMIT : limit, MAX_LIMIT));
+    final Set<String> ids = new LinkedHashSet<>();
+    if (accountIds != null) {
+      for (String id : accountIds) {
+        if (id != null && !id.isBlank() && ids.size() < MAX_BATCH_ACCOUNTS) {
+          ids.add(id.trim());
+        }
+      }
+    }
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
 
-    final List<Tweet> out = new ArrayList<>(Math.max(0, to - from));
-    for (int i = from; i < to; i++) {
-      out.add(matches.get(i).tweet());
+    final SearchQuery parsed = SearchQuery.parse(rawQuery);
+    final Map<String, PriorityQueue<Scored>> top = new LinkedHashMap<>();
+    for (String id : ids) {
+      top.put(id, new PriorityQueue<>(lim + 1, RANK.reversed()));
+    }
+
+    if ("db".equalsIgnoreCase(source) && jdbc != null) {
+      selectBatchFromDb(ids, TIMELINE_POOL, (acc, t) ->
+          offerTop(top.get(acc), t, parsed, lim));
+    } else {
+      for (String id : ids) {
+        final ColumnarTweetStore.View view = hotView(id);
+        if (view != null) {
+          offerColumns(top.get(id), view, parsed, lim);
+          continue;
+        }
+        for (Tweet t : fetchPool(id, TIMELINE_POOL)) {
+          offerTop(top.get(id), t, parsed, lim);
+        }
+      }
+    }
+
+    final Map<String, List<Tweet>> out = new LinkedHashMap<>();
+    for (Map.Entry<String, PriorityQueue<Scored>> e : top.entrySet()) {
+      final List<Scored> ranked = new ArrayList<>(e.getValue());
+      ranked.sort(RANK);
+      final List<Tweet> tweets = new ArrayList<>(ranked.size());
+      for (Scored sc : ranked) {
+        tweets.add(sc.tweet());
+      }
+      out.put(e.getKey(), Collections.unmodifiableList(tweets));
+    }
+    return out;
+  }
+
+  /**
+   * Score a tweet and keep it if it ranks in the account's top {@code k}.
+   *
+   * @param heap worst-first heap for one account ({@code null} ignored)
+   * @param t candidate tweet
+   * @param q parsed query
+   * @param k heap capacity
+   */
+  private static void offerTop(
+      final PriorityQueue<Scored> heap,
+      final Tweet t,
+      final SearchQuery q,
+      final int k) {
+    if (heap == null) {
+      return;
+    }
+    final int score = scoreTweet(t, q);
+    if (score <= 0) {
+      return;
+    }
+    final long recency =
+        t.createdAt() == null ? 0L : -t.createdAt().toEpochMilli();
+    offerScored(heap, new Scored(t, score, recency, null), k);
+  }
+
+  /**
+   * Score the newest {@value #TIMELINE_POOL} rows of a columnar view into
+   * an account's top {@code k}.
+   *
+   * @param heap worst-first heap for one account
+   * @param view account columns
+   * @param q parsed query
+   * @param k heap capacity
+   */
+  private static void offerColumns(
+      final PriorityQueue<Scored> heap,
+      final ColumnarTweetStore.View view,
+      final SearchQuery q,
+      final int k) {
+    final int n = Math.min(view.size(), TIMELINE_POOL);
+    for (int i = 0; i < n; i++) {
+      final int ord = view.newest(i);
+      final int score = q.score(view.lowerText(ord));
+      if (score > 0) {
+        offerScored(heap, new Scored(view.tweet(ord), score,
+            -view.createdAtMillis(ord), null), k);
+      }
+    }
+  }
+
+  /**
+   * Keep a scored tweet if it ranks in the heap's top {@code k}.
+   *
+   * @param heap worst-first heap
+   * @param sc scored tweet
+   * @param k heap capacity
+   */
+  private static void offerScored(
+      final PriorityQueue<Scored> heap,
+      final Scored sc,
+      final int k) {
+    if (heap.size() < k) {
+      heap.add(sc);
+    } else if (RANK.compare(sc, heap.peek()) < 0) {
+      heap.poll();
+      heap.add(sc);
+    }
+  }
+
+  /**
+   * Build a {@link SearchHit} from recorded match offsets. Offsets refer to
+   * the lowercased text and are clamped in case lowercasing changed its
+   * length.
+   *
+   * @param s scored tweet carrying its {@link SearchQuery.Match}
+   * @return hit with highlights and snippet
+   */
+  private static SearchHit toHit(final Scored s) {
+    final Tweet t = s.tweet();
+    final String text = t.text() == null ? "" : t.text();
+    final int len = text.length();
+    final int[] spans = s.match() == null ? new int[0] : s.match().spans();
+
+    final List<SearchHit.Span> hl = new ArrayList<>(spans.length / 2);
+    for (int i = 0; i + 1 < spans.length; i += 2) {
+      final int start = Math.min(spans[i], len);
+      final int end = Math.min(spans[i + 1], len);
+      if (end > start) {
+        hl.add(new SearchHit.Span(start, end));
+      }
+    }
+
+    final int first = hl.isEmpty() ? 0 : hl.get(0).start();
+    final int firstEnd = hl.isEmpty() ? 0 : hl.get(0).end();
+    final int from = Math.max(0, first - SNIPPET_LEAD);
+    final int to = Math.min(len, Math.max(from + SNIPPET_CHARS, firstEnd));
+    return new SearchHit(t, hl, text.substring(from, to), from);
+  }
+
+  /**
+   * Page through ranked hits keeping one tweet per near-duplicate cluster.
+   * Scanning stops as soon as the page is full.
+   *
+   * @param ranked hits in rank order
+   * @param off representatives to skip
+   * @param lim page size
+   * @return page of representatives
+   */
+  private List<Scored> collapsedPage(
+      final List<Scored> ranked,
+      final int off,
+      final int lim) {
+
+    final NearDuplicateIndex index = nearDuplicates;
+    final NearDuplicateCollapser collapser = new NearDuplicateCollapser(
+        index == null
+            ? NearDuplicateIndex.DEFAULT_MAX_DISTANCE
+            : index.maxDistance());
+    final List<Scored> out = new ArrayList<>(lim);
+    int skipped = 0;
+    for (Scored s : ranked) {
+      final Tweet t = s.tweet();
+      final long fp = index == null
+          ? SimHash.fingerprint(t.text())
+          : index.representative(t);
+      if (!collapser.admit(fp)) {
+        continue;
+      }
+      if (skipped < off) {
+        skipped++;
+        continue;
+      }
+      out.add(s);
+      if (out.size() >= lim) {
+        break;
+      }
     }
     return out;
   }
@@ -136,6 +553,10 @@ public final class SearchService {
   /**
    * Hashtag search: exact case-insensitive match on a {@code #tag} token.
    *
+   * <p>With {@code app.search.source=db} this is an index lookup on
+   * {@code tweet_hashtags (account_id, tag, created_at DESC)} over the
+   * account's whole history; otherwise the recent timeline is scanned.
+   *
    * @param accountId account id
    * @param hashtag hashtag including leading {@code '#'}
    * @param limit max results
@@ -155,18 +576,32 @@ public final class SearchService {
     final int lim =
         Math.max(1, Math.min(limit <= 0 ? DEFAULT_LIMIT : limit, MAX_LIMIT));
 
+    if ("db".equalsIgnoreCase(source) && jdbc != null) {
+      return selectHashtagFromDb(accountId, needle, lim);
+    }
+
+    final ColumnarTweetStore.View view = hotView(accountId);
+    if (view != null) {
+      final byte[] token = needle.getBytes(StandardCharsets.UTF_8);
+      final List<Tweet> out = new ArrayList<>();
+      final int n = Math.min(view.size(), TIMELINE_POOL);
+      for (int k = 0; k < n && out.size() < lim; k++) {
+        final int ord = view.newest(k);
+        if (view.hasToken(ord, token)) {
+          out.add(view.tweet(ord));
+        }
+      }
+      return out;
+    }
+
     // Simple approach: reuse the same pool and filter.
     final List<Tweet> pool = fetchPool(accountId, TIMELINE_POOL);
     final List<Tweet> out = new ArrayList<>();
 
     for (Tweet t : pool) {
       final String txt = t.text() == null ? "" : t.text().toLowerCase();
-      final String[] toks = txt.split("\\s+");
-      for (String tok : toks) {
-        if (needle.equals(tok)) {
-          out.add(t);
-          break;
-        }
+      if (hasToken(txt, needle)) {
+        out.add(t);
       }
       if (out.size() >= lim) {
         break;
@@ -175,6 +610,37 @@ public final class SearchService {
     return out;
   }
 
+  /**
+   * Whether a whitespace-separated token equals the needle.
+   *
+   * @param txt lowercased text
+   * @param needle lowercased token
+   * @return {@code true} on an exact token match
+   */
+  private static boolean hasToken(final String txt, final String needle) {
+    for (String tok : txt.split("\\s+")) {
+      if (needle.equals(tok)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Columnar view to scan instead of fetching a pool.
+   *
+   * @param accountId account id
+   * @return non-empty view in memory mode, otherwise {@code null}
+   */
+  private ColumnarTweetStore.View hotView(final String accountId) {
+    final ColumnarTweetStore store = columnar;
+    if (store == null || "db".equalsIgnoreCase(source) && jdbc != null) {
+      return null;
+    }
+    final ColumnarTweetStore.View view = store.view(accountId);
+    return view == null || view.size() == 0 ? null : view;
+  }
+
   /**
    * Decide source and fetch a pool of tweets.
    *
@@ -227,52 +693,79 @@ public final class SearchService {
   }
 
   /**
-   * Compute a match score for a tweet against the parsed query.
+   * Newest tweets of an account carrying a hashtag, via the extracted
+   * {@code tweet_hashtags} rows.
    *
-   * @param t tweet to check
-   * @param q parsed search query
-   * @return positive score if the tweet matches, otherwise {@code 0}
+   * @param accountId account id
+   * @param tag lower-cased hashtag including {@code '#'}
+   * @param max how many rows to return
+   * @return tweets ordered by {@code created_at DESC}
    */
-  private static int scoreTweet(final Tweet t, final SearchQuery q) {
-    final String txt = (t.text() == null) ? "" : t.text().toLowerCase();
-    int best = 0;
-    for (SearchQuery.Clause c : q.clauses()) {
-      final int s = scoreClause(txt, c);
-      if (s > best) {
-        best = s;
-      }
-    }
-    return best;
+  private List<Tweet> selectHashtagFromDb(
+      final String accountId,
+      final String tag,
+      final int max) {
+
+    final String sql =
+        "SELECT t.id, t.user_handle, t.text, t.created_at "
+            + "FROM tweet_hashtags h JOIN tweets t ON t.id = h.tweet_id "
+            + "WHERE h.account_id = ? AND h.tag = ? "
+            + "ORDER BY h.created_at DESC "
+            + "LIMIT ?";
+    return jdbc.query(sql, (ResultSet rs, int rowNum) -> new Tweet(
+        rs.getString("id"),
+        rs.getString("user_handle"),
+        rs.getString("text"),
+        rs.getTimestamp("created_at").toInstant()), accountId, tag, max);
   }
 
   /**
-   * Score a single AND-clause; phrases count double.
+   * Stream the newest {@code perAccount} rows of each account in one
+   * query: a {@code UNION ALL} of one {@code LIMIT} per account, so each
+   * reads only its newest rows from the {@code (account_id, created_at)}
+   * index instead of ranking the account's whole history.
    *
-   * @param txt normalized (lowercased) tweet text
-   * @param c AND-clause containing terms and phrases
-   * @return clause score; {@code 0} if any required term/phrase is missing
+   * @param accountIds accounts to read
+   * @param perAccount newest rows to read per account
+   * @param sink receives {@code (accountId, tweet)} for every row
    */
-  private static int scoreClause(
-      final String txt,
-      final SearchQuery.Clause c) {
-
-    int termHits = 0;
-    for (String term : c.terms()) {
-      if (!txt.contains(term)) {
-        return 0;
-      }
-      termHits++;
-    }
+  private void selectBatchFromDb(
+      final Set<String> accountIds,
+      final int perAccount,
+      final BiConsumer<String, Tweet> sink) {
+
+    final String one =
+        "(SELECT account_id, id, user_handle, text, created_at "
+            + "FROM tweets WHERE account_id = ? "
+            + "ORDER BY created_at DESC LIMIT ?)";
+    final String sql =
+        String.join(" UNION ALL ", Collections.nCopies(accountIds.size(), one));
 
-    int phraseHits = 0;
-    for (String ph : c.phrases()) {
-      if (!txt.contains(ph)) {
-        return 0;
-      }
-      phraseHits++;
+    final List<Object> args = new ArrayList<>(2 * accountIds.size());
+    for (String id : accountIds) {
+      args.add(id);
+      args.add(perAccount);
     }
+    jdbc.query(sql, (ResultSet rs) -> {
+      final Instant created = rs.getTimestamp("created_at").toInstant();
+      sink.accept(rs.getString("account_id"), new Tweet(
+          rs.getString("id"),
+          rs.getString("user_handle"),
+          rs.getString("text"),
+          created));
+    }, args.toArray());
+  }
 
-    return termHits + (phraseHits * 2);
+  /**
+   * Compute a match score for a tweet against the parsed query.
+   *
+   * @param t tweet to check
+   * @param q parsed search query
+   * @return positive score if the tweet matches, otherwise {@code 0}
+   */
+  private static int scoreTweet(final Tweet t, final SearchQuery q) {
+    final String txt = (t.text() == null) ? "" : t.text().toLowerCase();
+    return q.score(txt);
   }
 
   /** Small container for sorting matched tweets. */
@@ -287,10 +780,15 @@ public final class SearchService {
     /** Recency key (lower is newer). */
     private final long recency;
 
-    Scored(final Tweet t, final int s, final long r) {
+    /** Recorded match offsets ({@code null} unless highlighting). */
+    private final SearchQuery.Match match;
+
+    Scored(final Tweet t, final int s, final long r,
+        final SearchQuery.Match m) {
       this.tweet = t;
       this.score = s;
       this.recency = r;
+      this.match = m;
     }
 
     Tweet tweet() {
@@ -304,5 +802,9 @@ public final class SearchService {
     long recency() {
       return recency;
     }
+
+    SearchQuery.Match match() {
+      return match;
+    }
   }
 }
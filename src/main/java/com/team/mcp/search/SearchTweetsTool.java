@@ -1,5 +1,6 @@
 package com.team.mcp.mcp;
 
+import com.team.mcp.search.SearchHit;
 import com.team.mcp.search.SearchService;
 import com.team.mcp.twitter.dto.Tweet;
 import java.util.ArrayList;
@@ -12,10 +13,18 @@ import org.springframework.stereotype.Component;
  *
  * <p>Args:
  * <ul>
- *   <li><b>accountId</b> (required)</li>
+ *   <li><b>accountId</b> (required unless {@code accountIds} is given)</li>
+ *   <li><b>accountIds</b> (optional) — list (or comma-separated string) of
+ *       accounts to search in one batch; results are grouped per
+ *       account and {@code offset}/{@code collapse}/{@code highlight} are
+ *       ignored</li>
  *   <li><b>q</b> (required) — supports AND / OR / quoted phrases</li>
  *   <li><b>offset</b> (optional)</li>
  *   <li><b>limit</b> (optional)</li>
+ *   <li><b>collapse</b> (optional) — {@code near_duplicates} keeps one
+ *       tweet per near-duplicate cluster</li>
+ *   <li><b>highlight</b> (optional) — {@code true} returns a snippet per
+ *       hit with matches wrapped in {@code **}</li>
  * </ul>
  */
 @Component
@@ -47,6 +56,11 @@ public final class SearchTweetsTool implements Tool {
   public List<Map<String, Object>> call(final Map<String, Object> args) {
     final Object acc = args.get("accountId");
     final Object q = args.get("q");
+    final List<String> batch = accountList(args.get("accountIds"));
+    if (!batch.isEmpty() && q instanceof String && !((String) q).isBlank()) {
+      return grouped(search.searchBatch(
+          batch, (String) q, getInt(args.get("limit"), 20)));
+    }
     if (!(acc instanceof String) || ((String) acc).isBlank()
         || !(q instanceof String) || ((String) q).isBlank()) {
       return List.of(Map.of(
@@ -56,9 +70,16 @@ public final class SearchTweetsTool implements Tool {
 
     final int offset = getInt(args.get("offset"), 0);
     final int limit = getInt(args.get("limit"), 20);
+    final boolean collapse =
+        "near_duplicates".equals(args.get("collapse"));
+    if (Boolean.TRUE.equals(args.get("highlight"))
+        || "true".equals(args.get("highlight"))) {
+      return highlighted(search.searchHits(
+          (String) acc, (String) q, offset, limit, collapse));
+    }
 
     final List<Tweet> results =
-        search.search((String) acc, (String) q, offset, limit);
+        search.search((String) acc, (String) q, offset, limit, collapse);
 
     final List<Map<String, Object>> content = new ArrayList<>();
     if (results.isEmpty()) {
@@ -77,6 +98,88 @@ public final class SearchTweetsTool implements Tool {
     return content;
   }
 
+  /**
+   * Render batch results as one text block per account.
+   *
+   * @param byAccount account id to ranked tweets
+   * @return MCP content list
+   */
+  private static List<Map<String, Object>> grouped(
+      final Map<String, List<Tweet>> byAccount) {
+    final StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, List<Tweet>> e : byAccount.entrySet()) {
+      sb.append("[").append(e.getKey()).append("]\n");
+      if (e.getValue().isEmpty()) {
+        sb.append("no matches\n");
+      }
+      for (Tweet t : e.getValue()) {
+        sb.append(t.id()).append(" | ")
+            .append(t.user()).append(" | ")
+            .append(t.text()).append("\n");
+      }
+    }
+    if (sb.length() == 0) {
+      return List.of(Map.of("type", "text", "text", "no matches"));
+    }
+    return List.of(Map.of("type", "text", "text", sb.toString().trim()));
+  }
+
+  /**
+   * Parse the {@code accountIds} argument.
+   *
+   * @param o list of ids or comma-separated string (may be {@code null})
+   * @return non-blank ids (possibly empty)
+   */
+  private static List<String> accountList(final Object o) {
+    final List<String> out = new ArrayList<>();
+    if (o instanceof List<?>) {
+      for (Object v : (List<?>) o) {
+        if (v instanceof String && !((String) v).isBlank()) {
+          out.add(((String) v).trim());
+        }
+      }
+    } else if (o instanceof String) {
+      for (String v : ((String) o).split(",")) {
+        if (!v.isBlank()) {
+          out.add(v.trim());
+        }
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Render hits as compact text rows whose snippets mark matches with
+   * {@code **}.
+   *
+   * @param hits search hits with highlight spans
+   * @return MCP content list
+   */
+  private static List<Map<String, Object>> highlighted(
+      final List<SearchHit> hits) {
+    if (hits.isEmpty()) {
+      return List.of(Map.of("type", "text", "text", "no matches"));
+    }
+    final StringBuilder sb = new StringBuilder();
+    for (SearchHit h : hits) {
+      sb.append(h.tweet().id()).append(" | ")
+          .append(h.tweet().user()).append(" | ");
+      final String snip = h.snippet();
+      int at = 0;
+      for (SearchHit.Span sp : h.highlights()) {
+        final int s = sp.start() - h.snippetStart();
+        final int e = Math.min(sp.end() - h.snippetStart(), snip.length());
+        if (s < at || s >= snip.length()) {
+          continue;
+        }
+        sb.append(snip, at, s).append("**").append(snip, s, e).append("**");
+        at = e;
+      }
+      sb.append(snip, at, snip.length()).append("\n");
+    }
+    return List.of(Map.of("type", "text", "text", sb.toString().trim()));
+  }
+
   /**
    * Parse an integer argument that may be Number or String.
    *
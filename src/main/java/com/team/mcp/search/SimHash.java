@@ -0,0 +1,205 @@
+package com.team.mcp.search;
+
+/**
+ * 64-bit SimHash fingerprints for near-duplicate detection.
+ *
+ * <p>The normalized text is cut into overlapping character 3-grams and
+ * each shingle is hashed to 64 bits; bit {@code i} of the fingerprint is
+ * set when more shingles have bit {@code i} set than clear. Shingles keep
+ * short texts stable: a templated tweet that differs in one number moves
+ * only a handful of bits, where word features would move many. Retweet
+ * markers ({@code RT}), {@code @mentions} and URLs are dropped first so
+ * that a retweet fingerprints like its original.
+ *
+ * <p>Fingerprints are also split into bands for LSH lookups: if two
+ * fingerprints differ in at most {@code k} bits, at least one of
+ * {@code k + 1} bands is identical (pigeonhole), so bucketing by band
+ * finds every candidate without pairwise comparisons.
+ */
+public final class SimHash {
+
+  /** Bits in a fingerprint. */
+  static final int BITS = 64;
+
+  /** Shingle length in characters. */
+  private static final int SHINGLE = 3;
+
+  /** Smallest supported Hamming threshold. */
+  static final int MIN_DISTANCE = 1;
+
+  /** Largest supported Hamming threshold (keeps bands at 8+ bits). */
+  static final int MAX_DISTANCE = 7;
+
+  /** Shift that places the band index above any band value. */
+  private static final int BAND_INDEX_SHIFT = 56;
+
+  /** FNV-1a 64-bit offset basis. */
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+  /** FNV-1a 64-bit prime. */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /** First murmur3 fmix64 multiplier. */
+  private static final long MIX_1 = 0xff51afd7ed558ccdL;
+
+  /** Second murmur3 fmix64 multiplier. */
+  private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+
+  /** fmix64 shift. */
+  private static final int MIX_SHIFT = 33;
+
+  private SimHash() {
+  }
+
+  /**
+   * Compute the fingerprint of a tweet text.
+   *
+   * @param text raw text (may be {@code null})
+   * @return 64-bit fingerprint; {@code 0} when the text has no features
+   */
+  public static long fingerprint(final String text) {
+    if (text == null || text.isBlank()) {
+      return 0L;
+    }
+    final String norm = normalize(text);
+    if (norm.isEmpty()) {
+      return 0L;
+    }
+    final int[] votes = new int[BITS];
+    final int last = Math.max(0, norm.length() - SHINGLE);
+    for (int i = 0; i <= last; i++) {
+      final long h = hash64(norm, i, Math.min(norm.length(), i + SHINGLE));
+      for (int b = 0; b < BITS; b++) {
+        votes[b] += ((h >>> b) & 1L) == 1L ? 1 : -1;
+      }
+    }
+    long fp = 0L;
+    for (int b = 0; b < BITS; b++) {
+      if (votes[b] > 0) {
+        fp |= 1L << b;
+      }
+    }
+    return fp;
+  }
+
+  /**
+   * Hamming distance between two fingerprints.
+   *
+   * @param a first fingerprint
+   * @param b second fingerprint
+   * @return number of differing bits (0..64)
+   */
+  public static int distance(final long a, final long b) {
+    return Long.bitCount(a ^ b);
+  }
+
+  /**
+   * LSH bucket keys for a fingerprint: one key per band, where the number
+   * of bands is {@code maxDistance + 1}.
+   *
+   * @param fp fingerprint
+   * @param maxDistance Hamming threshold, clamped to
+   *     {@value #MIN_DISTANCE}..{@value #MAX_DISTANCE}
+   * @return band keys (band index in the high bits, band value below)
+   */
+  static long[] bandKeys(final long fp, final int maxDistance) {
+    final int bands = clampDistance(maxDistance) + 1;
+    final int width = BITS / bands;
+    final long[] keys = new long[bands];
+    for (int b = 0; b < bands; b++) {
+      final int from = b * width;
+      final int bits = b == bands - 1 ? BITS - from : width;
+      final long mask = (1L << bits) - 1L;
+      keys[b] = ((long) b << BAND_INDEX_SHIFT) | ((fp >>> from) & mask);
+    }
+    return keys;
+  }
+
+  /**
+   * Clamp a configured threshold to the supported range.
+   *
+   * @param d requested Hamming threshold
+   * @return threshold within {@value #MIN_DISTANCE}..{@value #MAX_DISTANCE}
+   */
+  static int clampDistance(final int d) {
+    return Math.max(MIN_DISTANCE, Math.min(d, MAX_DISTANCE));
+  }
+
+  /**
+   * Lowercase the text, drop ignored tokens and join the rest with single
+   * spaces.
+   *
+   * @param text raw text
+   * @return normalized text (possibly empty)
+   */
+  private static String normalize(final String text) {
+    final StringBuilder sb = new StringBuilder(text.length());
+    for (String raw : text.toLowerCase().split("\\s+")) {
+      final String tok = feature(raw);
+      if (tok.isEmpty()) {
+        continue;
+      }
+      if (sb.length() > 0) {
+        sb.append(' ');
+      }
+      sb.append(tok);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Normalize a lowercased token, dropping retweet markers, mentions and
+   * links.
+   *
+   * @param raw lowercased whitespace token
+   * @return token or empty string if it should be ignored
+   */
+  private static String feature(final String raw) {
+    if (raw.isEmpty() || "rt".equals(raw) || raw.startsWith("@")
+        || raw.startsWith("http://") || raw.startsWith("https://")) {
+      return "";
+    }
+    int from = 0;
+    int to = raw.length();
+    while (from < to && !isWordChar(raw.charAt(from))) {
+      from++;
+    }
+    while (to > from && !isWordChar(raw.charAt(to - 1))) {
+      to--;
+    }
+    return raw.substring(from, to);
+  }
+
+  /**
+   * Whether a character is kept at a token boundary.
+   *
+   * @param ch character
+   * @return {@code true} for letters, digits and {@code '#'}
+   */
+  private static boolean isWordChar(final char ch) {
+    return Character.isLetterOrDigit(ch) || ch == '#';
+  }
+
+  /**
+   * FNV-1a over UTF-16 code units followed by the murmur3 finalizer so
+   * that every input bit affects every output bit.
+   *
+   * @param s source text
+   * @param from first index (inclusive)
+   * @param to last index (exclusive)
+   * @return 64-bit hash of {@code s[from, to)}
+   */
+  private static long hash64(final String s, final int from, final int to) {
+    long h = FNV_OFFSET;
+    for (int i = from; i < to; i++) {
+      h ^= s.charAt(i);
+      h *= FNV_PRIME;
+    }
+    h ^= h >>> MIX_SHIFT;
+    h *= MIX_1;
+    h ^= h >>> MIX_SHIFT;
+    h *= MIX_2;
+    h ^= h >>> MIX_SHIFT;
+    return h;
+  }
+}
@@ -0,0 +1,14 @@
+package com.team.mcp.search;
+
+/**
+ * A saved search that is evaluated against every newly ingested tweet.
+ *
+ * @param id        registry-assigned id (used to unregister)
+ * @param accountId logical account whose tweets are watched
+ * @param query     raw query string (same syntax as {@code /search})
+ */
+public record StandingQuery(
+    String id,
+    String accountId,
+    String query
+) { }
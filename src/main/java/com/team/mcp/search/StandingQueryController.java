@@ -0,0 +1,241 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent-events endpoint for standing queries: one long-lived request
+ * replaces repeated {@code /search} polling.
+ *
+ * <p>Example:
+ * <pre>
+ *   curl -N "/search/watch?accountId=acctA&amp;q=launch OR #release"
+ * </pre>
+ * Each matching tweet arrives as an event named {@code match} whose data
+ * is the {@link com.team.mcp.twitter.dto.Tweet} JSON.
+ *
+ * <p>Matches are found on the ingest thread, but only queued there: each
+ * stream has a queue of {@code app.search.watch.queue} tweets, sent by a
+ * pool of {@code app.search.watch.senders} threads, so a slow client
+ * never holds up ingestion. A stream whose queue is full is unregistered
+ * and closed; the client can reconnect.
+ */
+@RestController
+public final class StandingQueryController {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(StandingQueryController.class);
+
+  /** Percolator that evaluates queries at ingest time. */
+  private final StandingQueryRegistry registry;
+
+  /** Stream timeout in milliseconds. */
+  private final long timeoutMs;
+
+  /** Matches queued per stream before it is closed. */
+  private final int queueSize;
+
+  /** Sends queued matches. */
+  private final Executor senders;
+
+  /**
+   * Constructs the controller.
+   *
+   * @param standingQueries percolator registry
+   * @param watchTimeoutMs SSE timeout, {@code app.search.watch.timeoutMs}
+   * @param watchQueue {@code app.search.watch.queue}
+   * @param watchSenders {@code app.search.watch.senders}
+   */
+  @Autowired
+  public StandingQueryController(
+      final StandingQueryRegistry standingQueries,
+      @Value("${app.search.watch.timeoutMs:1800000}")
+      final long watchTimeoutMs,
+      @Value("${app.search.watch.queue:256}") final int watchQueue,
+      @Value("${app.search.watch.senders:2}") final int watchSenders) {
+    this(standingQueries, watchTimeoutMs, watchQueue,
+        newPool(Math.max(1, watchSenders)));
+  }
+
+  /**
+   * Controller with a given sender executor, for tests.
+   *
+   * @param standingQueries percolator registry
+   * @param watchTimeoutMs SSE timeout
+   * @param watchQueue matches queued per stream
+   * @param sendExecutor runs the sends
+   */
+  StandingQueryController(
+      final StandingQueryRegistry standingQueries,
+      final long watchTimeoutMs,
+      final int watchQueue,
+      final Executor sendExecutor) {
+    this.registry = Objects.requireNonNull(standingQueries, "registry");
+    this.timeoutMs = watchTimeoutMs;
+    this.queueSize = Math.max(1, watchQueue);
+    this.senders = sendExecutor;
+  }
+
+  /**
+   * Register a standing query and stream its matches until the client
+   * disconnects, the stream times out or its queue overflows.
+   *
+   * @param accountId logical account id
+   * @param q query string (same syntax as {@code /search})
+   * @return HTTP 400 for a blank query or an empty OR-clause; otherwise
+   *     an SSE stream of matching tweets
+   */
+  @GetMapping(path = "/search/watch",
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> watch(
+      @RequestParam("accountId") final String accountId,
+      @RequestParam("q") final String q) {
+
+    if (q == null || q.isBlank()) {
+      return ResponseEntity.badRequest().build();
+    }
+    final SseEmitter emitter = new SseEmitter(timeoutMs);
+    final Stream stream = new Stream(emitter);
+    final StandingQuery sq;
+    try {
+      sq = registry.register(accountId, q, stream);
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    emitter.onCompletion(() -> registry.unregister(sq.id()));
+    emitter.onTimeout(() -> registry.unregister(sq.id()));
+    return ResponseEntity.ok(emitter);
+  }
+
+  /** Stop the sender pool. */
+  @PreDestroy
+  public void shutdown() {
+    if (senders instanceof ExecutorService pool) {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Fixed-size daemon pool; its queue never holds more than one task per
+   * stream because of the single-flight flag.
+   *
+   * @param threads sender threads
+   * @return executor
+   */
+  private static ThreadPoolExecutor newPool(final int threads) {
+    final AtomicInteger seq = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+          final Thread t = new Thread(r, "watch-" + seq.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /** One open stream: its queued matches and their sender. */
+  private final class Stream implements StandingQueryListener {
+
+    /** Client connection. */
+    private final SseEmitter emitter;
+
+    /** Matches not sent yet. */
+    private final BlockingQueue<Tweet> pending =
+        new ArrayBlockingQueue<>(queueSize);
+
+    /** Whether a send task is queued or running (single flight). */
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    /** Set once the stream is closed; later matches are ignored. */
+    private volatile boolean closed;
+
+    Stream(final SseEmitter sseEmitter) {
+      this.emitter = sseEmitter;
+    }
+
+    @Override
+    public void onMatch(final StandingQuery query, final Tweet tweet) {
+      if (closed) {
+        return;
+      }
+      if (!pending.offer(tweet)) {
+        LOG.warn("standing query {} fell {} matches behind; closing it",
+            query.id(), queueSize);
+        close(query, null);
+        return;
+      }
+      schedule(query);
+    }
+
+    private void schedule(final StandingQuery query) {
+      if (!sending.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        senders.execute(() -> send(query));
+      } catch (RejectedExecutionException ex) {
+        sending.set(false);
+        close(query, ex);
+      }
+    }
+
+    /**
+     * Send everything queued, then hand the flag back; a match queued
+     * after the last poll schedules the next run.
+     *
+     * @param query the stream's query
+     */
+    private void send(final StandingQuery query) {
+      try {
+        for (Tweet t = pending.poll(); t != null && !closed;
+            t = pending.poll()) {
+          emitter.send(SseEmitter.event()
+              .name("match")
+              .id(t.id())
+              .data(t));
+        }
+      } catch (IOException | IllegalStateException ex) {
+        close(query, ex);
+      } finally {
+        sending.set(false);
+      }
+      if (!closed && !pending.isEmpty()) {
+        schedule(query);
+      }
+    }
+
+    private void close(final StandingQuery query, final Exception cause) {
+      closed = true;
+      registry.unregister(query.id());
+      pending.clear();
+      if (cause == null) {
+        emitter.complete();
+      } else {
+        emitter.completeWithError(cause);
+      }
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+
+/**
+ * Receives tweets that match a {@link StandingQuery}.
+ */
+@FunctionalInterface
+public interface StandingQueryListener {
+
+  /**
+   * Called on the ingesting thread for every matching tweet.
+   *
+   * @param query the standing query that matched
+   * @param tweet the newly ingested tweet
+   */
+  void onMatch(StandingQuery query, Tweet tweet);
+}
@@ -0,0 +1,373 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Percolator for standing queries: instead of agents polling
+ * {@code search_tweets}, each newly ingested tweet is matched against the
+ * saved queries and hits are pushed to their listeners.
+ *
+ * <p>Queries are parsed once at registration. {@link SearchQuery} matches
+ * terms and phrases as substrings, so every OR-clause is indexed under a
+ * {@value #GRAM}-character gram of its required terms and phrases, the
+ * rarest one: any tweet the clause matches contains all of them, and a
+ * tweet only has to be checked against queries anchored on one of its
+ * own grams. A clause whose terms are all shorter than a gram is checked
+ * against every tweet of its account. Rarity is learned from the ingest
+ * stream: document frequencies are tracked for grams of registered
+ * queries only, and dropped with the last query using them, which keeps
+ * the counters bounded by the watched vocabulary.
+ *
+ * <p>Candidates are confirmed with {@link SearchQuery#score(String)}, the
+ * same matcher used by {@link SearchService}.
+ */
+@Component
+public final class StandingQueryRegistry implements IngestListener {
+
+  /** Characters per anchor gram. */
+  static final int GRAM = 3;
+
+  /** Logger for listener failures. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(StandingQueryRegistry.class);
+
+  /** Anchor of clauses too short for a gram, checked for every tweet. */
+  private static final String SCAN = "";
+
+  /** Account id → anchor gram → queries anchored on it. */
+  private final Map<String, Map<String, List<Registered>>> byAccount =
+      new ConcurrentHashMap<>();
+
+  /** Registered queries by id (for unregister). */
+  private final Map<String, Registered> byId = new ConcurrentHashMap<>();
+
+  /** Document frequency of watched grams, learned at ingest. */
+  private final Map<String, Watched> docFreq = new ConcurrentHashMap<>();
+
+  /** Sequence for query ids. */
+  private final AtomicLong idSeq = new AtomicLong();
+
+  /**
+   * Register a standing query.
+   *
+   * @param accountId account whose ingested tweets are watched
+   * @param rawQuery query string (AND/OR/phrases, same as search)
+   * @param listener receives matching tweets
+   * @return the registered query (its id is needed to unregister)
+   * @throws IllegalArgumentException if the account is blank or a clause
+   *     has no term or phrase
+   */
+  public synchronized StandingQuery register(
+      final String accountId,
+      final String rawQuery,
+      final StandingQueryListener listener) {
+
+    if (accountId == null || accountId.isBlank()) {
+      throw new IllegalArgumentException("accountId is required");
+    }
+    Objects.requireNonNull(listener, "listener");
+    final SearchQuery compiled = SearchQuery.parse(rawQuery);
+
+    final List<String> anchors = new ArrayList<>();
+    final Set<String> watched = new HashSet<>();
+    for (SearchQuery.Clause c : compiled.clauses()) {
+      if (c.terms().isEmpty() && c.phrases().isEmpty()) {
+        throw new IllegalArgumentException(
+            "every OR-clause needs at least one term or phrase");
+      }
+      final Set<String> grams = new HashSet<>();
+      for (String t : c.terms()) {
+        grams.addAll(grams(t));
+      }
+      for (String ph : c.phrases()) {
+        grams.addAll(grams(ph));
+      }
+      watched.addAll(grams);
+      anchors.add(grams.isEmpty() ? SCAN : rarest(grams));
+    }
+    for (String g : watched) {
+      docFreq.computeIfAbsent(g, k -> new Watched()).queries++;
+    }
+
+    final StandingQuery q = new StandingQuery(
+        "sq-" + idSeq.incrementAndGet(), accountId, rawQuery);
+    final Registered r =
+        new Registered(q, compiled, anchors, watched, listener);
+    byId.put(q.id(), r);
+
+    final Map<String, List<Registered>> index =
+        byAccount.computeIfAbsent(accountId, k -> new ConcurrentHashMap<>());
+    for (String a : new HashSet<>(anchors)) {
+      index.computeIfAbsent(a, k -> new CopyOnWriteArrayList<>()).add(r);
+    }
+    return q;
+  }
+
+  /**
+   * Remove a standing query, and the frequencies of grams no other query
+   * uses.
+   *
+   * @param id id returned by {@link #register}
+   * @return {@code true} if a query was removed
+   */
+  public synchronized boolean unregister(final String id) {
+    final Registered r = id == null ? null : byId.remove(id);
+    if (r == null) {
+      return false;
+    }
+    final String accountId = r.query.accountId();
+    final Map<String, List<Registered>> index = byAccount.get(accountId);
+    if (index != null) {
+      for (String a : r.anchors) {
+        final List<Registered> list = index.get(a);
+        if (list != null && list.remove(r) && list.isEmpty()) {
+          index.remove(a);
+        }
+      }
+      if (index.isEmpty()) {
+        byAccount.remove(accountId);
+      }
+    }
+    for (String g : r.watched) {
+      final Watched w = docFreq.get(g);
+      if (w != null && --w.queries == 0) {
+        docFreq.remove(g);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Number of currently registered standing queries.
+   *
+   * @return query count
+   */
+  public int size() {
+    return byId.size();
+  }
+
+  /**
+   * Number of grams whose document frequency is tracked.
+   *
+   * @return gram count
+   */
+  int watchedGrams() {
+    return docFreq.size();
+  }
+
+  @Override
+  public void onIngested(final String accountId, final List<Tweet> tweets) {
+    for (Tweet t : tweets) {
+      percolate(accountId, t);
+    }
+  }
+
+  /**
+   * Match one tweet against the account's standing queries and notify the
+   * listeners of every query that matches.
+   *
+   * @param accountId account the tweet was ingested for
+   * @param tweet newly ingested tweet
+   * @return number of queries that matched
+   */
+  public int percolate(final String accountId, final Tweet tweet) {
+    final String lower =
+        tweet.text() == null ? "" : tweet.text().toLowerCase();
+    final Set<String> grams = grams(lower);
+    for (String g : grams) {
+      final Watched w = docFreq.get(g);
+      if (w != null) {
+        w.tweets.incrementAndGet();
+      }
+    }
+
+    final Map<String, List<Registered>> index =
+        accountId == null ? null : byAccount.get(accountId);
+    if (index == null || index.isEmpty()) {
+      return 0;
+    }
+
+    final Set<Registered> seen =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    int hits = confirm(index.get(SCAN), seen, lower, tweet);
+    for (String g : grams) {
+      hits += confirm(index.get(g), seen, lower, tweet);
+    }
+    return hits;
+  }
+
+  /**
+   * Check candidates not seen yet for this tweet and notify matches.
+   *
+   * @param candidates queries under one anchor ({@code null} for none)
+   * @param seen queries already checked for this tweet
+   * @param lower lowercased tweet text
+   * @param tweet newly ingested tweet
+   * @return number of candidates that matched
+   */
+  private static int confirm(final List<Registered> candidates,
+      final Set<Registered> seen, final String lower, final Tweet tweet) {
+    if (candidates == null) {
+      return 0;
+    }
+    int hits = 0;
+    for (Registered r : candidates) {
+      if (seen.add(r) && r.compiled.score(lower) > 0) {
+        hits++;
+        notifyListener(r, tweet);
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Deliver a match, isolating the ingest path from listener failures.
+   *
+   * @param r matched registration
+   * @param tweet matching tweet
+   */
+  private static void notifyListener(final Registered r, final Tweet tweet) {
+    try {
+      r.listener.onMatch(r.query, tweet);
+    } catch (RuntimeException ex) {
+      LOG.warn("standing query {} listener failed: {}",
+          r.query.id(), ex.toString());
+    }
+  }
+
+  /**
+   * Pick the anchor for a clause: lowest observed document frequency,
+   * then lexicographic order for stability.
+   *
+   * @param grams grams of one clause's terms and phrases (non-empty)
+   * @return the anchor gram
+   */
+  private String rarest(final Set<String> grams) {
+    String best = null;
+    long bestDf = Long.MAX_VALUE;
+    for (String g : grams) {
+      final Watched w = docFreq.get(g);
+      final long df = w == null ? 0L : w.tweets.get();
+      if (best == null || df < bestDf
+          || df == bestDf && g.compareTo(best) < 0) {
+        best = g;
+        bestDf = df;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Distinct {@value #GRAM}-character substrings of a string.
+   *
+   * @param s lowercased text, term or phrase
+   * @return grams (empty if {@code s} is shorter than a gram)
+   */
+  static Set<String> grams(final String s) {
+    final Set<String> out = new HashSet<>();
+    for (int i = 0; i + GRAM <= s.length(); i++) {
+      out.add(s.substring(i, i + GRAM));
+    }
+    return out;
+  }
+
+  /**
+   * Distinct whitespace tokens of already-lowercased text, with
+   * surrounding punctuation removed.
+   *
+   * @param lower lowercased text
+   * @return distinct tokens
+   */
+  static Set<String> tokens(final String lower) {
+    final Set<String> out = new HashSet<>();
+    for (String raw : lower.split("\\s+")) {
+      final String t = trimPunctuation(raw);
+      if (!t.isEmpty()) {
+        out.add(t);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Strip leading/trailing characters that are neither letters, digits,
+   * {@code '#'} nor {@code '@'}.
+   *
+   * @param s token
+   * @return trimmed token (possibly empty)
+   */
+  private static String trimPunctuation(final String s) {
+    int from = 0;
+    int to = s.length();
+    while (from < to && !isWordChar(s.charAt(from))) {
+      from++;
+    }
+    while (to > from && !isWordChar(s.charAt(to - 1))) {
+      to--;
+    }
+    return s.substring(from, to);
+  }
+
+  /**
+   * Whether a character belongs to a token.
+   *
+   * @param ch character
+   * @return {@code true} for letters, digits, {@code '#'} and {@code '@'}
+   */
+  private static boolean isWordChar(final char ch) {
+    return Character.isLetterOrDigit(ch) || ch == '#' || ch == '@';
+  }
+
+  /** A registered query with its compiled form and anchors. */
+  private static final class Registered {
+
+    /** Public view of the query. */
+    private final StandingQuery query;
+
+    /** Parsed query used to confirm candidates. */
+    private final SearchQuery compiled;
+
+    /** One anchor per OR-clause ({@link #SCAN} if too short). */
+    private final List<String> anchors;
+
+    /** Grams of all clauses, each counted once in {@link #docFreq}. */
+    private final Set<String> watched;
+
+    /** Subscriber notified on matches. */
+    private final StandingQueryListener listener;
+
+    Registered(final StandingQuery q, final SearchQuery c,
+        final List<String> a, final Set<String> w,
+        final StandingQueryListener l) {
+      this.query = q;
+      this.compiled = c;
+      this.anchors = a;
+      this.watched = w;
+      this.listener = l;
+    }
+  }
+
+  /** Document frequency of one watched gram. */
+  private static final class Watched {
+
+    /** Ingested tweets containing the gram. */
+    private final AtomicLong tweets = new AtomicLong();
+
+    /** Registered queries using the gram (guarded by the registry). */
+    private int queries;
+  }
+}
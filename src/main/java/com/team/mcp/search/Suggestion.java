@@ -0,0 +1,10 @@
+package com.team.mcp.search;
+
+/**
+ * A hashtag or handle completion.
+ *
+ * @param term full term, lowercased, including its {@code #} or {@code @}
+ * @param count number of ingested tweets that used it
+ */
+public record Suggestion(String term, long count) {
+}
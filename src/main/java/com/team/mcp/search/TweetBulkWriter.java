@@ -0,0 +1,579 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk insert path for {@code tweets}: replaces one {@code existsById}
+ * plus one {@code save} per tweet with two statements per chunk.
+ *
+ * <p>Per chunk of {@code app.ingest.batchSize} tweets:
+ * <ol>
+ *   <li>one {@code SELECT id ... WHERE id IN (...)} finds rows that
+ *       already exist, so they are skipped without a write;</li>
+ *   <li>the rest go out as a single JDBC batch of conflict-tolerant
+ *       inserts, so a row written concurrently by another ingest is
+ *       counted as skipped instead of failing the batch.</li>
+ * </ol>
+ * Duplicate ids inside the input are dropped in memory first.
+ *
+ * <p>When a {@link KnownIdFilter} is present, only ids it reports as
+ * possibly stored are probed; ids it has definitely never seen go straight
+ * to the insert, so a chunk of fresh tweets costs no probe at all. The
+ * filter can miss ids stored by another process, which the
+ * conflict-tolerant insert still catches.
+ *
+ * <p>A driver that rewrites batches into multi-row inserts (PostgreSQL
+ * with {@code reWriteBatchedInserts=true}) reports
+ * {@link Statement#SUCCESS_NO_INFO} instead of row counts. That is only
+ * read as "inserted" for ids the probe checked; ids the filter let
+ * through unprobed are then written with an {@code INSERT ... SELECT},
+ * which the driver does not rewrite, so their counts are real. Until a
+ * driver that does not announce rewriting has been caught at it, the
+ * unprobed rows of that batch end with an unknown outcome: they are
+ * logged, not reported as inserted, and their terms are still written
+ * (term inserts tolerate conflicts).
+ *
+ * <p>PostgreSQL (and H2 in PostgreSQL mode, as configured in this repo,
+ * read from {@code INFORMATION_SCHEMA.SETTINGS} since H2 leaves its
+ * settings out of the reported URL) uses
+ * {@code INSERT ... ON CONFLICT DO NOTHING}; other databases fall back to
+ * {@code INSERT ... SELECT ... WHERE NOT EXISTS}.
+ *
+ * <p>For the rows actually inserted, hashtags, mentions and URLs
+ * ({@link TweetTerms}) are written to {@code tweet_hashtags},
+ * {@code tweet_mentions} and {@code tweet_urls} in one more batch per
+ * table, in the caller's transaction.
+ *
+ * <p>{@link #changeSeq(String)} reads an account's change-feed position
+ * in the caller's transaction, for {@link IngestListener}s. A schema
+ * without {@code change_seq} (JPA auto-DDL, no migrations) reports
+ * {@code 0}; it is checked in the metadata first, since a failing
+ * statement would abort the ingest transaction on PostgreSQL.
+ */
+@Component
+public final class TweetBulkWriter {
+
+  /** Default rows per chunk. */
+  static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetBulkWriter.class);
+
+  /** Columns written, in bind order. */
+  private static final String COLUMNS =
+      "id, account_id, user_handle, text, created_at, simhash";
+
+  /** Insert that ignores primary-key conflicts. */
+  private static final String ON_CONFLICT_SQL =
+      "INSERT INTO tweets (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?) "
+          + "ON CONFLICT DO NOTHING";
+
+  /**
+   * Conflict-tolerant insert without a {@code VALUES} list, so batch
+   * rewriting leaves it alone and it reports real row counts.
+   */
+  private static final String EXACT_SQL =
+      "INSERT INTO tweets (" + COLUMNS + ") SELECT ?, ?, ?, ?, ?, ? "
+          + "ON CONFLICT DO NOTHING";
+
+  /** Portable insert that skips ids already present. */
+  private static final String NOT_EXISTS_SQL =
+      "INSERT INTO tweets (" + COLUMNS + ") SELECT ?, ?, ?, ?, ?, ? "
+          + "WHERE NOT EXISTS (SELECT 1 FROM tweets WHERE id = ?)";
+
+  /** Change-feed position of one account. */
+  private static final String CHANGE_SEQ_SQL =
+      "SELECT COALESCE(MAX(change_seq), 0) FROM tweets WHERE account_id = ?";
+
+  /** Compatibility mode of an H2 database. */
+  private static final String H2_MODE_SQL =
+      "SELECT SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS "
+          + "WHERE SETTING_NAME = 'MODE'";
+
+  /** Unknown-outcome ids named in one warning. */
+  private static final int MAX_LOGGED_IDS = 10;
+
+  /** Extracted-term tables: table name and term column. */
+  private static final String[][] TERM_TABLES = {
+      {"tweet_hashtags", "tag"},
+      {"tweet_mentions", "handle"},
+      {"tweet_urls", "url"},
+  };
+
+  /** JDBC access to {@code tweets}. */
+  private final JdbcTemplate jdbc;
+
+  /** Rows per chunk. */
+  private final int batchSize;
+
+  /** Insert statement for this database, resolved on first write. */
+  private volatile String insertSql;
+
+  /** Whether {@link #insertSql} batches report per-row counts. */
+  private volatile boolean exactCounts = true;
+
+  /** Whether {@code tweets} has {@code change_seq}, resolved with SQL. */
+  private volatile boolean changeSeqs;
+
+  /** Optional filter of stored ids; {@code null} probes every id. */
+  private KnownIdFilter knownIds;
+
+  /**
+   * Creates the writer.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param configuredBatchSize rows per chunk
+   *     ({@code app.ingest.batchSize}, default 1000)
+   */
+  public TweetBulkWriter(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.ingest.batchSize:1000}") final int configuredBatchSize) {
+    this.jdbc = jdbcTemplate;
+    this.batchSize =
+        configuredBatchSize > 0 ? configuredBatchSize : DEFAULT_BATCH_SIZE;
+  }
+
+  /**
+   * Insert tweets for an account, skipping ids that are already stored.
+   *
+   * @param accountId owning account (written to {@code account_id})
+   * @param tweets tweets to store (may contain duplicates)
+   * @return tweets actually inserted, in input order
+   */
+  public List<Tweet> write(
+      final String accountId, final Collection<Tweet> tweets) {
+    final Map<String, Tweet> unique = new LinkedHashMap<>();
+    for (Tweet t : tweets) {
+      if (t != null && t.id() != null) {
+        unique.putIfAbsent(t.id(), t);
+      }
+    }
+    if (unique.isEmpty()) {
+      return List.of();
+    }
+
+    final List<Tweet> all = new ArrayList<>(unique.values());
+    final List<Tweet> inserted = new ArrayList<>(all.size());
+    for (int from = 0; from < all.size(); from += batchSize) {
+      final List<Tweet> chunk =
+          all.subList(from, Math.min(all.size(), from + batchSize));
+      writeChunk(accountId, chunk, inserted);
+    }
+    return inserted;
+  }
+
+  /**
+   * Wire the stored-id filter (absent in plain unit tests).
+   *
+   * @param filter known-id filter
+   */
+  @Autowired(required = false)
+  public void setKnownIds(final KnownIdFilter filter) {
+    this.knownIds = filter;
+  }
+
+  /**
+   * Extract terms for every stored tweet, e.g. rows written before
+   * {@code V7__tweet_entities.sql}. Walks {@code tweets} in id order one
+   * chunk at a time; terms already present are left alone, so the call
+   * can be repeated.
+   *
+   * @return tweets scanned
+   */
+  public long backfillTerms() {
+    final boolean notExists = NOT_EXISTS_SQL.equals(insertSql());
+    final String sql = "SELECT id, account_id, user_handle, text, created_at "
+        + "FROM tweets WHERE id > ? ORDER BY id LIMIT ?";
+    long scanned = 0;
+    String after = "";
+    while (true) {
+      final Map<String, List<Tweet>> byAccount = new LinkedHashMap<>();
+      final String[] last = {null};
+      jdbc.query(sql, (ResultSet rs) -> {
+        last[0] = rs.getString("id");
+        byAccount.computeIfAbsent(rs.getString("account_id"),
+            k -> new ArrayList<>()).add(new Tweet(last[0],
+                rs.getString("user_handle"), rs.getString("text"),
+                rs.getTimestamp("created_at").toInstant()));
+      }, after, batchSize);
+      if (last[0] == null) {
+        return scanned;
+      }
+      for (Map.Entry<String, List<Tweet>> e : byAccount.entrySet()) {
+        writeTerms(e.getKey(), e.getValue(), notExists);
+        scanned += e.getValue().size();
+      }
+      after = last[0];
+    }
+  }
+
+  /**
+   * Highest {@code change_seq} among an account's rows, as the caller's
+   * transaction sees them (its own inserts included).
+   *
+   * @param accountId owning account
+   * @return position, or {@code 0} if the schema has no change feed
+   */
+  public long changeSeq(final String accountId) {
+    insertSql();
+    if (!changeSeqs) {
+      return 0;
+    }
+    final Long seq =
+        jdbc.queryForObject(CHANGE_SEQ_SQL, Long.class, accountId);
+    return seq == null ? 0 : seq;
+  }
+
+  /**
+   * Rows per chunk in effect.
+   *
+   * @return batch size
+   */
+  public int batchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Probe and insert one chunk.
+   *
+   * @param accountId owning account
+   * @param chunk distinct tweets (at most {@link #batchSize} of them)
+   * @param inserted receives the rows that were written
+   */
+  private void writeChunk(
+      final String accountId,
+      final List<Tweet> chunk,
+      final List<Tweet> inserted) {
+
+    final KnownIdFilter filter = knownIds;
+    final List<Tweet> probe;
+    if (filter == null) {
+      probe = chunk;
+    } else {
+      probe = new ArrayList<>();
+      for (Tweet t : chunk) {
+        if (filter.mightContain(t.id())) {
+          probe.add(t);
+        }
+      }
+    }
+    final Set<String> existing =
+        probe.isEmpty() ? Set.of() : existingIds(probe);
+    if (filter != null) {
+      filter.addAll(existing);
+    }
+    final String sql = insertSql();
+    final Set<String> probed = filter == null ? null : ids(probe);
+    final List<Tweet> candidates = new ArrayList<>(chunk.size());
+    final List<Tweet> unprobed = new ArrayList<>();
+    for (Tweet t : chunk) {
+      if (existing.contains(t.id())) {
+        continue;
+      }
+      if (probed != null && !probed.contains(t.id()) && !exactCounts) {
+        unprobed.add(t);
+      } else {
+        candidates.add(t);
+      }
+    }
+    final int before = inserted.size();
+    final List<Tweet> unknown = new ArrayList<>();
+    writeCandidates(sql, accountId, candidates, probed, inserted, unknown);
+    if (!unprobed.isEmpty()) {
+      writeCandidates(EXACT_SQL, accountId, unprobed, probed, inserted,
+          unknown);
+      final Map<String, Integer> order = new HashMap<>(chunk.size() * 2);
+      for (int i = 0; i < chunk.size(); i++) {
+        order.put(chunk.get(i).id(), i);
+      }
+      inserted.subList(before, inserted.size())
+          .sort(Comparator.comparingInt(t -> order.get(t.id())));
+    }
+    final List<Tweet> stored =
+        new ArrayList<>(inserted.subList(before, inserted.size()));
+    stored.addAll(unknown);
+    writeTerms(accountId, stored, NOT_EXISTS_SQL.equals(sql));
+  }
+
+  /**
+   * Insert rows not found by the probe as one JDBC batch.
+   *
+   * @param sql insert statement
+   * @param accountId owning account
+   * @param candidates tweets to insert
+   * @param probed ids the probe checked, whose
+   *     {@link Statement#SUCCESS_NO_INFO} counts as inserted
+   *     ({@code null}: all of them)
+   * @param inserted receives the rows that were written
+   * @param unknown receives the rows that may or may not have been
+   */
+  private void writeCandidates(
+      final String sql,
+      final String accountId,
+      final List<Tweet> candidates,
+      final Set<String> probed,
+      final List<Tweet> inserted,
+      final List<Tweet> unknown) {
+    if (candidates.isEmpty()) {
+      return;
+    }
+    final boolean notExists = NOT_EXISTS_SQL.equals(sql);
+    final int[] counts = jdbc.batchUpdate(sql,
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(final PreparedStatement ps, final int i)
+              throws SQLException {
+            final Tweet t = candidates.get(i);
+            ps.setString(1, t.id());
+            ps.setString(2, accountId);
+            ps.setString(3, t.user());
+            ps.setString(4, t.text());
+            ps.setTimestamp(5, Timestamp.from(t.createdAt()));
+            ps.setLong(6, SimHash.fingerprint(t.text()));
+            if (notExists) {
+              ps.setString(7, t.id());
+            }
+          }
+
+          @Override
+          public int getBatchSize() {
+            return candidates.size();
+          }
+        });
+
+    final KnownIdFilter filter = knownIds;
+    final List<String> lost = new ArrayList<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      final Tweet t = candidates.get(i);
+      final int n = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+      if (n > 0 || n == Statement.SUCCESS_NO_INFO
+          && (probed == null || probed.contains(t.id()))) {
+        inserted.add(t);
+      } else if (n == Statement.SUCCESS_NO_INFO) {
+        unknown.add(t);
+        lost.add(t.id());
+      }
+      if (filter != null) {
+        filter.add(t.id());
+      }
+    }
+    if (!lost.isEmpty()) {
+      if (ON_CONFLICT_SQL.equals(sql)) {
+        // The URL did not announce rewriting: send unprobed ids through
+        // the exact insert from now on.
+        exactCounts = false;
+      }
+      LOG.warn("Driver reports no batch row counts; {} tweets may have "
+          + "been stored without being reported as inserted: {}",
+          lost.size(), lost.size() <= MAX_LOGGED_IDS
+              ? lost : lost.subList(0, MAX_LOGGED_IDS) + "...");
+    }
+  }
+
+  /**
+   * Ids of some tweets.
+   *
+   * @param tweets tweets
+   * @return their ids
+   */
+  private static Set<String> ids(final List<Tweet> tweets) {
+    final Set<String> out = new HashSet<>(tweets.size() * 2);
+    for (Tweet t : tweets) {
+      out.add(t.id());
+    }
+    return out;
+  }
+
+  /**
+   * Store the extracted terms of newly inserted tweets, one batch per
+   * table that has rows.
+   *
+   * @param accountId owning account
+   * @param fresh tweets just inserted
+   * @param notExists whether to use the portable insert flavour
+   */
+  private void writeTerms(
+      final String accountId,
+      final List<Tweet> fresh,
+      final boolean notExists) {
+    final List<List<Object[]>> rows = new ArrayList<>(TERM_TABLES.length);
+    for (int k = 0; k < TERM_TABLES.length; k++) {
+      rows.add(new ArrayList<>());
+    }
+    for (Tweet t : fresh) {
+      final TweetTerms terms = TweetTerms.of(t.text());
+      final Timestamp ts = Timestamp.from(t.createdAt());
+      int k = 0;
+      for (Set<String> set
+          : List.of(terms.hashtags(), terms.mentions(), terms.urls())) {
+        for (String term : set) {
+          rows.get(k).add(notExists
+              ? new Object[] {t.id(), term, accountId, ts, t.id(), term}
+              : new Object[] {t.id(), term, accountId, ts});
+        }
+        k++;
+      }
+    }
+    for (int k = 0; k < TERM_TABLES.length; k++) {
+      if (!rows.get(k).isEmpty()) {
+        jdbc.batchUpdate(termInsertSql(TERM_TABLES[k][0], TERM_TABLES[k][1],
+            notExists), rows.get(k));
+      }
+    }
+  }
+
+  /**
+   * Conflict-tolerant insert for one extracted-term table.
+   *
+   * @param table table name
+   * @param column term column
+   * @param notExists whether to use the portable flavour
+   * @return insert SQL
+   */
+  private static String termInsertSql(
+      final String table, final String column, final boolean notExists) {
+    final String cols = "tweet_id, " + column + ", account_id, created_at";
+    if (notExists) {
+      return "INSERT INTO " + table + " (" + cols + ") SELECT ?, ?, ?, ? "
+          + "WHERE NOT EXISTS (SELECT 1 FROM " + table
+          + " WHERE tweet_id = ? AND " + column + " = ?)";
+    }
+    return "INSERT INTO " + table + " (" + cols + ") VALUES (?, ?, ?, ?) "
+        + "ON CONFLICT DO NOTHING";
+  }
+
+  /**
+   * Ids of the chunk that are already stored, in one round trip.
+   *
+   * @param chunk tweets to probe
+   * @return stored ids
+   */
+  private Set<String> existingIds(final List<Tweet> chunk) {
+    final String marks = String.join(",", Collections.nCopies(
+        chunk.size(), "?"));
+    final Object[] ids = new Object[chunk.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = chunk.get(i).id();
+    }
+    return new HashSet<>(jdbc.queryForList(
+        "SELECT id FROM tweets WHERE id IN (" + marks + ")",
+        String.class, ids));
+  }
+
+  /**
+   * Resolve the insert statement for the connected database once.
+   *
+   * @return insert SQL
+   */
+  private String insertSql() {
+    String sql = insertSql;
+    if (sql == null) {
+      sql = jdbc.execute((ConnectionCallback<String>) con -> {
+        final String d = dialect(con);
+        exactCounts = NOT_EXISTS_SQL.equals(d) || !rewritesBatches(con);
+        changeSeqs = hasColumn(con, "tweets", "change_seq");
+        return d;
+      });
+      insertSql = sql;
+    }
+    return sql;
+  }
+
+  /**
+   * Whether the driver turns batches into multi-row inserts and so
+   * reports {@link Statement#SUCCESS_NO_INFO} (PostgreSQL JDBC with
+   * {@code reWriteBatchedInserts=true}).
+   *
+   * @param con open connection
+   * @return {@code true} if batch row counts are not reported
+   * @throws SQLException if metadata cannot be read
+   */
+  private static boolean rewritesBatches(final Connection con)
+      throws SQLException {
+    final String url =
+        String.valueOf(con.getMetaData().getURL()).toLowerCase(Locale.ROOT);
+    return url.contains("rewritebatchedinserts=true");
+  }
+
+  /**
+   * Whether a table has a column, matching the database's identifier
+   * case.
+   *
+   * @param con open connection
+   * @param table unquoted table name
+   * @param column unquoted column name
+   * @return {@code true} if present
+   * @throws SQLException if metadata cannot be read
+   */
+  private static boolean hasColumn(final Connection con, final String table,
+      final String column) throws SQLException {
+    final DatabaseMetaData md = con.getMetaData();
+    final boolean upper = md.storesUpperCaseIdentifiers();
+    try (ResultSet rs = md.getColumns(null, null,
+        upper ? table.toUpperCase(Locale.ROOT) : table,
+        upper ? column.toUpperCase(Locale.ROOT) : column)) {
+      return rs.next();
+    }
+  }
+
+  /**
+   * Pick the insert flavour supported by a connection.
+   *
+   * @param con open connection
+   * @return {@link #ON_CONFLICT_SQL} or {@link #NOT_EXISTS_SQL}
+   * @throws SQLException if metadata cannot be read
+   */
+  private static String dialect(final Connection con) throws SQLException {
+    final DatabaseMetaData md = con.getMetaData();
+    final String product =
+        md.getDatabaseProductName().toLowerCase(Locale.ROOT);
+    if (product.contains("postgres")
+        || product.contains("h2") && "postgresql".equals(h2Mode(con))) {
+      return ON_CONFLICT_SQL;
+    }
+    return NOT_EXISTS_SQL;
+  }
+
+  /**
+   * Compatibility mode of an H2 connection; the URL reported by its
+   * metadata leaves out settings such as {@code ;MODE=...}.
+   *
+   * @param con open H2 connection
+   * @return lowercased mode, or {@code null} if unknown
+   * @throws SQLException if the settings cannot be read
+   */
+  private static String h2Mode(final Connection con) throws SQLException {
+    try (Statement st = con.createStatement();
+        ResultSet rs = st.executeQuery(H2_MODE_SQL)) {
+      return rs.next()
+          ? String.valueOf(rs.getString(1)).toLowerCase(Locale.ROOT) : null;
+    }
+  }
+}
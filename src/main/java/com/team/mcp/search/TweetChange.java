@@ -0,0 +1,30 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+
+/**
+ * One entry of the {@code tweets} change feed, in {@code seq} order.
+ *
+ * @param seq position in the feed ({@code tweet_change_seq})
+ * @param type kind of change
+ * @param accountId owning account ({@code null} for {@link Type#PURGE})
+ * @param tweet inserted row for {@link Type#INSERT}; for
+ *     {@link Type#DELETE} only {@code id} and {@code createdAt} are set;
+ *     {@code null} for {@link Type#PURGE}
+ * @param before for {@link Type#PURGE}, every tweet created before this
+ *     instant is gone; otherwise {@code null}
+ */
+public record TweetChange(
+    long seq, Type type, String accountId, Tweet tweet, Instant before) {
+
+  /** Kind of change. */
+  public enum Type {
+    /** A row was inserted. */
+    INSERT,
+    /** A row was deleted. */
+    DELETE,
+    /** All rows older than {@code before} were expired in bulk. */
+    PURGE
+  }
+}
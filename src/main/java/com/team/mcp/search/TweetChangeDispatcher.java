@@ -0,0 +1,313 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tails the {@code tweets} change feed and hands ordered batches to every
+ * {@link TweetChangeListener}.
+ *
+ * <p>The feed is outbox style ({@code V9__tweet_changes.sql}): inserts are
+ * the {@code tweets} rows themselves, ordered by their
+ * {@code change_seq} column default, and deletes and purges are rows of
+ * {@code tweet_changes} numbered from the same sequence. Each poll reads
+ * both past the cursor, merges them by sequence and delivers the
+ * contiguous prefix (see {@link ChangeCursor}). Sequences the cursor
+ * had to pass over are looked up again on every poll for
+ * {@code app.changes.lateWindowMs}, so a long transaction that commits
+ * below the cursor is still delivered, in a later batch.
+ *
+ * <p>The cursor lives in memory and starts at the current end of the
+ * feed: listeners are caches that rebuild themselves on startup, so only
+ * changes made while the process runs are delivered. The schema comes
+ * from the migrations; without it every poll fails, which is logged once
+ * per failure streak.
+ *
+ * <p>Disabled with {@code app.changes.enabled=false}.
+ */
+@Component
+public final class TweetChangeDispatcher {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetChangeDispatcher.class);
+
+  /** Newest inserts past the cursor. */
+  private static final String INSERTS_SQL =
+      "SELECT change_seq, id, account_id, user_handle, text, created_at "
+          + "FROM tweets WHERE change_seq > ? "
+          + "ORDER BY change_seq LIMIT ?";
+
+  /** Deletes and purges past the cursor. */
+  private static final String OTHERS_SQL =
+      "SELECT seq, op, tweet_id, account_id, created_at "
+          + "FROM tweet_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+
+  /** Inserts among watched sequences; {@code %s}: placeholders. */
+  private static final String LATE_INSERTS_SQL =
+      "SELECT change_seq, id, account_id, user_handle, text, created_at "
+          + "FROM tweets WHERE change_seq IN (%s)";
+
+  /** Deletes and purges among watched sequences. */
+  private static final String LATE_OTHERS_SQL =
+      "SELECT seq, op, tweet_id, account_id, created_at "
+          + "FROM tweet_changes WHERE seq IN (%s)";
+
+  /** Current end of the feed. */
+  private static final String END_SQL =
+      "SELECT GREATEST("
+          + "COALESCE((SELECT MAX(change_seq) FROM tweets), 0), "
+          + "COALESCE((SELECT MAX(seq) FROM tweet_changes), 0))";
+
+  /** Operation code of a delete. */
+  static final String OP_DELETE = "D";
+
+  /** Operation code of a purge. */
+  static final String OP_PURGE = "P";
+
+  /** JDBC access. */
+  private final JdbcTemplate jdbc;
+
+  /** Receivers of the feed. */
+  private final List<TweetChangeListener> listeners;
+
+  /** Time source for gap timeouts. */
+  private final Clock clock;
+
+  /** Whether polling does anything. */
+  private final boolean enabled;
+
+  /** Rows read per table per query. */
+  private final int batchSize;
+
+  /** Gap timeout handed to the cursor. */
+  private final long gapTimeoutMs;
+
+  /** How long passed-over sequences are looked for. */
+  private final long lateWindowMs;
+
+  /** Whether the last poll failed (later failures log at debug). */
+  private boolean failing;
+
+  /** Feed position; {@code null} until the first successful poll. */
+  private ChangeCursor cursor;
+
+  /**
+   * Creates the dispatcher.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param changeListeners all {@link TweetChangeListener} beans
+   * @param appClock time source
+   * @param enabledFlag {@code app.changes.enabled}
+   * @param configuredBatchSize {@code app.changes.batchSize}
+   * @param gapTimeout {@code app.changes.gapTimeoutMs}
+   * @param lateWindow {@code app.changes.lateWindowMs}
+   */
+  public TweetChangeDispatcher(
+      final JdbcTemplate jdbcTemplate,
+      final List<TweetChangeListener> changeListeners,
+      final Clock appClock,
+      @Value("${app.changes.enabled:true}") final boolean enabledFlag,
+      @Value("${app.changes.batchSize:500}") final int configuredBatchSize,
+      @Value("${app.changes.gapTimeoutMs:2000}") final long gapTimeout,
+      @Value("${app.changes.lateWindowMs:600000}") final long lateWindow) {
+    this.jdbc = jdbcTemplate;
+    this.listeners = changeListeners == null ? List.of() : changeListeners;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.batchSize = Math.max(1, configuredBatchSize);
+    this.gapTimeoutMs = gapTimeout;
+    this.lateWindowMs = lateWindow;
+  }
+
+  /**
+   * Deliver everything available past the cursor.
+   *
+   * @return changes delivered
+   */
+  @Scheduled(fixedDelayString = "${app.changes.pollMs:500}")
+  public synchronized int poll() {
+    if (!enabled || listeners.isEmpty()) {
+      return 0;
+    }
+    try {
+      if (cursor == null) {
+        final Long end = jdbc.queryForObject(END_SQL, Long.class);
+        cursor = new ChangeCursor(end == null ? 0L : end, gapTimeoutMs,
+            lateWindowMs);
+      }
+      final int total = drain() + redeliver();
+      failing = false;
+      return total;
+    } catch (DataAccessException ex) {
+      if (failing) {
+        LOG.debug("Change feed poll failed again: {}", ex.toString());
+      } else {
+        LOG.warn("Change feed poll failed: {}", ex.toString());
+        failing = true;
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * Deliver the contiguous run past the cursor, batch by batch.
+   *
+   * @return changes delivered
+   */
+  private int drain() {
+    int total = 0;
+    for (;;) {
+      final List<TweetChange> batch = read(cursor.last());
+      final int n = cursor.advance(batch, clock.millis());
+      if (n == 0) {
+        return total;
+      }
+      dispatch(batch.subList(0, n));
+      total += n;
+      if (n < batch.size()) {
+        return total;
+      }
+    }
+  }
+
+  /**
+   * Deliver passed-over sequences that have committed since.
+   *
+   * @return changes delivered
+   */
+  private int redeliver() {
+    final List<Long> late = cursor.late(clock.millis());
+    if (late.isEmpty()) {
+      return 0;
+    }
+    final String in = String.join(",", Collections.nCopies(late.size(), "?"));
+    final Object[] args = late.toArray();
+    final List<TweetChange> found = new ArrayList<>(jdbc.query(
+        String.format(LATE_INSERTS_SQL, in), this::insert, args));
+    found.addAll(jdbc.query(
+        String.format(LATE_OTHERS_SQL, in), this::other, args));
+    if (found.isEmpty()) {
+      return 0;
+    }
+    found.sort(Comparator.comparingLong(TweetChange::seq));
+    for (TweetChange c : found) {
+      cursor.found(c.seq());
+    }
+    LOG.debug("Delivering {} late change(s)", found.size());
+    dispatch(found);
+    return found.size();
+  }
+
+  /**
+   * Last delivered sequence.
+   *
+   * @return sequence, or {@code -1} before the first poll
+   */
+  public synchronized long position() {
+    return cursor == null ? -1L : cursor.last();
+  }
+
+  /**
+   * Read the next changes from both sources and merge them. Only changes
+   * up to the lower of the two read horizons are returned, so nothing is
+   * skipped when one source has more than a batch pending.
+   *
+   * @param after cursor position
+   * @return changes after {@code after}, ascending
+   */
+  private List<TweetChange> read(final long after) {
+    final List<TweetChange> inserts =
+        jdbc.query(INSERTS_SQL, this::insert, after, batchSize);
+    final List<TweetChange> others =
+        jdbc.query(OTHERS_SQL, this::other, after, batchSize);
+
+    long horizon = Long.MAX_VALUE;
+    if (inserts.size() >= batchSize) {
+      horizon = inserts.get(inserts.size() - 1).seq();
+    }
+    if (others.size() >= batchSize) {
+      horizon = Math.min(horizon, others.get(others.size() - 1).seq());
+    }
+    final List<TweetChange> merged =
+        new ArrayList<>(inserts.size() + others.size());
+    for (List<TweetChange> src : List.of(inserts, others)) {
+      for (TweetChange c : src) {
+        if (c.seq() <= horizon) {
+          merged.add(c);
+        }
+      }
+    }
+    merged.sort(Comparator.comparingLong(TweetChange::seq));
+    return merged;
+  }
+
+  /**
+   * Map a {@code tweets} row to an insert.
+   *
+   * @param rs result set on the row
+   * @param i row number
+   * @return change
+   * @throws SQLException on read failure
+   */
+  private TweetChange insert(final ResultSet rs, final int i)
+      throws SQLException {
+    return new TweetChange(rs.getLong("change_seq"),
+        TweetChange.Type.INSERT, rs.getString("account_id"),
+        new Tweet(rs.getString("id"), rs.getString("user_handle"),
+            rs.getString("text"), rs.getTimestamp("created_at").toInstant()),
+        null);
+  }
+
+  /**
+   * Map a {@code tweet_changes} row to a delete or purge.
+   *
+   * @param rs result set on the row
+   * @param i row number
+   * @return change
+   * @throws SQLException on read failure
+   */
+  private TweetChange other(final ResultSet rs, final int i)
+      throws SQLException {
+    final Timestamp at = rs.getTimestamp("created_at");
+    if (OP_PURGE.equals(rs.getString("op"))) {
+      return new TweetChange(rs.getLong("seq"), TweetChange.Type.PURGE,
+          null, null, at == null ? null : at.toInstant());
+    }
+    return new TweetChange(rs.getLong("seq"), TweetChange.Type.DELETE,
+        rs.getString("account_id"), new Tweet(rs.getString("tweet_id"),
+            null, null, at == null ? null : at.toInstant()), null);
+  }
+
+  /**
+   * Hand one batch to every listener; a failing listener is logged and
+   * does not hold back the others.
+   *
+   * @param changes consecutive changes
+   */
+  private void dispatch(final List<TweetChange> changes) {
+    final List<TweetChange> copy = List.copyOf(changes);
+    for (TweetChangeListener l : listeners) {
+      try {
+        l.onChanges(copy);
+      } catch (RuntimeException ex) {
+        LOG.warn("Change listener {} failed: {}",
+            l.getClass().getSimpleName(), ex.toString());
+      }
+    }
+  }
+}
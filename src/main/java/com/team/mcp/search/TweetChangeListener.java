@@ -0,0 +1,25 @@
+package com.team.mcp.search;
+
+import java.util.List;
+
+/**
+ * Receives the {@code tweets} change feed from
+ * {@link TweetChangeDispatcher}. Unlike {@link IngestListener}, this also
+ * sees rows written or deleted outside {@link TweetIngestor} (other
+ * instances, imports, SQL consoles, retention).
+ *
+ * <p>Any Spring bean implementing this interface is picked up
+ * automatically.
+ */
+public interface TweetChangeListener {
+
+  /**
+   * Called with changes in feed order; each change is delivered once per
+   * process. A change whose transaction committed after the feed had
+   * moved past it comes late, in a batch of its own below earlier ones.
+   *
+   * @param changes changes, ascending {@code seq} within the batch (never
+   *     empty)
+   */
+  void onChanges(List<TweetChange> changes);
+}
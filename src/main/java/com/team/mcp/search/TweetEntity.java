@@ -12,11 +12,17 @@ import java.time.Instant;
  *
  * <p>Simple JPA entity mapped to the {@code TWEETS} table.
  * This class is {@code final} (not intended for extension).
+ *
+ * <p>Every row belongs to the account whose timeline it was ingested
+ * from; DB-backed search and analytics read one account at a time through
+ * the {@code (account_id, created_at DESC)} index.
  */
 @Entity
 @Table(
     name = "tweets",
     indexes = {
+        @Index(name = "idx_tweets_account_created",
+            columnList = "account_id, created_at DESC"),
         @Index(name = "ix_tweets_created_at", columnList = "created_at"),
         @Index(name = "ix_tweets_user_handle", columnList = "user_handle")
     }
@@ -26,17 +32,24 @@ public final class TweetEntity {
   /** Maximum ID length (column length). */
   private static final int MAX_ID_LEN = 64;
 
+  /** Maximum account id length (column length). */
+  private static final int MAX_ACCOUNT_LEN = 128;
+
   /** Maximum user handle length (column length). */
   private static final int MAX_USER_LEN = 64;
 
-  /** Maximum text length (column length). */
-  private static final int MAX_TEXT_LEN = 1024;
+  /** Maximum text length (column length, as in V2__tweets.sql). */
+  private static final int MAX_TEXT_LEN = 1000;
 
   /** Platform (or fake) tweet id. */
   @Id
   @Column(length = MAX_ID_LEN, nullable = false)
   private String id;
 
+  /** Logical account whose timeline the tweet was ingested from. */
+  @Column(name = "account_id", length = MAX_ACCOUNT_LEN, nullable = false)
+  private String accountId;
+
   /** Logical user/handle. */
   @Column(name = "user_handle", length = MAX_USER_LEN, nullable = false)
   private String userHandle;
@@ -49,6 +62,10 @@ public final class TweetEntity {
   @Column(name = "created_at", nullable = false)
   private Instant createdAt;
 
+  /** 64-bit SimHash of the text for near-duplicate detection. */
+  @Column(name = "simhash")
+  private Long simhash;
+
   /**
    * JPA only.
    * Required by the provider to instantiate the entity via reflection.
@@ -61,19 +78,44 @@ public final class TweetEntity {
    * Create a new immutable tweet row.
    *
    * @param idParam tweet id
+   * @param accountIdParam owning account id
    * @param userHandleParam user handle
    * @param textParam tweet text
    * @param createdAtParam creation instant (UTC)
    */
   public TweetEntity(
       final String idParam,
+      final String accountIdParam,
       final String userHandleParam,
       final String textParam,
       final Instant createdAtParam) {
+    this(idParam, accountIdParam, userHandleParam, textParam,
+        createdAtParam, SimHash.fingerprint(textParam));
+  }
+
+  /**
+   * Create a new immutable tweet row with a precomputed fingerprint.
+   *
+   * @param idParam tweet id
+   * @param accountIdParam owning account id
+   * @param userHandleParam user handle
+   * @param textParam tweet text
+   * @param createdAtParam creation instant (UTC)
+   * @param simhashParam SimHash fingerprint of {@code textParam}
+   */
+  public TweetEntity(
+      final String idParam,
+      final String accountIdParam,
+      final String userHandleParam,
+      final String textParam,
+      final Instant createdAtParam,
+      final long simhashParam) {
     this.id = idParam;
+    this.accountId = accountIdParam;
     this.userHandle = userHandleParam;
     this.text = textParam;
     this.createdAt = createdAtParam;
+    this.simhash = simhashParam;
   }
 
   /**
@@ -83,6 +125,13 @@ public final class TweetEntity {
     return id;
   }
 
+  /**
+   * @return owning account id
+   */
+  public String getAccountId() {
+    return accountId;
+  }
+
   /**
    * @return user handle
    */
@@ -103,4 +152,11 @@ public final class TweetEntity {
   public Instant getCreatedAt() {
     return createdAt;
   }
+
+  /**
+   * @return SimHash fingerprint of the text ({@code null} for legacy rows)
+   */
+  public Long getSimhash() {
+    return simhash;
+  }
 }
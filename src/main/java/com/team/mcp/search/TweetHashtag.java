@@ -0,0 +1,31 @@
+package com.team.mcp.search;
+
+import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Lower-cased {@code #hashtag} of a tweet, extracted at ingest time
+ * ({@code tweet_hashtags}).
+ */
+@Entity
+@IdClass(ExtractedTerm.Key.class)
+@AttributeOverride(name = "term",
+    column = @Column(name = "tag",
+        length = ExtractedTerm.MAX_TERM_LEN, nullable = false))
+@Table(
+    name = "tweet_hashtags",
+    indexes = @Index(name = "idx_tweet_hashtags_account_tag",
+        columnList = "account_id, tag, created_at DESC"))
+public final class TweetHashtag extends ExtractedTerm {
+
+  /**
+   * JPA only.
+   */
+  protected TweetHashtag() {
+    // no-op
+  }
+}
@@ -0,0 +1,57 @@
+package com.team.mcp.search;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoint for bulk tweet backfill.
+ *
+ * <p>Example:
+ * <pre>
+ *   curl -X POST --data-binary @tweets.ndjson.gz \
+ *     "/admin/tweets/import?accountId=acctA"
+ * </pre>
+ */
+@RestController
+public final class TweetImportController {
+
+  /** Streaming importer. */
+  private final TweetImporter importer;
+
+  /**
+   * Constructs the controller.
+   *
+   * @param tweetImporter injected {@link TweetImporter}
+   */
+  public TweetImportController(final TweetImporter tweetImporter) {
+    this.importer = tweetImporter;
+  }
+
+  /**
+   * Stream-import NDJSON (or gzip NDJSON) from the request body.
+   *
+   * @param accountId account for rows without an {@code accountId} field
+   * @param body raw request body
+   * @return HTTP 400 with error map on malformed input or a failed batch
+   *         (earlier batches stay committed); otherwise HTTP 200 with the
+   *         {@link ImportResult}
+   * @throws InterruptedException if the request thread is interrupted
+   */
+  @PostMapping("/admin/tweets/import")
+  public ResponseEntity<?> importTweets(
+      @RequestParam(value = "accountId", required = false)
+      final String accountId,
+      final InputStream body) throws InterruptedException {
+    try {
+      return ResponseEntity.ok(importer.importStream(body, accountId));
+    } catch (IOException ex) {
+      return ResponseEntity.badRequest().body(
+          Map.of("error", String.valueOf(ex.getMessage())));
+    }
+  }
+}
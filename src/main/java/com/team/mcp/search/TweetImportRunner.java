@@ -0,0 +1,73 @@
+package com.team.mcp.search;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports an NDJSON (or gzip NDJSON) file at startup when the
+ * {@code import} profile is active.
+ *
+ * <p>Enable with:
+ * <code>--spring.profiles.active=import --app.import.file=tweets.ndjson.gz
+ * --app.import.accountId=acctA</code></p>
+ */
+@Profile("import")
+@Component
+public final class TweetImportRunner implements CommandLineRunner {
+
+  /** Logger for import status messages. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetImportRunner.class);
+
+  /** Streaming importer. */
+  private final TweetImporter importer;
+
+  /** File to import. */
+  private final String file;
+
+  /** Account for rows without an {@code accountId} field. */
+  private final String accountId;
+
+  /**
+   * Constructs the runner.
+   *
+   * @param tweetImporter streaming importer
+   * @param importFile {@code app.import.file}
+   * @param importAccountId {@code app.import.accountId}
+   */
+  public TweetImportRunner(
+      final TweetImporter tweetImporter,
+      @Value("${app.import.file:}") final String importFile,
+      @Value("${app.import.accountId:}") final String importAccountId) {
+    this.importer = tweetImporter;
+    this.file = importFile;
+    this.accountId = importAccountId.isBlank() ? null : importAccountId;
+  }
+
+  /**
+   * Executes once at startup and imports {@code app.import.file}.
+   *
+   * @param args startup arguments (unused)
+   * @throws Exception if the file cannot be read or parsed
+   */
+  @Override
+  public void run(final String... args) throws Exception {
+    if (file.isBlank()) {
+      LOG.warn("import profile active but app.import.file is not set");
+      return;
+    }
+    try (InputStream in = Files.newInputStream(Path.of(file))) {
+      final ImportResult r = importer.importStream(in, accountId);
+      LOG.info("Imported {}: {} rows, {} inserted, {} skipped, {} invalid"
+          + " in {} ms", file, r.rows(), r.inserted(), r.skipped(),
+          r.invalid(), r.durationMs());
+    }
+  }
+}
@@ -0,0 +1,359 @@
+package com.team.mcp.search;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.team.mcp.twitter.dto.Tweet;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk backfill of historical tweets from NDJSON (optionally gzipped),
+ * bypassing {@link com.team.mcp.twitter.TwitterClient}.
+ *
+ * <p>The caller's thread stream-parses one object at a time with
+ * Jackson's {@link JsonParser} and hands fixed-size batches to a single
+ * writer thread through a bounded queue. When the database falls behind,
+ * the queue fills and parsing blocks, so memory stays at roughly
+ * {@code batchSize × (queueBatches + 2)} rows whatever the input size.
+ * Each batch is committed in its own transaction through
+ * {@link TweetIngestor#ingestBatch}.
+ *
+ * <p>Input: one JSON object per line (any whitespace between objects
+ * works) with {@code id}, {@code user} (or {@code user_handle}; a
+ * nested user object contributes its {@code screen_name}),
+ * {@code text}, {@code createdAt} (or {@code created_at}; ISO-8601 or
+ * epoch millis) and optionally {@code accountId} (or {@code account_id}).
+ * Objects missing a field are counted as invalid and skipped; unknown
+ * fields and any other nested objects or arrays are skipped whole.
+ * Malformed JSON aborts the import with an
+ * {@link IOException}; batches already written stay committed.
+ */
+@Component
+public final class TweetImporter {
+
+  /** Default rows per write transaction. */
+  static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /** Default batches buffered between parser and writer. */
+  static final int DEFAULT_QUEUE_BATCHES = 4;
+
+  /** First gzip magic byte. */
+  private static final int GZIP_MAGIC_1 = 0x1f;
+
+  /** Second gzip magic byte. */
+  private static final int GZIP_MAGIC_2 = 0x8b;
+
+  /** Read buffer size. */
+  private static final int BUFFER = 64 * 1024;
+
+  /** How often a blocked producer re-checks for a writer failure. */
+  private static final long OFFER_WAIT_MS = 200L;
+
+  /** Marks the end of input on the queue. */
+  private static final List<Row> EOF = new ArrayList<>(0);
+
+  /** Thread-safe, reusable parser factory. */
+  private static final JsonFactory JSON = new JsonFactory();
+
+  /** Writes each batch. */
+  private final TweetIngestor ingestor;
+
+  /** Rows per batch. */
+  private final int batchSize;
+
+  /** Bounded queue capacity in batches. */
+  private final int queueBatches;
+
+  /**
+   * Creates the importer.
+   *
+   * @param tweetIngestor batch writer
+   * @param configuredBatchSize {@code app.import.batchSize}
+   * @param configuredQueueBatches {@code app.import.queueBatches}
+   */
+  public TweetImporter(
+      final TweetIngestor tweetIngestor,
+      @Value("${app.import.batchSize:1000}") final int configuredBatchSize,
+      @Value("${app.import.queueBatches:4}")
+      final int configuredQueueBatches) {
+    this.ingestor = tweetIngestor;
+    this.batchSize = configuredBatchSize > 0
+        ? configuredBatchSize : DEFAULT_BATCH_SIZE;
+    this.queueBatches = configuredQueueBatches > 0
+        ? configuredQueueBatches : DEFAULT_QUEUE_BATCHES;
+  }
+
+  /**
+   * Import NDJSON or gzip NDJSON from a stream, closing it when done.
+   *
+   * @param raw input (gzip is detected from its magic bytes)
+   * @param defaultAccountId account for rows without {@code accountId}
+   *     (may be {@code null}, making such rows invalid)
+   * @return import counters
+   * @throws IOException on malformed input, read failure or a failed
+   *     batch write
+   * @throws InterruptedException if interrupted while waiting for the
+   *     writer
+   */
+  public ImportResult importStream(
+      final InputStream raw, final String defaultAccountId)
+      throws IOException, InterruptedException {
+
+    final long start = System.currentTimeMillis();
+    final BlockingQueue<List<Row>> queue =
+        new ArrayBlockingQueue<>(queueBatches);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final AtomicLong inserted = new AtomicLong();
+    final AtomicLong skipped = new AtomicLong();
+    final AtomicLong batches = new AtomicLong();
+
+    final Thread writer = new Thread(() -> {
+      try {
+        for (List<Row> b = queue.take(); b != EOF; b = queue.take()) {
+          final IngestResult r = ingestor.ingestBatch(group(b));
+          inserted.addAndGet(r.inserted());
+          skipped.addAndGet(r.skipped());
+          batches.incrementAndGet();
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException ex) {
+        failure.set(ex);
+        queue.clear();
+      }
+    }, "tweet-import-writer");
+    writer.setDaemon(true);
+    writer.start();
+
+    long rows = 0;
+    long invalid = 0;
+    try (JsonParser p = JSON.createParser(decode(raw))) {
+      List<Row> batch = new ArrayList<>(batchSize);
+      for (JsonToken t = p.nextToken(); t != null; t = p.nextToken()) {
+        if (t != JsonToken.START_OBJECT) {
+          p.skipChildren();
+          invalid++;
+          continue;
+        }
+        rows++;
+        final Row row = readRow(p, defaultAccountId);
+        if (row == null) {
+          invalid++;
+          continue;
+        }
+        batch.add(row);
+        if (batch.size() >= batchSize) {
+          put(queue, batch, failure, writer);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+      if (!batch.isEmpty()) {
+        put(queue, batch, failure, writer);
+      }
+      put(queue, EOF, failure, writer);
+      writer.join();
+    } finally {
+      if (writer.isAlive()) {
+        writer.interrupt();
+      }
+    }
+    rethrow(failure);
+    return new ImportResult(rows, inserted.get(), skipped.get(), invalid,
+        batches.get(), System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Enqueue a batch, blocking while the queue is full (backpressure) but
+   * giving up if the writer has failed.
+   *
+   * @param queue bounded queue
+   * @param batch batch to hand over
+   * @param failure writer failure holder
+   * @param writer writer thread
+   * @throws IOException if the writer failed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  private static void put(
+      final BlockingQueue<List<Row>> queue,
+      final List<Row> batch,
+      final AtomicReference<Throwable> failure,
+      final Thread writer) throws IOException, InterruptedException {
+    while (!queue.offer(batch, OFFER_WAIT_MS, TimeUnit.MILLISECONDS)) {
+      rethrow(failure);
+      if (!writer.isAlive()) {
+        throw new IOException("import writer stopped");
+      }
+    }
+    rethrow(failure);
+  }
+
+  /**
+   * Surface a writer failure on the caller's thread.
+   *
+   * @param failure writer failure holder
+   * @throws IOException wrapping the failure, if any
+   */
+  private static void rethrow(final AtomicReference<Throwable> failure)
+      throws IOException {
+    final Throwable t = failure.get();
+    if (t != null) {
+      throw new IOException("import batch failed: " + t.getMessage(), t);
+    }
+  }
+
+  /**
+   * Wrap the input in a gzip decoder when it starts with the gzip magic.
+   *
+   * @param raw input stream
+   * @return buffered, possibly decompressing stream
+   * @throws IOException on read failure
+   */
+  static InputStream decode(final InputStream raw) throws IOException {
+    final BufferedInputStream in = new BufferedInputStream(raw, BUFFER);
+    in.mark(2);
+    final int b1 = in.read();
+    final int b2 = in.read();
+    in.reset();
+    if (b1 == GZIP_MAGIC_1 && b2 == GZIP_MAGIC_2) {
+      return new GZIPInputStream(in, BUFFER);
+    }
+    return in;
+  }
+
+  /**
+   * Read one object (parser positioned on its {@code START_OBJECT}).
+   *
+   * @param p parser
+   * @param defaultAccountId account for rows without one
+   * @return row, or {@code null} if a required field is missing
+   * @throws IOException on malformed JSON
+   */
+  private static Row readRow(final JsonParser p, final String defaultAccountId)
+      throws IOException {
+    String id = null;
+    String account = defaultAccountId;
+    String user = null;
+    String text = null;
+    Instant created = null;
+    for (JsonToken t = p.nextToken(); t == JsonToken.FIELD_NAME;
+        t = p.nextToken()) {
+      final String name = p.currentName();
+      final JsonToken v = p.nextToken();
+      if (v.isStructStart()) {
+        // e.g. a Twitter export's "user":{"screen_name":..., "id_str":...}
+        if ("user".equals(name) && v == JsonToken.START_OBJECT) {
+          final String handle = screenName(p);
+          user = handle != null ? handle : user;
+        } else {
+          p.skipChildren();
+        }
+        continue;
+      }
+      switch (name) {
+        case "id", "id_str" -> id = p.getValueAsString();
+        case "accountId", "account_id" -> account = p.getValueAsString();
+        case "user", "user_handle" -> user = p.getValueAsString();
+        case "text" -> text = p.getValueAsString();
+        case "createdAt", "created_at" -> created = instant(p, v);
+        default -> p.skipChildren();
+      }
+    }
+    if (id == null || account == null || account.isBlank()
+        || user == null || text == null || created == null) {
+      return null;
+    }
+    return new Row(account, new Tweet(id, user, text, created));
+  }
+
+  /**
+   * Read {@code screen_name} from a nested user object (parser on its
+   * {@code START_OBJECT}), skipping everything else in it.
+   *
+   * @param p parser
+   * @return screen name, or {@code null} if absent
+   * @throws IOException on malformed JSON
+   */
+  private static String screenName(final JsonParser p) throws IOException {
+    String handle = null;
+    for (JsonToken t = p.nextToken(); t == JsonToken.FIELD_NAME;
+        t = p.nextToken()) {
+      final String name = p.currentName();
+      final JsonToken v = p.nextToken();
+      if ("screen_name".equals(name) && v == JsonToken.VALUE_STRING) {
+        handle = p.getText();
+      } else {
+        p.skipChildren();
+      }
+    }
+    return handle;
+  }
+
+  /**
+   * Parse a timestamp value.
+   *
+   * @param p parser on the value
+   * @param v value token
+   * @return instant, or {@code null} if not a valid timestamp
+   * @throws IOException on malformed JSON
+   */
+  private static Instant instant(final JsonParser p, final JsonToken v)
+      throws IOException {
+    if (v == JsonToken.VALUE_NUMBER_INT) {
+      return Instant.ofEpochMilli(p.getValueAsLong());
+    }
+    if (v != JsonToken.VALUE_STRING) {
+      p.skipChildren();
+      return null;
+    }
+    try {
+      return Instant.parse(p.getText());
+    } catch (DateTimeParseException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Group a batch by account, keeping input order.
+   *
+   * @param batch rows
+   * @return tweets by account
+   */
+  private static Map<String, List<Tweet>> group(final List<Row> batch) {
+    final Map<String, List<Tweet>> out = new LinkedHashMap<>();
+    for (Row r : batch) {
+      out.computeIfAbsent(r.accountId, k -> new ArrayList<>()).add(r.tweet);
+    }
+    return out;
+  }
+
+  /** One parsed row. */
+  private static final class Row {
+
+    /** Owning account. */
+    private final String accountId;
+
+    /** Parsed tweet. */
+    private final Tweet tweet;
+
+    Row(final String account, final Tweet t) {
+      this.accountId = account;
+      this.tweet = t;
+    }
+  }
+}
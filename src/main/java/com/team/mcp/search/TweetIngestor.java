@@ -2,9 +2,19 @@ package com.team.mcp.search;
 
 import com.team.mcp.twitter.TwitterClient;
 import com.team.mcp.twitter.dto.Tweet;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
 import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Adapts a {@link TwitterClient} (Fake now, Real later) to DB storage.
@@ -19,44 +29,227 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class TweetIngestor {
 
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetIngestor.class);
+
   /** Client used to fetch tweets. */
   private final TwitterClient twitter;
-  /** Repository used to persist tweets. */
-  private final TweetRepository repo;
+  /** Batched JDBC writer for {@code tweets}. */
+  private final TweetBulkWriter writer;
+  /** Derived structures notified about newly stored tweets. */
+  private final List<IngestListener> listeners;
+  /** Per-account high-water marks. */
+  private final IngestCheckpointRepository checkpoints;
+  /** Time source for checkpoint updates. */
+  private final Clock clock;
+  /** Largest window an incremental fetch widens to. */
+  private final int maxFetch;
+  /** Durable append log; when set, rows reach the DB through replay. */
+  private TweetLog tweetLog;
 
   /**
    * Constructor.
    *
    * @param twitterClient injected twitter client (fake or real)
-   * @param repository JPA repository for {@code tweets}
+   * @param bulkWriter batched writer for {@code tweets}
+   * @param ingestListeners beans notified after each batch
+   * @param checkpointRepository per-account high-water marks
+   * @param appClock time source for checkpoint updates
+   * @param maxFetchParam {@code app.ingest.maxFetch}
    */
   public TweetIngestor(final TwitterClient twitterClient,
-                       final TweetRepository repository) {
+                       final TweetBulkWriter bulkWriter,
+                       final List<IngestListener> ingestListeners,
+                       final IngestCheckpointRepository checkpointRepository,
+                       final Clock appClock,
+                       @Value("${app.ingest.maxFetch:3200}")
+                       final int maxFetchParam) {
     this.twitter = twitterClient;
-    this.repo = repository;
+    this.writer = bulkWriter;
+    this.listeners = ingestListeners == null
+        ? List.of()
+        : List.copyOf(ingestListeners);
+    this.checkpoints = checkpointRepository;
+    this.clock = appClock;
+    this.maxFetch = Math.max(1, maxFetchParam);
+  }
+
+  /**
+   * Optional setter injection: present when
+   * {@code app.ingest.log.enabled=true}.
+   *
+   * @param log append-only tweet log (may be null)
+   */
+  @Autowired(required = false)
+  public void setTweetLog(final TweetLog log) {
+    this.tweetLog = log;
   }
 
   /**
-   * Fetch up to {@code count} tweets from the account's timeline and
-   * persist any rows that do not already exist by id.
+   * Fetch up to {@code count} new tweets from the account's timeline and
+   * persist any rows that do not already exist by id. Newly saved tweets
+   * are then handed to every {@link IngestListener}.
+   *
+   * <p>Only tweets after the account's {@link IngestCheckpoint} are
+   * requested; the checkpoint then moves to the newest tweet fetched, in
+   * the same transaction as the rows. A full window may stop short of the
+   * checkpoint, so it is fetched again twice as wide until it comes back
+   * short (all new tweets seen) or reaches {@code app.ingest.maxFetch}.
+   * In the latter case the rows are stored but the checkpoint stays put,
+   * so the missing tweets are never silently skipped.
+   *
+   * <p>With a {@link TweetLog} configured, the fetched tweets are appended
+   * to the log instead and {@link TweetLogReplayer} writes them to the
+   * table (and notifies listeners) asynchronously.
    *
    * @param accountId logical account id (e.g., "acctA")
-   * @param count maximum number of tweets to ingest
-   * @return number of newly saved rows
+   * @param count tweets per fetch (an incremental run may fetch more to
+   *     reach the checkpoint)
+   * @return number of newly saved rows (with a log: tweets appended)
    * @throws TwitterClient.TwitterException if the client fails
    */
   @Transactional
   public int ingestFromTimeline(final String accountId, final int count)
       throws TwitterClient.TwitterException {
-    final List<Tweet> tweets = twitter.getHomeTimeline(accountId, count);
-    int saved = 0;
+    final IngestCheckpoint cp =
+        checkpoints.findById(accountId).orElse(null);
+    List<Tweet> tweets;
+    boolean complete = true;
+    if (cp == null) {
+      tweets = twitter.getHomeTimeline(accountId, count);
+    } else {
+      int window = Math.max(1, count);
+      tweets = twitter.getHomeTimeline(accountId, window, cp.getSinceId());
+      while (tweets.size() >= window && window < maxFetch) {
+        window = (int) Math.min(maxFetch, 2L * window);
+        tweets = twitter.getHomeTimeline(accountId, window, cp.getSinceId());
+      }
+      complete = tweets.size() < window;
+      if (!complete) {
+        LOG.warn("More than {} new tweets for {} since {}; checkpoint kept, "
+            + "older tweets of the gap were not fetched", maxFetch,
+            accountId, cp.getSinceId());
+      }
+    }
+    final int n;
+    if (tweetLog != null) {
+      try {
+        tweetLog.append(accountId, tweets);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      n = tweets.size();
+    } else {
+      n = ingest(accountId, tweets).inserted();
+    }
+    if (complete) {
+      advanceCheckpoint(accountId, cp, tweets);
+    }
+    return n;
+  }
+
+  /**
+   * Persist a batch of tweets for an account through the bulk writer
+   * (ids already stored, or repeated in the batch, are skipped) and hand
+   * the new rows to every {@link IngestListener}.
+   *
+   * <p>Inside a transaction the listeners run once it has committed, so
+   * nothing derived (caches, pushed notifications) ever reflects rows
+   * that were rolled back; outside one they run immediately. They are
+   * given the account's change-feed position read after the write, so
+   * listeners that loaded the account can tell whether their load already
+   * had the batch.
+   *
+   * @param accountId logical account id
+   * @param tweets tweets to store
+   * @return inserted and skipped counts
+   */
+  @Transactional
+  public IngestResult ingest(
+      final String accountId, final List<Tweet> tweets) {
+    final List<Tweet> fresh = writer.write(accountId, tweets);
+    final long seq = fresh.isEmpty() ? 0 : writer.changeSeq(accountId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              notifyListeners(accountId, fresh, seq);
+            }
+          });
+    } else {
+      notifyListeners(accountId, fresh, seq);
+    }
+    return new IngestResult(fresh.size(), tweets.size() - fresh.size());
+  }
+
+  /**
+   * Persist tweets for several accounts in one transaction, e.g. one
+   * batch of a bulk import.
+   *
+   * @param byAccount tweets grouped by owning account
+   * @return summed inserted and skipped counts
+   */
+  @Transactional
+  public IngestResult ingestBatch(final Map<String, List<Tweet>> byAccount) {
+    int inserted = 0;
+    int skipped = 0;
+    for (Map.Entry<String, List<Tweet>> e : byAccount.entrySet()) {
+      final IngestResult r = ingest(e.getKey(), e.getValue());
+      inserted += r.inserted();
+      skipped += r.skipped();
+    }
+    return new IngestResult(inserted, skipped);
+  }
+
+  /**
+   * Hand newly stored rows to every listener. A failing listener is
+   * logged and does not keep the others from running.
+   *
+   * @param accountId logical account id
+   * @param fresh newly stored tweets
+   * @param seq account's change-feed position after the batch
+   */
+  private void notifyListeners(
+      final String accountId, final List<Tweet> fresh, final long seq) {
+    for (IngestListener l : listeners) {
+      try {
+        l.onIngested(accountId, fresh, seq);
+      } catch (RuntimeException ex) {
+        LOG.warn("Ingest listener {} failed for {}: {}",
+            l.getClass().getSimpleName(), accountId, ex.toString());
+      }
+    }
+  }
+
+  /**
+   * Move the account's checkpoint to the newest fetched tweet.
+   *
+   * @param accountId logical account id
+   * @param cp current checkpoint, or {@code null} if none yet
+   * @param tweets tweets fetched in this run
+   */
+  private void advanceCheckpoint(
+      final String accountId,
+      final IngestCheckpoint cp,
+      final List<Tweet> tweets) {
+    Tweet newest = null;
     for (Tweet t : tweets) {
-      if (!repo.existsById(t.id())) {
-        repo.save(new TweetEntity(
-            t.id(), t.user(), t.text(), t.createdAt()));
-        saved++;
+      if (t.id() != null && t.createdAt() != null
+          && (newest == null || IngestCheckpoint.isAfter(
+              t.createdAt(), t.id(), newest.createdAt(), newest.id()))) {
+        newest = t;
       }
     }
-    return saved;
+    if (newest == null) {
+      return;
+    }
+    if (cp == null) {
+      checkpoints.save(new IngestCheckpoint(
+          accountId, newest.id(), newest.createdAt(), clock.instant()));
+    } else if (cp.advance(newest.id(), newest.createdAt(), clock.instant())) {
+      checkpoints.save(cp);
+    }
   }
 }
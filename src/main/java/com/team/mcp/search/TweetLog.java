@@ -0,0 +1,478 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import jakarta.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only, segment-rotated log of ingested tweets; the durable write
+ * path when {@code app.ingest.log.enabled=true}.
+ *
+ * <p>Records are {@code [int length][int crc32][payload]} appended with a
+ * {@link FileChannel}. Offsets are global byte positions: a segment file
+ * is named after the offset of its first record and a new one is started
+ * once the active segment would exceed {@code app.ingest.log.segmentBytes}.
+ *
+ * <p>{@link #append} returns only after its records are fsynced. Appends
+ * are group-committed: whoever reaches the sync lock first forces
+ * everything written so far, and appenders queued behind it find their
+ * records already durable. Readers never see past the durable offset.
+ *
+ * <p>On open, the tail of the last segment is checked record by record
+ * and truncated at the first torn or corrupt record, so a crash mid-write
+ * loses at most the unacknowledged append.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ingest.log.enabled", havingValue = "true")
+public final class TweetLog implements Closeable {
+
+  /** Record header: payload length plus CRC. */
+  static final int HEADER = 8;
+
+  /** Largest accepted payload; anything bigger is treated as corrupt. */
+  private static final int MAX_RECORD = 1 << 20;
+
+  /** Default segment size (64 MiB). */
+  private static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+  /** Segment file name prefix. */
+  private static final String PREFIX = "segment-";
+
+  /** Segment file name suffix. */
+  private static final String SUFFIX = ".log";
+
+  /** Log directory. */
+  private final Path dir;
+
+  /** Rotation threshold. */
+  private final long segmentBytes;
+
+  /** Segment files by base offset. */
+  private final NavigableMap<Long, Path> segments =
+      new ConcurrentSkipListMap<>();
+
+  /** Offset up to which records are fsynced. */
+  private final AtomicLong durable = new AtomicLong();
+
+  /** Serializes fsyncs (group commit). */
+  private final Object syncLock = new Object();
+
+  /** Active segment channel (guarded by {@code this}). */
+  private FileChannel active;
+
+  /** Base offset of the active segment (guarded by {@code this}). */
+  private long activeBase;
+
+  /** End offset of written records (guarded by {@code this}). */
+  private long end;
+
+  /** Set once closed. */
+  private volatile boolean closed;
+
+  /**
+   * Opens (or creates) the log and recovers its tail.
+   *
+   * @param directory {@code app.ingest.log.dir}
+   * @param configuredSegmentBytes {@code app.ingest.log.segmentBytes}
+   * @throws IOException if the directory or a segment cannot be opened
+   */
+  public TweetLog(
+      @Value("${app.ingest.log.dir:./.tweetlog}") final String directory,
+      @Value("${app.ingest.log.segmentBytes:67108864}")
+      final long configuredSegmentBytes) throws IOException {
+    this.dir = Paths.get(directory);
+    this.segmentBytes = configuredSegmentBytes > HEADER
+        ? configuredSegmentBytes : DEFAULT_SEGMENT_BYTES;
+    open();
+  }
+
+  /**
+   * Append tweets for an account and wait until they are durable.
+   *
+   * @param accountId owning account
+   * @param tweets tweets to append (empty lists are a no-op)
+   * @return offset just past the appended records
+   * @throws IOException on write or fsync failure
+   */
+  public long append(final String accountId, final List<Tweet> tweets)
+      throws IOException {
+    if (tweets.isEmpty()) {
+      return durable.get();
+    }
+    final List<ByteBuffer> records = new ArrayList<>(tweets.size());
+    long size = 0;
+    for (Tweet t : tweets) {
+      final ByteBuffer r = encode(accountId, t);
+      records.add(r);
+      size += r.remaining();
+    }
+    final long target;
+    synchronized (this) {
+      ensureOpen();
+      if (end > activeBase && end - activeBase + size > segmentBytes) {
+        rotate();
+      }
+      for (ByteBuffer r : records) {
+        while (r.hasRemaining()) {
+          active.write(r);
+        }
+      }
+      end += size;
+      target = end;
+    }
+    sync(target);
+    return target;
+  }
+
+  /**
+   * Read durable records starting at an offset.
+   *
+   * @param from offset to start at (offsets before the oldest retained
+   *     segment start at that segment)
+   * @param max maximum records to return
+   * @return records and the offset to continue from
+   * @throws IOException on read failure
+   */
+  public ReadBatch read(final long from, final int max) throws IOException {
+    final long limit = durable.get();
+    final List<Entry> out = new ArrayList<>(Math.min(max, 1024));
+    long pos = Math.max(from, segments.firstKey());
+    while (out.size() < max && pos < limit) {
+      final Map.Entry<Long, Path> seg = segments.floorEntry(pos);
+      final Long next = segments.higherKey(seg.getKey());
+      final long segEnd = next == null ? limit : Math.min(next, limit);
+      if (pos >= segEnd) {
+        pos = next == null ? limit : next;
+        continue;
+      }
+      try (FileChannel ch =
+          FileChannel.open(seg.getValue(), StandardOpenOption.READ)) {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (out.size() < max && pos < segEnd) {
+          header.clear();
+          readFully(ch, header, pos - seg.getKey());
+          final int len = header.getInt(0);
+          final ByteBuffer payload = ByteBuffer.allocate(len);
+          readFully(ch, payload, pos - seg.getKey() + HEADER);
+          out.add(decode(payload.flip()));
+          pos += HEADER + len;
+        }
+      }
+    }
+    return new ReadBatch(out, pos);
+  }
+
+  /**
+   * Delete whole segments that end at or before an offset. The active
+   * segment is always kept.
+   *
+   * @param offset offset every consumer has passed
+   * @throws IOException if a file cannot be deleted
+   */
+  public void deleteBefore(final long offset) throws IOException {
+    for (Map.Entry<Long, Path> e : segments.entrySet()) {
+      final Long next = segments.higherKey(e.getKey());
+      if (next == null || next > offset) {
+        return;
+      }
+      segments.remove(e.getKey());
+      Files.deleteIfExists(e.getValue());
+    }
+  }
+
+  /**
+   * Offset up to which records are durable (the end of the log).
+   *
+   * @return durable end offset
+   */
+  public long endOffset() {
+    return durable.get();
+  }
+
+  /**
+   * Number of segment files on disk.
+   *
+   * @return segment count
+   */
+  public int segmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Flush and close the active segment.
+   *
+   * @throws IOException on fsync failure
+   */
+  @PreDestroy
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    active.force(false);
+    durable.accumulateAndGet(end, Math::max);
+    active.close();
+  }
+
+  /**
+   * Group commit: make everything up to {@code target} durable, sharing
+   * one fsync with concurrent appenders.
+   *
+   * @param target offset that must be durable on return
+   * @throws IOException on fsync failure or if the log is closed
+   */
+  private void sync(final long target) throws IOException {
+    synchronized (syncLock) {
+      while (durable.get() < target) {
+        final FileChannel ch;
+        final long upTo;
+        synchronized (this) {
+          ensureOpen();
+          ch = active;
+          upTo = end;
+        }
+        try {
+          ch.force(false);
+          durable.accumulateAndGet(upTo, Math::max);
+        } catch (ClosedChannelException ex) {
+          // Rotated meanwhile; rotate() forced that segment already.
+          ensureOpen();
+        }
+      }
+    }
+  }
+
+  /**
+   * Seal the active segment and start a new one at {@link #end}. Caller
+   * holds {@code this}.
+   *
+   * @throws IOException on fsync or create failure
+   */
+  private void rotate() throws IOException {
+    active.force(false);
+    durable.accumulateAndGet(end, Math::max);
+    active.close();
+    openSegment(end, 0L);
+  }
+
+  /**
+   * Discover segments, recover the last one and open it for append.
+   *
+   * @throws IOException on I/O failure
+   */
+  private void open() throws IOException {
+    Files.createDirectories(dir);
+    try (DirectoryStream<Path> ds =
+        Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+      for (Path p : ds) {
+        final String name = p.getFileName().toString();
+        segments.put(Long.parseLong(name.substring(
+            PREFIX.length(), name.length() - SUFFIX.length())), p);
+      }
+    }
+    if (segments.isEmpty()) {
+      openSegment(0L, 0L);
+    } else {
+      final Map.Entry<Long, Path> last = segments.lastEntry();
+      openSegment(last.getKey(), validLength(last.getValue()));
+    }
+    durable.set(end);
+  }
+
+  /**
+   * Open a segment for append, dropping anything past {@code validLen}.
+   *
+   * @param base base offset of the segment
+   * @param validLen bytes of intact records in it
+   * @throws IOException on I/O failure
+   */
+  private void openSegment(final long base, final long validLen)
+      throws IOException {
+    final Path p = dir.resolve(String.format("%s%020d%s", PREFIX, base,
+        SUFFIX));
+    final FileChannel ch = FileChannel.open(p, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    ch.truncate(validLen);
+    ch.position(validLen);
+    segments.put(base, p);
+    active = ch;
+    activeBase = base;
+    end = base + validLen;
+  }
+
+  /**
+   * Length of the intact prefix of a segment: stops at a short header,
+   * an implausible length, a short payload or a CRC mismatch.
+   *
+   * @param p segment file
+   * @return bytes of intact records
+   * @throws IOException on read failure
+   */
+  private static long validLength(final Path p) throws IOException {
+    try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+      final long size = ch.size();
+      final ByteBuffer header = ByteBuffer.allocate(HEADER);
+      long pos = 0;
+      while (pos + HEADER <= size) {
+        header.clear();
+        readFully(ch, header, pos);
+        final int len = header.getInt(0);
+        if (len <= 0 || len > MAX_RECORD || pos + HEADER + len > size) {
+          break;
+        }
+        final ByteBuffer payload = ByteBuffer.allocate(len);
+        readFully(ch, payload, pos + HEADER);
+        if (crc(payload.array()) != header.getInt(Integer.BYTES)) {
+          break;
+        }
+        pos += HEADER + len;
+      }
+      return pos;
+    }
+  }
+
+  /**
+   * Serialize one record (header included).
+   *
+   * @param accountId owning account
+   * @param t tweet
+   * @return buffer ready to write
+   */
+  static ByteBuffer encode(final String accountId, final Tweet t) {
+    final byte[][] fields = {
+        utf8(accountId), utf8(t.id()), utf8(t.user()), utf8(t.text())};
+    int len = Long.BYTES;
+    for (byte[] f : fields) {
+      len += Integer.BYTES + f.length;
+    }
+    final ByteBuffer payload = ByteBuffer.allocate(len);
+    for (byte[] f : fields) {
+      payload.putInt(f.length).put(f);
+    }
+    payload.putLong(t.createdAt().toEpochMilli());
+    final ByteBuffer rec = ByteBuffer.allocate(HEADER + len);
+    rec.putInt(len).putInt(crc(payload.array())).put(payload.array());
+    return rec.flip();
+  }
+
+  /**
+   * Deserialize a record payload.
+   *
+   * @param b payload buffer
+   * @return decoded entry
+   */
+  private static Entry decode(final ByteBuffer b) {
+    final String account = string(b);
+    final String id = string(b);
+    final String user = string(b);
+    final String text = string(b);
+    final Instant created = Instant.ofEpochMilli(b.getLong());
+    return new Entry(account, new Tweet(id, user, text, created));
+  }
+
+  /**
+   * Read one length-prefixed UTF-8 string.
+   *
+   * @param b buffer
+   * @return string
+   */
+  private static String string(final ByteBuffer b) {
+    final byte[] bytes = new byte[b.getInt()];
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * UTF-8 bytes of a possibly-null string (stored as empty).
+   *
+   * @param s string
+   * @return bytes
+   */
+  private static byte[] utf8(final String s) {
+    return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * CRC32 of a byte array.
+   *
+   * @param bytes data
+   * @return checksum as int
+   */
+  private static int crc(final byte[] bytes) {
+    final CRC32 c = new CRC32();
+    c.update(bytes);
+    return (int) c.getValue();
+  }
+
+  /**
+   * Positional read that fills the buffer.
+   *
+   * @param ch channel
+   * @param buf destination
+   * @param position file position
+   * @throws IOException on read failure or premature end of file
+   */
+  private static void readFully(
+      final FileChannel ch, final ByteBuffer buf, final long position)
+      throws IOException {
+    long at = position;
+    while (buf.hasRemaining()) {
+      final int n = ch.read(buf, at);
+      if (n < 0) {
+        throw new IOException("unexpected end of segment at " + at);
+      }
+      at += n;
+    }
+  }
+
+  /**
+   * Fail fast on a closed log.
+   *
+   * @throws IOException if closed
+   */
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("tweet log is closed");
+    }
+  }
+
+  /**
+   * One logged tweet.
+   *
+   * @param accountId owning account
+   * @param tweet tweet
+   */
+  public record Entry(String accountId, Tweet tweet) {
+  }
+
+  /**
+   * Result of {@link #read}.
+   *
+   * @param entries records read, in log order
+   * @param nextOffset offset to continue from
+   */
+  public record ReadBatch(List<Entry> entries, long nextOffset) {
+  }
+}
@@ -0,0 +1,173 @@
+package com.team.mcp.search;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Feeds the {@code tweets} table and every {@link IngestListener} from
+ * the {@link TweetLog}, asynchronously to ingestion.
+ *
+ * <p>The replay position is stored in {@code tweet_log_offsets} and
+ * committed in the same transaction as the rows it covers, so after a
+ * crash replay resumes exactly where the last committed batch ended.
+ * Segments every batch has moved past are deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ingest.log.enabled", havingValue = "true")
+public final class TweetLogReplayer {
+
+  /** Consumer name of the DB replay. */
+  static final String CONSUMER = "tweets-db";
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetLogReplayer.class);
+
+  /** Source log. */
+  private final TweetLog log;
+
+  /** Writes rows and notifies listeners. */
+  private final TweetIngestor ingestor;
+
+  /** Offset table access. */
+  private final JdbcTemplate jdbc;
+
+  /** One transaction per replayed batch. */
+  private final TransactionTemplate tx;
+
+  /** Time source for {@code updated_at}. */
+  private final Clock clock;
+
+  /** Records per batch. */
+  private final int batchSize;
+
+  /** Committed position ({@code -1} until loaded). */
+  private long offset = -1L;
+
+  /**
+   * Creates the replayer.
+   *
+   * @param tweetLog source log
+   * @param tweetIngestor row writer
+   * @param jdbcTemplate JDBC access for the offset table
+   * @param transactionTemplate transaction boundary per batch
+   * @param appClock time source
+   * @param configuredBatchSize {@code app.ingest.log.replayBatch}
+   */
+  public TweetLogReplayer(
+      final TweetLog tweetLog,
+      final TweetIngestor tweetIngestor,
+      final JdbcTemplate jdbcTemplate,
+      final TransactionTemplate transactionTemplate,
+      final Clock appClock,
+      @Value("${app.ingest.log.replayBatch:1000}")
+      final int configuredBatchSize) {
+    this.log = tweetLog;
+    this.ingestor = tweetIngestor;
+    this.jdbc = jdbcTemplate;
+    this.tx = transactionTemplate;
+    this.clock = appClock;
+    this.batchSize = Math.max(1, configuredBatchSize);
+  }
+
+  /**
+   * Replay everything durable past the committed offset.
+   *
+   * @return records replayed
+   */
+  @Scheduled(fixedDelayString = "${app.ingest.log.replayDelayMs:200}")
+  public synchronized int replay() {
+    int total = 0;
+    try {
+      if (offset < 0) {
+        offset = loadOffset();
+      }
+      for (;;) {
+        final TweetLog.ReadBatch b = log.read(offset, batchSize);
+        if (b.entries().isEmpty()) {
+          break;
+        }
+        tx.executeWithoutResult(s -> {
+          ingestor.ingestBatch(group(b.entries()));
+          saveOffset(b.nextOffset());
+        });
+        offset = b.nextOffset();
+        total += b.entries().size();
+      }
+      log.deleteBefore(offset);
+    } catch (IOException | RuntimeException ex) {
+      // Nothing past the committed offset is lost; retry next tick.
+      offset = -1L;
+      LOG.warn("tweet log replay failed: {}", ex.toString());
+    }
+    return total;
+  }
+
+  /**
+   * Replay lag in bytes.
+   *
+   * @return durable log end minus committed offset
+   */
+  public long lagBytes() {
+    return Math.max(0L, log.endOffset() - Math.max(0L, offset));
+  }
+
+  /**
+   * Read the committed offset.
+   *
+   * @return offset, {@code 0} if this consumer never committed
+   */
+  private long loadOffset() {
+    final List<Long> rows = jdbc.queryForList(
+        "SELECT log_offset FROM tweet_log_offsets WHERE consumer = ?",
+        Long.class, CONSUMER);
+    return rows.isEmpty() ? 0L : rows.get(0);
+  }
+
+  /**
+   * Upsert the committed offset (inside the batch transaction).
+   *
+   * @param next new offset
+   */
+  private void saveOffset(final long next) {
+    final Timestamp now = Timestamp.from(clock.instant());
+    final int n = jdbc.update(
+        "UPDATE tweet_log_offsets SET log_offset = ?, updated_at = ? "
+            + "WHERE consumer = ?", next, now, CONSUMER);
+    if (n == 0) {
+      jdbc.update("INSERT INTO tweet_log_offsets "
+          + "(consumer, log_offset, updated_at) VALUES (?, ?, ?)",
+          CONSUMER, next, now);
+    }
+  }
+
+  /**
+   * Group log entries by account, keeping log order.
+   *
+   * @param entries log entries
+   * @return tweets by account
+   */
+  private static Map<String, List<Tweet>> group(
+      final List<TweetLog.Entry> entries) {
+    final Map<String, List<Tweet>> out = new LinkedHashMap<>();
+    for (TweetLog.Entry e : entries) {
+      out.computeIfAbsent(e.accountId(), k -> new ArrayList<>())
+          .add(e.tweet());
+    }
+    return out;
+  }
+}
@@ -0,0 +1,31 @@
+package com.team.mcp.search;
+
+import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Lower-cased {@code @mention} of a tweet, extracted at ingest time
+ * ({@code tweet_mentions}).
+ */
+@Entity
+@IdClass(ExtractedTerm.Key.class)
+@AttributeOverride(name = "term",
+    column = @Column(name = "handle",
+        length = ExtractedTerm.MAX_TERM_LEN, nullable = false))
+@Table(
+    name = "tweet_mentions",
+    indexes = @Index(name = "idx_tweet_mentions_account_handle",
+        columnList = "account_id, handle, created_at DESC"))
+public final class TweetMention extends ExtractedTerm {
+
+  /**
+   * JPA only.
+   */
+  protected TweetMention() {
+    // no-op
+  }
+}
@@ -1,6 +1,7 @@
 package com.team.mcp.search;
 
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -27,5 +28,35 @@ public interface TweetRepository extends JpaRepository<TweetEntity, String> {
    */
   List<TweetEntity> findTop100ByUserHandleIgnoreCaseOrderByCreatedAtDesc(
       String handle);
-}
 
+  /**
+   * Newest tweets of one account; served by the
+   * {@code (account_id, created_at DESC)} index as a range scan.
+   *
+   * @param accountId owning account id
+   * @param page page request (size bounds the scan)
+   * @return newest-first tweets of the account
+   */
+  List<TweetEntity> findByAccountIdOrderByCreatedAtDesc(
+      String accountId, Pageable page);
+
+  /**
+   * Find up to 100 most-recent tweets of one account whose {@code text}
+   * contains the given query case-insensitively.
+   *
+   * @param accountId owning account id
+   * @param q substring to search for (case-insensitive)
+   * @return newest-first list of matching tweets, limited to 100
+   */
+  List<TweetEntity>
+      findTop100ByAccountIdAndTextContainingIgnoreCaseOrderByCreatedAtDesc(
+          String accountId, String q);
+
+  /**
+   * Number of stored tweets for an account.
+   *
+   * @param accountId owning account id
+   * @return row count
+   */
+  long countByAccountId(String accountId);
+}
@@ -0,0 +1,550 @@
+package com.team.mcp.search;
+
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Monthly partitions of {@code tweets} and the retention policy over them.
+ *
+ * <p>On PostgreSQL {@code tweets} is range-partitioned by month
+ * ({@code db/vendor/postgresql/V8__tweets_partitioned.sql}); partitions
+ * are named {@code tweets_pYYYY_MM}. Each run first moves rows that
+ * landed in {@code tweets_default} (imported history, clock skew) into
+ * partitions of their own months, creates the next
+ * {@code app.retention.aheadMonths} partitions and then drops (or, with
+ * {@code mode=archive}, detaches and renames to
+ * {@code archived_tweets_pYYYY_MM}) every month that ended before the
+ * cutoff. Both are catalog operations, independent of row count.
+ *
+ * <p>Elsewhere (H2) months are emulated: they are listed by grouping on
+ * {@code created_at}, and expiring them is a range delete on the
+ * {@code created_at} index, with archive mode copying rows into
+ * {@code tweets_archive} first in the same transaction.
+ *
+ * <p>With {@code mode=compress} each expired month is first written to a
+ * block-compressed file by {@link ColdTweetArchive}; it stays readable by
+ * id from there. Only the rows that went into the file are removed: the
+ * partition is dropped if, under an exclusive lock, it holds nothing
+ * else, and otherwise the written ids are deleted and the rest waits for
+ * the next run.
+ *
+ * <p>Extracted terms ({@code tweet_hashtags}, ...) of expired tweets are
+ * deleted by the same cutoff, and a purge is recorded in the change feed
+ * ({@link TweetChangeDispatcher}). Reclaimed space is the partitions' on-disk
+ * size on PostgreSQL and the column bytes of the deleted rows otherwise.
+ *
+ * <p>Disabled unless {@code app.retention.enabled=true} and
+ * {@code app.retention.months > 0}.
+ */
+@Component
+public final class TweetRetention {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetRetention.class);
+
+  /** Name prefix of monthly partitions. */
+  static final String PREFIX = "tweets_p";
+
+  /** Name prefix given to detached partitions in archive mode. */
+  static final String ARCHIVE_PREFIX = "archived_";
+
+  /** Monthly partition name, e.g. {@code tweets_p2025_01}. */
+  private static final Pattern NAME =
+      Pattern.compile("tweets_p(\\d{4})_(\\d{2})");
+
+  /** Tables holding per-tweet terms, expired with their tweets. */
+  private static final String[] TERM_TABLES =
+      {"tweet_hashtags", "tweet_mentions", "tweet_urls"};
+
+  /** Partitions of {@code tweets} with size and estimated row count. */
+  private static final String PG_PARTITIONS_SQL =
+      "SELECT c.relname, c.reltuples::bigint AS row_count, "
+          + "pg_total_relation_size(c.oid) AS bytes "
+          + "FROM pg_inherits i "
+          + "JOIN pg_class c ON c.oid = i.inhrelid "
+          + "JOIN pg_class p ON p.oid = i.inhparent "
+          + "WHERE p.relname = 'tweets' ORDER BY c.relname";
+
+  /** Months that have rows in the default partition. */
+  private static final String PG_DEFAULT_MONTHS_SQL =
+      "SELECT DISTINCT CAST(date_trunc('month', created_at AT TIME ZONE "
+          + "'UTC') AS DATE) AS m FROM tweets_default ORDER BY m";
+
+  /** Emulated months: row count and column bytes per month. */
+  private static final String H2_MONTHS_SQL =
+      "SELECT EXTRACT(YEAR FROM created_at) AS y, "
+          + "EXTRACT(MONTH FROM created_at) AS m, COUNT(*) AS row_count, "
+          + "SUM(OCTET_LENGTH(id) + OCTET_LENGTH(account_id) "
+          + "+ OCTET_LENGTH(user_handle) + OCTET_LENGTH(text)) AS bytes "
+          + "FROM tweets GROUP BY y, m ORDER BY y, m";
+
+  /** Columns copied to {@code tweets_archive}. */
+  private static final String COLUMNS =
+      "id, account_id, user_handle, text, created_at, simhash";
+
+  /** Schema of {@code tweets_archive} (emulated archive mode). */
+  private static final String H2_ARCHIVE_DDL =
+      "CREATE TABLE IF NOT EXISTS tweets_archive ("
+          + "id VARCHAR(64) PRIMARY KEY, account_id VARCHAR(128) NOT NULL, "
+          + "user_handle VARCHAR(64) NOT NULL, text VARCHAR(1000) NOT NULL, "
+          + "created_at TIMESTAMP WITH TIME ZONE NOT NULL, simhash BIGINT)";
+
+  /** What happens to expired months. */
+  public enum Mode {
+    /** Drop the partition (or delete the rows). */
+    DROP,
+    /** Keep the data outside {@code tweets}. */
+    ARCHIVE,
+    /** Write a compressed archive file, then drop. */
+    COMPRESS
+  }
+
+  /** JDBC access. */
+  private final JdbcTemplate jdbc;
+
+  /** Atomic copy-then-delete for emulated archive mode. */
+  private final TransactionTemplate tx;
+
+  /** Time source for the cutoff. */
+  private final Clock clock;
+
+  /** Whether the scheduled run does anything. */
+  private final boolean enabled;
+
+  /** Whole months kept before the current one ({@code 0}: keep all). */
+  private final int months;
+
+  /** Months of partitions created ahead of the current one. */
+  private final int aheadMonths;
+
+  /** Drop or archive. */
+  private final Mode mode;
+
+  /** Whether {@code tweets} is natively partitioned (resolved lazily). */
+  private volatile Boolean partitioned;
+
+  /** Outcome of the last run ({@code null} before the first). */
+  private volatile RetentionReport last;
+
+  /** Compressed archive for {@link Mode#COMPRESS} (may be null). */
+  private ColdTweetArchive coldArchive;
+
+  /**
+   * Creates the retention job.
+   *
+   * @param jdbcTemplate JDBC template on the application datasource
+   * @param transactionTemplate transaction boundary for emulated archive
+   * @param appClock time source
+   * @param enabledFlag {@code app.retention.enabled}
+   * @param keepMonths {@code app.retention.months}
+   * @param ahead {@code app.retention.aheadMonths}
+   * @param modeName {@code app.retention.mode} ({@code drop},
+   *     {@code archive} or {@code compress})
+   */
+  public TweetRetention(
+      final JdbcTemplate jdbcTemplate,
+      final TransactionTemplate transactionTemplate,
+      final Clock appClock,
+      @Value("${app.retention.enabled:false}") final boolean enabledFlag,
+      @Value("${app.retention.months:0}") final int keepMonths,
+      @Value("${app.retention.aheadMonths:2}") final int ahead,
+      @Value("${app.retention.mode:drop}") final String modeName) {
+    this.jdbc = jdbcTemplate;
+    this.tx = transactionTemplate;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.months = Math.max(0, keepMonths);
+    this.aheadMonths = Math.max(0, ahead);
+    this.mode = Mode.valueOf(modeName.trim().toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Optional setter injection of the compressed archive.
+   *
+   * @param archive archive bean (may be null)
+   */
+  @Autowired(required = false)
+  public void setColdArchive(final ColdTweetArchive archive) {
+    this.coldArchive = archive;
+  }
+
+  /** Scheduled entry point (daily by default). */
+  @Scheduled(cron = "${app.retention.cron:0 17 3 * * *}")
+  public void scheduled() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      final RetentionReport r = run();
+      LOG.info("Retention: {} month(s) before {} {}, {} rows, {} bytes "
+          + "reclaimed in {} ms", r.partitions().size(), r.cutoff(),
+          r.mode(), r.rows(), r.bytes(), r.durationMs());
+    } catch (DataAccessException | UncheckedIOException ex) {
+      LOG.warn("Retention run failed: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Create upcoming partitions and expire months before the cutoff.
+   *
+   * @return what was reclaimed
+   */
+  public synchronized RetentionReport run() {
+    final long began = clock.millis();
+    final YearMonth now = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+    if (isPartitioned()) {
+      splitDefault();
+      ensurePartitions(now);
+    }
+    final YearMonth cutoff = months > 0 ? now.minusMonths(months) : null;
+    final List<String> expired = new ArrayList<>();
+    long rows = 0;
+    long bytes = 0;
+    if (cutoff != null) {
+      for (Partition p : partitions()) {
+        if (p.month() == null || !p.month().isBefore(cutoff)) {
+          continue;
+        }
+        expire(p);
+        expired.add(p.name());
+        rows += p.rows();
+        bytes += p.bytes();
+      }
+      if (!expired.isEmpty()) {
+        deleteTerms(start(cutoff));
+        recordPurge(start(cutoff));
+      }
+    }
+    final RetentionReport r = new RetentionReport(
+        cutoff == null ? null : start(cutoff), mode, expired, rows, bytes,
+        clock.millis() - began);
+    last = r;
+    return r;
+  }
+
+  /**
+   * Current monthly partitions (emulated on databases without native
+   * partitioning), oldest first.
+   *
+   * @return partitions
+   */
+  public List<Partition> partitions() {
+    final List<Partition> out = new ArrayList<>();
+    if (isPartitioned()) {
+      jdbc.query(PG_PARTITIONS_SQL, rs -> {
+        final String name = rs.getString("relname");
+        out.add(new Partition(name, parseMonth(name),
+            Math.max(0L, rs.getLong("row_count")), rs.getLong("bytes")));
+      });
+    } else {
+      jdbc.query(H2_MONTHS_SQL, rs -> {
+        final YearMonth m = YearMonth.of(rs.getInt("y"), rs.getInt("m"));
+        out.add(new Partition(partitionName(m), m, rs.getLong("row_count"),
+            rs.getLong("bytes")));
+      });
+    }
+    return out;
+  }
+
+  /**
+   * Outcome of the last run.
+   *
+   * @return report, or {@code null} if retention has not run yet
+   */
+  public RetentionReport lastReport() {
+    return last;
+  }
+
+  /**
+   * Give every month that has rows in {@code tweets_default} its own
+   * partition. Such a month cannot simply be created (PostgreSQL refuses
+   * while the default holds rows in its range), so each one is built
+   * detached, filled from the default, and attached once those rows are
+   * gone from it, in one transaction per month. Without this, history
+   * older than the current month would sit in the default for good and
+   * never expire.
+   */
+  private void splitDefault() {
+    final List<YearMonth> stray = new ArrayList<>();
+    jdbc.query(PG_DEFAULT_MONTHS_SQL, rs -> {
+      stray.add(YearMonth.from(rs.getDate("m").toLocalDate()));
+    });
+    for (YearMonth m : stray) {
+      final String name = partitionName(m);
+      final Timestamp from = Timestamp.from(start(m));
+      final Timestamp to = Timestamp.from(start(m.plusMonths(1)));
+      try {
+        tx.executeWithoutResult(s -> {
+          jdbc.execute("CREATE TABLE " + name + " (LIKE tweets "
+              + "INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+          jdbc.update("INSERT INTO " + name + " SELECT * FROM "
+              + "tweets_default WHERE created_at >= ? AND created_at < ?",
+              from, to);
+          jdbc.update("DELETE FROM tweets_default WHERE created_at >= ? "
+              + "AND created_at < ?", from, to);
+          jdbc.execute("ALTER TABLE tweets ATTACH PARTITION " + name
+              + " FOR VALUES FROM ('" + start(m) + "') TO ('"
+              + start(m.plusMonths(1)) + "')");
+        });
+        LOG.info("Moved {} out of tweets_default", name);
+      } catch (DataAccessException ex) {
+        LOG.warn("Partition {} not split from tweets_default: {}", name,
+            ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Create this month's partition and the next {@link #aheadMonths}.
+   *
+   * @param now current month
+   */
+  private void ensurePartitions(final YearMonth now) {
+    for (int i = 0; i <= aheadMonths; i++) {
+      final YearMonth m = now.plusMonths(i);
+      try {
+        jdbc.execute(createPartitionSql(m));
+      } catch (DataAccessException ex) {
+        LOG.warn("Partition {} not created: {}", partitionName(m),
+            ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Remove one expired month from {@code tweets}.
+   *
+   * @param p partition
+   */
+  private void expire(final Partition p) {
+    if (mode == Mode.COMPRESS) {
+      if (coldArchive == null) {
+        throw new IllegalStateException("compress mode needs an archive");
+      }
+      removeArchived(p, coldArchive.write(p.month()).ids());
+      return;
+    }
+    if (isPartitioned()) {
+      if (mode == Mode.ARCHIVE) {
+        jdbc.execute("ALTER TABLE tweets DETACH PARTITION " + p.name());
+        jdbc.execute("ALTER TABLE " + p.name() + " RENAME TO "
+            + ARCHIVE_PREFIX + p.name());
+      } else {
+        jdbc.execute("DROP TABLE " + p.name());
+      }
+      return;
+    }
+    final Instant from = start(p.month());
+    final Instant to = start(p.month().plusMonths(1));
+    tx.executeWithoutResult(s -> {
+      if (mode == Mode.ARCHIVE) {
+        jdbc.execute(H2_ARCHIVE_DDL);
+        jdbc.update("INSERT INTO tweets_archive (" + COLUMNS + ") SELECT "
+            + COLUMNS + " FROM tweets WHERE created_at >= ? "
+            + "AND created_at < ?", from, to);
+      }
+      jdbc.update("DELETE FROM tweets WHERE created_at >= ? "
+          + "AND created_at < ?", from, to);
+    });
+  }
+
+  /**
+   * Remove the rows of a month that are now in its archive file, and
+   * only those: rows inserted while the file was written stay.
+   *
+   * @param p partition
+   * @param ids ids written to the file
+   */
+  private void removeArchived(final Partition p, final Set<String> ids) {
+    final Timestamp from = Timestamp.from(start(p.month()));
+    final Timestamp to = Timestamp.from(start(p.month().plusMonths(1)));
+    final List<Object[]> args = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      args.add(new Object[] {id, from, to});
+    }
+    final boolean whole = Boolean.TRUE.equals(tx.execute(s -> {
+      if (isPartitioned()) {
+        jdbc.execute("LOCK TABLE " + p.name() + " IN ACCESS EXCLUSIVE MODE");
+        final boolean[] extra = {false};
+        final RowCallbackHandler check = rs -> {
+          extra[0] |= !ids.contains(rs.getString(1));
+        };
+        jdbc.query("SELECT id FROM " + p.name(), check);
+        if (!extra[0]) {
+          jdbc.execute("DROP TABLE " + p.name());
+          return true;
+        }
+      }
+      jdbc.batchUpdate("DELETE FROM tweets WHERE id = ? "
+          + "AND created_at >= ? AND created_at < ?", args);
+      return !isPartitioned();
+    }));
+    if (!whole) {
+      LOG.warn("{} received rows while being archived; they are left for "
+          + "the next run", p.name());
+    }
+  }
+
+  /**
+   * Delete extracted terms older than the cutoff.
+   *
+   * @param before cutoff instant
+   */
+  private void deleteTerms(final Instant before) {
+    for (String table : TERM_TABLES) {
+      try {
+        jdbc.update("DELETE FROM " + table + " WHERE created_at < ?",
+            before);
+      } catch (DataAccessException ex) {
+        LOG.debug("Terms in {} not expired: {}", table, ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Tell the change feed that everything before the cutoff is gone
+   * (dropping a partition fires no row triggers).
+   *
+   * @param before cutoff instant
+   */
+  private void recordPurge(final Instant before) {
+    try {
+      jdbc.update("INSERT INTO tweet_changes (op, created_at) VALUES (?, ?)",
+          TweetChangeDispatcher.OP_PURGE, Timestamp.from(before));
+    } catch (DataAccessException ex) {
+      LOG.debug("Purge not recorded: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Whether {@code tweets} is a PostgreSQL partitioned table.
+   *
+   * @return {@code true} if partitions can be dropped natively
+   */
+  private boolean isPartitioned() {
+    Boolean p = partitioned;
+    if (p == null) {
+      p = jdbc.execute((ConnectionCallback<Boolean>) this::detect);
+      partitioned = p;
+    }
+    return p;
+  }
+
+  /**
+   * Check the catalog for a partitioned {@code tweets}.
+   *
+   * @param con open connection
+   * @return {@code true} on PostgreSQL with a partitioned {@code tweets}
+   * @throws SQLException on metadata failure
+   */
+  private Boolean detect(final Connection con) throws SQLException {
+    final String product = con.getMetaData().getDatabaseProductName()
+        .toLowerCase(Locale.ROOT);
+    if (!product.contains("postgres")) {
+      return Boolean.FALSE;
+    }
+    return Boolean.TRUE.equals(jdbc.queryForObject(
+        "SELECT EXISTS (SELECT 1 FROM pg_class WHERE relname = 'tweets' "
+            + "AND relkind = 'p')", Boolean.class));
+  }
+
+  /**
+   * First instant of a month (UTC).
+   *
+   * @param m month
+   * @return instant
+   */
+  static Instant start(final YearMonth m) {
+    return m.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  /**
+   * Partition name of a month.
+   *
+   * @param m month
+   * @return e.g. {@code tweets_p2025_01}
+   */
+  static String partitionName(final YearMonth m) {
+    return String.format(Locale.ROOT, "%s%04d_%02d", PREFIX, m.getYear(),
+        m.getMonthValue());
+  }
+
+  /**
+   * Month of a partition name.
+   *
+   * @param name partition table name
+   * @return month, or {@code null} for other tables (e.g. the default
+   *     partition)
+   */
+  static YearMonth parseMonth(final String name) {
+    final Matcher m = NAME.matcher(name);
+    if (!m.matches()) {
+      return null;
+    }
+    return YearMonth.of(Integer.parseInt(m.group(1)),
+        Integer.parseInt(m.group(2)));
+  }
+
+  /**
+   * DDL for one monthly partition.
+   *
+   * @param m month
+   * @return {@code CREATE TABLE IF NOT EXISTS ... PARTITION OF tweets}
+   */
+  static String createPartitionSql(final YearMonth m) {
+    return "CREATE TABLE IF NOT EXISTS " + partitionName(m)
+        + " PARTITION OF tweets FOR VALUES FROM ('" + start(m) + "') TO ('"
+        + start(m.plusMonths(1)) + "')";
+  }
+
+  /**
+   * One month of tweets.
+   *
+   * @param name partition name (emulated on H2)
+   * @param month covered month, {@code null} for the default partition
+   * @param rows row count (estimated on PostgreSQL)
+   * @param bytes on-disk size (PostgreSQL) or column bytes (H2)
+   */
+  public record Partition(String name, YearMonth month, long rows,
+      long bytes) {
+  }
+
+  /**
+   * Outcome of one retention run.
+   *
+   * @param cutoff tweets before this instant were expired ({@code null}
+   *     when retention keeps everything)
+   * @param mode drop, archive or compress
+   * @param partitions expired months
+   * @param rows rows removed from {@code tweets}
+   * @param bytes space reclaimed (see class comment)
+   * @param durationMs run time
+   */
+  public record RetentionReport(Instant cutoff, Mode mode,
+      List<String> partitions, long rows, long bytes, long durationMs) {
+  }
+}
@@ -0,0 +1,61 @@
+package com.team.mcp.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Ingest-time extraction of hashtags, mentions and URLs.
+ *
+ * <p>Tokens are split on whitespace exactly as the text-scanning paths
+ * ({@code AnalyticsService.topHashtags}, {@link SearchService#searchHashtag})
+ * always have, so DB-backed results from the entity tables match the
+ * timeline-backed ones. Hashtags and mentions are lower-cased; URLs keep
+ * their case. Terms longer than their column are dropped.
+ *
+ * @param hashtags distinct {@code #tags}, in text order
+ * @param mentions distinct {@code @handles}, in text order
+ * @param urls distinct {@code http(s)://} URLs, in text order
+ */
+public record TweetTerms(
+    Set<String> hashtags, Set<String> mentions, Set<String> urls) {
+
+  /**
+   * Extract the terms of one tweet text.
+   *
+   * @param text tweet text (may be {@code null})
+   * @return extracted terms (sets may be empty)
+   */
+  public static TweetTerms of(final String text) {
+    final Set<String> tags = new LinkedHashSet<>();
+    final Set<String> mentions = new LinkedHashSet<>();
+    final Set<String> urls = new LinkedHashSet<>();
+    if (text != null) {
+      for (String tok : text.split("\\s+")) {
+        if (tok.length() < 2) {
+          continue;
+        }
+        final char c = tok.charAt(0);
+        if (c == '#' && tok.length() <= ExtractedTerm.MAX_TERM_LEN) {
+          tags.add(tok.toLowerCase(Locale.ROOT));
+        } else if (c == '@' && tok.length() <= ExtractedTerm.MAX_TERM_LEN) {
+          mentions.add(tok.toLowerCase(Locale.ROOT));
+        } else if (isUrl(tok) && tok.length() <= ExtractedTerm.MAX_URL_LEN) {
+          urls.add(tok);
+        }
+      }
+    }
+    return new TweetTerms(tags, mentions, urls);
+  }
+
+  /**
+   * Whether a token is an absolute web URL.
+   *
+   * @param tok token
+   * @return {@code true} for {@code http://} and {@code https://} tokens
+   */
+  private static boolean isUrl(final String tok) {
+    final String lower = tok.toLowerCase(Locale.ROOT);
+    return lower.startsWith("http://") || lower.startsWith("https://");
+  }
+}
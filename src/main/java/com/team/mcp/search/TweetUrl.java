@@ -0,0 +1,31 @@
+package com.team.mcp.search;
+
+import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * {@code http(s)} URL of a tweet (case kept), extracted at ingest time
+ * ({@code tweet_urls}).
+ */
+@Entity
+@IdClass(ExtractedTerm.Key.class)
+@AttributeOverride(name = "term",
+    column = @Column(name = "url",
+        length = ExtractedTerm.MAX_URL_LEN, nullable = false))
+@Table(
+    name = "tweet_urls",
+    indexes = @Index(name = "idx_tweet_urls_account_url",
+        columnList = "account_id, url, created_at DESC"))
+public final class TweetUrl extends ExtractedTerm {
+
+  /**
+   * JPA only.
+   */
+  protected TweetUrl() {
+    // no-op
+  }
+}
@@ -3,7 +3,9 @@ package com.team.mcp.twitter;
 import com.team.mcp.twitter.dto.Tweet;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -13,8 +15,14 @@ import java.util.concurrent.atomic.AtomicLong;
  * <ul>
  *   <li>{@code getHomeTimeline(...)} returns exactly {@code count} tweets
  *       (up to the seed size).</li>
+ *   <li>{@code getHomeTimeline(..., sinceId)} returns only the tweets of
+ *       that window created after {@code sinceId}.</li>
  *   <li>{@code postTweet(...)} returns a synthetic id and does not throw.</li>
  * </ul>
+ *
+ * <p>The no-arg constructor serves the fixed 200-tweet seed shared by all
+ * accounts. For load tests, {@link #FakeTwitterClient(SyntheticCorpus)}
+ * serves per-account timelines generated on demand instead.
  */
 public final class FakeTwitterClient implements TwitterClient {
 
@@ -30,11 +38,28 @@ public final class FakeTwitterClient implements TwitterClient {
   /** Pre-generated timeline content, newest first for simplicity. */
   private final List<Tweet> seed;
 
+  /** Seed position by tweet id, for since-cursor lookups. */
+  private final Map<String, Integer> positions = new HashMap<>();
+
   /** Sequence used to generate unique synthetic tweet ids. */
   private final AtomicLong idSeq = new AtomicLong(START_ID);
 
+  /** Generated corpus replacing the seed; {@code null} for the seed. */
+  private final SyntheticCorpus corpus;
+
+  /**
+   * Builds a fake client serving timelines from a generated corpus.
+   *
+   * @param syntheticCorpus corpus to serve
+   */
+  public FakeTwitterClient(final SyntheticCorpus syntheticCorpus) {
+    this.seed = List.of();
+    this.corpus = syntheticCorpus;
+  }
+
   /** Builds a fake client with a fixed seed of tweets. */
   public FakeTwitterClient() {
+    this.corpus = null;
     this.seed = new ArrayList<>(SEED_SIZE);
     final Instant base = Instant.parse("2025-01-01T00:00:00Z");
     for (int i = 0; i < SEED_SIZE; i++) {
@@ -43,23 +68,50 @@ public final class FakeTwitterClient implements TwitterClient {
       final String text = "Hello from seed tweet #" + i;
       // Order matches record Tweet(id, user, text, createdAt).
       this.seed.add(new Tweet(id, user, text, base.plusSeconds(i)));
+      this.positions.put(id, i);
     }
   }
 
   /**
    * Returns up to {@code count} seed tweets for the given account.
    *
-   * @param accountId logical account id/handle (ignored in this fake)
+   * @param accountId logical account id/handle (ignored by the seed)
    * @param count maximum number of tweets to return
    * @return a new list with at most {@code count} items
    */
   @Override
   public List<Tweet> getHomeTimeline(final String accountId, final int count) {
+    if (corpus != null) {
+      return corpus.timeline(accountId, count, null);
+    }
     final int n = Math.max(0, Math.min(count, seed.size()));
     // Return a defensive copy so callers cannot mutate the seed.
     return new ArrayList<>(seed.subList(0, n));
   }
 
+  /**
+   * Returns the seed tweets of the {@code count} window that were created
+   * after {@code sinceId}; an unknown cursor returns the whole window.
+   *
+   * @param accountId logical account id/handle (ignored by the seed)
+   * @param count maximum number of tweets to return
+   * @param sinceId id of the newest tweet already seen (may be
+   *     {@code null})
+   * @return a new list with the unseen tweets of the window
+   */
+  @Override
+  public List<Tweet> getHomeTimeline(
+      final String accountId, final int count, final String sinceId) {
+    if (corpus != null) {
+      return corpus.timeline(accountId, count, sinceId);
+    }
+    final int n = Math.max(0, Math.min(count, seed.size()));
+    final Integer at = sinceId == null ? null : positions.get(sinceId);
+    // Seed creation times grow with position.
+    final int from = at == null ? 0 : Math.min(n, at + 1);
+    return new ArrayList<>(seed.subList(from, n));
+  }
+
   /**
    * Pretends to post a tweet and returns a synthetic platform id.
    *
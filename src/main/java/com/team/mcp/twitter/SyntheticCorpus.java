@@ -0,0 +1,391 @@
+package com.team.mcp.twitter;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic, lazily generated tweet corpus for load tests.
+ *
+ * <p>Nothing is stored per tweet: tweet {@code i} (0 = oldest) is computed
+ * on demand from {@code (seed, i)}, so a 10M-tweet corpus costs the same
+ * heap as a 1k one (a few small Zipf tables). The same settings always
+ * yield the same tweets.
+ *
+ * <ul>
+ *   <li>Tweets are dealt round-robin to {@code accounts} timelines
+ *       ({@code acct0}, {@code acct1}, ...); any other account id maps
+ *       onto one of them by hash.</li>
+ *   <li>Timestamps cover {@code days} days from {@code start}, with the
+ *       same volume each day and a diurnal curve inside it (peak around
+ *       15:00 UTC, trough around 03:00). They grow with {@code i}.</li>
+ *   <li>Words, hashtags, authors and mentions follow Zipf distributions
+ *       with exponent {@code zipf} over their vocabularies.</li>
+ * </ul>
+ */
+public final class SyntheticCorpus {
+
+  /** Upper bound for any vocabulary size (keeps the Zipf tables small). */
+  public static final int MAX_VOCABULARY = 1 << 20;
+
+  /** Id prefix of generated tweets. */
+  static final String ID_PREFIX = "syn-";
+
+  /** Account id prefix of generated timelines. */
+  static final String ACCOUNT_PREFIX = "acct";
+
+  /** Minutes per day (resolution of the diurnal curve). */
+  private static final int MINUTES_PER_DAY = 1440;
+
+  /** Milliseconds per minute. */
+  private static final long MS_PER_MINUTE = 60_000L;
+
+  /** Milliseconds per day. */
+  private static final long MS_PER_DAY = MS_PER_MINUTE * MINUTES_PER_DAY;
+
+  /** Relative amplitude of the diurnal curve. */
+  private static final double DIURNAL_AMPLITUDE = 0.8d;
+
+  /** Phase (fraction of a day) at which the diurnal sine crosses zero. */
+  private static final double DIURNAL_PHASE = 0.375d;
+
+  /** Fewest words in a tweet. */
+  private static final int MIN_WORDS = 6;
+
+  /** Additional words drawn at random (exclusive bound). */
+  private static final int EXTRA_WORDS = 15;
+
+  /** Most hashtags in a tweet (inclusive). */
+  private static final int MAX_TAGS = 3;
+
+  /** Chance that a tweet mentions another user. */
+  private static final double MENTION_RATE = 0.3d;
+
+  /** Golden-ratio increment spreading per-tweet seeds. */
+  private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+  /** Consonants used to spell vocabulary words. */
+  private static final String CONSONANTS = "bcdfghjklmnprstvwz";
+
+  /** Vowels used to spell vocabulary words. */
+  private static final String VOWELS = "aeiou";
+
+  /** Tweets in the corpus. */
+  private final long size;
+
+  /** Number of account timelines. */
+  private final int accounts;
+
+  /** Generator seed. */
+  private final long seed;
+
+  /** Start of the covered period (epoch millis). */
+  private final long startMs;
+
+  /** Tweets per day. */
+  private final long perDay;
+
+  /** Cumulative diurnal weight per minute of day, ending at 1. */
+  private final double[] dayCdf;
+
+  /** Zipf CDF over word ranks. */
+  private final double[] words;
+
+  /** Zipf CDF over hashtag ranks. */
+  private final double[] tags;
+
+  /** Zipf CDF over user ranks. */
+  private final double[] users;
+
+  /**
+   * Create a corpus.
+   *
+   * @param tweets total tweets (at least 1)
+   * @param accountCount account timelines (at least 1)
+   * @param userCount distinct authors
+   * @param vocabulary distinct words
+   * @param hashtagCount distinct hashtags
+   * @param zipf Zipf exponent for words, hashtags and authors
+   * @param days days covered (at least 1)
+   * @param start first instant covered
+   * @param generatorSeed seed
+   */
+  public SyntheticCorpus(
+      final long tweets,
+      final int accountCount,
+      final int userCount,
+      final int vocabulary,
+      final int hashtagCount,
+      final double zipf,
+      final int days,
+      final Instant start,
+      final long generatorSeed) {
+    this.size = Math.max(1L, tweets);
+    this.accounts = Math.max(1, accountCount);
+    this.seed = generatorSeed;
+    this.startMs = start.toEpochMilli();
+    final int d = Math.max(1, days);
+    this.perDay = (size + d - 1) / d;
+    this.dayCdf = diurnalCdf();
+    this.words = zipfCdf(vocabulary, zipf);
+    this.tags = zipfCdf(hashtagCount, zipf);
+    this.users = zipfCdf(userCount, zipf);
+  }
+
+  /**
+   * Tweets in the corpus.
+   *
+   * @return size
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Number of account timelines.
+   *
+   * @return account count
+   */
+  public int accounts() {
+    return accounts;
+  }
+
+  /**
+   * Account id of timeline {@code a}.
+   *
+   * @param a timeline index
+   * @return e.g. {@code acct3}
+   */
+  public static String accountId(final int a) {
+    return ACCOUNT_PREFIX + a;
+  }
+
+  /**
+   * Account whose timeline holds tweet {@code i}.
+   *
+   * @param i tweet index
+   * @return account id
+   */
+  public String accountOf(final long i) {
+    return accountId((int) (i % accounts));
+  }
+
+  /**
+   * Generate tweet {@code i} (0 = oldest).
+   *
+   * @param i tweet index in {@code [0, size)}
+   * @return the tweet
+   */
+  public Tweet tweet(final long i) {
+    final SplittableRandom r = new SplittableRandom(seed + i * GOLDEN);
+    final long day = i / perDay;
+    final double q = ((i % perDay) + r.nextDouble()) / perDay;
+    final long at = startMs + day * MS_PER_DAY + msOfDay(q);
+
+    final StringBuilder text = new StringBuilder();
+    final int n = MIN_WORDS + r.nextInt(EXTRA_WORDS);
+    final int tagCount = r.nextInt(MAX_TAGS + 1);
+    for (int w = 0; w < n; w++) {
+      if (w > 0) {
+        text.append(' ');
+      }
+      text.append(word(sample(words, r)));
+    }
+    for (int t = 0; t < tagCount; t++) {
+      text.append(" #").append(word(sample(tags, r)));
+    }
+    if (r.nextDouble() < MENTION_RATE) {
+      text.append(" @").append(user(sample(users, r)));
+    }
+    return new Tweet(ID_PREFIX + i, user(sample(users, r)), text.toString(),
+        Instant.ofEpochMilli(at));
+  }
+
+  /**
+   * Newest tweets of one timeline, newest first.
+   *
+   * @param accountId account id (unknown ids map onto a timeline)
+   * @param count maximum number of tweets
+   * @param sinceId only return tweets newer than this one (may be
+   *     {@code null}; ids not from this corpus are ignored)
+   * @return generated tweets
+   */
+  public List<Tweet> timeline(
+      final String accountId, final int count, final String sinceId) {
+    final int a = timelineOf(accountId);
+    if (a >= size || count <= 0) {
+      return new ArrayList<>();
+    }
+    final long total = (size - a + accounts - 1) / accounts;
+    final long since = indexOf(sinceId);
+    final List<Tweet> out = new ArrayList<>(
+        (int) Math.min(count, total));
+    for (long k = total - 1; k >= 0 && out.size() < count; k--) {
+      final long i = a + k * accounts;
+      if (i <= since) {
+        break;
+      }
+      out.add(tweet(i));
+    }
+    return out;
+  }
+
+  /**
+   * Timeline index of an account id.
+   *
+   * @param accountId account id
+   * @return index in {@code [0, accounts)}
+   */
+  int timelineOf(final String accountId) {
+    if (accountId != null && accountId.startsWith(ACCOUNT_PREFIX)) {
+      try {
+        final int a = Integer.parseInt(
+            accountId.substring(ACCOUNT_PREFIX.length()));
+        if (a >= 0 && a < accounts) {
+          return a;
+        }
+      } catch (NumberFormatException ex) {
+        // fall through to hashing
+      }
+    }
+    return Math.floorMod(String.valueOf(accountId).hashCode(), accounts);
+  }
+
+  /**
+   * Corpus index of a tweet id.
+   *
+   * @param id tweet id (may be {@code null})
+   * @return index, or {@code -1} if not a corpus id
+   */
+  static long indexOf(final String id) {
+    if (id == null || !id.startsWith(ID_PREFIX)) {
+      return -1L;
+    }
+    try {
+      return Long.parseLong(id.substring(ID_PREFIX.length()));
+    } catch (NumberFormatException ex) {
+      return -1L;
+    }
+  }
+
+  /**
+   * Millisecond of the day at which a fraction {@code q} of the day's
+   * volume has been posted.
+   *
+   * @param q fraction in {@code [0, 1)}
+   * @return milliseconds since midnight UTC
+   */
+  private long msOfDay(final double q) {
+    int lo = 0;
+    int hi = MINUTES_PER_DAY - 1;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (dayCdf[mid] < q) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    final double before = lo == 0 ? 0d : dayCdf[lo - 1];
+    final double within = (q - before) / (dayCdf[lo] - before);
+    return lo * MS_PER_MINUTE
+        + (long) (Math.max(0d, Math.min(1d, within)) * (MS_PER_MINUTE - 1));
+  }
+
+  /**
+   * Cumulative posting volume per minute of day.
+   *
+   * @return CDF over minutes
+   */
+  private static double[] diurnalCdf() {
+    final double[] cdf = new double[MINUTES_PER_DAY];
+    double sum = 0d;
+    for (int m = 0; m < MINUTES_PER_DAY; m++) {
+      final double phase = (double) m / MINUTES_PER_DAY - DIURNAL_PHASE;
+      sum += 1d + DIURNAL_AMPLITUDE * Math.sin(2d * Math.PI * phase);
+      cdf[m] = sum;
+    }
+    for (int m = 0; m < MINUTES_PER_DAY; m++) {
+      cdf[m] /= sum;
+    }
+    cdf[MINUTES_PER_DAY - 1] = 1d;
+    return cdf;
+  }
+
+  /**
+   * Zipf CDF over ranks {@code 1..n}.
+   *
+   * @param n vocabulary size (clamped to {@code [1, MAX_VOCABULARY]})
+   * @param s exponent
+   * @return CDF indexed by {@code rank - 1}
+   */
+  static double[] zipfCdf(final int n, final double s) {
+    final int len = Math.max(1, Math.min(n, MAX_VOCABULARY));
+    final double[] cdf = new double[len];
+    double sum = 0d;
+    for (int k = 0; k < len; k++) {
+      sum += 1d / Math.pow(k + 1, s);
+      cdf[k] = sum;
+    }
+    for (int k = 0; k < len; k++) {
+      cdf[k] /= sum;
+    }
+    cdf[len - 1] = 1d;
+    return cdf;
+  }
+
+  /**
+   * Draw a rank from a CDF.
+   *
+   * @param cdf cumulative distribution
+   * @param r random source
+   * @return zero-based rank
+   */
+  private static int sample(final double[] cdf, final SplittableRandom r) {
+    final double u = r.nextDouble();
+    int lo = 0;
+    int hi = cdf.length - 1;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (cdf[mid] < u) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Pronounceable word for a rank: consonant-vowel syllables spelling the
+   * rank, so distinct ranks give distinct words and frequent ranks short
+   * ones.
+   *
+   * @param rank zero-based rank
+   * @return lower-case word
+   */
+  static String word(final int rank) {
+    final int base = CONSONANTS.length() * VOWELS.length();
+    final StringBuilder sb = new StringBuilder();
+    int v = rank;
+    do {
+      final int syl = v % base;
+      sb.append(CONSONANTS.charAt(syl / VOWELS.length()))
+          .append(VOWELS.charAt(syl % VOWELS.length()));
+      v = v / base - 1;
+    } while (v >= 0);
+    return sb.toString();
+  }
+
+  /**
+   * Handle of an author rank.
+   *
+   * @param rank zero-based rank
+   * @return e.g. {@code user17}
+   */
+  private static String user(final int rank) {
+    return "user" + rank;
+  }
+}
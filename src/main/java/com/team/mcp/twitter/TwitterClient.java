@@ -1,6 +1,7 @@
 package com.team.mcp.twitter;
 
 import com.team.mcp.twitter.dto.Tweet;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,6 +38,37 @@ public interface TwitterClient {
   List<Tweet> getHomeTimeline(String accountId, int count)
       throws TwitterException;
 
+  /**
+   * Returns home-timeline tweets newer than a cursor, so incremental
+   * ingestion only transfers new data ({@code since_id} in the Twitter
+   * API).
+   *
+   * <p>The default implementation fetches {@code count} tweets and cuts
+   * the newest-first list at {@code sinceId}; clients that can filter
+   * upstream should override it.
+   *
+   * @param accountId logical id or handle for the account
+   * @param count max number of tweets to return
+   * @param sinceId id of the newest tweet already seen, or {@code null}
+   *     for no cursor
+   * @return tweets newer than {@code sinceId}, newest first
+   * @throws TwitterException on retrieval errors
+   */
+  default List<Tweet> getHomeTimeline(
+      final String accountId, final int count, final String sinceId)
+      throws TwitterException {
+    final List<Tweet> all = getHomeTimeline(accountId, count);
+    if (sinceId == null) {
+      return all;
+    }
+    for (int i = 0; i < all.size(); i++) {
+      if (sinceId.equals(all.get(i).id())) {
+        return new ArrayList<>(all.subList(0, i));
+      }
+    }
+    return all;
+  }
+
   /**
    * Checked exception to model client failures in a testable way.
    */
@@ -2,6 +2,7 @@
  * Twitter/X client abstractions and fakes used by the application.
  *
  * <p>This package defines the {@link com.team.mcp.twitter.TwitterClient}
- * interface and a test/dev implementation.
+ * interface and a test/dev implementation, optionally backed by a
+ * generated {@link com.team.mcp.twitter.SyntheticCorpus} for load tests.
  */
 package com.team.mcp.twitter;
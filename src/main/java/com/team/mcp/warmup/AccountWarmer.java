@@ -0,0 +1,31 @@
+package com.team.mcp.warmup;
+
+/**
+ * A per-account structure that is built lazily and is worth building
+ * before the first real request. {@link WarmupRunner} calls every bean
+ * implementing this interface for each hot account on startup.
+ *
+ * <p>Any Spring bean implementing this interface is picked up
+ * automatically (same discovery style as {@code IngestListener}).
+ */
+public interface AccountWarmer {
+
+  /**
+   * Whether calls of a tool benefit from this warmer; only accounts seen
+   * with such tools are warmed. Defaults to every tool.
+   *
+   * @param toolName MCP tool name from the audit trail
+   * @return {@code true} if warming helps that tool
+   */
+  default boolean serves(final String toolName) {
+    return true;
+  }
+
+  /**
+   * Build or load whatever the account's first request would otherwise
+   * build. Must be idempotent; failures are logged by the caller.
+   *
+   * @param accountId logical account id
+   */
+  void warmUp(String accountId);
+}
@@ -0,0 +1,50 @@
+package com.team.mcp.warmup;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Warm-up status, usable as a readiness probe.
+ */
+@RestController
+public final class WarmupController {
+
+  /** Runner whose report is served. */
+  private final WarmupRunner runner;
+
+  /**
+   * Constructs the controller.
+   *
+   * @param warmupRunner injected {@link WarmupRunner}
+   */
+  public WarmupController(final WarmupRunner warmupRunner) {
+    this.runner = warmupRunner;
+  }
+
+  /**
+   * Latest warm-up report; {@code 503} until the startup warm-up is done.
+   *
+   * @return report
+   */
+  @GetMapping("/admin/warmup")
+  public ResponseEntity<WarmupRunner.WarmupReport> status() {
+    final WarmupRunner.WarmupReport r = runner.report();
+    final boolean ready = r.state() == WarmupRunner.State.READY
+        || r.state() == WarmupRunner.State.DISABLED;
+    return ready ? ResponseEntity.ok(r)
+        : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(r);
+  }
+
+  /**
+   * Warm the hottest accounts again now.
+   *
+   * @return report of this run
+   */
+  @PostMapping("/admin/warmup")
+  public WarmupRunner.WarmupReport rerun() {
+    return runner.warm();
+  }
+}
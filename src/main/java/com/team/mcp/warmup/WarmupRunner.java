@@ -0,0 +1,427 @@
+package com.team.mcp.warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms per-account structures before the application reports ready.
+ *
+ * <p>On startup the hottest accounts are taken from the tool-call audit
+ * ({@code tool_call_audit}, last {@code app.warmup.lookbackHours}) merged
+ * with the snapshot written by the previous run
+ * ({@code app.warmup.snapshot}), ranked by calls and capped at
+ * {@code app.warmup.accounts}. Each account is then passed to every
+ * {@link AccountWarmer} that serves one of the tools it was called with,
+ * so the first real request finds tries, pools and aggregates built.
+ *
+ * <p>Spring Boot only switches readiness to
+ * {@link ReadinessState#ACCEPTING_TRAFFIC} after all application runners
+ * have finished; this runner also publishes the readiness change itself so
+ * a manual re-run ({@code POST /admin/warmup}) is visible too. Warm-up
+ * stops starting new accounts after {@code app.warmup.budgetMs}. The
+ * outcome and time taken are logged and served by
+ * {@code GET /admin/warmup}.
+ *
+ * <p>Disabled with {@code app.warmup.enabled=false}.
+ */
+@Component
+public final class WarmupRunner implements ApplicationRunner {
+
+  /** Class logger. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(WarmupRunner.class);
+
+  /** Calls per account and tool since a cutoff. */
+  private static final String TRAFFIC_SQL =
+      "SELECT account_id, tool_name, COUNT(*) AS calls "
+          + "FROM tool_call_audit "
+          + "WHERE created_at >= ? AND account_id IS NOT NULL "
+          + "GROUP BY account_id, tool_name";
+
+  /** Snapshot field separator. */
+  private static final String TAB = "\t";
+
+  /** Snapshot placeholder for calls without a tool name. */
+  private static final String ANY_TOOL = "*";
+
+  /**
+   * Divisor applied to snapshot counts of accounts the audit no longer
+   * mentions, each time the audit is read.
+   */
+  private static final long DECAY = 2L;
+
+  /** Lifecycle of a warm-up. */
+  public enum State {
+    /** Not started yet. */
+    PENDING,
+    /** Running; readiness is refusing traffic. */
+    WARMING,
+    /** Finished. */
+    READY,
+    /** Turned off by configuration. */
+    DISABLED
+  }
+
+  /** Audit access; may be {@code null}. */
+  private final JdbcTemplate jdbc;
+
+  /** Structures to warm. */
+  private final List<AccountWarmer> warmers;
+
+  /** Readiness event sink; may be {@code null}. */
+  private final ApplicationEventPublisher events;
+
+  /** Time source. */
+  private final Clock clock;
+
+  /** Whether the startup run does anything. */
+  private final boolean enabled;
+
+  /** Most accounts warmed. */
+  private final int maxAccounts;
+
+  /** How far back the audit is read. */
+  private final Duration lookback;
+
+  /** Time after which no further account is started. */
+  private final long budgetMs;
+
+  /** Snapshot file; {@code null} disables it. */
+  private final Path snapshot;
+
+  /** Outcome of the latest run. */
+  private volatile WarmupReport report;
+
+  /**
+   * Creates the runner.
+   *
+   * @param jdbcTemplate JDBC template (may be {@code null})
+   * @param accountWarmers all {@link AccountWarmer} beans
+   * @param publisher application event publisher (may be {@code null})
+   * @param appClock time source
+   * @param enabledFlag {@code app.warmup.enabled}
+   * @param accounts {@code app.warmup.accounts}
+   * @param lookbackHours {@code app.warmup.lookbackHours}
+   * @param budget {@code app.warmup.budgetMs}
+   * @param snapshotFile {@code app.warmup.snapshot} (blank: none)
+   */
+  public WarmupRunner(
+      final JdbcTemplate jdbcTemplate,
+      final List<AccountWarmer> accountWarmers,
+      final ApplicationEventPublisher publisher,
+      final Clock appClock,
+      @Value("${app.warmup.enabled:true}") final boolean enabledFlag,
+      @Value("${app.warmup.accounts:20}") final int accounts,
+      @Value("${app.warmup.lookbackHours:24}") final long lookbackHours,
+      @Value("${app.warmup.budgetMs:60000}") final long budget,
+      @Value("${app.warmup.snapshot:./.h2/warmup-accounts.tsv}")
+      final String snapshotFile) {
+    this.jdbc = jdbcTemplate;
+    this.warmers = accountWarmers == null ? List.of() : accountWarmers;
+    this.events = publisher;
+    this.clock = appClock;
+    this.enabled = enabledFlag;
+    this.maxAccounts = Math.max(0, accounts);
+    this.lookback = Duration.ofHours(Math.max(0L, lookbackHours));
+    this.budgetMs = budget;
+    this.snapshot = snapshotFile == null || snapshotFile.isBlank()
+        ? null : Paths.get(snapshotFile);
+    this.report = new WarmupReport(
+        enabledFlag ? State.PENDING : State.DISABLED, 0, 0, 0, 0, false,
+        0L, null);
+  }
+
+  @Override
+  public void run(final ApplicationArguments args) {
+    if (enabled) {
+      warm();
+    }
+  }
+
+  /**
+   * Warm the hottest accounts now.
+   *
+   * @return outcome
+   */
+  public synchronized WarmupReport warm() {
+    publish(ReadinessState.REFUSING_TRAFFIC);
+    final long started = clock.millis();
+    report = new WarmupReport(State.WARMING, 0, 0, 0, 0, false, 0L, null);
+    final List<HotAccount> plan = plan(traffic(), maxAccounts);
+    int warmed = 0;
+    int steps = 0;
+    int failures = 0;
+    boolean truncated = false;
+    try {
+      for (HotAccount a : plan) {
+        if (clock.millis() - started >= budgetMs) {
+          truncated = true;
+          break;
+        }
+        for (AccountWarmer w : warmers) {
+          if (!servesAny(w, a.tools())) {
+            continue;
+          }
+          try {
+            w.warmUp(a.accountId());
+            steps++;
+          } catch (RuntimeException ex) {
+            failures++;
+            LOG.warn("Warm-up of {} by {} failed: {}", a.accountId(),
+                w.getClass().getSimpleName(), ex.toString());
+          }
+        }
+        warmed++;
+      }
+      writeSnapshot(plan);
+    } finally {
+      // Never leave the application refusing traffic.
+      report = new WarmupReport(State.READY, plan.size(), warmed, steps,
+          failures, truncated, clock.millis() - started,
+          Instant.ofEpochMilli(clock.millis()));
+      publish(ReadinessState.ACCEPTING_TRAFFIC);
+    }
+    final WarmupReport r = report;
+    LOG.info("Warm-up: {} of {} account(s), {} step(s), {} failure(s) "
+        + "in {} ms", r.warmed(), r.planned(), r.steps(), r.failures(),
+        r.durationMs());
+    return r;
+  }
+
+  /**
+   * Outcome of the latest (or running) warm-up.
+   *
+   * @return report
+   */
+  public WarmupReport report() {
+    return report;
+  }
+
+  /**
+   * Refresh the snapshot from the audit so a crash still leaves a recent
+   * one for the next start.
+   */
+  @Scheduled(fixedDelayString = "${app.warmup.snapshotMs:600000}")
+  public void refreshSnapshot() {
+    if (enabled && snapshot != null && report.state() == State.READY) {
+      writeSnapshot(plan(traffic(), maxAccounts));
+    }
+  }
+
+  /**
+   * Rank accounts by calls; ties by account id.
+   *
+   * @param traffic calls per account and tool ({@code null} tool: any)
+   * @param limit most accounts returned
+   * @return hottest accounts first
+   */
+  static List<HotAccount> plan(
+      final Map<String, Map<String, Long>> traffic, final int limit) {
+    final List<HotAccount> all = new ArrayList<>(traffic.size());
+    for (Map.Entry<String, Map<String, Long>> e : traffic.entrySet()) {
+      long calls = 0;
+      final Set<String> tools = new LinkedHashSet<>();
+      final Map<String, Long> byTool = new LinkedHashMap<>();
+      boolean anyTool = false;
+      for (Map.Entry<String, Long> t : e.getValue().entrySet()) {
+        byTool.put(t.getKey(), t.getValue());
+        calls += t.getValue();
+        if (t.getKey() == null) {
+          anyTool = true;
+        } else {
+          tools.add(t.getKey());
+        }
+      }
+      all.add(new HotAccount(e.getKey(), calls,
+          anyTool ? Set.of() : Set.copyOf(tools),
+          Collections.unmodifiableMap(byTool)));
+    }
+    all.sort(Comparator.comparingLong(HotAccount::calls).reversed()
+        .thenComparing(HotAccount::accountId));
+    return all.size() > limit
+        ? List.copyOf(all.subList(0, limit)) : List.copyOf(all);
+  }
+
+  /**
+   * Whether a warmer serves any of the tools (an empty set means any).
+   *
+   * @param w warmer
+   * @param tools tools the account was called with
+   * @return {@code true} if the warmer should run
+   */
+  private static boolean servesAny(final AccountWarmer w,
+      final Set<String> tools) {
+    if (tools.isEmpty()) {
+      return true;
+    }
+    for (String t : tools) {
+      if (w.serves(t)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Recent audit counts, plus the snapshot for accounts the audit no
+   * longer mentions. An account's audit counts replace its snapshot
+   * counts; snapshot-only accounts are divided by {@link #DECAY} on every
+   * read, so they fade out instead of being carried forward. Without a
+   * readable audit the snapshot is used as it is.
+   *
+   * @return calls per account and tool
+   */
+  private Map<String, Map<String, Long>> traffic() {
+    final Map<String, Map<String, Long>> previous = new LinkedHashMap<>();
+    readSnapshot(previous);
+    if (jdbc == null) {
+      return previous;
+    }
+    final Map<String, Map<String, Long>> out = new LinkedHashMap<>();
+    final Instant since = Instant.ofEpochMilli(clock.millis())
+        .minus(lookback);
+    try {
+      final RowCallbackHandler row = rs -> add(out,
+          rs.getString("account_id"), rs.getString("tool_name"),
+          rs.getLong("calls"));
+      jdbc.query(TRAFFIC_SQL, row, Timestamp.from(since));
+    } catch (DataAccessException ex) {
+      LOG.debug("Audit traffic not read: {}", ex.getMessage());
+      return previous;
+    }
+    for (Map.Entry<String, Map<String, Long>> e : previous.entrySet()) {
+      if (out.containsKey(e.getKey())) {
+        continue;
+      }
+      for (Map.Entry<String, Long> t : e.getValue().entrySet()) {
+        final long calls = t.getValue() / DECAY;
+        if (calls > 0) {
+          add(out, e.getKey(), t.getKey(), calls);
+        }
+      }
+    }
+    return out;
+  }
+
+  private static void add(final Map<String, Map<String, Long>> traffic,
+      final String account, final String tool, final long calls) {
+    traffic.computeIfAbsent(account, k -> new LinkedHashMap<>())
+        .merge(tool, calls, Long::sum);
+  }
+
+  private void readSnapshot(final Map<String, Map<String, Long>> out) {
+    if (snapshot == null || !Files.isRegularFile(snapshot)) {
+      return;
+    }
+    try (BufferedReader in =
+        Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        final String[] f = line.split(TAB);
+        if (f.length == 3) {
+          add(out, f[0], ANY_TOOL.equals(f[1]) ? null : f[1],
+              Long.parseLong(f[2]));
+        }
+      }
+    } catch (IOException | NumberFormatException ex) {
+      LOG.warn("Warm-up snapshot {} unreadable: {}", snapshot, ex.toString());
+    }
+  }
+
+  /**
+   * Replace the snapshot atomically with the planned accounts (one line
+   * per account and tool, with that tool's calls).
+   *
+   * @param plan hottest accounts
+   */
+  private void writeSnapshot(final List<HotAccount> plan) {
+    if (snapshot == null || plan.isEmpty()) {
+      return;
+    }
+    try {
+      final Path dir = snapshot.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      final Path tmp = Files.createTempFile(dir, "warmup", ".tmp");
+      try (BufferedWriter out =
+          Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        for (HotAccount a : plan) {
+          for (Map.Entry<String, Long> t : a.byTool().entrySet()) {
+            final String tool = t.getKey() == null ? ANY_TOOL : t.getKey();
+            out.write(a.accountId() + TAB + tool + TAB + t.getValue());
+            out.newLine();
+          }
+        }
+      }
+      Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      LOG.warn("Warm-up snapshot not written: {}", ex.toString());
+    }
+  }
+
+  private void publish(final ReadinessState state) {
+    if (events != null) {
+      AvailabilityChangeEvent.publish(events, this, state);
+    }
+  }
+
+  /**
+   * One account to warm.
+   *
+   * @param accountId logical account id
+   * @param calls recent calls (ranking key)
+   * @param tools tools it was called with (empty: any)
+   * @param byTool calls per tool ({@code null} key: any)
+   */
+  record HotAccount(String accountId, long calls, Set<String> tools,
+      Map<String, Long> byTool) {
+  }
+
+  /**
+   * Outcome of a warm-up.
+   *
+   * @param state lifecycle state
+   * @param planned hot accounts found
+   * @param warmed accounts warmed before the budget ran out
+   * @param steps successful warmer calls
+   * @param failures failed warmer calls
+   * @param truncated whether the time budget cut the run short
+   * @param durationMs time taken
+   * @param finishedAt completion time ({@code null} until finished)
+   */
+  public record WarmupReport(State state, int planned, int warmed,
+      int steps, int failures, boolean truncated, long durationMs,
+      Instant finishedAt) {
+  }
+}
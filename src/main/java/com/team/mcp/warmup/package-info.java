@@ -0,0 +1,6 @@
+/**
+ * Startup warm-up: replays the hottest accounts from the tool-call audit
+ * (and the last snapshot) through every {@link AccountWarmer} before the
+ * application reports itself ready.
+ */
+package com.team.mcp.warmup;
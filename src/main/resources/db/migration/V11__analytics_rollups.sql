@@ -0,0 +1,26 @@
+-- V11__analytics_rollups.sql
+-- Running per-account analytics totals maintained by AccountAggregates:
+-- tweets per hashtag and per UTC hour of day over the full history. An
+-- account_totals row marks an account whose rollup is complete; without
+-- one, increments are skipped and the rollup is rebuilt from tweets and
+-- tweet_hashtags on first read. Deleting the row forces a rebuild.
+
+CREATE TABLE IF NOT EXISTS account_totals (
+  account_id  VARCHAR(128) PRIMARY KEY,
+  tweets      BIGINT       NOT NULL,
+  rebuilt_at  TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS account_hashtag_counts (
+  account_id  VARCHAR(128) NOT NULL,
+  tag         VARCHAR(280) NOT NULL,
+  tweets      BIGINT       NOT NULL,
+  PRIMARY KEY (account_id, tag)
+);
+
+CREATE TABLE IF NOT EXISTS account_hour_counts (
+  account_id  VARCHAR(128) NOT NULL,
+  hour_utc    SMALLINT     NOT NULL,
+  tweets      BIGINT       NOT NULL,
+  PRIMARY KEY (account_id, hour_utc)
+);
@@ -0,0 +1,13 @@
+-- V12__distinct_sketches.sql
+-- HyperLogLog counters of distinct authors (kind 'U') and distinct
+-- hashtags (kind 'T') per account and UTC hour, kept by DistinctCounts.
+-- hour_start is epoch seconds / 3600. sketch is HyperLogLog.toBytes():
+-- sparse counters are a few bytes, dense ones 2^precision + 2.
+
+CREATE TABLE IF NOT EXISTS account_hour_sketches (
+  account_id  VARCHAR(128) NOT NULL,
+  hour_start  BIGINT       NOT NULL,
+  kind        VARCHAR(1)   NOT NULL,
+  sketch      BYTEA        NOT NULL,
+  PRIMARY KEY (account_id, hour_start, kind)
+);
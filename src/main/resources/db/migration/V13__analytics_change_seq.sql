@@ -0,0 +1,12 @@
+-- V13__analytics_change_seq.sql
+-- Change-feed position (tweets.change_seq) an analytics rollup or load
+-- covers. A rebuild records the highest change_seq of the account it
+-- read; an ingest batch at or below it is already counted and its
+-- increment is skipped. The index makes that per-account maximum a
+-- single index probe instead of a scan of the account's history.
+
+ALTER TABLE account_totals ADD COLUMN IF NOT EXISTS change_seq BIGINT
+  DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_tweets_account_change_seq
+  ON tweets (account_id, change_seq);
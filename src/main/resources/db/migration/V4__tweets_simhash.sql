@@ -0,0 +1,5 @@
+-- V4__tweets_simhash.sql
+-- 64-bit SimHash fingerprint per tweet, used for near-duplicate collapsing.
+-- Nullable so rows written before this migration stay valid.
+
+ALTER TABLE tweets ADD COLUMN IF NOT EXISTS simhash BIGINT;
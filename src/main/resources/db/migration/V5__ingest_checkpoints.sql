@@ -0,0 +1,9 @@
+-- V5__ingest_checkpoints.sql
+-- Per-account high-water mark for incremental timeline ingestion
+
+CREATE TABLE IF NOT EXISTS ingest_checkpoints (
+  account_id       VARCHAR(128) PRIMARY KEY,
+  since_id         VARCHAR(64)  NOT NULL,
+  since_created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  updated_at       TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,8 @@
+-- V6__tweet_log_offsets.sql
+-- Replay position of each consumer of the local tweet log (app.ingest.log.*)
+
+CREATE TABLE IF NOT EXISTS tweet_log_offsets (
+  consumer   VARCHAR(64) PRIMARY KEY,
+  log_offset BIGINT      NOT NULL,
+  updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
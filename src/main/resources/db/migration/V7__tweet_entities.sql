@@ -0,0 +1,37 @@
+-- V7__tweet_entities.sql
+-- Hashtags, mentions and URLs extracted once at ingest time, so analytics
+-- and hashtag search aggregate over indexes instead of re-tokenizing text.
+-- created_at is copied from the tweet to order hits without a join.
+
+CREATE TABLE IF NOT EXISTS tweet_hashtags (
+  tweet_id    VARCHAR(64)  NOT NULL,
+  tag         VARCHAR(280) NOT NULL,
+  account_id  VARCHAR(128) NOT NULL,
+  created_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+  PRIMARY KEY (tweet_id, tag)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tweet_hashtags_account_tag
+  ON tweet_hashtags (account_id, tag, created_at DESC);
+
+CREATE TABLE IF NOT EXISTS tweet_mentions (
+  tweet_id    VARCHAR(64)  NOT NULL,
+  handle      VARCHAR(280) NOT NULL,
+  account_id  VARCHAR(128) NOT NULL,
+  created_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+  PRIMARY KEY (tweet_id, handle)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tweet_mentions_account_handle
+  ON tweet_mentions (account_id, handle, created_at DESC);
+
+CREATE TABLE IF NOT EXISTS tweet_urls (
+  tweet_id    VARCHAR(64)   NOT NULL,
+  url         VARCHAR(1000) NOT NULL,
+  account_id  VARCHAR(128)  NOT NULL,
+  created_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+  PRIMARY KEY (tweet_id, url)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tweet_urls_account_url
+  ON tweet_urls (account_id, url, created_at DESC);
@@ -0,0 +1,24 @@
+-- V9__tweet_changes.sql
+-- Change feed for caches in front of tweets. Every inserted row takes a
+-- change_seq from tweet_change_seq by column default, so inserts from any
+-- writer are visible in order. Deletes and bulk expiry are recorded in
+-- tweet_changes from the same sequence; both are tailed by
+-- TweetChangeDispatcher in seq order.
+-- op: 'D' = row deleted, 'P' = everything created before created_at purged.
+
+CREATE SEQUENCE IF NOT EXISTS tweet_change_seq;
+
+ALTER TABLE tweets ADD COLUMN IF NOT EXISTS change_seq BIGINT
+  DEFAULT nextval('tweet_change_seq');
+
+CREATE INDEX IF NOT EXISTS idx_tweets_change_seq
+  ON tweets (change_seq);
+
+CREATE TABLE IF NOT EXISTS tweet_changes (
+  seq         BIGINT DEFAULT nextval('tweet_change_seq') PRIMARY KEY,
+  op          VARCHAR(1)   NOT NULL,
+  tweet_id    VARCHAR(64),
+  account_id  VARCHAR(128),
+  created_at  TIMESTAMP WITH TIME ZONE,
+  changed_at  TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
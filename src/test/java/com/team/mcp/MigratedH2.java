@@ -0,0 +1,37 @@
+package com.team.mcp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Fresh in-memory H2 database in PostgreSQL mode with the application's
+ * own Flyway migrations applied ({@code db/migration} plus
+ * {@code db/vendor/h2}), for tests of JDBC code paths.
+ */
+public final class MigratedH2 {
+
+  /** Keeps database names unique within a JVM. */
+  private static final AtomicInteger SEQ = new AtomicInteger();
+
+  private MigratedH2() {
+  }
+
+  /**
+   * Create and migrate a new database.
+   *
+   * @return data source on the migrated database
+   */
+  public static DataSource create() {
+    final DataSource ds = new DriverManagerDataSource(
+        "jdbc:h2:mem:migrated" + SEQ.incrementAndGet()
+            + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    Flyway.configure()
+        .dataSource(ds)
+        .locations("classpath:db/migration", "classpath:db/vendor/h2")
+        .load()
+        .migrate();
+    return ds;
+  }
+}
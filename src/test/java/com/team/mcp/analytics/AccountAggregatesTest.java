@@ -0,0 +1,192 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.search.TweetChange;
+import com.team.mcp.twitter.FakeTwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+final class AccountAggregatesTest {
+
+  private static final Instant BASE = Instant.parse("2025-01-01T00:00:00Z");
+
+  private static Tweet tweet(final String id, final String text,
+      final long hours) {
+    return new Tweet(id, "u", text, BASE.plusSeconds(hours * 3600 + 5));
+  }
+
+  /** Aggregates on a migrated H2 database, with transactions. */
+  private static AccountAggregates aggregates(final DataSource ds) {
+    final AccountAggregates agg =
+        new AccountAggregates(new JdbcTemplate(ds), true, 10);
+    agg.setTransactionTemplate(
+        new TransactionTemplate(new DataSourceTransactionManager(ds)));
+    return agg;
+  }
+
+  /** Store a tweet and its hashtag rows as the bulk writer does. */
+  private static void store(final JdbcTemplate jdbc, final Tweet t,
+      final String... tags) {
+    final Timestamp at = Timestamp.from(t.createdAt());
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES (?, 'acctA', ?, ?, ?)", t.id(), t.user(),
+        t.text(), at);
+    for (String tag : tags) {
+      jdbc.update("INSERT INTO tweet_hashtags (tweet_id, tag, account_id, "
+          + "created_at) VALUES (?, ?, 'acctA', ?)", t.id(), tag, at);
+    }
+  }
+
+  @Test
+  void batchesAccumulateAndTopIsRankedWithTiesByTag() {
+    final AccountAggregates agg = new AccountAggregates();
+    agg.onIngested("acctA", List.of(
+        tweet("1", "#b #B hello", 9),
+        tweet("2", "#a #c", 9)));
+    agg.onIngested("acctA", List.of(
+        tweet("3", "#c again", 23),
+        tweet("4", "no tags", 33)));
+
+    final AccountAggregates.Totals t = agg.totals("acctA", 2);
+    assertEquals(4, t.tweets());
+    assertEquals(3, t.byHour()[9]);
+    assertEquals(1, t.byHour()[23]);
+    assertEquals(0, t.byHour()[0]);
+    assertEquals(List.of(new AccountAggregates.TagCount("#c", 2),
+        new AccountAggregates.TagCount("#a", 1)), t.top());
+    assertEquals(3, agg.totals("acctA", 10).top().size());
+    assertNull(agg.totals("other", 5));
+  }
+
+  @Test
+  void deletesDropTheAccountAndServiceAnswersFromTotals() {
+    final AccountAggregates agg = new AccountAggregates();
+    agg.onIngested("acctA", List.of(
+        tweet("1", "#x", 7), tweet("2", "#x #y", 7), tweet("3", "#y", 8),
+        tweet("4", "#z", 7)));
+    final AnalyticsService svc =
+        new AnalyticsService(new FakeTwitterClient(), null, "memory");
+    svc.setAggregates(agg);
+
+    assertEquals(List.of("#x", "#y"), svc.topHashtags("acctA", 2));
+    assertEquals(Map.of(7, 3, 8, 1), svc.bestHours("acctA"));
+    final AnalyticsService.Summary s = svc.summary("acctA");
+    assertEquals(4, s.totalTweets());
+    assertEquals(7, s.bestHourUtc());
+
+    agg.onChanges(List.of(new TweetChange(1L, TweetChange.Type.DELETE,
+        "acctA", new Tweet("1", null, null, BASE), null)));
+    assertNull(agg.totals("acctA", 5));
+  }
+
+  @Test
+  void firstReadRebuildsFromStoredTweetsOnce() {
+    final DataSource ds = MigratedH2.create();
+    final JdbcTemplate jdbc = new JdbcTemplate(ds);
+    final AccountAggregates agg = aggregates(ds);
+    final Tweet t1 = tweet("1", "#x #y", 7);
+    store(jdbc, t1, "#x", "#y");
+    // No rollup yet: the increment is skipped, the rebuild counts it.
+    agg.onIngested("acctA", List.of(t1));
+    store(jdbc, tweet("2", "#x", 8), "#x");
+
+    final AccountAggregates.Totals t = agg.totals("acctA", 5);
+    assertEquals(2, t.tweets());
+    assertEquals(1, t.byHour()[7]);
+    assertEquals(1, t.byHour()[8]);
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 2),
+        new AccountAggregates.TagCount("#y", 1)), t.top());
+    assertEquals(2L, (long) jdbc.queryForObject(
+        "SELECT tweets FROM account_totals WHERE account_id = 'acctA'",
+        Long.class));
+  }
+
+  @Test
+  void ingestAfterCommitPersistsInItsOwnTransaction() {
+    final DataSource ds = MigratedH2.create();
+    final JdbcTemplate jdbc = new JdbcTemplate(ds);
+    final AccountAggregates agg = aggregates(ds);
+    store(jdbc, tweet("1", "#x", 7), "#x");
+    assertEquals(1, agg.totals("acctA", 5).tweets());
+
+    final List<Tweet> batch = List.of(tweet("2", "#x #new", 7),
+        tweet("3", "#new", 9));
+    new TransactionTemplate(new DataSourceTransactionManager(ds))
+        .executeWithoutResult(s -> {
+          store(jdbc, batch.get(0), "#x", "#new");
+          store(jdbc, batch.get(1), "#new");
+          TransactionSynchronizationManager.registerSynchronization(
+              new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                  agg.onIngested("acctA", batch);
+                }
+              });
+        });
+
+    assertEquals(3, agg.totals("acctA", 5).tweets());
+    // A fresh instance loads what was committed, without a rebuild.
+    jdbc.update("DELETE FROM tweet_hashtags");
+    final AccountAggregates.Totals loaded =
+        aggregates(ds).totals("acctA", 5);
+    assertEquals(3, loaded.tweets());
+    assertEquals(2, loaded.byHour()[7]);
+    assertEquals(1, loaded.byHour()[9]);
+    assertEquals(List.of(new AccountAggregates.TagCount("#new", 2),
+        new AccountAggregates.TagCount("#x", 2)), loaded.top());
+  }
+
+  @Test
+  void batchTheRebuildAlreadyCountedIsNotAddedAgain() {
+    final DataSource ds = MigratedH2.create();
+    final JdbcTemplate jdbc = new JdbcTemplate(ds);
+    final AccountAggregates agg = aggregates(ds);
+    // Committed, but its listener runs only after the first read.
+    final Tweet t1 = tweet("1", "#x", 7);
+    store(jdbc, t1, "#x");
+    final long seq = jdbc.queryForObject("SELECT MAX(change_seq) FROM "
+        + "tweets WHERE account_id = 'acctA'", Long.class);
+    assertEquals(1, agg.totals("acctA", 5).tweets());
+
+    agg.onIngested("acctA", List.of(t1), seq);
+    assertEquals(1, agg.totals("acctA", 5).tweets());
+
+    final Tweet t2 = tweet("2", "#x", 8);
+    store(jdbc, t2, "#x");
+    agg.onIngested("acctA", List.of(t2), seq + 1);
+    assertEquals(2, agg.totals("acctA", 5).tweets());
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 2)),
+        aggregates(ds).totals("acctA", 5).top());
+  }
+
+  @Test
+  void invalidatedRollupIsRebuiltOnNextRead() {
+    final DataSource ds = MigratedH2.create();
+    final JdbcTemplate jdbc = new JdbcTemplate(ds);
+    final AccountAggregates agg = aggregates(ds);
+    store(jdbc, tweet("1", "#x", 7), "#x");
+    store(jdbc, tweet("2", "#x", 7), "#x");
+    assertEquals(2, agg.totals("acctA", 5).tweets());
+
+    jdbc.update("DELETE FROM tweet_hashtags WHERE tweet_id = '1'");
+    jdbc.update("DELETE FROM tweets WHERE id = '1'");
+    agg.invalidate("acctA");
+
+    final AccountAggregates.Totals t = agg.totals("acctA", 5);
+    assertEquals(1, t.tweets());
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 1)), t.top());
+  }
+}
@@ -0,0 +1,87 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+final class AccountCacheTest {
+
+  @Test
+  void evictsTheLeastRecentlyUsedAccount() {
+    final AccountCache<List<String>> cache = new AccountCache<>(2);
+    cache.getOrCreate("a", ArrayList::new);
+    cache.getOrCreate("b", ArrayList::new);
+    cache.get("a");
+    cache.getOrCreate("c", ArrayList::new);
+
+    assertEquals(2, cache.values().size());
+    assertNull(cache.get("b"));
+    assertEquals(List.of(), cache.get("a"));
+  }
+
+  @Test
+  void nothingStoredIsNotCached() {
+    final AccountCache<List<String>> cache = new AccountCache<>(10);
+    final AtomicInteger loads = new AtomicInteger();
+
+    assertNull(cache.load("x", id -> {
+      loads.incrementAndGet();
+      return null;
+    }));
+    assertNull(cache.get("x"));
+    assertEquals(List.of("x"), cache.load("x", id -> {
+      loads.incrementAndGet();
+      return List.of(id);
+    }));
+    assertEquals(2, loads.get());
+    assertEquals(List.of("x"), cache.load("x", id -> List.of()));
+  }
+
+  @Test
+  void batchArrivingDuringALoadRepeatsIt() {
+    final AccountCache<List<String>> cache = new AccountCache<>(10);
+    final AtomicInteger loads = new AtomicInteger();
+
+    final List<String> held = cache.load("a", id -> {
+      if (loads.incrementAndGet() == 1) {
+        // An ingest for the account lands while it is being read.
+        assertNull(cache.forIngest("a"));
+      }
+      return new ArrayList<>(List.of("load" + loads.get()));
+    });
+
+    assertEquals(List.of("load2"), held);
+    assertEquals(held, cache.forIngest("a"));
+  }
+
+  @Test
+  void busyAccountIsKeptAfterTheLastLoad() {
+    final AccountCache<List<String>> cache = new AccountCache<>(10);
+    final AtomicInteger loads = new AtomicInteger();
+
+    final List<String> held = cache.load("a", id -> {
+      loads.incrementAndGet();
+      cache.remove("a");
+      return List.of("x");
+    });
+
+    assertEquals(AccountCache.MAX_LOADS, loads.get());
+    assertEquals(List.of("x"), held);
+    assertEquals(held, cache.get("a"));
+  }
+
+  @Test
+  void batchTheLoadAlreadyReadIsSkipped() {
+    final AccountCache<List<String>> cache = new AccountCache<>(10);
+    final List<String> held = cache.loadUpTo("a",
+        id -> new AccountCache.Loaded<>(new ArrayList<>(), 7));
+
+    assertNull(cache.forIngest("a", 7));
+    assertEquals(held, cache.forIngest("a", 8));
+    assertEquals(held, cache.forIngest("a", 0));
+  }
+}
@@ -0,0 +1,131 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class ActivityWindowsTest {
+
+  /** Clock that tests move by hand. */
+  private static final class MovableClock extends Clock {
+    private Instant now;
+
+    MovableClock(final Instant start) {
+      this.now = start;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  @Test
+  void ringRotatesAndForgetsOldBuckets() {
+    final RingCounter r = new RingCounter(4);
+    r.add(10, 1);
+    r.add(11, 2);
+    r.add(9, 5);
+    assertArrayEquals(new long[] {0, 5, 1, 2}, r.series(11, 4));
+    r.add(13, 3);
+    assertArrayEquals(new long[] {1, 2, 0, 3}, r.series(13, 4));
+    r.add(9, 7); // rotated out
+    assertArrayEquals(new long[] {3, 0}, r.series(14, 2));
+    assertArrayEquals(new long[] {0, 0, 0, 0}, r.series(100, 9));
+  }
+
+  @Test
+  void seriesAndSlidingTotalsFollowTheClock() {
+    final Instant now = Instant.parse("2025-03-10T12:30:00Z");
+    final MovableClock clock = new MovableClock(now);
+    final ActivityWindows w = new ActivityWindows(clock);
+    w.onIngested("acctA", List.of(
+        new Tweet("1", "u", "a", now),
+        new Tweet("2", "u", "b", now.minusSeconds(60)),
+        new Tweet("3", "u", "c", now.minusSeconds(2 * 3_600)),
+        new Tweet("4", "u", "d", now.minusSeconds(3 * 86_400))));
+
+    final ActivityWindows.Series minutes =
+        w.series("acctA", ActivityWindows.Unit.MINUTE, 3);
+    assertEquals(List.of(0L, 1L, 1L),
+        minutes.points().stream().map(ActivityWindows.Point::tweets)
+            .toList());
+    assertEquals(Instant.parse("2025-03-10T12:30:00Z"),
+        minutes.points().get(2).start());
+    final ActivityWindows.Series days =
+        w.series("acctA", ActivityWindows.Unit.DAY, 7);
+    assertEquals(7, days.points().size());
+    assertEquals(4, days.total());
+    assertEquals(1, days.points().get(3).tweets());
+
+    assertEquals(new ActivityWindows.Totals("acctA", 2, 3, 4, now),
+        w.totals("acctA"));
+    clock.now = now.plusSeconds(3_600);
+    final ActivityWindows.Totals later = w.totals("acctA");
+    assertEquals(0, later.lastHour());
+    assertEquals(3, later.last24Hours());
+  }
+
+  @Test
+  void futureTweetsCountInTheCurrentBucket() {
+    final Instant now = Instant.parse("2025-03-10T12:30:00Z");
+    final ActivityWindows w = new ActivityWindows(new MovableClock(now));
+    w.onIngested("acctA", List.of(
+        new Tweet("1", "u", "a", now.minusSeconds(2 * 86_400)),
+        new Tweet("2", "u", "b", now.minusSeconds(600))));
+    w.onIngested("acctA", List.of(
+        new Tweet("3", "u", "c", now.plusSeconds(3 * 86_400))));
+
+    assertEquals(new ActivityWindows.Totals("acctA", 2, 2, 3, now),
+        w.totals("acctA"));
+    assertEquals(List.of(1L, 0L, 2L),
+        w.series("acctA", ActivityWindows.Unit.DAY, 3).points().stream()
+            .map(ActivityWindows.Point::tweets).toList());
+  }
+
+  @Test
+  void loadCountsStoredTweetsPerUnit() {
+    final Instant now = Instant.parse("2025-03-10T12:30:00Z");
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    int id = 0;
+    for (Instant at : List.of(now, now.minusSeconds(120),
+        now.minusSeconds(5 * 3_600), now.minusSeconds(3 * 86_400),
+        now.minusSeconds(40 * 86_400), now.plusSeconds(86_400))) {
+      jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+          + "created_at) VALUES (?, 'acctA', 'u', 'x', ?)", "t" + id++,
+          Timestamp.from(at));
+    }
+    final ActivityWindows w =
+        new ActivityWindows(jdbc, new MovableClock(now), true, 30, 10);
+
+    // The future tweet is counted now; the 40-day-old one is outside.
+    assertEquals(new ActivityWindows.Totals("acctA", 3, 4, 5, now),
+        w.totals("acctA"));
+    assertEquals(5, w.series("acctA", ActivityWindows.Unit.DAY, 30)
+        .total());
+    assertEquals(List.of(1L, 0L, 2L),
+        w.series("acctA", ActivityWindows.Unit.MINUTE, 3).points()
+            .stream().map(ActivityWindows.Point::tweets).toList());
+    assertEquals(0, w.totals("other").last7Days());
+  }
+}
@@ -0,0 +1,57 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.FakeTwitterClient;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * DB-mode analytics against in-memory H2 with the real migrations:
+ * aggregates are computed in SQL over the full history, not only the
+ * newest 100 rows.
+ */
+final class AnalyticsDbTest {
+
+  private static final int ROWS = 250;
+
+  private JdbcTemplate jdbc;
+
+  @BeforeEach
+  void migrate() {
+    jdbc = new JdbcTemplate(MigratedH2.create());
+    final Instant base = Instant.parse("2025-01-01T00:00:00Z");
+    for (int i = 0; i < ROWS; i++) {
+      // Oldest rows are all at 03:00 UTC and tagged #old.
+      final Instant at = i < 150
+          ? base.plusSeconds(3 * 3_600 + i)
+          : base.plusSeconds(86_400 + (i % 2) * 3_600 * 10 + i);
+      final String tag = i < 150 ? "#old" : "#new";
+      jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+          + "created_at) VALUES (?, 'acctA', 'u', ?, ?)", "t" + i,
+          "post " + tag, Timestamp.from(at));
+      jdbc.update("INSERT INTO tweet_hashtags (tweet_id, tag, account_id, "
+          + "created_at) VALUES (?, ?, 'acctA', ?)", "t" + i, tag,
+          Timestamp.from(at));
+    }
+  }
+
+  @Test
+  void summaryCoversTheFullHistory() {
+    final AnalyticsService svc =
+        new AnalyticsService(new FakeTwitterClient(), jdbc, "db");
+
+    assertEquals(List.of("#old", "#new"), svc.topHashtags("acctA", 5));
+    assertEquals(Map.of(3, 150, 0, 50, 10, 50), svc.bestHours("acctA"));
+    final AnalyticsService.Summary s = svc.summary("acctA");
+    assertEquals(ROWS, s.totalTweets());
+    assertEquals(3, s.bestHourUtc());
+    assertEquals("#old", s.topHashtags().get(0));
+  }
+}
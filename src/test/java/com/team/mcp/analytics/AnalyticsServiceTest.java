@@ -8,6 +8,7 @@ import com.team.mcp.twitter.dto.Tweet;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -45,4 +46,34 @@ final class AnalyticsServiceTest {
     assertEquals("#x", sum.topHashtags().get(0));
     assertTrue(sum.bestHourUtc() >= 0 && sum.bestHourUtc() <= 23);
   }
+
+  @Test
+  void summary_fetches_once() throws Exception {
+    Instant base = Instant.parse("2025-01-01T00:00:00Z");
+    List<Tweet> tweets = List.of(
+        new Tweet("a","u1","#x hello", base),
+        new Tweet("b","u2","#x #y hi", base.plusSeconds(3700)));
+    AtomicInteger calls = new AtomicInteger();
+    TwitterClient counting = new TwitterClient() {
+      @Override
+      public String postTweet(String accountId, String text) {
+        return "id";
+      }
+
+      @Override
+      public List<Tweet> getHomeTimeline(String accountId, int count) {
+        calls.incrementAndGet();
+        return tweets;
+      }
+    };
+    AnalyticsService svc = new AnalyticsService(counting, null, "memory");
+
+    AnalyticsService.Summary sum = svc.summary("acctA");
+
+    // Previously one fetch each for total, hashtags and hours.
+    assertEquals(1, calls.get());
+    assertEquals(2, sum.totalTweets());
+    assertEquals(List.of("#x", "#y"), sum.topHashtags());
+    assertEquals(0, sum.bestHourUtc());
+  }
 }
@@ -0,0 +1,121 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class DistinctCountsTest {
+
+  private static final Instant NOW = Instant.parse("2025-03-10T12:30:00Z");
+
+  private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+  private static DistinctCounts counts(final JdbcTemplate jdbc) {
+    return new DistinctCounts(jdbc, CLOCK, true, 11, 24 * 30, 10);
+  }
+
+  private static long users(final DistinctCounts dc, final String account) {
+    return dc.count(List.of(account), DistinctCounts.Kind.USERS, 168)
+        .estimate();
+  }
+
+  private static int stored(final JdbcTemplate jdbc) {
+    return jdbc.queryForObject(
+        "SELECT COUNT(*) FROM account_hour_sketches", Integer.class);
+  }
+
+  @Test
+  void windowsAndAccountsCombine() {
+    final Instant now = Instant.parse("2025-03-10T12:30:00Z");
+    final DistinctCounts dc =
+        new DistinctCounts(Clock.fixed(now, ZoneOffset.UTC), 24 * 30);
+    dc.onIngested("a", List.of(
+        new Tweet("1", "ann", "#x", now),
+        new Tweet("2", "bob", "#x #y", now.minusSeconds(3_600)),
+        new Tweet("3", "cat", "hi", now.minusSeconds(10 * 86_400))));
+    dc.onIngested("b", List.of(new Tweet("4", "ann", "#z", now)));
+
+    final DistinctCounts.DistinctCount lastHour =
+        dc.count(List.of("a"), DistinctCounts.Kind.USERS, 1);
+    assertEquals(1, lastHour.estimate());
+    assertEquals(Instant.parse("2025-03-10T12:00:00Z"), lastHour.from());
+    assertEquals(Instant.parse("2025-03-10T13:00:00Z"), lastHour.to());
+    assertEquals(2, dc.count(List.of("a"), DistinctCounts.Kind.USERS, 168)
+        .estimate());
+    assertEquals(3, dc.count(List.of("a"), DistinctCounts.Kind.USERS, 720)
+        .estimate());
+    final DistinctCounts.DistinctCount both =
+        dc.count(List.of("b", "a"), DistinctCounts.Kind.HASHTAGS, 24);
+    assertEquals(3, both.estimate());
+    assertEquals(List.of("a", "b"), both.accountIds());
+  }
+
+  @Test
+  void flushedCountersAreLoadedByTheNextInstance() {
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    final DistinctCounts dc = counts(jdbc);
+    dc.onIngested("a", List.of(
+        new Tweet("1", "ann", "#x", NOW),
+        new Tweet("2", "bob", "#y", NOW.minusSeconds(3_600))));
+    // Nothing is written by the listener itself.
+    assertEquals(0, stored(jdbc));
+
+    dc.flush();
+    assertEquals(4, stored(jdbc));
+    dc.onIngested("a", List.of(new Tweet("3", "cat", "hi", NOW)));
+    dc.flush();
+    assertEquals(4, stored(jdbc));
+
+    final DistinctCounts reloaded = counts(jdbc);
+    assertEquals(3, users(reloaded, "a"));
+    assertEquals(2, reloaded.count(List.of("a"),
+        DistinctCounts.Kind.HASHTAGS, 168).estimate());
+  }
+
+  @Test
+  void countersBuiltFromRowsAreFlushedOnce() {
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES ('1', 'a', 'ann', 'hi', ?)",
+        Timestamp.from(NOW));
+    final DistinctCounts dc = counts(jdbc);
+
+    assertEquals(1, users(dc, "a"));
+    assertEquals(0, users(dc, "unknown"));
+    dc.flush();
+    assertEquals(2, stored(jdbc));
+    dc.flush();
+    assertEquals(2, stored(jdbc));
+
+    jdbc.update("DELETE FROM tweets");
+    assertEquals(1, users(counts(jdbc), "a"));
+  }
+
+  @Test
+  void unreadableStoredCounterIsRebuiltFromRows() {
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES ('1', 'a', 'ann', 'hi', ?)",
+        Timestamp.from(NOW));
+    jdbc.update("INSERT INTO account_hour_sketches (account_id, "
+        + "hour_start, kind, sketch) VALUES ('a', ?, 'U', ?)",
+        NOW.getEpochSecond() / 3_600, new byte[] {11, 0, (byte) 0xff});
+
+    assertEquals(1, users(counts(jdbc), "a"));
+    final DistinctCounts dc = counts(jdbc);
+    users(dc, "a");
+    dc.flush();
+    assertEquals(1, users(counts(jdbc), "a"));
+    final byte[] rewritten = jdbc.queryForObject("SELECT sketch FROM "
+        + "account_hour_sketches WHERE kind = 'U'", byte[].class);
+    assertEquals(1, HyperLogLog.fromBytes(rewritten).estimate());
+  }
+}
@@ -0,0 +1,117 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class HashtagSketchesTest {
+
+  private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+
+  private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+  private static final long DAY = 86_400L;
+
+  @Test
+  void windowsMergeOnlyTheirDays() {
+    final HashtagSketches sk = new HashtagSketches(CLOCK, 30);
+    sk.onIngested("acctA", List.of(
+        new Tweet("1", "u", "#old #old", NOW.minusSeconds(20 * DAY)),
+        new Tweet("2", "u", "#old", NOW.minusSeconds(10 * DAY)),
+        new Tweet("3", "u", "#new", NOW.minusSeconds(DAY)),
+        new Tweet("4", "u", "#new #mid", NOW),
+        new Tweet("5", "u", "#gone", NOW.minusSeconds(40 * DAY))));
+
+    assertEquals(List.of(new AccountAggregates.TagCount("#mid", 1),
+        new AccountAggregates.TagCount("#new", 1)), sk.top("acctA", 5, 1));
+    assertEquals(List.of(new AccountAggregates.TagCount("#new", 2)),
+        sk.top("acctA", 1, 7));
+    assertEquals("#old", sk.top("acctA", 5, 365).get(1).tag());
+    assertEquals(3, sk.top("acctA", 5, 365).size());
+  }
+
+  @Test
+  void leastRecentlyUsedAccountIsEvicted() {
+    final HashtagSketches sk =
+        new HashtagSketches(null, CLOCK, true, 0.01, 0.99, 64, 30, 2,
+            Long.MAX_VALUE);
+    for (String a : List.of("a", "b", "c")) {
+      sk.onIngested(a, List.of(new Tweet(a, "u", "#" + a, NOW)));
+      sk.top("a", 1, 1);
+    }
+
+    assertEquals(1, sk.top("a", 5, 1).size());
+    assertNull(sk.top("b", 5, 1));
+    assertEquals(1, sk.top("c", 5, 1).size());
+  }
+
+  @Test
+  void loadsStoredTagsAndThenCountsIngest() {
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    final HashtagSketches sk =
+        new HashtagSketches(jdbc, CLOCK, true, 0.01, 0.99, 64, 30, 10,
+            Long.MAX_VALUE);
+    // Nothing stored yet: the batch is left to the first load.
+    sk.onIngested("acctA", List.of(new Tweet("1", "u", "#x", NOW)));
+    assertEquals(List.of(), sk.top("acctA", 5, 7));
+    jdbc.update("INSERT INTO tweet_hashtags (tweet_id, tag, account_id, "
+        + "created_at) VALUES ('1', '#x', 'acctA', ?)", Timestamp.from(NOW));
+
+    // Unknown accounts are not cached, so the stored row is found now.
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 1)),
+        sk.top("acctA", 5, 7));
+    sk.onIngested("acctA", List.of(new Tweet("2", "u", "#x #y", NOW)));
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 2),
+        new AccountAggregates.TagCount("#y", 1)), sk.top("acctA", 5, 7));
+  }
+
+  @Test
+  void byteBudgetBoundsTheAccountsHeld() {
+    final long perAccount =
+        new HeavyHitterSketch(0.01, 0.99, 64).bytes() * 30;
+    final HashtagSketches sk = new HashtagSketches(null, CLOCK, true, 0.01,
+        0.99, 64, 30, 10, 2 * perAccount);
+    for (String a : List.of("a", "b", "c")) {
+      sk.onIngested(a, List.of(new Tweet(a, "u", "#" + a, NOW)));
+    }
+
+    assertNull(sk.top("a", 5, 1));
+    assertEquals(1, sk.top("b", 5, 1).size());
+    assertEquals(1, sk.top("c", 5, 1).size());
+  }
+
+  @Test
+  void batchTheLoadAlreadyReadIsNotAddedAgain() {
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    final HashtagSketches sk =
+        new HashtagSketches(jdbc, CLOCK, true, 0.01, 0.99, 64, 30, 10,
+            Long.MAX_VALUE);
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES ('1', 'acctA', 'u', '#x', ?)",
+        Timestamp.from(NOW));
+    jdbc.update("INSERT INTO tweet_hashtags (tweet_id, tag, account_id, "
+        + "created_at) VALUES ('1', '#x', 'acctA', ?)", Timestamp.from(NOW));
+    final long seq = jdbc.queryForObject(
+        "SELECT MAX(change_seq) FROM tweets", Long.class);
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 1)),
+        sk.top("acctA", 5, 7));
+
+    // The batch committed before the load; its listener runs after.
+    sk.onIngested("acctA", List.of(new Tweet("1", "u", "#x", NOW)), seq);
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 1)),
+        sk.top("acctA", 5, 7));
+    sk.onIngested("acctA", List.of(new Tweet("2", "u", "#x", NOW)),
+        seq + 1);
+    assertEquals(List.of(new AccountAggregates.TagCount("#x", 2)),
+        sk.top("acctA", 5, 7));
+  }
+}
@@ -0,0 +1,66 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+final class HeavyHitterSketchTest {
+
+  /** Distinct tags in the stream; far more than the capacity. */
+  private static final int TAGS = 20_000;
+
+  /** Zipf-like draw: tag i has weight 1 / (i + 1). */
+  private static String draw(final Random rnd) {
+    final double u = rnd.nextDouble();
+    return "#t" + (int) Math.floor(Math.pow(TAGS + 1, u) - 1);
+  }
+
+  @Test
+  void heavyHittersAreFoundWithinTheErrorBound() {
+    final HeavyHitterSketch s = new HeavyHitterSketch(0.001, 0.99, 32);
+    final Map<String, Long> exact = new HashMap<>();
+    final Random rnd = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      final String tag = draw(rnd);
+      s.add(tag, 1);
+      exact.merge(tag, 1L, Long::sum);
+    }
+
+    final List<AccountAggregates.TagCount> top = s.top(5);
+    assertEquals(List.of("#t0", "#t1", "#t2", "#t3", "#t4"),
+        top.stream().map(AccountAggregates.TagCount::tag).toList());
+    final long bound = (long) Math.ceil(0.001 * s.total());
+    for (Map.Entry<String, Long> e : exact.entrySet()) {
+      final long est = s.estimate(e.getKey());
+      assertTrue(est >= e.getValue());
+      assertTrue(est - e.getValue() <= bound, e.getKey());
+    }
+  }
+
+  @Test
+  void mergedHalvesEqualTheWholeStream() {
+    final HeavyHitterSketch whole = new HeavyHitterSketch(0.01, 0.99, 8);
+    final HeavyHitterSketch a = whole.emptyCopy();
+    final HeavyHitterSketch b = whole.emptyCopy();
+    final Random rnd = new Random(7);
+    for (int i = 0; i < 50_000; i++) {
+      final String tag = draw(rnd);
+      whole.add(tag, 1);
+      (i % 2 == 0 ? a : b).add(tag, 1);
+    }
+    final HeavyHitterSketch merged = a.emptyCopy();
+    merged.merge(a);
+    merged.merge(b);
+
+    assertEquals(whole.total(), merged.total());
+    assertEquals(whole.top(3), merged.top(3));
+    assertThrows(IllegalArgumentException.class,
+        () -> merged.merge(new HeavyHitterSketch(0.1, 0.99, 8)));
+  }
+}
@@ -0,0 +1,51 @@
+package com.team.mcp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+final class HyperLogLogTest {
+
+  private static void assertNear(final long expected, final long actual,
+      final double tolerance) {
+    assertTrue(Math.abs(actual - expected) <= tolerance * expected,
+        "expected ~" + expected + " got " + actual);
+  }
+
+  @Test
+  void estimatesStayWithinAFewStandardErrors() {
+    for (int n : new int[] {10, 300, 5_000, 200_000}) {
+      final HyperLogLog h = new HyperLogLog(11);
+      for (int i = 0; i < n; i++) {
+        h.add("user" + i);
+        h.add("user" + i); // duplicates never count
+      }
+      assertNear(n, h.estimate(), 3 * h.standardError());
+    }
+  }
+
+  @Test
+  void mergeIsAUnionAndBytesRoundTrip() {
+    final HyperLogLog a = new HyperLogLog(11);
+    final HyperLogLog b = new HyperLogLog(11);
+    for (int i = 0; i < 3_000; i++) {
+      a.add("u" + i);
+      b.add("u" + (i + 1_500));
+    }
+    final HyperLogLog small = new HyperLogLog(11);
+    small.add("u1");
+    small.add("u2");
+    assertTrue(small.toBytes().length < 16);
+
+    a.merge(HyperLogLog.fromBytes(b.toBytes()));
+    assertNear(4_500, a.estimate(), 3 * a.standardError());
+    assertEquals(a.estimate(), HyperLogLog.fromBytes(a.toBytes()).estimate());
+    assertEquals(2, HyperLogLog.fromBytes(small.toBytes()).estimate());
+    assertThrows(IllegalArgumentException.class,
+        () -> a.merge(new HyperLogLog(10)));
+    assertThrows(IllegalArgumentException.class,
+        () -> HyperLogLog.fromBytes(new byte[] {11, 9}));
+  }
+}
@@ -0,0 +1,73 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class ChangeCursorTest {
+
+  private static List<TweetChange> seqs(final long... seq) {
+    final List<TweetChange> out = new ArrayList<>();
+    for (long s : seq) {
+      out.add(new TweetChange(s, TweetChange.Type.PURGE, null, null, null));
+    }
+    return out;
+  }
+
+  @Test
+  void deliversContiguousRun() {
+    final ChangeCursor c = new ChangeCursor(10, 1_000, 60_000);
+    assertEquals(3, c.advance(seqs(11, 12, 13), 0));
+    assertEquals(13, c.last());
+  }
+
+  @Test
+  void holdsBackAtGapUntilItFills() {
+    final ChangeCursor c = new ChangeCursor(10, 1_000, 60_000);
+    assertEquals(1, c.advance(seqs(11, 13, 14), 0));
+    assertEquals(11, c.last());
+    assertEquals(0, c.advance(seqs(13, 14), 500));
+    // The slow transaction commits seq 12.
+    assertEquals(3, c.advance(seqs(12, 13, 14), 600));
+    assertEquals(14, c.last());
+  }
+
+  @Test
+  void skipsGapThatNeverFillsAfterTimeout() {
+    final ChangeCursor c = new ChangeCursor(0, 1_000, 60_000);
+    assertEquals(0, c.advance(seqs(2, 3), 0));
+    assertEquals(0, c.advance(seqs(2, 3), 999));
+    assertEquals(2, c.advance(seqs(2, 3), 1_000));
+    assertEquals(3, c.last());
+  }
+
+  @Test
+  void gapsReadTogetherExpireTogether() {
+    final ChangeCursor c = new ChangeCursor(0, 1_000, 60_000);
+    assertEquals(0, c.advance(seqs(2, 4, 6), 0));
+    assertEquals(3, c.advance(seqs(2, 4, 6), 1_000));
+    assertEquals(6, c.last());
+  }
+
+  @Test
+  void passedOverSequencesAreWatchedUntilTheyCommit() {
+    final ChangeCursor c = new ChangeCursor(0, 0, 10_000);
+    assertEquals(2, c.advance(seqs(1, 3), 0));
+    assertEquals(List.of(2L), c.late(5_000));
+    c.found(2);
+    assertEquals(List.of(), c.late(5_000));
+
+    assertEquals(1, c.advance(seqs(5), 6_000));
+    assertEquals(List.of(4L), c.late(15_999));
+    assertEquals(List.of(), c.late(16_000));
+  }
+
+  @Test
+  void wideJumpsAreNotWatched() {
+    final ChangeCursor c = new ChangeCursor(0, 0, 10_000);
+    assertEquals(1, c.advance(seqs(ChangeCursor.MAX_LATE + 2), 0));
+    assertEquals(List.of(), c.late(0));
+  }
+}
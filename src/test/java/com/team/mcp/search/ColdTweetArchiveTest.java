@@ -0,0 +1,132 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.team.mcp.MigratedH2;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compress-mode retention against in-memory H2 with the real migrations.
+ */
+final class ColdTweetArchiveTest {
+
+  private static final YearMonth JAN = YearMonth.of(2025, 1);
+
+  private static final Clock MARCH = Clock.fixed(
+      Instant.parse("2025-03-10T12:00:00Z"), ZoneOffset.UTC);
+
+  /** Runs a hook once, right after the archive read its month. */
+  private static final class HookedJdbc extends JdbcTemplate {
+    private Runnable afterMonthRead = () -> { };
+
+    HookedJdbc(final DataSource ds) {
+      super(ds);
+    }
+
+    @Override
+    public void query(final String sql, final RowCallbackHandler rch,
+        final Object... args) {
+      super.query(sql, rch, args);
+      if (sql.startsWith("SELECT id, account_id")) {
+        final Runnable hook = afterMonthRead;
+        afterMonthRead = () -> { };
+        hook.run();
+      }
+    }
+  }
+
+  @TempDir
+  Path dir;
+
+  private HookedJdbc jdbc;
+
+  private ColdTweetArchive archive;
+
+  private TweetRetention retention;
+
+  @BeforeEach
+  void migrate() {
+    final DataSource ds = MigratedH2.create();
+    jdbc = new HookedJdbc(ds);
+    archive = new ColdTweetArchive(jdbc, dir.toString(), 4, 1024, 4096);
+    retention = new TweetRetention(jdbc,
+        new TransactionTemplate(new DataSourceTransactionManager(ds)),
+        MARCH, true, 1, 2, "compress");
+    retention.setColdArchive(archive);
+  }
+
+  private void insert(final String id, final String at) {
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES (?, 'acctA', 'u', ?, ?)", id, "text " + id,
+        Timestamp.from(Instant.parse(at)));
+  }
+
+  private List<String> stored() {
+    return jdbc.queryForList("SELECT id FROM tweets ORDER BY id",
+        String.class);
+  }
+
+  @Test
+  void laterRunsMergeIntoTheMonthFile() {
+    insert("t1", "2025-01-10T00:00:00Z");
+    insert("t2", "2025-01-20T00:00:00Z");
+    insert("t3", "2025-03-01T00:00:00Z");
+    retention.run();
+    assertEquals(List.of("t3"), stored());
+
+    // A straggler for January arrives after the month was archived.
+    insert("t4", "2025-01-25T00:00:00Z");
+    retention.run();
+
+    assertEquals(List.of("t3"), stored());
+    final List<ColdTweetArchive.ArchiveFile> files = archive.files();
+    assertEquals(1, files.size());
+    assertEquals(JAN, files.get(0).month());
+    assertEquals(3, files.get(0).tweets());
+    for (String id : List.of("t1", "t2", "t4")) {
+      assertEquals("text " + id, archive.find(id).tweet().text());
+    }
+  }
+
+  @Test
+  void rowsInsertedWhileArchivingAreKept() {
+    insert("t1", "2025-01-10T00:00:00Z");
+    jdbc.afterMonthRead = () -> insert("t2", "2025-01-11T00:00:00Z");
+
+    retention.run();
+
+    assertEquals(List.of("t2"), stored());
+    assertNull(archive.find("t2"));
+    retention.run();
+    assertEquals(List.of(), stored());
+    assertEquals("text t2", archive.find("t2").tweet().text());
+  }
+
+  @Test
+  void writeReportsOnlyIdsItCopied() {
+    insert("t1", "2025-01-10T00:00:00Z");
+    assertEquals(Set.of("t1"), archive.write(JAN).ids());
+    jdbc.update("DELETE FROM tweets");
+    insert("t2", "2025-01-11T00:00:00Z");
+
+    final ColdTweetArchive.Archived again = archive.write(JAN);
+    assertEquals(Set.of("t2"), again.ids());
+    assertEquals(2, again.file().tweets());
+  }
+}
@@ -0,0 +1,169 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.twitter.TwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class ColumnarTweetStoreTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  private static Tweet tweet(final String id, final String text,
+      final int minutes) {
+    return new Tweet(id, "user" + (minutes % 3), text,
+        T0.plusSeconds(minutes * 60L));
+  }
+
+  @Test
+  void roundTripsEveryColumnAndOrdersNewestFirst() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(100);
+    final List<Tweet> in = List.of(
+        tweet("1790000000000000001", "plain ascii #tag", 5),
+        tweet("seed-7", "café ☃ unicode", 1),
+        tweet("007", "leading zero id", 9),
+        tweet("abc", "", 3));
+    store.append("a", in);
+
+    final ColumnarTweetStore.View v = store.view("a");
+    assertEquals(4, v.size());
+    final List<Tweet> newestFirst = new ArrayList<>();
+    for (int k = 0; k < v.size(); k++) {
+      newestFirst.add(v.tweet(v.newest(k)));
+    }
+    assertEquals(List.of(in.get(2), in.get(0), in.get(3), in.get(1)),
+        newestFirst);
+    assertNull(store.view("b"));
+  }
+
+  @Test
+  void laterBatchesMergeIntoOrderAndPublishedViewsStayFixed() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(100);
+    store.append("a", List.of(tweet("1", "x", 10), tweet("2", "y", 20)));
+    final ColumnarTweetStore.View before = store.view("a");
+
+    store.append("a", List.of(tweet("3", "z", 15), tweet("4", "w", 30)));
+    final ColumnarTweetStore.View after = store.view("a");
+
+    assertEquals(2, before.size());
+    assertEquals("2", before.id(before.newest(0)));
+    final List<String> ids = new ArrayList<>();
+    for (int k = 0; k < after.size(); k++) {
+      ids.add(after.id(after.newest(k)));
+    }
+    assertEquals(List.of("4", "2", "3", "1"), ids);
+  }
+
+  @Test
+  void rowsAlreadyHeldAreNotAppendedTwice() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(100);
+    // An ingest lands first; a warm-up load then reads the same rows.
+    store.append("a", List.of(tweet("3", "z", 30)));
+    store.append("a", List.of(tweet("1", "x", 10), tweet("2", "y", 20),
+        tweet("3", "z", 30), tweet("2", "y", 20)));
+    // The ingest's listener call arriving after the load.
+    store.append("a", List.of(tweet("3", "z", 30), tweet("4", "w", 40)));
+
+    final ColumnarTweetStore.View v = store.view("a");
+    final List<String> ids = new ArrayList<>();
+    for (int k = 0; k < v.size(); k++) {
+      ids.add(v.id(v.newest(k)));
+    }
+    assertEquals(List.of("4", "3", "2", "1"), ids);
+  }
+
+  @Test
+  void keepsOnlyTheNewestRowsPerAccount() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(10);
+    for (int i = 0; i < 40; i++) {
+      store.append("a", List.of(tweet("t-" + i, "text " + i, i)));
+    }
+    final ColumnarTweetStore.View v = store.view("a");
+    assertTrue(v.size() >= 10 && v.size() <= 15, "size=" + v.size());
+    for (int k = 0; k < v.size(); k++) {
+      final int ord = v.newest(k);
+      assertEquals("t-" + (39 - k), v.id(ord));
+      assertEquals("text " + (39 - k), v.text(ord));
+    }
+  }
+
+  @Test
+  void lowercasedTextMatchesTokensOnBytes() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(100);
+    store.append("a", List.of(tweet("1", "Hi #Java\tand #Café", 1),
+        tweet("2", "#javascript only", 2)));
+    final ColumnarTweetStore.View v = store.view("a");
+    final int first = v.newest(1);
+
+    assertEquals("hi #java\tand #café", v.lowerText(first));
+    assertTrue(v.hasToken(first, bytes("#java")));
+    assertTrue(v.hasToken(first, bytes("#café")));
+    assertFalse(v.hasToken(first, bytes("#jav")));
+    assertFalse(v.hasToken(v.newest(0), bytes("#java")));
+    assertTrue(v.hasToken(v.newest(0), bytes("only")));
+  }
+
+  private static byte[] bytes(final String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void deletedAndPurgedRowsAreDropped() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(100);
+    store.append("a", List.of(tweet("1", "one", 10), tweet("2", "two", 20),
+        tweet("3", "three", 30)));
+    store.append("b", List.of(tweet("4", "four", 5)));
+
+    store.onChanges(List.of(
+        new TweetChange(1, TweetChange.Type.DELETE, "a",
+            new Tweet("3", null, null, null), null),
+        new TweetChange(2, TweetChange.Type.PURGE, null, null,
+            T0.plusSeconds(15 * 60))));
+
+    final ColumnarTweetStore.View v = store.view("a");
+    assertEquals(1, v.size());
+    assertEquals("two", v.text(v.newest(0)));
+    assertEquals(0, store.view("b").size());
+  }
+
+  @Test
+  void searchReadsHeldAccountsWithoutTheTimeline() {
+    final ColumnarTweetStore store = new ColumnarTweetStore(100);
+    store.append("a", List.of(
+        tweet("1", "spring boot tips", 1),
+        tweet("2", "nothing here", 2),
+        tweet("3", "more spring #java", 3)));
+    final TwitterClient failing = new TwitterClient() {
+      @Override
+      public String postTweet(final String accountId, final String text) {
+        throw new AssertionError("unexpected post");
+      }
+
+      @Override
+      public List<Tweet> getHomeTimeline(final String accountId,
+          final int count) {
+        throw new AssertionError("timeline read for " + accountId);
+      }
+    };
+    final SearchService search = new SearchService(failing);
+    search.setColumnarStore(store);
+
+    final List<String> ids = new ArrayList<>();
+    for (Tweet t : search.search("a", "spring", 0, 10)) {
+      ids.add(t.id());
+    }
+    assertEquals(List.of("3", "1"), ids);
+    assertEquals("3", search.searchHashtag("a", "#JAVA", 5).get(0).id());
+    assertEquals(List.of("3", "1"),
+        search.searchBatch(List.of("a"), "spring", 5).get("a").stream()
+            .map(Tweet::id).toList());
+  }
+}
@@ -0,0 +1,124 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.twitter.SyntheticCorpus;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class CompressedDocStoreTest {
+
+  private static final int DOCS = 5_000;
+
+  private static List<byte[]> corpus() {
+    final SyntheticCorpus c = new SyntheticCorpus(DOCS, 4, 500, 5_000, 200,
+        1.1, 30, Instant.parse("2025-01-01T00:00:00Z"), 7L);
+    final List<byte[]> out = new ArrayList<>(DOCS);
+    for (int i = 0; i < DOCS; i++) {
+      out.add(c.tweet(i).text().getBytes(StandardCharsets.UTF_8));
+    }
+    return out;
+  }
+
+  private static Path write(final Path dir, final String name,
+      final List<byte[]> docs, final byte[] dict, final int blockBytes)
+      throws IOException {
+    final Path file = dir.resolve(name);
+    try (CompressedDocStore.Writer w = new CompressedDocStore.Writer(file,
+        dict, blockBytes, Deflater.BEST_COMPRESSION)) {
+      // Reverse order: the index must not depend on insertion order.
+      for (int i = docs.size() - 1; i >= 0; i--) {
+        w.add("k" + i, docs.get(i));
+      }
+    }
+    return file;
+  }
+
+  @Test
+  void everyDocumentReadsBackAndUnknownKeysAreAbsent(@TempDir final Path dir)
+      throws IOException {
+    final List<byte[]> docs = corpus();
+    final byte[] dict =
+        CompressedDocStore.trainDictionary(docs.subList(0, 500), 16_384);
+    try (CompressedDocStore s =
+        CompressedDocStore.open(write(dir, "a.cds", docs, dict,
+            CompressedDocStore.DEFAULT_BLOCK_BYTES), 4)) {
+      assertEquals(DOCS, s.size());
+      for (int i = 0; i < DOCS; i += 7) {
+        assertArrayEquals(docs.get(i), s.get("k" + i));
+      }
+      assertNull(s.get("missing"));
+      assertTrue(s.cacheHits() > 0);
+    }
+  }
+
+  @Test
+  void trainedDictionaryShrinksSmallBlocks(@TempDir final Path dir)
+      throws IOException {
+    final List<byte[]> docs = corpus();
+    final byte[] dict =
+        CompressedDocStore.trainDictionary(docs.subList(0, 500), 16_384);
+    assertTrue(dict.length > 0 && dict.length <= 16_384);
+    try (CompressedDocStore plain =
+            CompressedDocStore.open(write(dir, "p.cds", docs, null, 4096), 4);
+        CompressedDocStore primed =
+            CompressedDocStore.open(write(dir, "d.cds", docs, dict, 4096), 4)) {
+      assertEquals(plain.rawBytes(), primed.rawBytes());
+      assertTrue(primed.compressedBytes() < plain.compressedBytes(),
+          primed.compressedBytes() + " vs " + plain.compressedBytes());
+      assertTrue(primed.rawBytes() > 3 * primed.fileBytes(),
+          primed.rawBytes() + " -> " + primed.fileBytes());
+    }
+  }
+
+  @Test
+  void repeatedKeyKeepsFirstDocumentAndBadFilesAreRejected(
+      @TempDir final Path dir) throws IOException {
+    final Path file = dir.resolve("r.cds");
+    try (CompressedDocStore.Writer w =
+        new CompressedDocStore.Writer(file, null, 64, 6)) {
+      w.add("x", new byte[] {1});
+      w.add("y", new byte[200]);
+      w.add("x", new byte[] {2});
+    }
+    try (CompressedDocStore s = CompressedDocStore.open(file, 1)) {
+      assertEquals(2, s.size());
+      assertArrayEquals(new byte[] {1}, s.get("x"));
+      assertEquals(200, s.get("y").length);
+    }
+    final Path junk = Files.write(dir.resolve("junk"), new byte[64]);
+    assertThrows(IOException.class, () -> CompressedDocStore.open(junk, 1));
+  }
+
+  @Test
+  void forEachVisitsEveryDocumentOnceInFileOrder(@TempDir final Path dir)
+      throws IOException {
+    final List<byte[]> docs = corpus().subList(0, 300);
+    final byte[] dict = CompressedDocStore.trainDictionary(docs, 4096);
+    try (CompressedDocStore s = CompressedDocStore.open(
+        write(dir, "f.cds", docs, dict, 1024), 1)) {
+      final List<String> keys = new ArrayList<>();
+      s.forEach((k, doc) -> {
+        assertArrayEquals(docs.get(Integer.parseInt(k.substring(1))), doc);
+        keys.add(k);
+      });
+      assertEquals(300, keys.size());
+      // Written in reverse, so file order starts with the last key.
+      assertEquals("k299", keys.get(0));
+      assertArrayEquals(dict, s.dictionary());
+      assertEquals(0, s.cacheMisses());
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.twitter.FakeTwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+final class HashtagSuggesterTest {
+
+  @Test
+  void cachedTopKMatchesBruteForce() {
+    final CompletionTrie trie = new CompletionTrie(3);
+    final Map<String, Long> counts = new HashMap<>();
+    final String[] vocab = {"#la", "#launch", "#launchday", "#laugh",
+        "#lazy", "#lb", "#m", "#mlaunch"};
+    final Random rnd = new Random(7);
+    for (int i = 0; i < 2000; i++) {
+      final String t = vocab[rnd.nextInt(vocab.length)];
+      trie.add(t, 1);
+      counts.merge(t, 1L, Long::sum);
+    }
+
+    for (String p : List.of("", "#", "#l", "#la", "#lau", "#m", "#x")) {
+      final List<Suggestion> expected = new ArrayList<>();
+      counts.forEach((t, c) -> {
+        if (t.startsWith(p)) {
+          expected.add(new Suggestion(t, c));
+        }
+      });
+      expected.sort(Comparator.comparingLong(Suggestion::count).reversed()
+          .thenComparing(Suggestion::term));
+      assertEquals(expected.subList(0, Math.min(3, expected.size())),
+          trie.complete(p, 10), p);
+    }
+  }
+
+  @Test
+  void warmsFromTimelineAndCountsIngest() {
+    final HashtagSuggester s = new HashtagSuggester(new FakeTwitterClient());
+    final List<Suggestion> warm = s.suggest("acctA", "#1", 3);
+    assertEquals(3, warm.size());
+    assertTrue(warm.get(0).term().startsWith("#1"));
+
+    final Instant now = Instant.parse("2025-02-01T00:00:00Z");
+    s.onIngested("acctA", List.of(
+        new Tweet("n1", "u", "going to #Launch!", now),
+        new Tweet("n2", "u", "#launch #launch @Lead", now)));
+    assertEquals(List.of(new Suggestion("#launch", 2)),
+        s.suggest("acctA", "#LAU", 5));
+    assertEquals(List.of(new Suggestion("@lead", 1)),
+        s.suggest("acctA", "@l", 5));
+  }
+
+  @Test
+  void ingestBeforeFirstSuggestStillLoadsHistoryOnce() {
+    final HashtagSuggester s = new HashtagSuggester(new FakeTwitterClient());
+    final Instant now = Instant.parse("2025-02-01T00:00:00Z");
+    s.onIngested("acctA", List.of(
+        new Tweet("seed-7", "user2", "Hello from seed tweet #7", now),
+        new Tweet("n1", "u", "#7 again", now)));
+
+    assertEquals(List.of(new Suggestion("#7", 2)), s.suggest("acctA", "#7", 1));
+    assertEquals(3, s.suggest("acctA", "#1", 3).size());
+    s.warmUp("acctA");
+    assertEquals(List.of(new Suggestion("#7", 2)), s.suggest("acctA", "#7", 1));
+  }
+
+  @Test
+  void leastRecentlyUsedAccountIsDroppedAndWarmedAgain() {
+    final HashtagSuggester s =
+        new HashtagSuggester(new FakeTwitterClient(), 2);
+    final Instant now = Instant.parse("2025-02-01T00:00:00Z");
+    for (String a : List.of("acctA", "acctB", "acctC")) {
+      s.onIngested(a, List.of(new Tweet(a, "u", "#zz" + a, now)));
+      s.suggest("acctA", "#zz", 1);
+    }
+
+    assertEquals(List.of(new Suggestion("#zzacctc", 1)),
+        s.suggest("acctC", "#zz", 5));
+    assertEquals(List.of(new Suggestion("#zzaccta", 1)),
+        s.suggest("acctA", "#zz", 5));
+    // acctB was evicted: warmed again from its timeline, its ingest gone.
+    assertEquals(List.of(), s.suggest("acctB", "#zz", 5));
+  }
+}
@@ -0,0 +1,146 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.FakeTwitterClient;
+import com.team.mcp.twitter.TwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class IncrementalIngestTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  /** Timeline with {@code fresh} tweets after the checkpoint "old". */
+  private static final class GapClient implements TwitterClient {
+    private final int fresh;
+    private final List<Integer> asked = new ArrayList<>();
+
+    GapClient(final int freshCount) {
+      this.fresh = freshCount;
+    }
+
+    @Override
+    public String postTweet(final String accountId, final String text) {
+      return "x";
+    }
+
+    @Override
+    public List<Tweet> getHomeTimeline(
+        final String accountId, final int count) {
+      return getHomeTimeline(accountId, count, null);
+    }
+
+    @Override
+    public List<Tweet> getHomeTimeline(
+        final String accountId, final int count, final String sinceId) {
+      asked.add(count);
+      final List<Tweet> out = new ArrayList<>();
+      for (int i = fresh - 1; i >= 0 && out.size() < count; i--) {
+        out.add(new Tweet("n" + i, "u", "new " + i, T0.plusSeconds(10 + i)));
+      }
+      return out;
+    }
+  }
+
+  private static TweetIngestor ingestor(final GapClient client,
+      final IngestCheckpointRepository repo, final int maxFetch) {
+    return new TweetIngestor(client,
+        new TweetBulkWriter(new JdbcTemplate(MigratedH2.create()), 1000),
+        List.of(), repo, Clock.fixed(T0.plusSeconds(99), ZoneOffset.UTC),
+        maxFetch);
+  }
+
+  @Test
+  void fakeReturnsOnlyTweetsAfterCursor() {
+    final FakeTwitterClient fake = new FakeTwitterClient();
+
+    assertEquals(10, fake.getHomeTimeline("acctA", 10, null).size());
+    final List<Tweet> after = fake.getHomeTimeline("acctA", 10, "seed-6");
+    assertEquals(List.of("seed-7", "seed-8", "seed-9"),
+        after.stream().map(Tweet::id).toList());
+    assertTrue(fake.getHomeTimeline("acctA", 10, "seed-9").isEmpty());
+  }
+
+  @Test
+  void defaultOverloadCutsNewestFirstListAtCursor()
+      throws TwitterClient.TwitterException {
+    final List<Tweet> newestFirst = List.of(
+        new Tweet("c", "u", "3", T0.plusSeconds(3)),
+        new Tweet("b", "u", "2", T0.plusSeconds(2)),
+        new Tweet("a", "u", "1", T0.plusSeconds(1)));
+    final TwitterClient client = new TwitterClient() {
+      @Override
+      public String postTweet(final String accountId, final String text) {
+        return "x";
+      }
+
+      @Override
+      public List<Tweet> getHomeTimeline(
+          final String accountId, final int count) {
+        return newestFirst;
+      }
+    };
+
+    assertEquals(List.of(newestFirst.get(0)),
+        client.getHomeTimeline("acctA", 3, "b"));
+    assertEquals(newestFirst, client.getHomeTimeline("acctA", 3, "zz"));
+  }
+
+  @Test
+  void checkpointOnlyMovesForward() {
+    final IngestCheckpoint cp =
+        new IngestCheckpoint("acctA", "b", T0.plusSeconds(2), T0);
+
+    assertFalse(cp.advance("a", T0.plusSeconds(1), T0.plusSeconds(9)));
+    assertFalse(cp.advance("b", T0.plusSeconds(2), T0.plusSeconds(9)));
+    assertTrue(cp.advance("c", T0.plusSeconds(2), T0.plusSeconds(9)));
+    assertEquals("c", cp.getSinceId());
+    assertEquals(T0.plusSeconds(9), cp.getUpdatedAt());
+  }
+
+  @Test
+  void fullWindowWidensUntilTheCheckpointIsReached() throws Exception {
+    final IngestCheckpoint cp = new IngestCheckpoint("acctA", "old", T0, T0);
+    final IngestCheckpointRepository repo =
+        mock(IngestCheckpointRepository.class);
+    when(repo.findById("acctA")).thenReturn(Optional.of(cp));
+    final GapClient client = new GapClient(25);
+
+    assertEquals(25, ingestor(client, repo, 3200)
+        .ingestFromTimeline("acctA", 10));
+    assertEquals(List.of(10, 20, 40), client.asked);
+    verify(repo).save(cp);
+    assertEquals("n24", cp.getSinceId());
+  }
+
+  @Test
+  void checkpointStaysWhenTheGapCannotBeClosed() throws Exception {
+    final IngestCheckpoint cp = new IngestCheckpoint("acctA", "old", T0, T0);
+    final IngestCheckpointRepository repo =
+        mock(IngestCheckpointRepository.class);
+    when(repo.findById("acctA")).thenReturn(Optional.of(cp));
+    final GapClient client = new GapClient(25);
+
+    assertEquals(20, ingestor(client, repo, 20)
+        .ingestFromTimeline("acctA", 10));
+    assertEquals(List.of(10, 20), client.asked);
+    verify(repo, never()).save(any());
+    assertEquals("old", cp.getSinceId());
+  }
+}
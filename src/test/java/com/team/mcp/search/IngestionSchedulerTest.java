@@ -0,0 +1,88 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.auth.TokenStore;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+final class IngestionSchedulerTest {
+
+  /** Token store with a fixed account list. */
+  private static TokenStore accounts(final String... ids) {
+    return new TokenStore() {
+      @Override
+      public Optional<String> get(final String accountId) {
+        return Optional.empty();
+      }
+
+      @Override
+      public void put(final String accountId, final String token) {
+        // unused
+      }
+
+      @Override
+      public List<String> listAccounts() {
+        return List.of(ids);
+      }
+    };
+  }
+
+  /** Ingestor that blocks until released and reports 5 new rows. */
+  private static final class BlockingIngestor extends TweetIngestor {
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    BlockingIngestor() {
+      super(null, null, null, null, null, 0);
+    }
+
+    @Override
+    public int ingestFromTimeline(final String accountId, final int count) {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return 5;
+    }
+  }
+
+  @Test
+  void accountsAreSingleFlightAndMetricsRecorded() throws Exception {
+    final BlockingIngestor ingestor = new BlockingIngestor();
+    final IngestionScheduler s = new IngestionScheduler(ingestor,
+        accounts("acctA", "acctB"), Clock.systemUTC(), true, 1, 0, 4, 10);
+    try {
+      assertEquals(2, s.tick());
+      assertEquals(0, s.tick());
+
+      ingestor.release.countDown();
+      final long deadline = System.currentTimeMillis() + 5_000;
+      while (s.metrics().stream().anyMatch(m -> m.runs() == 0)
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      final List<IngestionScheduler.AccountMetrics> m = s.metrics();
+      assertEquals("acctA", m.get(0).accountId());
+      assertEquals(1, m.get(0).runs());
+      assertEquals(5, m.get(1).ingested());
+      assertTrue(m.get(1).lagMs() >= 0);
+    } finally {
+      s.shutdown();
+    }
+  }
+
+  @Test
+  void disabledSchedulerDoesNothing() {
+    final IngestionScheduler s = new IngestionScheduler(
+        new BlockingIngestor(), accounts("acctA"), Clock.systemUTC(),
+        false, 1, 0, 4, 10);
+    assertEquals(0, s.tick());
+    assertTrue(s.metrics().isEmpty());
+  }
+}
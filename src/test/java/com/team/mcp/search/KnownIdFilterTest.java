@@ -0,0 +1,74 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+final class KnownIdFilterTest {
+
+  @Test
+  void neverForgetsAndStaysNearTargetRateWhileGrowing() {
+    final ScalableBloomFilter f = new ScalableBloomFilter(1_000, 0.01);
+    final int n = 20_000;
+    for (int i = 0; i < n; i++) {
+      f.add("id-" + i);
+    }
+    for (int i = 0; i < n; i++) {
+      assertTrue(f.mightContain("id-" + i));
+    }
+    assertTrue(f.stageCount() > 1);
+
+    int falsePositives = 0;
+    final int probes = 50_000;
+    for (int i = 0; i < probes; i++) {
+      if (f.mightContain("other-" + i)) {
+        falsePositives++;
+      }
+    }
+    // Compound bound is 2 x 1% for a halving series.
+    assertTrue(falsePositives < probes * 0.02, "fp=" + falsePositives);
+  }
+
+  @Test
+  void serializedFilterAnswersTheSame() throws IOException {
+    final ScalableBloomFilter f = new ScalableBloomFilter(100, 0.01);
+    for (int i = 0; i < 500; i++) {
+      f.add("id-" + i);
+    }
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    f.writeTo(new DataOutputStream(bytes));
+    final ScalableBloomFilter g = ScalableBloomFilter.readFrom(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertEquals(f.size(), g.size());
+    assertEquals(f.stageCount(), g.stageCount());
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals(f.mightContain("id-" + i), g.mightContain("id-" + i));
+    }
+  }
+
+  @Test
+  void snapshotSurvivesRestart() throws IOException {
+    final Path dir = Files.createTempDirectory("known-ids");
+    final String file = dir.resolve("ids.bloom").toString();
+    final KnownIdFilter a = new KnownIdFilter(null, file, 100, 0.01);
+    a.load();
+    a.add("t1");
+    a.persist();
+
+    final KnownIdFilter b = new KnownIdFilter(null, file, 100, 0.01);
+    assertFalse(b.mightContain("t1"));
+    b.load();
+    assertTrue(b.mightContain("t1"));
+    assertEquals(1, b.size());
+  }
+}
@@ -0,0 +1,102 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.team.mcp.twitter.TwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Covers SimHash fingerprints, the ingest-time LSH index and
+ * collapse=near_duplicates in SearchService.
+ */
+final class NearDuplicateTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  void retweetsAndTemplatesAreClose_unrelatedTextIsFar() {
+    long orig = SimHash.fingerprint("Big launch today for the new rocket #space");
+    long rt = SimHash.fingerprint(
+        "RT @nasa: Big launch today for the new rocket #space");
+    long templ1 = SimHash.fingerprint("Hello from seed tweet #1");
+    long templ2 = SimHash.fingerprint("Hello from seed tweet #2");
+    long other = SimHash.fingerprint("Totally unrelated text about pasta");
+
+    assertEquals(0, SimHash.distance(orig, rt));
+    assertTrue(SimHash.distance(templ1, templ2) <= 3);
+    assertTrue(SimHash.distance(orig, other) > 3);
+  }
+
+  @Test
+  void indexAssignsSameRepresentativeToCluster() {
+    NearDuplicateIndex idx = new NearDuplicateIndex();
+    idx.onIngested("acctA", List.of(
+        new Tweet("a", "u", "Hello from seed tweet #1", T0),
+        new Tweet("b", "u", "Hello from seed tweet #2", T0),
+        new Tweet("c", "u", "Something else entirely here", T0)));
+
+    Tweet a = new Tweet("a", "u", "ignored", T0);
+    Tweet b = new Tweet("b", "u", "ignored", T0);
+    Tweet c = new Tweet("c", "u", "ignored", T0);
+    assertEquals(idx.representative(a), idx.representative(b));
+    assertTrue(idx.representative(a) != idx.representative(c));
+  }
+
+  @Test
+  void indexEvictsOldestFingerprintsPastCapacity() {
+    NearDuplicateIndex idx = new NearDuplicateIndex(2);
+    idx.onIngested("acctA", List.of(
+        new Tweet("a", "u", "Hello from seed tweet #1", T0),
+        new Tweet("b", "u", "Something else entirely here", T0),
+        new Tweet("c", "u", "Totally unrelated text about pasta", T0)));
+
+    assertEquals(2, idx.size());
+    Tweet a = new Tweet("a", "u", "ignored", T0);
+    assertEquals(SimHash.fingerprint("ignored"), idx.representative(a));
+    long fresh = SimHash.fingerprint("Hello from seed tweet #2");
+    assertEquals(fresh, idx.add("d", fresh));
+  }
+
+  @Test
+  void deletedAndPurgedFingerprintsAreDropped() {
+    NearDuplicateIndex idx = new NearDuplicateIndex();
+    idx.onIngested("acctA", List.of(
+        new Tweet("a", "u", "Hello from seed tweet #1", T0),
+        new Tweet("b", "u", "Something else entirely here", T0),
+        new Tweet("c", "u", "Totally unrelated text about pasta",
+            T0.plusSeconds(60))));
+
+    idx.onChanges(List.of(new TweetChange(1, TweetChange.Type.DELETE,
+        "acctA", new Tweet("c", null, null, null), null)));
+    assertEquals(2, idx.size());
+    idx.onChanges(List.of(new TweetChange(2, TweetChange.Type.PURGE,
+        null, null, T0.plusSeconds(1))));
+    assertEquals(0, idx.size());
+    long fresh = SimHash.fingerprint("Hello from seed tweet #2");
+    assertEquals(fresh, idx.add("d", fresh));
+  }
+
+  @Test
+  void searchCollapsesNearDuplicates() throws Exception {
+    TwitterClient tw = mock(TwitterClient.class);
+    when(tw.getHomeTimeline("acctA", 200)).thenReturn(List.of(
+        new Tweet("1", "u", "Hello from seed tweet #1", T0.plusSeconds(3)),
+        new Tweet("2", "u", "Hello from seed tweet #2", T0.plusSeconds(2)),
+        new Tweet("3", "u", "RT @x: Hello from seed tweet #1",
+            T0.plusSeconds(1)),
+        new Tweet("4", "u", "hello world, different words", T0)));
+
+    SearchService svc = new SearchService(tw);
+
+    assertEquals(4, svc.search("acctA", "hello", 0, 10).size());
+    List<Tweet> collapsed = svc.search("acctA", "hello", 0, 10, true);
+    assertEquals(List.of("1", "4"),
+        collapsed.stream().map(Tweet::id).toList());
+  }
+}
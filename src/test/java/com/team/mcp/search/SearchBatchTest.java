@@ -0,0 +1,67 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.FakeTwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class SearchBatchTest {
+
+  private final SearchService svc = new SearchService(new FakeTwitterClient());
+
+  @Test
+  void matchesPerAccountSearch() {
+    final String q = "\"seed tweet #1\" OR #52";
+    final Map<String, List<Tweet>> r =
+        svc.searchBatch(List.of("acctB", "acctA"), q, 5);
+
+    assertEquals(List.of("acctB", "acctA"), new ArrayList<>(r.keySet()));
+    assertEquals(svc.search("acctA", q, 0, 5), r.get("acctA"));
+    assertEquals(svc.search("acctB", q, 0, 5), r.get("acctB"));
+  }
+
+  @Test
+  void ignoresBlankAndRepeatedAccounts() {
+    final Map<String, List<Tweet>> r =
+        svc.searchBatch(List.of("acctA", " ", "acctA"), "hello", 3);
+
+    assertEquals(1, r.size());
+    assertEquals(3, r.get("acctA").size());
+    assertTrue(svc.searchBatch(List.of(), "hello", 3).isEmpty());
+  }
+
+  @Test
+  void dbSourceReadsEachAccountsNewestRows() {
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    final Instant t0 = Instant.parse("2025-03-10T12:00:00Z");
+    for (int i = 0; i < 300; i++) {
+      for (String acct : List.of("acctA", "acctB")) {
+        jdbc.update("INSERT INTO tweets (id, account_id, user_handle, "
+            + "text, created_at) VALUES (?, ?, 'u', ?, ?)", acct + i, acct,
+            "hello " + i, Timestamp.from(t0.plusSeconds(i)));
+      }
+    }
+    final SearchService db =
+        new SearchService(new FakeTwitterClient(), jdbc, "db");
+
+    final Map<String, List<Tweet>> r =
+        db.searchBatch(List.of("acctA", "acctB", "none"), "hello", 3);
+
+    assertEquals(List.of("acctA299", "acctA298", "acctA297"),
+        r.get("acctA").stream().map(Tweet::id).toList());
+    assertEquals(3, r.get("acctB").size());
+    assertTrue(r.get("none").isEmpty());
+    // Rows older than the newest 200 per account are not read.
+    assertTrue(db.searchBatch(List.of("acctA"), "\"hello 50\"", 3)
+        .get("acctA").isEmpty());
+  }
+}
@@ -0,0 +1,50 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.team.mcp.twitter.TwitterClient;
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Covers highlight offsets recorded during matching and snippet building.
+ */
+final class SearchHighlightTest {
+
+  @Test
+  void matchRecordsMergedSpansOfBestClause() {
+    SearchQuery q = SearchQuery.parse("rocket \"new rocket\" OR zzz");
+    SearchQuery.Match m = q.match("the new rocket flies");
+
+    assertEquals(3, m.score());
+    // "new rocket" [4,14) swallows "rocket" [8,14)
+    assertEquals(2, m.spans().length);
+    assertEquals(4, m.spans()[0]);
+    assertEquals(14, m.spans()[1]);
+    assertNull(q.match("nothing here"));
+  }
+
+  @Test
+  void searchHitsCarryOffsetsIntoOriginalText() throws Exception {
+    TwitterClient tw = mock(TwitterClient.class);
+    String text = "x".repeat(50) + " Hello World " + "y".repeat(200);
+    when(tw.getHomeTimeline("acctA", 200)).thenReturn(List.of(
+        new Tweet("t1", "u", text, Instant.parse("2025-01-01T00:00:00Z"))));
+
+    SearchService svc = new SearchService(tw);
+    List<SearchHit> hits = svc.searchHits("acctA", "world hello", 0, 5, false);
+
+    assertEquals(1, hits.size());
+    SearchHit h = hits.get(0);
+    assertEquals(List.of(new SearchHit.Span(51, 56),
+        new SearchHit.Span(57, 62)), h.highlights());
+    assertEquals(21, h.snippetStart());
+    assertEquals(100, h.snippet().length());
+    assertEquals("Hello", text.substring(51, 56));
+  }
+}
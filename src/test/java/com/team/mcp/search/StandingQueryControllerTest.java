@@ -0,0 +1,40 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class StandingQueryControllerTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  void matchesAreSentOffTheIngestThreadAndOverflowCloses() {
+    final StandingQueryRegistry reg = new StandingQueryRegistry();
+    final List<Runnable> sends = new ArrayList<>();
+    final StandingQueryController c =
+        new StandingQueryController(reg, 60_000, 2, sends::add);
+    assertEquals(200, c.watch("acctA", "hello").getStatusCode().value());
+
+    reg.onIngested("acctA", List.of(
+        new Tweet("1", "u", "hello", T0),
+        new Tweet("2", "u", "hello again", T0)));
+    // Queued for one send task; nothing was sent on this thread.
+    assertEquals(1, sends.size());
+    assertEquals(1, reg.size());
+
+    reg.onIngested("acctA", List.of(new Tweet("3", "u", "hello", T0)));
+    assertEquals(0, reg.size());
+  }
+
+  @Test
+  void emptyClauseIsRejected() {
+    final StandingQueryController c = new StandingQueryController(
+        new StandingQueryRegistry(), 60_000, 2, Runnable::run);
+    assertEquals(400, c.watch("acctA", " ").getStatusCode().value());
+  }
+}
@@ -0,0 +1,86 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Covers StandingQueryRegistry: anchoring, confirmation, account scoping
+ * and unregistering.
+ */
+final class StandingQueryRegistryTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  void matchesAreConfirmedAndScopedToAccount() {
+    StandingQueryRegistry reg = new StandingQueryRegistry();
+    List<String> hits = new ArrayList<>();
+    reg.register("acctA", "launch \"new rocket\" OR #release",
+        (q, t) -> hits.add(t.id()));
+
+    reg.onIngested("acctA", List.of(
+        new Tweet("1", "u", "Launch of the NEW rocket today!", T0),
+        new Tweet("2", "u", "launch delayed", T0),
+        new Tweet("3", "u", "see #release notes", T0)));
+    reg.onIngested("acctB", List.of(
+        new Tweet("4", "u", "#release elsewhere", T0)));
+
+    assertEquals(List.of("1", "3"), hits);
+  }
+
+  @Test
+  void unregisterStopsNotifications() {
+    StandingQueryRegistry reg = new StandingQueryRegistry();
+    List<String> hits = new ArrayList<>();
+    StandingQuery q = reg.register("acctA", "hello", (x, t) -> hits.add(t.id()));
+
+    assertTrue(reg.unregister(q.id()));
+    assertEquals(0, reg.percolate("acctA", new Tweet("1", "u", "hello", T0)));
+    assertTrue(hits.isEmpty());
+    assertEquals(0, reg.size());
+  }
+
+  @Test
+  void blankClauseIsRejected() {
+    StandingQueryRegistry reg = new StandingQueryRegistry();
+    assertThrows(IllegalArgumentException.class,
+        () -> reg.register("acctA", "   ", (q, t) -> { }));
+  }
+
+  @Test
+  void matchesWhatSearchMatchesInsideWords() {
+    StandingQueryRegistry reg = new StandingQueryRegistry();
+    List<String> hits = new ArrayList<>();
+    reg.register("acctA", "launch", (q, t) -> hits.add(t.id()));
+    reg.register("acctA", "ai", (q, t) -> hits.add("ai-" + t.id()));
+
+    reg.onIngested("acctA", List.of(
+        new Tweet("1", "u", "Relaunching soon", T0),
+        new Tweet("2", "u", "said nothing", T0),
+        new Tweet("3", "u", "nothing here", T0)));
+
+    assertEquals(List.of("1", "ai-2"), hits);
+  }
+
+  @Test
+  void unregisterDropsFrequenciesNoQueryUses() {
+    StandingQueryRegistry reg = new StandingQueryRegistry();
+    StandingQuery a = reg.register("acctA", "rocket", (q, t) -> { });
+    StandingQuery b = reg.register("acctB", "rocket OR moon", (q, t) -> { });
+    assertEquals(StandingQueryRegistry.grams("rocket").size() + 2,
+        reg.watchedGrams());
+
+    assertTrue(reg.unregister(b.id()));
+    assertEquals(StandingQueryRegistry.grams("rocket").size(),
+        reg.watchedGrams());
+    assertTrue(reg.unregister(a.id()));
+    assertEquals(0, reg.watchedGrams());
+  }
+}
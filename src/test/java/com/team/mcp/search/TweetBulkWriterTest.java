@@ -0,0 +1,273 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.MigratedH2;
+import com.team.mcp.twitter.dto.Tweet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Bulk insert path against in-memory H2 with the real migrations.
+ */
+final class TweetBulkWriterTest {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TweetBulkWriterTest.class);
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  /** Tweets per run of the opt-in throughput comparison. */
+  private static final int BENCH_TWEETS = 100_000;
+
+  /** Counts probes and insert batches on top of a real database. */
+  private static final class CountingJdbc extends JdbcTemplate {
+    private int probes;
+    private int batches;
+    private int exactBatches;
+    private boolean noInfo;
+    private Runnable afterProbe = () -> { };
+
+    CountingJdbc(final DataSource ds) {
+      super(ds);
+    }
+
+    @Override
+    public <T> List<T> queryForList(
+        final String sql, final Class<T> type, final Object... args) {
+      probes++;
+      final List<T> out = super.queryForList(sql, type, args);
+      afterProbe.run();
+      return out;
+    }
+
+    @Override
+    public int[] batchUpdate(
+        final String sql, final BatchPreparedStatementSetter pss) {
+      batches++;
+      final int[] counts = super.batchUpdate(sql, pss);
+      if (!sql.contains("VALUES")) {
+        exactBatches++;
+      } else if (noInfo) {
+        // What a driver that rewrites batches into multi-row inserts says.
+        Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+      }
+      return counts;
+    }
+  }
+
+  private CountingJdbc jdbc;
+
+  @BeforeEach
+  void migrate() {
+    jdbc = new CountingJdbc(MigratedH2.create());
+  }
+
+  private static Tweet tweet(final String id) {
+    return new Tweet(id, "u", "text " + id, T0);
+  }
+
+  private void store(final String id) {
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES (?, 'acctA', 'u', ?, ?)", id, "text " + id,
+        Timestamp.from(T0));
+  }
+
+  private int rows(final String table) {
+    return jdbc.queryForObject(
+        "SELECT COUNT(*) FROM " + table, Integer.class);
+  }
+
+  @Test
+  void dedupesProbesOncePerChunkAndCountsConflicts() {
+    store("t2");
+    // t4 is written by someone else between the second probe and insert.
+    jdbc.afterProbe = () -> {
+      if (jdbc.probes == 2) {
+        store("t4");
+      }
+    };
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 3);
+
+    final List<Tweet> in = Arrays.asList(tweet("t1"), tweet("t2"),
+        tweet("t1"), tweet("t3"), tweet("t4"), tweet("t5"));
+    final List<Tweet> out = w.write("acctA", in);
+
+    assertEquals(List.of("t1", "t3", "t5"),
+        out.stream().map(Tweet::id).toList());
+    assertEquals(2, jdbc.probes);
+    assertEquals(2, jdbc.batches);
+    assertEquals(5, rows("tweets"));
+  }
+
+  @Test
+  void skipsEverythingWhenAllStored() {
+    store("t1");
+    store("t2");
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 0);
+
+    assertEquals(List.of(),
+        w.write("acctA", List.of(tweet("t1"), tweet("t2"))));
+    assertEquals(0, jdbc.batches);
+    assertEquals(TweetBulkWriter.DEFAULT_BATCH_SIZE, w.batchSize());
+  }
+
+  @Test
+  void knownIdFilterSkipsProbeForFreshIds() {
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 10);
+    final KnownIdFilter known = new KnownIdFilter();
+    w.setKnownIds(known);
+
+    final List<Tweet> first = List.of(tweet("t1"), tweet("t2"));
+    assertEquals(2, w.write("acctA", first).size());
+    assertEquals(0, jdbc.probes);
+    assertTrue(known.mightContain("t1"));
+
+    // A re-fetch of the same tweets is probed and skipped without writes.
+    assertEquals(List.of(), w.write("acctA", first));
+    assertEquals(1, jdbc.probes);
+    assertEquals(1, jdbc.batches);
+  }
+
+  @Test
+  void missedIdsAreStillCaughtByConflictTolerantInsert() {
+    store("t1");
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 10);
+    w.setKnownIds(new KnownIdFilter());
+
+    final List<Tweet> out = w.write("acctA", List.of(tweet("t1"), tweet("t2")));
+
+    assertEquals(List.of("t2"), out.stream().map(Tweet::id).toList());
+    assertEquals(0, jdbc.probes);
+    assertEquals(2, rows("tweets"));
+  }
+
+  @Test
+  void noInfoCountsOnlyTrustedForProbedIds() {
+    jdbc.noInfo = true;
+    store("t1");
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 10);
+    final KnownIdFilter known = new KnownIdFilter();
+    w.setKnownIds(known);
+
+    // t1 is stored but unknown to the filter: never reported as new.
+    assertTrue(w.write("acctA", List.of(tweet("t1"), tweet("t2")))
+        .stream().noneMatch(t -> "t1".equals(t.id())));
+
+    // From then on unprobed ids go through the exact insert.
+    store("t3");
+    known.add("t4");
+    final List<Tweet> out = w.write("acctA",
+        List.of(tweet("t3"), tweet("t4"), tweet("t5")));
+    assertEquals(List.of("t4", "t5"), out.stream().map(Tweet::id).toList());
+    assertEquals(1, jdbc.exactBatches);
+    assertEquals(5, rows("tweets"));
+  }
+
+  @Test
+  void unknownOutcomesOfOneBatchAreAllHandledAlike() {
+    jdbc.noInfo = true;
+    store("t1");
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 10);
+    w.setKnownIds(new KnownIdFilter());
+
+    // Neither row was probed, so neither count can be trusted.
+    assertEquals(List.of(), w.write("acctA", List.of(
+        new Tweet("t1", "u", "#one", T0), new Tweet("t2", "u", "#two", T0),
+        new Tweet("t3", "u", "#three", T0))));
+
+    assertEquals(3, rows("tweets"));
+    assertEquals(List.of("#one", "#three", "#two"), jdbc.queryForList(
+        "SELECT tag FROM tweet_hashtags ORDER BY tag", String.class));
+  }
+
+  @Test
+  void changeSeqIsTheAccountsPositionAfterTheWrite() {
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 10);
+    assertEquals(0, w.changeSeq("acctA"));
+    w.write("acctA", List.of(tweet("t1"), tweet("t2")));
+
+    assertEquals((long) jdbc.queryForObject(
+        "SELECT MAX(change_seq) FROM tweets", Long.class),
+        w.changeSeq("acctA"));
+    assertEquals(0, w.changeSeq("other"));
+  }
+
+  @Test
+  void writesExtractedTermsOfInsertedTweetsOnly() {
+    store("t1");
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 10);
+
+    w.write("acctA", List.of(
+        new Tweet("t1", "u", "#Old tweet", T0),
+        new Tweet("t2", "u", "#Java and #java @Bob https://x.io/A", T0)));
+
+    assertEquals(List.of("t2|#java|acctA"), jdbc.queryForList(
+        "SELECT tweet_id || '|' || tag || '|' || account_id "
+            + "FROM tweet_hashtags", String.class));
+    assertEquals(List.of("@bob"), jdbc.queryForList(
+        "SELECT handle FROM tweet_mentions", String.class));
+    assertEquals(List.of("https://x.io/A"), jdbc.queryForList(
+        "SELECT url FROM tweet_urls", String.class));
+  }
+
+  /**
+   * Throughput of the bulk path against one probe plus one insert per
+   * tweet, for 100k tweets of which a tenth are already stored. Opt-in:
+   * {@code mvn test -Dtest=TweetBulkWriterTest -Dbench=true}.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "bench", matches = "true")
+  void bulkPathThroughput() {
+    final List<Tweet> batch = new ArrayList<>(BENCH_TWEETS);
+    for (int i = 0; i < BENCH_TWEETS; i++) {
+      batch.add(new Tweet("b" + i, "u", "bench #tag" + (i % 50), T0));
+    }
+
+    final JdbcTemplate perRow = new JdbcTemplate(MigratedH2.create());
+    for (int i = 0; i < BENCH_TWEETS; i += 10) {
+      perRow.update("INSERT INTO tweets (id, account_id, user_handle, "
+          + "text, created_at) VALUES (?, 'acctA', 'u', 'x', ?)",
+          "b" + i, Timestamp.from(T0));
+    }
+    long start = System.nanoTime();
+    int inserted = 0;
+    for (Tweet t : batch) {
+      final Integer n = perRow.queryForObject(
+          "SELECT COUNT(*) FROM tweets WHERE id = ?", Integer.class, t.id());
+      if (n == 0) {
+        inserted += perRow.update("INSERT INTO tweets (id, account_id, "
+            + "user_handle, text, created_at) VALUES (?, 'acctA', ?, ?, ?)",
+            t.id(), t.user(), t.text(), Timestamp.from(t.createdAt()));
+      }
+    }
+    final long perRowNanos = System.nanoTime() - start;
+
+    for (int i = 0; i < BENCH_TWEETS; i += 10) {
+      store("b" + i);
+    }
+    final TweetBulkWriter w = new TweetBulkWriter(jdbc, 1000);
+    start = System.nanoTime();
+    final int bulk = w.write("acctA", batch).size();
+    final long bulkNanos = System.nanoTime() - start;
+
+    assertEquals(inserted, bulk);
+    LOG.info("per-row: {} tweets/s, bulk: {} tweets/s",
+        BENCH_TWEETS * 1_000_000_000L / perRowNanos,
+        BENCH_TWEETS * 1_000_000_000L / bulkNanos);
+    assertTrue(bulkNanos < perRowNanos, "bulk path slower than per-row");
+  }
+}
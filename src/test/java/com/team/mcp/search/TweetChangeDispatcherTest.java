@@ -0,0 +1,96 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.team.mcp.MigratedH2;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Change feed against in-memory H2 with the real migrations.
+ */
+final class TweetChangeDispatcherTest {
+
+  private static final Timestamp T0 =
+      Timestamp.from(Instant.parse("2025-01-01T00:00:00Z"));
+
+  private final List<TweetChange> seen = new ArrayList<>();
+
+  private JdbcTemplate jdbc;
+
+  private TweetChangeDispatcher dispatcher;
+
+  @BeforeEach
+  void migrate() {
+    jdbc = new JdbcTemplate(MigratedH2.create());
+    // No gap timeout: gaps are passed at once and then watched.
+    dispatcher = new TweetChangeDispatcher(jdbc, List.of(seen::addAll),
+        Clock.systemUTC(), true, 2, 0, 60_000);
+  }
+
+  private void insert(final String id) {
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at) VALUES (?, 'acctA', 'u', 'text', ?)", id, T0);
+  }
+
+  private List<String> seenIds() {
+    return seen.stream().map(c -> c.type() + ":" + c.tweet().id()).toList();
+  }
+
+  @Test
+  void startsAtTheEndAndDeliversInSeqOrder() {
+    insert("old");
+    assertEquals(0, dispatcher.poll());
+
+    insert("t1");
+    insert("t2");
+    jdbc.update("INSERT INTO tweet_changes (op, tweet_id, account_id, "
+        + "created_at) VALUES ('D', 't1', 'acctA', ?)", T0);
+    insert("t3");
+
+    assertEquals(4, dispatcher.poll());
+    assertEquals(List.of("INSERT:t1", "INSERT:t2", "DELETE:t1", "INSERT:t3"),
+        seenIds());
+    assertEquals(0, dispatcher.poll());
+  }
+
+  @Test
+  void lateCommitBelowTheCursorIsStillDelivered() {
+    assertEquals(0, dispatcher.poll());
+    // A slow transaction takes its seq and has not committed yet.
+    final long slow = jdbc.queryForObject(
+        "SELECT nextval('tweet_change_seq')", Long.class);
+    insert("t1");
+    assertEquals(1, dispatcher.poll());
+    assertEquals(slow + 1, dispatcher.position());
+
+    jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+        + "created_at, change_seq) VALUES ('late', 'acctA', 'u', 'text', "
+        + "?, ?)", T0, slow);
+    assertEquals(1, dispatcher.poll());
+    assertEquals(List.of("INSERT:t1", "INSERT:late"), seenIds());
+    assertEquals(slow, seen.get(1).seq());
+    assertEquals(0, dispatcher.poll());
+  }
+
+  @Test
+  void failingListenerDoesNotHoldBackOthers() {
+    final List<TweetChange> other = new ArrayList<>();
+    final TweetChangeListener broken = changes -> {
+      throw new IllegalStateException("boom");
+    };
+    final TweetChangeDispatcher d = new TweetChangeDispatcher(jdbc,
+        List.of(broken, other::addAll), Clock.systemUTC(), true, 10, 0, 0);
+    d.poll();
+    insert("t1");
+
+    assertEquals(1, d.poll());
+    assertEquals(1, other.size());
+  }
+}
@@ -0,0 +1,19 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+final class TweetEntityTest {
+
+  @Test
+  void carriesAccountAndFingerprint() {
+    final TweetEntity e = new TweetEntity("t1", "acctA", "alice",
+        "hello world", Instant.parse("2025-01-01T00:00:00Z"));
+
+    assertEquals("acctA", e.getAccountId());
+    assertEquals("alice", e.getUserHandle());
+    assertEquals(SimHash.fingerprint("hello world"), (long) e.getSimhash());
+  }
+}
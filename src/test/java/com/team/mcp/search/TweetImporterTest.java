@@ -0,0 +1,108 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+final class TweetImporterTest {
+
+  private static final String NDJSON = String.join("\n",
+      "{\"id\":\"1\",\"user\":\"a\",\"text\":\"one\","
+          + "\"createdAt\":\"2025-01-01T00:00:00Z\",\"extra\":{\"x\":[1]}}",
+      "{\"id\":\"2\",\"accountId\":\"acctB\",\"user_handle\":\"b\","
+          + "\"text\":\"two\",\"created_at\":1735689600000}",
+      "{\"id\":\"3\",\"user\":\"c\",\"text\":\"no time\"}",
+      "{\"id\":\"4\",\"user\":\"d\",\"text\":\"four\","
+          + "\"createdAt\":\"2025-01-02T00:00:00Z\"}",
+      "");
+
+  /** Records batches instead of writing them. */
+  private static final class RecordingIngestor extends TweetIngestor {
+    private final List<Map<String, List<Tweet>>> batches = new ArrayList<>();
+
+    RecordingIngestor() {
+      super(null, null, null, null, null, 0);
+    }
+
+    @Override
+    public IngestResult ingestBatch(final Map<String, List<Tweet>> b) {
+      batches.add(b);
+      final int n = b.values().stream().mapToInt(List::size).sum();
+      return new IngestResult(n - 1, 1);
+    }
+  }
+
+  @Test
+  void parsesBatchesAndCountsInvalidRows() throws Exception {
+    final RecordingIngestor ing = new RecordingIngestor();
+    final ImportResult r = new TweetImporter(ing, 2, 1).importStream(
+        new ByteArrayInputStream(NDJSON.getBytes(StandardCharsets.UTF_8)),
+        "acctA");
+
+    assertEquals(4, r.rows());
+    assertEquals(1, r.invalid());
+    assertEquals(2, r.batches());
+    assertEquals(1, r.inserted());
+    assertEquals(2, r.skipped());
+    assertEquals(List.of("acctA", "acctB"),
+        new ArrayList<>(ing.batches.get(0).keySet()));
+    assertEquals("4", ing.batches.get(1).get("acctA").get(0).id());
+  }
+
+  @Test
+  void readsGzipInput() throws Exception {
+    final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    try (GZIPOutputStream gz = new GZIPOutputStream(buf)) {
+      gz.write(NDJSON.getBytes(StandardCharsets.UTF_8));
+    }
+    final ImportResult r = new TweetImporter(new RecordingIngestor(), 10, 1)
+        .importStream(new ByteArrayInputStream(buf.toByteArray()), null);
+
+    assertEquals(4, r.rows());
+    assertEquals(3, r.invalid());
+    assertEquals(1, r.batches());
+  }
+
+  @Test
+  void nestedObjectsDoNotLeakIntoTheTweet() throws Exception {
+    final String export = String.join("\n",
+        "{\"id_str\":\"10\",\"user\":{\"id_str\":\"999\","
+            + "\"screen_name\":\"neo\","
+            + "\"created_at\":\"2020-01-01T00:00:00Z\"},"
+            + "\"text\":\"nested\",\"created_at\":\"2025-01-03T00:00:00Z\","
+            + "\"entities\":{\"hashtags\":[{\"text\":\"x\"}]},"
+            + "\"display_text_range\":[0,6]}",
+        "{\"id\":\"12\",\"user\":\"z\",\"text\":\"after\","
+            + "\"createdAt\":\"2025-01-04T00:00:00Z\"}");
+    final RecordingIngestor ing = new RecordingIngestor();
+    final ImportResult r = new TweetImporter(ing, 10, 1).importStream(
+        new ByteArrayInputStream(export.getBytes(StandardCharsets.UTF_8)),
+        "acctA");
+
+    assertEquals(2, r.rows());
+    assertEquals(0, r.invalid());
+    final List<Tweet> got = ing.batches.get(0).get("acctA");
+    assertEquals(new Tweet("10", "neo", "nested",
+        Instant.parse("2025-01-03T00:00:00Z")), got.get(0));
+    assertEquals("12", got.get(1).id());
+  }
+
+  @Test
+  void malformedJsonFails() {
+    final TweetImporter imp = new TweetImporter(new RecordingIngestor(), 2, 1);
+    assertThrows(IOException.class, () -> imp.importStream(
+        new ByteArrayInputStream("{\"id\": ".getBytes(StandardCharsets.UTF_8)),
+        "acctA"));
+  }
+}
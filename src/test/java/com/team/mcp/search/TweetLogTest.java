@@ -0,0 +1,98 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+final class TweetLogTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  private static List<Tweet> tweets(final int from, final int n) {
+    final List<Tweet> out = new ArrayList<>();
+    for (int i = from; i < from + n; i++) {
+      out.add(new Tweet("t" + i, "u", "text é " + i, T0.plusSeconds(i)));
+    }
+    return out;
+  }
+
+  private static List<String> ids(final TweetLog.ReadBatch b) {
+    return b.entries().stream().map(e -> e.tweet().id()).toList();
+  }
+
+  @Test
+  void appendsRotatesAndReadsBackInOrder() throws IOException {
+    final Path dir = Files.createTempDirectory("tweetlog");
+    try (TweetLog log = new TweetLog(dir.toString(), 200)) {
+      final long end = log.append("acctA", tweets(0, 3));
+      log.append("acctB", tweets(3, 3));
+      assertTrue(log.segmentCount() > 1);
+
+      final TweetLog.ReadBatch first = log.read(0, 4);
+      assertEquals(List.of("t0", "t1", "t2", "t3"), ids(first));
+      assertEquals("acctB", first.entries().get(3).accountId());
+      assertEquals("text é 1", first.entries().get(1).tweet().text());
+      assertEquals(T0.plusSeconds(2),
+          first.entries().get(2).tweet().createdAt());
+
+      final TweetLog.ReadBatch rest = log.read(first.nextOffset(), 10);
+      assertEquals(List.of("t4", "t5"), ids(rest));
+      assertEquals(log.endOffset(), rest.nextOffset());
+      assertEquals(List.of("t3", "t4", "t5"), ids(log.read(end, 10)));
+
+      log.deleteBefore(end);
+      assertEquals(List.of("t3", "t4", "t5"), ids(log.read(0, 10)));
+    }
+  }
+
+  @Test
+  void recoversFromTornTail() throws IOException {
+    final Path dir = Files.createTempDirectory("tweetlog");
+    final long end;
+    try (TweetLog log = new TweetLog(dir.toString(), 1 << 20)) {
+      end = log.append("acctA", tweets(0, 2));
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      final Path seg = files.findFirst().orElseThrow();
+      Files.write(seg, new byte[] {0, 0, 0, 50, 1, 2, 3},
+          StandardOpenOption.APPEND);
+    }
+    try (TweetLog log = new TweetLog(dir.toString(), 1 << 20)) {
+      assertEquals(end, log.endOffset());
+      log.append("acctA", tweets(2, 1));
+      assertEquals(List.of("t0", "t1", "t2"), ids(log.read(0, 10)));
+    }
+  }
+
+  @Test
+  void concurrentAppendsAreAllDurable() throws Exception {
+    final Path dir = Files.createTempDirectory("tweetlog");
+    final ExecutorService pool = Executors.newFixedThreadPool(4);
+    try (TweetLog log = new TweetLog(dir.toString(), 4096)) {
+      final List<Future<Long>> fs = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        final int from = i * 5;
+        fs.add(pool.submit(() -> log.append("acctA", tweets(from, 5))));
+      }
+      for (Future<Long> f : fs) {
+        assertTrue(f.get() <= log.endOffset());
+      }
+      assertEquals(200, log.read(0, 1000).entries().size());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.team.mcp.MigratedH2;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+final class TweetRetentionTest {
+
+  private static final Clock MARCH = Clock.fixed(
+      Instant.parse("2025-03-10T12:00:00Z"), ZoneOffset.UTC);
+
+  @Test
+  void partitionNamesRoundTrip() {
+    final YearMonth m = YearMonth.of(2025, 1);
+    assertEquals("tweets_p2025_01", TweetRetention.partitionName(m));
+    assertEquals(m, TweetRetention.parseMonth("tweets_p2025_01"));
+    assertNull(TweetRetention.parseMonth("tweets_default"));
+    assertNull(TweetRetention.parseMonth("archived_tweets_p2025_01"));
+  }
+
+  @Test
+  void partitionBoundsCoverOneUtcMonth() {
+    assertEquals(Instant.parse("2024-12-01T00:00:00Z"),
+        TweetRetention.start(YearMonth.of(2024, 12)));
+    assertEquals("CREATE TABLE IF NOT EXISTS tweets_p2024_12 PARTITION OF "
+            + "tweets FOR VALUES FROM ('2024-12-01T00:00:00Z') "
+            + "TO ('2025-01-01T00:00:00Z')",
+        TweetRetention.createPartitionSql(YearMonth.of(2024, 12)));
+  }
+
+  private static JdbcTemplate seeded(final DataSource ds) {
+    final JdbcTemplate jdbc = new JdbcTemplate(ds);
+    final String[] at = {"2024-12-15T12:00:00Z", "2025-01-15T12:00:00Z",
+        "2025-02-15T12:00:00Z", "2025-03-05T12:00:00Z"};
+    for (int i = 0; i < at.length; i++) {
+      final Timestamp ts = Timestamp.from(Instant.parse(at[i]));
+      jdbc.update("INSERT INTO tweets (id, account_id, user_handle, text, "
+          + "created_at) VALUES (?, 'acctA', 'u', '#t', ?)", "t" + i, ts);
+      jdbc.update("INSERT INTO tweet_hashtags VALUES (?, '#t', 'acctA', ?)",
+          "t" + i, ts);
+    }
+    return jdbc;
+  }
+
+  private static TweetRetention retention(final DataSource ds,
+      final JdbcTemplate jdbc, final String mode) {
+    return new TweetRetention(jdbc,
+        new TransactionTemplate(new DataSourceTransactionManager(ds)),
+        MARCH, true, 1, 2, mode);
+  }
+
+  @Test
+  void emulatedMonthsExpireByRangeDelete() {
+    final DataSource ds = MigratedH2.create();
+    final JdbcTemplate jdbc = seeded(ds);
+    final TweetRetention r = retention(ds, jdbc, "drop");
+
+    assertEquals(List.of("tweets_p2024_12", "tweets_p2025_01",
+            "tweets_p2025_02", "tweets_p2025_03"),
+        r.partitions().stream().map(TweetRetention.Partition::name)
+            .toList());
+    final TweetRetention.RetentionReport report = r.run();
+
+    assertEquals(Instant.parse("2025-02-01T00:00:00Z"), report.cutoff());
+    assertEquals(List.of("tweets_p2024_12", "tweets_p2025_01"),
+        report.partitions());
+    assertEquals(2, report.rows());
+    assertEquals(List.of("t2", "t3"), jdbc.queryForList(
+        "SELECT id FROM tweets ORDER BY id", String.class));
+    assertEquals(List.of("t2", "t3"), jdbc.queryForList(
+        "SELECT tweet_id FROM tweet_hashtags ORDER BY tweet_id",
+        String.class));
+    assertEquals(List.of("P"), jdbc.queryForList(
+        "SELECT op FROM tweet_changes", String.class));
+    assertEquals(report, r.lastReport());
+    assertEquals(0, r.run().rows());
+  }
+
+  @Test
+  void emulatedArchiveKeepsExpiredRows() {
+    final DataSource ds = MigratedH2.create();
+    final JdbcTemplate jdbc = seeded(ds);
+
+    retention(ds, jdbc, "archive").run();
+
+    assertEquals(List.of("t0", "t1"), jdbc.queryForList(
+        "SELECT id FROM tweets_archive ORDER BY id", String.class));
+    assertEquals(2, (int) jdbc.queryForObject(
+        "SELECT COUNT(*) FROM tweets", Integer.class));
+  }
+}
@@ -0,0 +1,29 @@
+package com.team.mcp.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class TweetTermsTest {
+
+  @Test
+  void splitsOnWhitespaceLikeTheTextScanners() {
+    final TweetTerms t = TweetTerms.of(
+        "Hi @Ann! #Spring  #spring #Boot3 # @ see HTTPS://Ex.com/P?q=1 "
+            + "and http://a.b");
+
+    assertEquals(List.of("#spring", "#boot3"), List.copyOf(t.hashtags()));
+    assertEquals(List.of("@ann!"), List.copyOf(t.mentions()));
+    assertEquals(List.of("HTTPS://Ex.com/P?q=1", "http://a.b"),
+        List.copyOf(t.urls()));
+  }
+
+  @Test
+  void nullAndOverlongTermsYieldNothing() {
+    assertTrue(TweetTerms.of(null).hashtags().isEmpty());
+    final String longTag = "#" + "x".repeat(ExtractedTerm.MAX_TERM_LEN);
+    assertTrue(TweetTerms.of(longTag).hashtags().isEmpty());
+  }
+}
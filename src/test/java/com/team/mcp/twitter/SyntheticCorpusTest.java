@@ -0,0 +1,98 @@
+package com.team.mcp.twitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.twitter.dto.Tweet;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+final class SyntheticCorpusTest {
+
+  private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+  private static SyntheticCorpus corpus(final long size) {
+    return new SyntheticCorpus(size, 4, 100, 2000, 50, 1.1, 10, START, 7L);
+  }
+
+  @Test
+  void sameSettingsGiveSameTweets() {
+    assertEquals(corpus(1000).tweet(123), corpus(1000).tweet(123));
+    assertNotEquals(corpus(1000).tweet(123).text(),
+        new SyntheticCorpus(1000, 4, 100, 2000, 50, 1.1, 10, START, 8L)
+            .tweet(123).text());
+  }
+
+  @Test
+  void timestampsGrowAndCoverTheDaysWithADiurnalPeak() {
+    final SyntheticCorpus c = corpus(20_000);
+    final int[] byHour = new int[24];
+    Instant prev = Instant.MIN;
+    for (long i = 0; i < c.size(); i++) {
+      final Instant at = c.tweet(i).createdAt();
+      assertTrue(!at.isBefore(prev));
+      prev = at;
+      byHour[at.atOffset(ZoneOffset.UTC).getHour()]++;
+    }
+    assertTrue(prev.isBefore(START.plusSeconds(10L * 86_400)));
+    assertTrue(byHour[15] > 3 * byHour[3], "peak vs trough");
+  }
+
+  @Test
+  void timelinesArePerAccountNewestFirstAndHonourSinceId() {
+    final SyntheticCorpus c = corpus(1000);
+    final List<Tweet> t = c.timeline("acct1", 5, null);
+    assertEquals(List.of("syn-997", "syn-993", "syn-989", "syn-985",
+        "syn-981"), t.stream().map(Tweet::id).toList());
+    assertEquals(List.of("syn-997", "syn-993"),
+        c.timeline("acct1", 5, "syn-989").stream().map(Tweet::id).toList());
+    assertEquals(c.timeline("acctA", 3, null),
+        c.timeline("acctA", 3, null));
+  }
+
+  @Test
+  void hashtagsFollowZipf() {
+    final SyntheticCorpus c = corpus(5000);
+    final Map<String, Integer> freq = new HashMap<>();
+    for (long i = 0; i < c.size(); i++) {
+      for (String tok : c.tweet(i).text().split(" ")) {
+        if (tok.startsWith("#")) {
+          freq.merge(tok, 1, Integer::sum);
+        }
+      }
+    }
+    final int top = freq.getOrDefault("#" + SyntheticCorpus.word(0), 0);
+    final int tenth = freq.getOrDefault("#" + SyntheticCorpus.word(9), 0);
+    assertTrue(top > 5 * tenth, top + " vs " + tenth);
+  }
+
+  @Test
+  void wordsAreDistinctPerRank() {
+    final Set<String> seen = new HashSet<>();
+    for (int r = 0; r < 10_000; r++) {
+      assertTrue(seen.add(SyntheticCorpus.word(r)));
+    }
+  }
+
+  @Test
+  void tenMillionTweetsNeedNoStorage() {
+    final SyntheticCorpus c = corpus(10_000_000L);
+    assertEquals("syn-9999999", c.tweet(9_999_999L).id());
+    assertEquals(200, c.timeline("acct0", 200, null).size());
+  }
+
+  @Test
+  void clientServesCorpusButDefaultKeepsSeed() throws Exception {
+    final TwitterClient syn = new FakeTwitterClient(corpus(100));
+    assertEquals("syn-96", syn.getHomeTimeline("acct0", 1).get(0).id());
+    final TwitterClient legacy = new FakeTwitterClient();
+    assertEquals("seed-0", legacy.getHomeTimeline("acctA", 1).get(0).id());
+  }
+}
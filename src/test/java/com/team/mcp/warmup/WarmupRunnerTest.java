@@ -0,0 +1,173 @@
+package com.team.mcp.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.team.mcp.MigratedH2;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class WarmupRunnerTest {
+
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.parse("2025-03-01T00:00:00Z"), ZoneOffset.UTC);
+
+  /** Records calls; serves one tool, or any when {@code tool} is null. */
+  private static final class Recorder implements AccountWarmer {
+    private final String tool;
+    private final List<String> calls = new ArrayList<>();
+
+    Recorder(final String servedTool) {
+      this.tool = servedTool;
+    }
+
+    @Override
+    public boolean serves(final String toolName) {
+      return tool == null || tool.equals(toolName);
+    }
+
+    @Override
+    public void warmUp(final String accountId) {
+      if ("boom".equals(accountId)) {
+        throw new IllegalStateException("boom");
+      }
+      calls.add(accountId);
+    }
+  }
+
+  private static WarmupRunner runner(final List<AccountWarmer> warmers,
+      final long budgetMs, final Path snapshot) {
+    return new WarmupRunner(null, warmers, null, CLOCK, true, 3, 24,
+        budgetMs, snapshot == null ? "" : snapshot.toString());
+  }
+
+  private static void audit(final JdbcTemplate jdbc, final String account,
+      final String tool, final int calls) {
+    for (int i = 0; i < calls; i++) {
+      jdbc.update("INSERT INTO tool_call_audit (rpc_method, tool_name, "
+          + "account_id, ok, duration_ms, created_at) "
+          + "VALUES ('tools/call', ?, ?, TRUE, 1, ?)", tool, account,
+          Timestamp.from(CLOCK.instant().minusSeconds(60)));
+    }
+  }
+
+  @Test
+  void planRanksByCallsAndTreatsUnknownToolAsAny() {
+    final Map<String, Map<String, Long>> traffic = new LinkedHashMap<>();
+    traffic.put("b", Map.of("search_tweets", 5L, "suggest_hashtags", 5L));
+    traffic.put("a", Map.of("search_tweets", 10L));
+    final Map<String, Long> anyTool = new HashMap<>();
+    anyTool.put(null, 1L);
+    traffic.put("c", anyTool);
+    traffic.put("d", Map.of("echo_test", 1L));
+
+    final List<WarmupRunner.HotAccount> plan = WarmupRunner.plan(traffic, 3);
+    assertEquals(List.of("a", "b", "c"),
+        plan.stream().map(WarmupRunner.HotAccount::accountId).toList());
+    assertEquals(10L, plan.get(1).calls());
+    assertEquals(Set.of(), plan.get(2).tools());
+  }
+
+  @Test
+  void warmsFromSnapshotOnlyWithMatchingWarmersAndRewritesIt()
+      throws IOException {
+    final Path snap = Files.createTempDirectory("warmup").resolve("s.tsv");
+    Files.write(snap, List.of(
+        "acctA\tsearch_tweets\t9",
+        "acctB\tsuggest_hashtags\t4",
+        "boom\t*\t2",
+        "garbage line"));
+    final Recorder search = new Recorder("search_tweets");
+    final Recorder suggest = new Recorder("suggest_hashtags");
+    final WarmupRunner r = runner(List.of(search, suggest), 60_000, snap);
+    assertEquals(WarmupRunner.State.PENDING, r.report().state());
+
+    final WarmupRunner.WarmupReport rep = r.warm();
+
+    assertEquals(WarmupRunner.State.READY, rep.state());
+    assertEquals(3, rep.planned());
+    assertEquals(3, rep.warmed());
+    assertEquals(2, rep.steps());
+    assertEquals(2, rep.failures());
+    assertEquals(List.of("acctA"), search.calls);
+    assertEquals(List.of("acctB"), suggest.calls);
+    final List<String> lines = Files.readAllLines(snap);
+    assertEquals("acctA\tsearch_tweets\t9", lines.get(0));
+    assertTrue(lines.contains("boom\t*\t2"));
+  }
+
+  @Test
+  void spentBudgetStopsBeforeTheFirstAccount() throws IOException {
+    final Path snap = Files.createTempDirectory("warmup").resolve("s.tsv");
+    Files.write(snap, List.of("acctA\t*\t1"));
+    final Recorder any = new Recorder(null);
+
+    final WarmupRunner.WarmupReport rep =
+        runner(List.of(any), 0, snap).warm();
+
+    assertTrue(rep.truncated());
+    assertEquals(0, rep.warmed());
+    assertTrue(any.calls.isEmpty());
+    assertEquals(WarmupRunner.State.READY, rep.state());
+  }
+
+  @Test
+  void perToolCountsSurviveRefreshes() throws IOException {
+    final Path snap = Files.createTempDirectory("warmup").resolve("s.tsv");
+    final List<String> before = List.of(
+        "acctA\tsearch_tweets\t3",
+        "acctA\tsuggest_hashtags\t2",
+        "acctB\t*\t4");
+    Files.write(snap, before);
+    final WarmupRunner r =
+        runner(List.of(new Recorder(null)), 60_000, snap);
+
+    r.warm();
+    r.refreshSnapshot();
+    r.refreshSnapshot();
+
+    assertEquals(before, Files.readAllLines(snap));
+  }
+
+  @Test
+  void auditReplacesSnapshotAndStaleAccountsFade() throws IOException {
+    final Path snap = Files.createTempDirectory("warmup").resolve("s.tsv");
+    Files.write(snap, List.of(
+        "acctA\tsearch_tweets\t40",
+        "acctA\tsuggest_hashtags\t40",
+        "acctB\tsearch_tweets\t8",
+        "acctB\tsuggest_hashtags\t1"));
+    final JdbcTemplate jdbc = new JdbcTemplate(MigratedH2.create());
+    audit(jdbc, "acctA", "search_tweets", 2);
+    audit(jdbc, "acctA", "suggest_hashtags", 1);
+    final WarmupRunner r = new WarmupRunner(jdbc,
+        List.of(new Recorder(null)), null, CLOCK, true, 3, 24, 60_000,
+        snap.toString());
+
+    r.warm();
+    assertEquals(List.of(
+        "acctB\tsearch_tweets\t4",
+        "acctA\tsearch_tweets\t2",
+        "acctA\tsuggest_hashtags\t1"), Files.readAllLines(snap));
+
+    r.refreshSnapshot();
+    r.refreshSnapshot();
+    assertEquals(List.of(
+        "acctA\tsearch_tweets\t2",
+        "acctA\tsuggest_hashtags\t1",
+        "acctB\tsearch_tweets\t1"), Files.readAllLines(snap));
+  }
+}